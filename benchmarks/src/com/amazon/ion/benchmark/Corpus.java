@@ -0,0 +1,331 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.benchmark;
+
+import com.amazon.ion.IonDatagram;
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.Timestamp;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonTextWriterBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A body of Ion data shared by the benchmarks, materialized once in every
+ * form a benchmark may consume: binary, text and a DOM.
+ * <p>
+ * Corpora are named. The generated corpora are deterministic, so results
+ * are comparable across runs and releases:
+ * <ul>
+ *   <li>{@code records}: flat-ish structs of mixed scalars, the typical
+ *       log/event shape;</li>
+ *   <li>{@code nested}: deeply nested lists, s-expressions and structs;</li>
+ *   <li>{@code strings}: mostly-ASCII string and symbol values;</li>
+ *   <li>{@code numbers}: ints, big ints, decimals and floats.</li>
+ * </ul>
+ * The name {@code ion-tests} selects every "good" file of the ion-tests
+ * suite, found under the directory named by the {@code ion.tests.dir}
+ * system property (by default {@code ../ion-tests/iontestdata/good}).
+ * Any other name is interpreted as the path of an Ion file, text or binary.
+ */
+final class Corpus
+{
+    static final String RECORDS   = "records";
+    static final String NESTED    = "nested";
+    static final String STRINGS   = "strings";
+    static final String NUMBERS   = "numbers";
+    static final String ION_TESTS = "ion-tests";
+
+    private static final long SEED = 0x10_4A_4A_A5L;
+
+    /** Number of top-level values in each generated corpus. */
+    private static final int GENERATED_VALUES = 2000;
+
+    final String      name;
+    final byte[]      binary;
+    final byte[]      text;
+    final IonDatagram datagram;
+
+    private Corpus(String name, byte[] binary, byte[] text, IonDatagram datagram)
+    {
+        this.name = name;
+        this.binary = binary;
+        this.text = text;
+        this.datagram = datagram;
+    }
+
+    /** Returns the encoded bytes of this corpus in the given format. */
+    byte[] bytes(Format format)
+    {
+        return format == Format.BINARY ? binary : text;
+    }
+
+    enum Format { BINARY, TEXT }
+
+    static Corpus load(IonSystem system, String name)
+        throws IOException
+    {
+        byte[] binary;
+        if (RECORDS.equals(name) || NESTED.equals(name)
+            || STRINGS.equals(name) || NUMBERS.equals(name))
+        {
+            binary = generate(name);
+        }
+        else if (ION_TESTS.equals(name))
+        {
+            String dir = System.getProperty("ion.tests.dir",
+                                            "../ion-tests/iontestdata/good");
+            binary = concatenateIonTests(system, new File(dir));
+        }
+        else
+        {
+            IonDatagram dg = system.getLoader().load(readFile(new File(name)));
+            binary = dg.getBytes();
+        }
+
+        IonDatagram datagram = system.getLoader().load(binary);
+
+        ByteArrayOutputStream textOut = new ByteArrayOutputStream();
+        IonWriter textWriter = IonTextWriterBuilder.standard().build(textOut);
+        datagram.writeTo(textWriter);
+        textWriter.close();
+
+        return new Corpus(name, binary, textOut.toByteArray(), datagram);
+    }
+
+
+    //=========================================================================
+    // Generated corpora
+
+
+    private static byte[] generate(String name)
+        throws IOException
+    {
+        Random random = new Random(SEED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = IonBinaryWriterBuilder.standard().build(out);
+        for (int i = 0; i < GENERATED_VALUES; i++)
+        {
+            if (RECORDS.equals(name))
+            {
+                writeRecord(writer, random, i);
+            }
+            else if (NESTED.equals(name))
+            {
+                writeNested(writer, random, 6);
+            }
+            else if (STRINGS.equals(name))
+            {
+                writeStrings(writer, random);
+            }
+            else
+            {
+                writeNumbers(writer, random);
+            }
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static final String[] CATEGORIES =
+        { "books", "music", "garden", "tools", "toys", "grocery", "apparel" };
+
+    private static void writeRecord(IonWriter writer, Random random, int id)
+        throws IOException
+    {
+        writer.setTypeAnnotations("order");
+        writer.stepIn(IonType.STRUCT);
+        {
+            writer.setFieldName("id");
+            writer.writeInt(id);
+            writer.setFieldName("customer");
+            writer.stepIn(IonType.STRUCT);
+            {
+                writer.setFieldName("id");
+                writer.writeInt(random.nextInt(100000));
+                writer.setFieldName("name");
+                writer.writeString(asciiString(random, 5 + random.nextInt(20)));
+            }
+            writer.stepOut();
+            writer.setFieldName("placed");
+            writer.writeTimestamp(Timestamp.forMillis(1500000000000L + random.nextInt(1000000000), 0));
+            writer.setFieldName("total");
+            writer.writeDecimal(BigDecimal.valueOf(random.nextInt(1000000), 2));
+            writer.setFieldName("discount");
+            writer.writeFloat(random.nextDouble());
+            writer.setFieldName("gift");
+            writer.writeBool(random.nextBoolean());
+            writer.setFieldName("items");
+            writer.stepIn(IonType.LIST);
+            {
+                int count = 1 + random.nextInt(5);
+                for (int i = 0; i < count; i++)
+                {
+                    writer.stepIn(IonType.STRUCT);
+                    writer.setFieldName("sku");
+                    writer.writeString("SKU-" + random.nextInt(100000));
+                    writer.setFieldName("category");
+                    writer.writeSymbol(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                    writer.setFieldName("quantity");
+                    writer.writeInt(1 + random.nextInt(10));
+                    writer.stepOut();
+                }
+            }
+            writer.stepOut();
+        }
+        writer.stepOut();
+    }
+
+    private static void writeNested(IonWriter writer, Random random, int depth)
+        throws IOException
+    {
+        if (depth == 0)
+        {
+            writer.writeInt(random.nextInt());
+            return;
+        }
+        IonType[] containers = { IonType.LIST, IonType.SEXP, IonType.STRUCT };
+        IonType type = containers[random.nextInt(containers.length)];
+        writer.stepIn(type);
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++)
+        {
+            if (type == IonType.STRUCT)
+            {
+                writer.setFieldName("f" + i);
+            }
+            writeNested(writer, random, depth - 1);
+        }
+        writer.stepOut();
+    }
+
+    private static void writeStrings(IonWriter writer, Random random)
+        throws IOException
+    {
+        writer.stepIn(IonType.LIST);
+        for (int i = 0; i < 8; i++)
+        {
+            writer.writeString(asciiString(random, 1 + random.nextInt(64)));
+        }
+        // A minority of non-ASCII text keeps the multi-byte paths honest.
+        writer.writeString("naïve café 日本 😀");
+        writer.writeSymbol(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        writer.stepOut();
+    }
+
+    private static void writeNumbers(IonWriter writer, Random random)
+        throws IOException
+    {
+        writer.stepIn(IonType.LIST);
+        writer.writeInt(random.nextInt(128));
+        writer.writeInt(random.nextLong());
+        writer.writeInt(new BigInteger(96, random));
+        writer.writeDecimal(BigDecimal.valueOf(random.nextLong(), random.nextInt(10)));
+        writer.writeDecimal(new BigDecimal(new BigInteger(80, random), 5));
+        writer.writeFloat(random.nextDouble() * 1e6);
+        writer.writeFloat(random.nextFloat());
+        writer.stepOut();
+    }
+
+    private static String asciiString(Random random, int length)
+    {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+        {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+
+    //=========================================================================
+    // Corpora on disk
+
+
+    private static byte[] concatenateIonTests(IonSystem system, File dir)
+        throws IOException
+    {
+        if (!dir.isDirectory())
+        {
+            throw new IOException("ion-tests not found at " + dir.getAbsolutePath()
+                                  + "; set -Dion.tests.dir or run"
+                                  + " `git submodule update --init`");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        appendIonTests(system, dir, out);
+        return out.toByteArray();
+    }
+
+    private static void appendIonTests(IonSystem system, File dir, ByteArrayOutputStream out)
+        throws IOException
+    {
+        File[] files = dir.listFiles();
+        Arrays.sort(files);
+        for (File file : files)
+        {
+            if (file.isDirectory())
+            {
+                appendIonTests(system, file, out);
+            }
+            else if (file.getName().endsWith(".ion") || file.getName().endsWith(".10n"))
+            {
+                try
+                {
+                    IonDatagram dg = system.getLoader().load(readFile(file));
+                    // Some files hold symbols without known text, which
+                    // cannot be re-encoded as text; leave those out.
+                    dg.toString();
+                    out.write(dg.getBytes());
+                }
+                catch (IonException e)
+                {
+                    // Not usable for a mixed-format corpus; skip it.
+                }
+            }
+        }
+    }
+
+    private static byte[] readFile(File file)
+        throws IOException
+    {
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[32 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0)
+            {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.benchmark;
+
+import com.amazon.ion.IonDatagram;
+import com.amazon.ion.IonLoader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonValue;
+import com.amazon.ion.benchmark.Corpus.Format;
+import com.amazon.ion.system.IonSystemBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the DOM: loading through {@link IonLoader} (the lite
+ * implementation, {@code IonLoaderLite}), deep cloning and hashing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomBenchmark
+{
+    @Param({Corpus.RECORDS, Corpus.NESTED, Corpus.STRINGS, Corpus.NUMBERS})
+    public String corpus;
+
+    @Param({"BINARY", "TEXT"})
+    public Format format;
+
+    private IonLoader loader;
+    private byte[] data;
+    private IonDatagram datagram;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        IonSystem system = IonSystemBuilder.standard().build();
+        Corpus c = Corpus.load(system, corpus);
+        data = c.bytes(format);
+        datagram = c.datagram;
+        loader = system.getLoader();
+    }
+
+    @Benchmark
+    public IonDatagram loadBytes()
+    {
+        return loader.load(data);
+    }
+
+    @Benchmark
+    public IonDatagram loadStream()
+        throws IOException
+    {
+        return loader.load(new ByteArrayInputStream(data));
+    }
+
+    @Benchmark
+    public IonDatagram cloneDatagram()
+    {
+        return datagram.clone();
+    }
+
+    /** Clones value by value, as applications copying records would. */
+    @Benchmark
+    public void cloneValues(Blackhole bh)
+    {
+        for (IonValue value : datagram)
+        {
+            bh.consume(value.clone());
+        }
+    }
+
+    @Benchmark
+    public void hashValues(Blackhole bh)
+    {
+        for (IonValue value : datagram)
+        {
+            bh.consume(value.hashCode());
+        }
+    }
+}
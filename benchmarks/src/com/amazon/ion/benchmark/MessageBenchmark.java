@@ -0,0 +1,172 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.benchmark;
+
+import com.amazon.ion.IonDatagram;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonValue;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.ResettableWriter;
+import com.amazon.ion.benchmark.Corpus.Format;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import com.amazon.ion.system.IonTextWriterBuilder;
+import com.amazon.ion.system.IonWriterBuilder;
+import com.amazon.ion.util.IonReaderPool;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the per-message cost of reading and writing many small messages,
+ * each a single top-level value of a corpus with its own Ion version marker
+ * and symbol table, as an RPC layer would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark
+{
+    @Param({Corpus.RECORDS, Corpus.NUMBERS})
+    public String corpus;
+
+    @Param({"BINARY", "TEXT"})
+    public Format format;
+
+    private IonReaderBuilder builder;
+    private IonReaderPool pool;
+    private byte[][] messages;
+    private IonValue[] values;
+    private IonWriterBuilder writerBuilder;
+    private ByteArrayOutputStream out;
+    private IonWriter writer;
+    private ResettableWriter resettable;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        IonSystem system = IonSystemBuilder.standard().build();
+        IonDatagram datagram = Corpus.load(system, corpus).datagram;
+        messages = new byte[datagram.size()][];
+        values = new IonValue[datagram.size()];
+        for (int i = 0; i < messages.length; i++)
+        {
+            values[i] = datagram.get(i);
+            IonDatagram message = system.newDatagram();
+            message.add(system.clone(values[i]));
+            messages[i] = (format == Format.BINARY
+                           ? message.getBytes()
+                           : message.toString().getBytes("UTF-8"));
+        }
+        builder = IonReaderBuilder.standard().immutable();
+        pool = new IonReaderPool(builder);
+
+        writerBuilder = (format == Format.BINARY
+                         ? IonBinaryWriterBuilder.standard().immutable()
+                         : IonTextWriterBuilder.standard().immutable());
+        out = new ByteArrayOutputStream();
+        writer = writerBuilder.build(out);
+        resettable = writer.asFacet(ResettableWriter.class);
+    }
+
+    /** The baseline: a new reader for each message. */
+    @Benchmark
+    public void readBuilt(Blackhole bh)
+        throws IOException
+    {
+        for (byte[] message : messages)
+        {
+            IonReader reader = builder.build(message);
+            ReadBenchmark.traverse(reader, bh);
+            reader.close();
+        }
+    }
+
+    /** One reader per thread, reset for each message. */
+    @Benchmark
+    public void readPooled(Blackhole bh)
+    {
+        for (byte[] message : messages)
+        {
+            ReadBenchmark.traverse(pool.read(message), bh);
+        }
+    }
+
+    /** The baseline: a new writer for each message. */
+    @Benchmark
+    public void writeBuilt(Blackhole bh)
+        throws IOException
+    {
+        for (IonValue value : values)
+        {
+            out.reset();
+            IonWriter w = writerBuilder.build(out);
+            value.writeTo(w);
+            w.finish();
+            bh.consume(out.size());
+        }
+    }
+
+    /** One writer, reset for each message. */
+    @Benchmark
+    public void writeReset(Blackhole bh)
+        throws IOException
+    {
+        for (IonValue value : values)
+        {
+            out.reset();
+            resettable.reset(out);
+            value.writeTo(writer);
+            writer.finish();
+            bh.consume(out.size());
+        }
+    }
+
+    /**
+     * One writer, reset for each message while retaining its local symbols,
+     * which the reset declares again in each message.
+     */
+    @Benchmark
+    public void writeResetRetainingSymbols(Blackhole bh)
+        throws IOException
+    {
+        for (IonValue value : values)
+        {
+            value.writeTo(writer);
+            resettable.reset(out, true);
+            bh.consume(out.size());
+            out.reset();
+        }
+    }
+}
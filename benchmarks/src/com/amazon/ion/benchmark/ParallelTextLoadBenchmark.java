@@ -0,0 +1,115 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.benchmark;
+
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonValue;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import com.amazon.ion.util.ParallelTextLoader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures loading newline-delimited text corpora with
+ * {@link ParallelTextLoader} across the threads of a {@link ForkJoinPool},
+ * against a single sequential reader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelTextLoadBenchmark
+{
+    @Param({Corpus.RECORDS, Corpus.NESTED})
+    public String corpus;
+
+    @Param({"1", "2", "4"})
+    public int parallelism;
+
+    /** The size in bytes of the chunks parsed concurrently. */
+    @Param({"262144"})
+    public int chunkSize;
+
+    private IonSystem system;
+    private IonReaderBuilder builder;
+    private byte[] data;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        system = IonSystemBuilder.standard().build();
+        StringBuilder text = new StringBuilder();
+        for (IonValue value : Corpus.load(system, corpus).datagram)
+        {
+            text.append(value).append('\n');
+        }
+        data = text.toString().getBytes("UTF-8");
+        builder = IonReaderBuilder.standard().immutable();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        pool.shutdown();
+    }
+
+    /** The baseline: one reader over all the data. */
+    @Benchmark
+    public void loadSequential(Blackhole bh)
+    {
+        consume(system.iterate(builder.build(data)), bh);
+    }
+
+    /** Splits the data into chunks, then loads them concurrently. */
+    @Benchmark
+    public void loadParallel(Blackhole bh)
+    {
+        consume(ParallelTextLoader.build(system, builder,
+                                         ByteBuffer.wrap(data), chunkSize)
+                                  .iterate(pool),
+                bh);
+    }
+
+    private static void consume(Iterator<IonValue> values, Blackhole bh)
+    {
+        while (values.hasNext())
+        {
+            bh.consume(values.next());
+        }
+    }
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.benchmark;
+
+import com.amazon.ion.AllocationFreeReader;
+import com.amazon.ion.FieldSeekingReader;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonType;
+import com.amazon.ion.benchmark.Corpus.Format;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import com.amazon.ion.util.PathProjection;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link IonReader}s built by {@link IonReaderBuilder} over each
+ * kind of input source, in both encodings.
+ * <p>
+ * Binary input exercises the {@code IonReaderBinaryRawX} family and text
+ * input the {@code IonReaderTextRawX} family.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadBenchmark
+{
+    @Param({Corpus.RECORDS, Corpus.NESTED, Corpus.STRINGS, Corpus.NUMBERS})
+    public String corpus;
+
+    @Param({"BINARY", "TEXT"})
+    public Format format;
+
+    /** How the data is handed to the builder. */
+    public enum Source { BYTES, STREAM }
+
+    @Param({"BYTES", "STREAM"})
+    public Source source;
+
+    /**
+     * The string cache size of the readers; none by default. Compare with,
+     * for example, {@code -p stringCacheSize=0,4096}.
+     */
+    @Param({"0"})
+    public int stringCacheSize;
+
+    private IonReaderBuilder builder;
+    private byte[] data;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        IonSystem system = IonSystemBuilder.standard().build();
+        data = Corpus.load(system, corpus).bytes(format);
+        builder = IonReaderBuilder.standard()
+                                  .withStringCacheSize(stringCacheSize)
+                                  .immutable();
+    }
+
+    private IonReader newReader()
+    {
+        switch (source)
+        {
+            case STREAM:
+                return builder.build(new ByteArrayInputStream(data));
+            default:
+                return builder.build(data);
+        }
+    }
+
+    /** Materializes every value, field name and annotation. */
+    @Benchmark
+    public void fullyTraverse(Blackhole bh)
+        throws IOException
+    {
+        IonReader reader = newReader();
+        traverse(reader, bh);
+        reader.close();
+    }
+
+    /**
+     * Reads every value as {@link #fullyTraverse} does, but through the
+     * {@link AllocationFreeReader} facet where the reader supports it.
+     */
+    @Benchmark
+    public void fullyTraverseAllocationFree(Blackhole bh)
+        throws IOException
+    {
+        IonReader reader = newReader();
+        AllocationFreeReader facet = reader.asFacet(AllocationFreeReader.class);
+        if (facet == null)
+        {
+            traverse(reader, bh);
+        }
+        else
+        {
+            traverse(reader, facet, new int[8], new StringBuilder(), bh);
+        }
+        reader.close();
+    }
+
+    /**
+     * Materializes only string and symbol values, isolating UTF-8 decoding.
+     * The {@code records} corpus is ASCII-heavy and the {@code strings}
+     * corpus mixes in multi-byte characters.
+     */
+    @Benchmark
+    public void readStrings(Blackhole bh)
+        throws IOException
+    {
+        IonReader reader = newReader();
+        readStrings(reader, bh);
+        reader.close();
+    }
+
+    private static void readStrings(IonReader reader, Blackhole bh)
+    {
+        IonType type;
+        while ((type = reader.next()) != null)
+        {
+            if (IonType.isText(type))
+            {
+                if (!reader.isNullValue())
+                {
+                    bh.consume(reader.stringValue());
+                }
+            }
+            else if (IonType.isContainer(type))
+            {
+                reader.stepIn();
+                readStrings(reader, bh);
+                reader.stepOut();
+            }
+        }
+    }
+
+    /**
+     * Materializes only int, decimal and float values, isolating number
+     * parsing. The {@code numbers} corpus is made of these.
+     */
+    @Benchmark
+    public void readNumbers(Blackhole bh)
+        throws IOException
+    {
+        IonReader reader = newReader();
+        readNumbers(reader, bh);
+        reader.close();
+    }
+
+    private static void readNumbers(IonReader reader, Blackhole bh)
+    {
+        IonType type;
+        while ((type = reader.next()) != null)
+        {
+            if (reader.isNullValue())
+            {
+                continue;
+            }
+            switch (type)
+            {
+                case INT:
+                    switch (reader.getIntegerSize())
+                    {
+                        case BIG_INTEGER:
+                            bh.consume(reader.bigIntegerValue());
+                            break;
+                        default:
+                            bh.consume(reader.longValue());
+                            break;
+                    }
+                    break;
+                case FLOAT:
+                    bh.consume(reader.doubleValue());
+                    break;
+                case DECIMAL:
+                    bh.consume(reader.decimalValue());
+                    break;
+                case LIST:
+                case SEXP:
+                case STRUCT:
+                    reader.stepIn();
+                    readNumbers(reader, bh);
+                    reader.stepOut();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /** The fields of the top-level structs read by the projection benchmarks. */
+    private static final String[] PROJECTED_FIELDS = { "id", "total" };
+
+    /**
+     * Reads two fields of each top-level struct by checking the name of
+     * every field, the baseline for {@link #projectFieldsBySeeking}.
+     */
+    @Benchmark
+    public void projectFieldsByName(Blackhole bh)
+        throws IOException
+    {
+        IonReader reader = newReader();
+        while (reader.next() == IonType.STRUCT)
+        {
+            reader.stepIn();
+            while (reader.next() != null)
+            {
+                String name = reader.getFieldName();
+                for (String projected : PROJECTED_FIELDS)
+                {
+                    if (projected.equals(name))
+                    {
+                        bh.consume(reader.getType());
+                    }
+                }
+            }
+            reader.stepOut();
+        }
+        reader.close();
+    }
+
+    /** Reads two fields of each top-level struct through {@link FieldSeekingReader}. */
+    @Benchmark
+    public void projectFieldsBySeeking(Blackhole bh)
+        throws IOException
+    {
+        IonReader reader = newReader();
+        FieldSeekingReader seeker = reader.asFacet(FieldSeekingReader.class);
+        while (reader.next() == IonType.STRUCT)
+        {
+            reader.stepIn();
+            while (seeker.seekField(PROJECTED_FIELDS) >= 0)
+            {
+                bh.consume(reader.getType());
+            }
+            reader.stepOut();
+        }
+        reader.close();
+    }
+
+    /** The nested values read by {@link #projectPaths}. */
+    private static final PathProjection PROJECTION =
+        PathProjection.compile("customer.id", "items[*].sku");
+
+    /** Reads nested values of each top-level struct through {@link PathProjection}. */
+    @Benchmark
+    public void projectPaths(final Blackhole bh)
+        throws IOException
+    {
+        IonReader reader = newReader();
+        PROJECTION.project(reader, new PathProjection.Handler()
+        {
+            public void match(int path, IonReader r)
+            {
+                bh.consume(r.getType());
+            }
+        });
+        reader.close();
+    }
+
+    /** Visits only the top-level values, skipping their content. */
+    @Benchmark
+    public void skipTopLevel(Blackhole bh)
+        throws IOException
+    {
+        IonReader reader = newReader();
+        IonType type;
+        while ((type = reader.next()) != null)
+        {
+            bh.consume(type);
+        }
+        reader.close();
+    }
+
+    static void traverse(IonReader reader, Blackhole bh)
+    {
+        IonType type;
+        while ((type = reader.next()) != null)
+        {
+            if (reader.isInStruct())
+            {
+                bh.consume(reader.getFieldNameSymbol());
+            }
+            bh.consume(reader.getTypeAnnotationSymbols());
+            if (reader.isNullValue())
+            {
+                continue;
+            }
+            switch (type)
+            {
+                case BOOL:
+                    bh.consume(reader.booleanValue());
+                    break;
+                case INT:
+                    switch (reader.getIntegerSize())
+                    {
+                        case BIG_INTEGER:
+                            bh.consume(reader.bigIntegerValue());
+                            break;
+                        default:
+                            bh.consume(reader.longValue());
+                            break;
+                    }
+                    break;
+                case FLOAT:
+                    bh.consume(reader.doubleValue());
+                    break;
+                case DECIMAL:
+                    bh.consume(reader.decimalValue());
+                    break;
+                case TIMESTAMP:
+                    bh.consume(reader.timestampValue());
+                    break;
+                case SYMBOL:
+                    bh.consume(reader.symbolValue());
+                    break;
+                case STRING:
+                    bh.consume(reader.stringValue());
+                    break;
+                case CLOB:
+                case BLOB:
+                    bh.consume(reader.newBytes());
+                    break;
+                case LIST:
+                case SEXP:
+                case STRUCT:
+                    reader.stepIn();
+                    traverse(reader, bh);
+                    reader.stepOut();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    static void traverse(IonReader reader, AllocationFreeReader facet,
+                         int[] sids, StringBuilder text, Blackhole bh)
+    {
+        IonType type;
+        while ((type = reader.next()) != null)
+        {
+            bh.consume(facet.getFieldId());
+            bh.consume(facet.getTypeAnnotationIds(sids));
+            if (reader.isNullValue())
+            {
+                continue;
+            }
+            switch (type)
+            {
+                case BOOL:
+                    bh.consume(reader.booleanValue());
+                    break;
+                case INT:
+                    switch (reader.getIntegerSize())
+                    {
+                        case BIG_INTEGER:
+                            bh.consume(reader.bigIntegerValue());
+                            break;
+                        default:
+                            bh.consume(reader.longValue());
+                            break;
+                    }
+                    break;
+                case FLOAT:
+                    bh.consume(reader.doubleValue());
+                    break;
+                case DECIMAL:
+                    bh.consume(facet.decimalScale());
+                    try
+                    {
+                        bh.consume(facet.decimalUnscaledValue());
+                    }
+                    catch (ArithmeticException e)
+                    {
+                        bh.consume(reader.decimalValue());
+                    }
+                    break;
+                case TIMESTAMP:
+                    bh.consume(facet.timestampEpochMillis());
+                    bh.consume(facet.timestampNanos());
+                    bh.consume(facet.timestampLocalOffset());
+                    break;
+                case SYMBOL:
+                    bh.consume(facet.symbolValueId());
+                    break;
+                case STRING:
+                    text.setLength(0);
+                    facet.appendStringValue(text);
+                    bh.consume(text.length());
+                    break;
+                case CLOB:
+                case BLOB:
+                    bh.consume(reader.newBytes());
+                    break;
+                case LIST:
+                case SEXP:
+                case STRUCT:
+                    reader.stepIn();
+                    traverse(reader, facet, sids, text, bh);
+                    reader.stepOut();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.benchmark;
+
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.benchmark.Corpus.Format;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import com.amazon.ion.util.TopLevelValueSplitter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures full traversal of binary corpora split across the threads of a
+ * {@link ForkJoinPool} by {@link TopLevelValueSplitter}, against a single
+ * sequential reader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitReadBenchmark
+{
+    @Param({Corpus.RECORDS, Corpus.NESTED})
+    public String corpus;
+
+    @Param({"1", "2", "4"})
+    public int parallelism;
+
+    /** The size in bytes below which ranges aren't split further. */
+    @Param({"65536"})
+    public long minSplitSize;
+
+    private IonReaderBuilder builder;
+    private byte[] data;
+    private TopLevelValueSplitter splitter;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        IonSystem system = IonSystemBuilder.standard().build();
+        data = Corpus.load(system, corpus).bytes(Format.BINARY);
+        builder = IonReaderBuilder.standard().immutable();
+        splitter = TopLevelValueSplitter.build(builder, ByteBuffer.wrap(data));
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        pool.shutdown();
+    }
+
+    /** The baseline: one reader over all the data. */
+    @Benchmark
+    public void traverseSequential(Blackhole bh)
+        throws IOException
+    {
+        IonReader reader = builder.build(data);
+        ReadBenchmark.traverse(reader, bh);
+        reader.close();
+    }
+
+    /** Splits data indexed beforehand. */
+    @Benchmark
+    public void traverseSplit(Blackhole bh)
+    {
+        splitter.forEach(pool, minSplitSize, handler(bh));
+    }
+
+    /** Indexes the data, then splits it. */
+    @Benchmark
+    public void indexAndTraverseSplit(Blackhole bh)
+    {
+        TopLevelValueSplitter.build(builder, ByteBuffer.wrap(data))
+                             .forEach(pool, minSplitSize, handler(bh));
+    }
+
+    private static TopLevelValueSplitter.Handler handler(final Blackhole bh)
+    {
+        return new TopLevelValueSplitter.Handler()
+        {
+            public void value(int value, IonReader reader)
+            {
+                bh.consume(reader.getTypeAnnotationSymbols());
+                switch (reader.getType())
+                {
+                    case LIST:
+                    case SEXP:
+                    case STRUCT:
+                        if (!reader.isNullValue())
+                        {
+                            reader.stepIn();
+                            ReadBenchmark.traverse(reader, bh);
+                            reader.stepOut();
+                        }
+                        break;
+                    default:
+                        bh.consume(reader.getType());
+                        break;
+                }
+            }
+        };
+    }
+}
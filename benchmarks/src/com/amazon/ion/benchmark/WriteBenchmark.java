@@ -0,0 +1,206 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.benchmark;
+
+import com.amazon.ion.IonDatagram;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonBinaryWriterBuilder.LengthPreallocation;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import com.amazon.ion.system.IonTextWriterBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link IonWriter}s built by each {@link IonBinaryWriterBuilder}
+ * and {@link IonTextWriterBuilder} configuration.
+ * <p>
+ * Binary writers exercise {@code IonManagedBinaryWriter} and text writers
+ * {@code IonWriterSystemText}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteBenchmark
+{
+    /** The builder configurations under test. */
+    public enum WriterConfig
+    {
+        BINARY
+        {
+            @Override
+            IonWriter build(OutputStream out)
+            {
+                return IonBinaryWriterBuilder.standard().build(out);
+            }
+        },
+        BINARY_LST_APPEND
+        {
+            @Override
+            IonWriter build(OutputStream out)
+            {
+                return IonBinaryWriterBuilder.standard()
+                    .withLocalSymbolTableAppendEnabled()
+                    .build(out);
+            }
+        },
+        BINARY_FLOAT32
+        {
+            @Override
+            IonWriter build(OutputStream out)
+            {
+                return IonBinaryWriterBuilder.standard()
+                    .withFloatBinary32Enabled()
+                    .build(out);
+            }
+        },
+        BINARY_STREAM_COPY
+        {
+            @Override
+            IonWriter build(OutputStream out)
+            {
+                return IonBinaryWriterBuilder.standard()
+                    .withStreamCopyOptimized(true)
+                    .build(out);
+            }
+        },
+        BINARY_PADDED_2
+        {
+            @Override
+            IonWriter build(OutputStream out)
+            {
+                return IonBinaryWriterBuilder.standard()
+                    .withLengthPreallocation(LengthPreallocation.PADDED_2)
+                    .build(out);
+            }
+        },
+        BINARY_COMPACTED
+        {
+            @Override
+            IonWriter build(OutputStream out)
+            {
+                return IonBinaryWriterBuilder.standard()
+                    .withLengthPreallocation(LengthPreallocation.COMPACTED)
+                    .build(out);
+            }
+        },
+        BINARY_ADAPTIVE
+        {
+            @Override
+            IonWriter build(OutputStream out)
+            {
+                return IonBinaryWriterBuilder.standard()
+                    .withLengthPreallocation(LengthPreallocation.ADAPTIVE)
+                    .build(out);
+            }
+        },
+        TEXT
+        {
+            @Override
+            IonWriter build(OutputStream out)
+            {
+                return IonTextWriterBuilder.standard().build(out);
+            }
+        },
+        TEXT_PRETTY
+        {
+            @Override
+            IonWriter build(OutputStream out)
+            {
+                return IonTextWriterBuilder.pretty().build(out);
+            }
+        },
+        TEXT_JSON
+        {
+            @Override
+            IonWriter build(OutputStream out)
+            {
+                return IonTextWriterBuilder.json().build(out);
+            }
+        };
+
+        abstract IonWriter build(OutputStream out);
+    }
+
+    @Param({Corpus.RECORDS, Corpus.NESTED, Corpus.STRINGS, Corpus.NUMBERS})
+    public String corpus;
+
+    @Param({"BINARY", "BINARY_LST_APPEND", "BINARY_FLOAT32", "BINARY_STREAM_COPY",
+            "BINARY_PADDED_2", "BINARY_COMPACTED", "BINARY_ADAPTIVE", "TEXT", "TEXT_PRETTY", "TEXT_JSON"})
+    public WriterConfig writer;
+
+    private IonDatagram datagram;
+    private byte[] binary;
+    private IonReaderBuilder readerBuilder;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        IonSystem system = IonSystemBuilder.standard().build();
+        Corpus data = Corpus.load(system, corpus);
+        datagram = data.datagram;
+        binary = data.binary;
+        readerBuilder = IonReaderBuilder.standard().immutable();
+        out = new ByteArrayOutputStream(binary.length * 4);
+    }
+
+    /** Serializes a DOM. */
+    @Benchmark
+    public int writeFromDom()
+        throws IOException
+    {
+        out.reset();
+        IonWriter w = writer.build(out);
+        datagram.writeTo(w);
+        w.close();
+        return out.size();
+    }
+
+    /** Transcodes from a binary reader, as a streaming pipeline would. */
+    @Benchmark
+    public int writeFromReader()
+        throws IOException
+    {
+        out.reset();
+        IonReader reader = readerBuilder.build(binary);
+        IonWriter w = writer.build(out);
+        w.writeValues(reader);
+        w.close();
+        reader.close();
+        return out.size();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion;
+
+import com.amazon.ion.Timestamp.Precision;
+import java.nio.BufferOverflowException;
+import java.nio.CharBuffer;
+
+/**
+ * An {@link IonReader} facet providing access to the current value without
+ * allocating objects, for applications that read values at high rates.
+ * <p>
+ * <b>WARNING:</b> This interface should not be implemented or extended by
+ * code outside of this library.
+ * <p>
+ * This functionality may be accessed as a facet of binary {@link IonReader}s.
+ * The accessors decode the current value into state that the reader reuses
+ * from one value to the next, so they may be called repeatedly and mixed
+ * with the value methods of the reader, which then build their results from
+ * that state. Values of {@code int}, {@code float} and {@code bool} types are
+ * already read without allocation by {@link IonReader#longValue()},
+ * {@link IonReader#doubleValue()} and {@link IonReader#booleanValue()}.
+ * <p>
+ * As with the reader's value methods, calling an accessor on a value of
+ * another type throws {@link IllegalStateException}, and calling it on a
+ * null value throws {@link NullValueException}.
+ */
+public interface AllocationFreeReader
+{
+    /**
+     * The value of {@link #timestampLocalOffset()} for timestamps with an
+     * unknown local offset.
+     */
+    public static final int UNKNOWN_OFFSET = Integer.MIN_VALUE;
+
+    /**
+     * Gets the symbol ID of the field name of the current value.
+     *
+     * @return the symbol ID, or {@link SymbolTable#UNKNOWN_SYMBOL_ID} if the
+     * current value is not in a struct.
+     */
+    public int getFieldId();
+
+    /**
+     * Copies the symbol IDs of the annotations of the current value.
+     *
+     * @param sids receives the symbol IDs of as many annotations as it can
+     * hold.
+     *
+     * @return the number of annotations of the current value, which may
+     * exceed the length of {@code sids}.
+     */
+    public int getTypeAnnotationIds(int[] sids);
+
+    /**
+     * Gets the symbol ID of the current symbol value.
+     */
+    public int symbolValueId();
+
+    /**
+     * Appends the text of the current string or symbol value.
+     *
+     * @throws UnknownSymbolException if the current value is a symbol whose
+     * text is unknown.
+     */
+    public void appendStringValue(StringBuilder destination);
+
+    /**
+     * Puts the text of the current string or symbol value into the given
+     * buffer, at its position.
+     *
+     * @return the number of chars put.
+     *
+     * @throws BufferOverflowException if the remaining space in
+     * {@code destination} is too small.
+     * @throws UnknownSymbolException if the current value is a symbol whose
+     * text is unknown.
+     */
+    public int putStringValue(CharBuffer destination);
+
+    /**
+     * Gets the unscaled value, or coefficient, of the current decimal value.
+     * The decimal value is {@code decimalUnscaledValue() * 10^-decimalScale()};
+     * negative zero has an unscaled value of zero.
+     *
+     * @throws ArithmeticException if the unscaled value does not fit in a
+     * {@code long}.
+     */
+    public long decimalUnscaledValue();
+
+    /**
+     * Gets the scale of the current decimal value, which is the negation of
+     * its exponent.
+     */
+    public int decimalScale();
+
+    /**
+     * Gets the precision of the current timestamp value.
+     */
+    public Precision timestampPrecision();
+
+    /**
+     * Gets the current timestamp value as the number of milliseconds since
+     * the epoch, 1970-01-01T00:00:00.000Z, dropping any finer fractional
+     * seconds.
+     */
+    public long timestampEpochMillis();
+
+    /**
+     * Gets the fractional seconds of the current timestamp value, in
+     * nanoseconds, dropping any finer digits.
+     *
+     * @return a value from 0 to 999,999,999.
+     */
+    public int timestampNanos();
+
+    /**
+     * Gets the local offset of the current timestamp value.
+     *
+     * @return the offset from UTC in minutes, or {@link #UNKNOWN_OFFSET}.
+     */
+    public int timestampLocalOffset();
+}
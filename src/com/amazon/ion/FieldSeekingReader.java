@@ -0,0 +1,55 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion;
+
+/**
+ * An {@link IonReader} facet that finds fields of a struct by name without
+ * materializing the names or values of the fields in between.
+ * <p>
+ * <b>WARNING:</b> This interface should not be implemented or extended by
+ * code outside of this library.
+ * <p>
+ * This functionality may be accessed as a facet of readers of Ion binary
+ * and text data. Binary readers compare the symbol IDs of field names, each
+ * of which is resolved at most once per array of names and symbol table,
+ * and skip unwanted values by their length. Text readers compare field
+ * names as they are scanned, without creating strings for those that
+ * don't match.
+ */
+public interface FieldSeekingReader
+{
+    /**
+     * Advances the reader within the current struct to the next value
+     * whose field name is one of the given names, skipping any other
+     * values. The reader is then positioned on that value exactly as if
+     * {@link IonReader#next()} had returned it.
+     * <p>
+     * Pass the same array to successive calls: the resolution of field
+     * names is cached for each of the arrays recently passed, which must
+     * not be modified in the meantime.
+     *
+     * @param fieldNames the names of the fields to find. Must not be null
+     * nor contain null.
+     *
+     * @return the index in {@code fieldNames} of the name of the field
+     * found, or -1 if the end of the struct was reached first, in which case
+     * the reader is positioned as if {@link IonReader#next()} had returned
+     * null.
+     *
+     * @throws IllegalStateException if the reader is not in a struct.
+     */
+    public int seekField(String[] fieldNames);
+}
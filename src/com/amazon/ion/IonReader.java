@@ -92,6 +92,22 @@ import java.util.Iterator;
  * It allows the user to reposition the reader to a {@link Span} over the
  * same reader instance or another reader with the same source.
  *
+ * <h3>The {@link AllocationFreeReader} Facet</h3>
+ * This facet is available on readers of Ion binary data.
+ * It reads string, decimal and timestamp values, as well as symbol IDs,
+ * without allocating objects, for high-rate ingestion.
+ *
+ * <h3>The {@link FieldSeekingReader} Facet</h3>
+ * This facet is available on readers of Ion binary and text data.
+ * It advances within a struct to the next field with one of a set of names,
+ * skipping the others without materializing their names or values.
+ *
+ * <h3>The {@link ResettableReader} Facet</h3>
+ * This facet is available on readers of Ion binary and text data created
+ * from a byte array or a heap {@link java.nio.ByteBuffer ByteBuffer}.
+ * It re-points the reader at other data of the same format, reusing its
+ * buffers, so that one reader can read many small messages in turn.
+ *
  * <h2>Span Facets</h2>
  * Readers that support the {@link SpanProvider} facet vend {@link Span}s that
  * are also faceted.
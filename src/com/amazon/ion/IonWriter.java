@@ -64,6 +64,10 @@ import java.util.Date;
  * The writer may have internal buffers and without closing, flushing, or
  * finishing it, it may not have written everything to the underlying data
  * sink.
+ * <p>
+ * Rather than building a writer for each of many small streams, a writer
+ * built over an {@link java.io.OutputStream} may be reused via its
+ * {@link ResettableWriter} facet.
  *
  * <h2>Exception Handling</h2>
  * {@code IonWriter} is a generic interface for generating Ion data, and it's
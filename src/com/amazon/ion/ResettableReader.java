@@ -0,0 +1,48 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+
+package com.amazon.ion;
+
+/**
+ * An {@link IonReader} facet that re-points the reader at other data,
+ * reusing its buffers and other internal state rather than allocating new
+ * ones. This saves the cost of building a reader for each of many small
+ * messages; see {@link com.amazon.ion.util.IonReaderPool}.
+ * <p>
+ * <b>WARNING:</b> This interface should not be implemented or extended by
+ * code outside of this library.
+ * <p>
+ * This functionality may be accessed as a facet of readers of Ion binary
+ * and text data built over byte arrays or heap {@link java.nio.ByteBuffer}s.
+ * A binary reader may only be reset to binary data, and a text reader to
+ * UTF-8 text.
+ */
+public interface ResettableReader
+{
+    /**
+     * Re-points the reader at the start of other data, leaving it as a new
+     * reader over that data would be. The reader keeps its catalog and other
+     * configuration. The data it was reading must no longer be needed: any
+     * value being read is abandoned.
+     * <p>
+     * The reader retains a reference to the array, whose content must not
+     * change while it's being read.
+     *
+     * @throws IonException if the data is compressed with GZIP, or isn't in
+     * the format that the reader reads.
+     */
+    public void reset(byte[] bytes, int offset, int length);
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link IonWriter} facet that directs the writer's output to another
+ * stream, reusing its buffers and other internal state rather than
+ * allocating new ones. This saves the cost of building a writer for each of
+ * many small messages.
+ * <p>
+ * <b>WARNING:</b> This interface should not be implemented or extended by
+ * code outside of this library.
+ * <p>
+ * This functionality may be accessed as a facet of the Ion binary and text
+ * writers built over an {@link OutputStream} by
+ * {@link com.amazon.ion.system.IonBinaryWriterBuilder} and
+ * {@link com.amazon.ion.system.IonTextWriterBuilder}.
+ */
+public interface ResettableWriter
+{
+    /**
+     * Directs the writer to a new stream, leaving it as a new writer from the
+     * same builder would be.
+     *
+     * @see #reset(OutputStream, boolean)
+     */
+    public void reset(OutputStream out)
+        throws IOException;
+
+    /**
+     * Directs the writer to a new stream. If the writer is at top level, it
+     * first {@linkplain IonWriter#finish() finishes} the current stream.
+     * Otherwise it first writes out the top-level values completed before
+     * the one being written, which is abandoned: whatever of it hasn't yet
+     * been written to the current stream is discarded. The current stream
+     * is not closed.
+     * <p>
+     * The writer keeps its catalog, imports and other configuration. If
+     * {@code retainLocalSymbols} is true it also keeps its local symbols,
+     * declaring them again in the new stream, so that each keeps its symbol
+     * ID. Local symbols don't survive {@link IonWriter#finish()}, so to
+     * retain them, leave it to this method to finish the current stream.
+     * Otherwise the writer starts the new stream with the symbol table that
+     * it was built with.
+     *
+     * @throws IllegalStateException if the writer has been closed.
+     */
+    public void reset(OutputStream out, boolean retainLocalSymbols)
+        throws IOException;
+}
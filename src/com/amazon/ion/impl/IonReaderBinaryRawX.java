@@ -117,6 +117,28 @@ abstract class IonReaderBinaryRawX
     // A reusable scratch space to hold the decoded bytes as they're read from the utf8InputBuffer.
     private CharBuffer utf8DecodingBuffer = CharBuffer.allocate(UTF8_BUFFER_SIZE_IN_BYTES);
 
+    // Canonical instances of recurring strings, if the reader was built with a string cache.
+    StringCache _string_cache;
+
+    // The current value decoded without allocation, see decodeString(), decodeDecimal() and decodeTimestamp().
+    // These are only meaningful when _value_decoded is set, and are reused from one value to the next.
+    boolean             _value_decoded;
+    CharBuffer          _decoded_chars;
+    long                _decoded_unscaled;  // decimals, and fractional seconds of timestamps
+    int                 _decoded_scale;
+    boolean             _decoded_negative_zero;
+    Decimal             _decoded_big;       // set instead when the coefficient does not fit in a long
+    Precision           _decoded_precision;
+    int                 _decoded_year;
+    int                 _decoded_month;
+    int                 _decoded_day;
+    int                 _decoded_hour;
+    int                 _decoded_minute;
+    int                 _decoded_second;
+    boolean             _decoded_has_fraction;
+    int                 _decoded_offset;    // in minutes, or UNKNOWN_OFFSET
+    static final int    UNKNOWN_OFFSET = Integer.MIN_VALUE;
+
     protected IonReaderBinaryRawX() {
     }
 
@@ -140,6 +162,17 @@ abstract class IonReaderBinaryRawX
         _position_start = -1;
     }
 
+    /**
+     * Re-initializes this reader at the start of its input, once the input
+     * has been re-pointed at other data, keeping the buffers allocated by
+     * {@link #init_raw}.
+     */
+    final void reset_raw() {
+        _annotations.clear();
+        re_init_raw();
+        _position_start = -1;
+    }
+
     final void re_init_raw() {
         _local_remaining = NO_LIMIT;
         _parent_tid = _Private_IonConstants.tidDATAGRAM;
@@ -451,6 +484,7 @@ abstract class IonReaderBinaryRawX
         _value_lob_is_ready = false;
         _annotations.clear();
         _v.clear();
+        _value_decoded = false;
         _annotation_count = 0;
         _value_field_id = SymbolTable.UNKNOWN_SYMBOL_ID;
     }
@@ -1202,19 +1236,235 @@ abstract class IonReaderBinaryRawX
         }
     }
 
+    /**
+     * Decodes a decimal of the given length into {@link #_decoded_unscaled}, {@link #_decoded_scale} and
+     * {@link #_decoded_negative_zero}, or into {@link #_decoded_big} if its coefficient does not fit in a long.
+     */
+    protected final void decodeDecimal(int len) throws IOException
+    {
+        _decoded_big = null;
+        _decoded_negative_zero = false;
+        if (len == 0) {
+            _decoded_unscaled = 0;
+            _decoded_scale = 0;
+            return;
+        }
+        int save_limit = NO_LIMIT;
+        if (_local_remaining != NO_LIMIT) {
+            save_limit = _local_remaining - len;
+        }
+        _local_remaining = len;
+        // Ion stores exponent, BigDecimal uses the negation "scale"
+        int scale = -readVarInt();
+        if (_local_remaining > MAX_LONG_COEFFICIENT_LENGTH) {
+            // as rare as it is costly: decode it the hard way
+            _decoded_big = readCoefficient(_local_remaining, scale);
+        }
+        else {
+            long unscaled = 0;
+            boolean is_negative = false;
+            if (_local_remaining > 0) {
+                int b = read();
+                if (b < 0) throwUnexpectedEOFException();
+                // the high bit of the coefficient is its sign
+                is_negative = (b & 0x80) != 0;
+                unscaled = b & 0x7F;
+                while (_local_remaining > 0) {
+                    if ((b = read()) < 0) throwUnexpectedEOFException();
+                    unscaled = (unscaled << 8) | b;
+                }
+            }
+            _decoded_unscaled = is_negative ? -unscaled : unscaled;
+            _decoded_scale = scale;
+            _decoded_negative_zero = is_negative && unscaled == 0;
+        }
+        _local_remaining = save_limit;
+    }
+
+    /** The length of the longest coefficient that always fits in a long, its high bit being its sign. */
+    private static final int MAX_LONG_COEFFICIENT_LENGTH = 8;
+
+    private Decimal readCoefficient(int len, int scale) throws IOException
+    {
+        byte[] bits = new byte[len];
+        readAll(bits, 0, len);
+        int signum = 1;
+        if (bits[0] < 0)
+        {
+            // value is negative, clear the sign
+            bits[0] &= 0x7F;
+            signum = -1;
+        }
+        BigInteger value = new BigInteger(signum, bits);
+        if (value.signum() == 0 && signum == -1)
+        {
+            return Decimal.negativeZero(scale, MathContext.UNLIMITED);
+        }
+        return Decimal.valueOf(value, scale, MathContext.UNLIMITED);
+    }
+
+    /**
+     * Decodes a timestamp of the given length into the {@code _decoded_*} fields, with its fractional seconds
+     * decoded as by {@link #decodeDecimal(int)}.
+     */
+    protected final void decodeTimestamp(int len) throws IOException
+    {
+        int save_limit = NO_LIMIT;
+        if (_local_remaining != NO_LIMIT) {
+            save_limit = _local_remaining - len;
+        }
+        _local_remaining = len;  // > 0
+
+        // -0 denotes an unknown offset
+        int b = read();
+        _decoded_offset = b == 0xC0 ? UNKNOWN_OFFSET : readVarInt(b);
+        _decoded_year = readVarUInt();
+        _decoded_month = 0;
+        _decoded_day = 0;
+        _decoded_hour = 0;
+        _decoded_minute = 0;
+        _decoded_second = 0;
+        _decoded_has_fraction = false;
+        _decoded_precision = Precision.YEAR;
+        if (_local_remaining > 0) {
+            _decoded_month = readVarUInt();
+            _decoded_precision = Precision.MONTH;
+            if (_local_remaining > 0) {
+                _decoded_day = readVarUInt();
+                _decoded_precision = Precision.DAY;
+                if (_local_remaining > 0) {
+                    _decoded_hour = readVarUInt();
+                    _decoded_minute = readVarUInt();
+                    _decoded_precision = Precision.MINUTE;
+                    if (_local_remaining > 0) {
+                        _decoded_second = readVarUInt();
+                        _decoded_precision = Precision.SECOND;
+                        if (_local_remaining > 0) {
+                            decodeDecimal(_local_remaining);
+                            _decoded_has_fraction = true;
+                            if (_decoded_big != null
+                                ? _decoded_big.signum() < 0 || _decoded_big.compareTo(BigDecimal.ONE) >= 0
+                                : _decoded_unscaled < 0 || !isFraction(_decoded_unscaled, _decoded_scale)) {
+                                throwErrorAt(
+                                        "The fractional seconds value in a timestamp must be greater than or "
+                                              + "equal to zero and less than one."
+                                );
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        // restore out outer limit(s)
+        _local_remaining = save_limit;
+        _value_decoded = true;
+    }
+
+    /** Determines whether {@code unscaled * 10^-scale} is less than one, for a non-negative {@code unscaled}. */
+    private static boolean isFraction(long unscaled, int scale)
+    {
+        if (unscaled == 0 || scale > 18) {
+            // Long.MAX_VALUE < 10^19
+            return true;
+        }
+        if (scale <= 0) {
+            return false;
+        }
+        long one = 1;
+        for (int i = 0; i < scale; i++) {
+            one *= 10;
+        }
+        return unscaled < one;
+    }
+
     protected final String readString(int numberOfBytes) throws IOException
     {
+        if (_string_cache != null && numberOfBytes <= StringCache.MAX_LENGTH) {
+            return readCachedString(numberOfBytes);
+        }
+        return readUncachedString(numberOfBytes);
+    }
+
+    private String readUncachedString(int numberOfBytes) throws IOException
+    {
+        String ascii = _input.readAscii(numberOfBytes);
+        if (ascii != null) {
+            if (_local_remaining != NO_LIMIT) {
+                _local_remaining -= numberOfBytes;
+            }
+            return ascii;
+        }
+        // If the string we're reading is small enough to fit in our reusable buffer, we can avoid allocating
+        // a one-off decoding buffer that's large enough to hold the string.
+        CharBuffer decodingBuffer = utf8DecodingBuffer;
+        if (numberOfBytes > utf8DecodingBuffer.capacity()) {
+            decodingBuffer = CharBuffer.allocate(numberOfBytes);
+        }
+        readUtf8(numberOfBytes, decodingBuffer);
+        return decodingBuffer.toString();
+    }
+
+    /**
+     * Reads a short string through {@link #_string_cache}, keyed by its UTF-8 encoding, so that a recurring
+     * string is neither decoded nor allocated again.
+     */
+    private String readCachedString(int numberOfBytes) throws IOException
+    {
+        String text = _input.readCached(_string_cache, numberOfBytes, utf8DecodingBuffer);
+        if (text == null) {
+            // across pages or malformed, neither of which is worth caching
+            return readUncachedString(numberOfBytes);
+        }
+        if (_local_remaining != NO_LIMIT) {
+            _local_remaining -= numberOfBytes;
+        }
+        return text;
+    }
+
+    /**
+     * Decodes a string of the given length into {@link #_decoded_chars}, which grows as needed and is then
+     * reused, so that strings are read without allocation.
+     */
+    protected final void decodeString(int numberOfBytes) throws IOException
+    {
+        // a string never has more chars than UTF-8 bytes
+        if (_decoded_chars == null || _decoded_chars.capacity() < numberOfBytes) {
+            _decoded_chars = CharBuffer.allocate(Math.max(numberOfBytes, UTF8_BUFFER_SIZE_IN_BYTES));
+        }
+        readUtf8(numberOfBytes, _decoded_chars);
+        _value_decoded = true;
+    }
+
+    /**
+     * Decodes UTF-8 bytes of the given length into the given buffer, which must be able to hold as many chars,
+     * leaving the buffer flipped for reading the chars.
+     */
+    private void readUtf8(int numberOfBytes, CharBuffer decodingBuffer) throws IOException
+    {
+        decodingBuffer.clear();
+        // Decode straight from the input's pages, which covers the whole string unless it is malformed or a
+        // multi-byte character straddles two pages. The charset decoder picks up from wherever this stops.
+        int decoded;
+        while (numberOfBytes > 0 && (decoded = _input.decodeUtf8(decodingBuffer, numberOfBytes)) > 0) {
+            numberOfBytes -= decoded;
+            if (_local_remaining != NO_LIMIT) {
+                _local_remaining -= decoded;
+            }
+        }
+        if (numberOfBytes == 0) {
+            decodingBuffer.flip();
+            return;
+        }
+
         // If the string we're reading is small enough to fit in our reusable buffer, we can avoid the overhead
         // of looping and bounds checking.
         if (numberOfBytes <= utf8InputBuffer.capacity()) {
-            return readStringWithReusableBuffer(numberOfBytes);
+            readUtf8WithReusableBuffer(numberOfBytes, decodingBuffer);
+            return;
         }
 
-        // Otherwise, allocate a one-off decoding buffer that's large enough to hold the string
-        // and prepare to decode the string in chunks.
-        CharBuffer decodingBuffer = CharBuffer.allocate(numberOfBytes);
+        // Otherwise, prepare to decode the string in chunks.
         utf8CharsetDecoder.reset();
-
         int save_limit = NO_LIMIT;
         if (_local_remaining != NO_LIMIT) {
             save_limit = _local_remaining - numberOfBytes;
@@ -1226,7 +1476,6 @@ abstract class IonReaderBinaryRawX
         // * Write decoded chars to the decoding buffer
         // * Move any remaining partial character bytes to the front of the buffer
         // * Repeat until the requested number of bytes have been decoded.
-        // * Create a new String object from the contents of the decoding buffer.
         int totalBytesRead = 0;
         int carryoverBytes = 0;
         while (totalBytesRead < numberOfBytes) {
@@ -1275,10 +1524,9 @@ abstract class IonReaderBinaryRawX
         _local_remaining = save_limit;
 
         decodingBuffer.flip();
-        return decodingBuffer.toString();
     }
 
-    private String readStringWithReusableBuffer(int numberOfBytes) throws IOException {
+    private void readUtf8WithReusableBuffer(int numberOfBytes, CharBuffer decodingBuffer) throws IOException {
         int save_limit = NO_LIMIT;
         if (_local_remaining != NO_LIMIT) {
             save_limit = _local_remaining - numberOfBytes;
@@ -1290,16 +1538,12 @@ abstract class IonReaderBinaryRawX
         utf8InputBuffer.position(0);
         utf8InputBuffer.limit(numberOfBytes);
 
-        utf8DecodingBuffer.position(0);
-        utf8DecodingBuffer.limit(utf8DecodingBuffer.capacity());
-
         utf8CharsetDecoder.reset();
-        CoderResult coderResult = utf8CharsetDecoder.decode(utf8InputBuffer, utf8DecodingBuffer, true);
+        CoderResult coderResult = utf8CharsetDecoder.decode(utf8InputBuffer, decodingBuffer, true);
         if (coderResult.isError()) {
             throw new IonException("Illegal value encountered while validating UTF-8 data in input stream. " + coderResult.toString());
         }
-        utf8DecodingBuffer.flip();
-        return utf8DecodingBuffer.toString();
+        decodingBuffer.flip();
     }
 
     private final void throwUnexpectedEOFException() throws IOException {
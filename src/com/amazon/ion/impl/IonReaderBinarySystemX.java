@@ -15,24 +15,34 @@
 
 package com.amazon.ion.impl;
 
+import static com.amazon.ion.IonType.DECIMAL;
+import static com.amazon.ion.IonType.STRING;
 import static com.amazon.ion.IonType.SYMBOL;
+import static com.amazon.ion.IonType.TIMESTAMP;
 import static com.amazon.ion.SymbolTable.UNKNOWN_SYMBOL_ID;
 
+import com.amazon.ion.AllocationFreeReader;
 import com.amazon.ion.Decimal;
+import com.amazon.ion.FieldSeekingReader;
 import com.amazon.ion.IntegerSize;
 import com.amazon.ion.IonType;
 import com.amazon.ion.NullValueException;
 import com.amazon.ion.SymbolTable;
 import com.amazon.ion.SymbolToken;
 import com.amazon.ion.Timestamp;
+import com.amazon.ion.Timestamp.Precision;
 import com.amazon.ion.UnknownSymbolException;
 import com.amazon.ion.impl._Private_ScalarConversions.AS_TYPE;
 import com.amazon.ion.impl._Private_ScalarConversions.ValueVariant;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 
 class IonReaderBinarySystemX
@@ -170,6 +180,12 @@ class IonReaderBinarySystemX
             return;
         }
 
+        if (_value_decoded) {
+            // the value was consumed by the AllocationFreeReader facet
+            load_decoded_value();
+            return;
+        }
+
         switch (_value_type) {
         default:
             return;
@@ -273,6 +289,55 @@ class IonReaderBinarySystemX
         _state = State.S_AFTER_VALUE;
     }
 
+    /**
+     * Materializes the value that was decoded without allocation by
+     * {@link AllocationFreeReaderFacet}, for the regular value methods.
+     */
+    @SuppressWarnings("deprecation")
+    private final void load_decoded_value()
+    {
+        switch (_value_type) {
+        case DECIMAL:
+            _v.setValue(decoded_decimal());
+            _v.setAuthoritativeType(AS_TYPE.decimal_value);
+            break;
+        case TIMESTAMP:
+            Decimal frac = _decoded_has_fraction ? decoded_decimal() : null;
+            Integer offset = _decoded_offset == UNKNOWN_OFFSET ? null : Integer.valueOf(_decoded_offset);
+            Timestamp t;
+            try {
+                t = Timestamp.createFromUtcFields(_decoded_precision, _decoded_year, _decoded_month,
+                                                  _decoded_day, _decoded_hour, _decoded_minute,
+                                                  _decoded_second, frac, offset);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // Rewrap to the expected type.
+                throw newErrorAt("Invalid timestamp encoding: " + e.getMessage());
+            }
+            _v.setValue(t);
+            _v.setAuthoritativeType(AS_TYPE.timestamp_value);
+            break;
+        case STRING:
+            _v.setValue(_decoded_chars.toString());
+            _v.setAuthoritativeType(AS_TYPE.string_value);
+            break;
+        default:
+            throw new IllegalStateException("Unexpected value type: " + _value_type);
+        }
+    }
+
+    private final Decimal decoded_decimal()
+    {
+        if (_decoded_big != null) {
+            return _decoded_big;
+        }
+        if (_decoded_negative_zero) {
+            return Decimal.negativeZero(_decoded_scale);
+        }
+        return Decimal.valueOf(BigInteger.valueOf(_decoded_unscaled), _decoded_scale);
+    }
+
     //
     // public value routines
     //
@@ -483,6 +548,353 @@ class IonReaderBinarySystemX
         return null;
     }
 
+    @Override
+    public <T> T asFacet(Class<T> facetType)
+    {
+        if (facetType == AllocationFreeReader.class)
+        {
+            return facetType.cast(new AllocationFreeReaderFacet());
+        }
+        if (facetType == FieldSeekingReader.class)
+        {
+            return facetType.cast(new FieldSeekingReaderFacet());
+        }
+        return super.asFacet(facetType);
+    }
+
+
+    private class FieldSeekingReaderFacet implements FieldSeekingReader
+    {
+        private static final int NO_MATCH = -1;
+
+        /** The number of names arrays whose matches are remembered at once. */
+        private static final int MAX_MEMOS = 32;
+
+        // Whether each field SID names one of the names in an array, resolved
+        // as the SIDs are met: 0 if unresolved, otherwise NO_MATCH or 1 + the
+        // index of the name. Keyed by the identity of the names arrays.
+        private final Map<String[], int[]> _memos = new IdentityHashMap<String[], int[]>();
+        private SymbolTable _memos_symbols;
+
+        public int seekField(String[] fieldNames)
+        {
+            if (!isInStruct()) throw new IllegalStateException("The reader is not in a struct");
+
+            if (_symbols != _memos_symbols) {
+                _memos_symbols = _symbols;
+                _memos.clear();
+            }
+            int[] matches = _memos.get(fieldNames);
+            if (matches == null) {
+                if (_memos.size() >= MAX_MEMOS) _memos.clear();
+                matches = new int[64];
+                _memos.put(fieldNames, matches);
+            }
+            while (next() != null) {
+                int sid = _value_field_id;
+                if (sid < 0) continue;
+                int match;
+                if (sid < matches.length || sid <= _symbols.getMaxId()) {
+                    if (sid >= matches.length) {
+                        // never beyond the symbol table, whatever SIDs the data holds
+                        int length = Math.max(sid + 1, matches.length * 2);
+                        matches = Arrays.copyOf(matches, Math.min(length, _symbols.getMaxId() + 1));
+                        _memos.put(fieldNames, matches);
+                    }
+                    match = matches[sid];
+                    if (match == 0) {
+                        match = resolve(fieldNames, sid);
+                        matches[sid] = match;
+                    }
+                }
+                else {
+                    // out of the symbol table's range, so resolved without a memo
+                    match = resolve(fieldNames, sid);
+                }
+                if (match > 0) {
+                    return match - 1;
+                }
+            }
+            return NO_MATCH;
+        }
+
+        private int resolve(String[] names, int sid)
+        {
+            String text = _symbols.findKnownSymbol(sid);
+            if (text != null) {
+                for (int i = 0; i < names.length; i++) {
+                    if (text.equals(names[i])) {
+                        return i + 1;
+                    }
+                }
+            }
+            return NO_MATCH;
+        }
+    }
+
+
+    private class AllocationFreeReaderFacet implements AllocationFreeReader
+    {
+        public int getFieldId()
+        {
+            return _value_field_id;
+        }
+
+        public int getTypeAnnotationIds(int[] sids)
+        {
+            load_annotations();
+            System.arraycopy(_annotation_ids, 0, sids, 0, Math.min(_annotation_count, sids.length));
+            return _annotation_count;
+        }
+
+        public int symbolValueId()
+        {
+            return getSymbolId();
+        }
+
+        public void appendStringValue(StringBuilder destination)
+        {
+            if (_value_type == SYMBOL) {
+                destination.append(symbolText());
+            }
+            else if (decode(STRING)) {
+                destination.append(_decoded_chars.array(), 0, _decoded_chars.limit());
+            }
+            else {
+                destination.append(_v.getString());
+            }
+        }
+
+        public int putStringValue(CharBuffer destination)
+        {
+            if (_value_type == SYMBOL) {
+                String text = symbolText();
+                destination.put(text);
+                return text.length();
+            }
+            else if (decode(STRING)) {
+                destination.put(_decoded_chars.array(), 0, _decoded_chars.limit());
+                return _decoded_chars.limit();
+            }
+            String text = _v.getString();
+            destination.put(text);
+            return text.length();
+        }
+
+        private String symbolText()
+        {
+            int sid = getSymbolId();
+            String text = _symbols.findKnownSymbol(sid);
+            if (text == null) {
+                throw new UnknownSymbolException(sid);
+            }
+            return text;
+        }
+
+        public long decimalUnscaledValue()
+        {
+            if (decode(DECIMAL)) {
+                return _decoded_big == null ? _decoded_unscaled : unscaledLong(_decoded_big);
+            }
+            prepare_value(AS_TYPE.decimal_value);
+            return unscaledLong(_v.getDecimal());
+        }
+
+        private long unscaledLong(BigDecimal value)
+        {
+            BigInteger unscaled = value.unscaledValue();
+            if (unscaled.bitLength() > 63) {
+                throw new ArithmeticException("Decimal coefficient out of long range: " + unscaled);
+            }
+            return unscaled.longValue();
+        }
+
+        public int decimalScale()
+        {
+            if (decode(DECIMAL)) {
+                return _decoded_big == null ? _decoded_scale : _decoded_big.scale();
+            }
+            prepare_value(AS_TYPE.decimal_value);
+            return _v.getDecimal().scale();
+        }
+
+        public Precision timestampPrecision()
+        {
+            if (decode(TIMESTAMP)) {
+                return _decoded_precision;
+            }
+            return timestamp().getPrecision();
+        }
+
+        @SuppressWarnings("deprecation")
+        public long timestampEpochMillis()
+        {
+            if (decode(TIMESTAMP)) {
+                int month = Math.max(_decoded_month, 1);
+                int day = Math.max(_decoded_day, 1);
+                long seconds;
+                if (_decoded_year < GREGORIAN_YEAR) {
+                    // Timestamp.getMillis() follows the Julian calendar before the Gregorian
+                    // cutover; these dates are rare enough to leave to Date.
+                    seconds = Date.UTC(_decoded_year - 1900, month - 1, day, _decoded_hour,
+                                       _decoded_minute, _decoded_second) / 1000;
+                }
+                else {
+                    long days = daysSinceEpoch(_decoded_year, month, day);
+                    seconds = ((days * 24 + _decoded_hour) * 60 + _decoded_minute) * 60 + _decoded_second;
+                }
+                return seconds * 1000 + decodedNanos() / 1000000;
+            }
+            return timestamp().getMillis();
+        }
+
+        public int timestampNanos()
+        {
+            if (decode(TIMESTAMP)) {
+                return decodedNanos();
+            }
+            BigDecimal seconds = timestamp().getZDecimalSecond();
+            return seconds.remainder(BigDecimal.ONE).movePointRight(9).intValue();
+        }
+
+        public int timestampLocalOffset()
+        {
+            if (decode(TIMESTAMP)) {
+                // coarser timestamps are local dates, which have no offset
+                return _decoded_precision.includes(Precision.MINUTE) ? _decoded_offset : UNKNOWN_OFFSET;
+            }
+            Integer offset = timestamp().getLocalOffset();
+            return offset == null ? UNKNOWN_OFFSET : offset.intValue();
+        }
+
+        private Timestamp timestamp()
+        {
+            prepare_value(AS_TYPE.timestamp_value);
+            return _v.getTimestamp();
+        }
+
+        private int decodedNanos()
+        {
+            if (!_decoded_has_fraction) {
+                return 0;
+            }
+            if (_decoded_big != null) {
+                return _decoded_big.movePointRight(9).intValue();
+            }
+            // the fraction is less than one, so it has at most as many digits as its scale
+            int scale = _decoded_scale;
+            long unscaled = _decoded_unscaled;
+            if (scale <= 9) {
+                for (int i = Math.max(scale, 0); i < 9; i++) {
+                    unscaled *= 10;
+                }
+                return (int) unscaled;
+            }
+            if (scale - 9 > 18) {
+                // Long.MAX_VALUE < 10^19
+                return 0;
+            }
+            for (int i = 9; i < scale; i++) {
+                unscaled /= 10;
+            }
+            return (int) unscaled;
+        }
+
+        /**
+         * Decodes the current value without allocation, unless the regular
+         * value methods have loaded it already.
+         *
+         * @return true if the value is in the {@code _decoded_*} fields,
+         * false if it is in {@code _v}.
+         */
+        private boolean decode(IonType type)
+        {
+            if (_value_type != type) throw new IllegalStateException("Unexpected value type: " + _value_type);
+            // an empty timestamp is read as null by timestampValue()
+            if (_value_is_null || (type == TIMESTAMP && _value_len == 0)) throw new NullValueException();
+
+            if (_value_decoded) return true;
+            if (!_v.isEmpty()) return false;
+
+            try {
+                switch (type) {
+                case STRING:
+                    decodeString(_value_len);
+                    break;
+                case DECIMAL:
+                    decodeDecimal(_value_len);
+                    _value_decoded = true;
+                    break;
+                default:
+                    decodeTimestamp(_value_len);
+                    checkDecodedTimestamp();
+                    break;
+                }
+            }
+            catch (IOException e) {
+                error(e);
+            }
+            _state = State.S_AFTER_VALUE;
+            return true;
+        }
+
+        /** Applies the checks of {@link Timestamp} to the decoded fields. */
+        private void checkDecodedTimestamp()
+        {
+            Precision p = _decoded_precision;
+            boolean valid = _decoded_year >= 1 && _decoded_year <= 9999;
+            if (p.includes(Precision.MONTH)) {
+                valid &= _decoded_month >= 1 && _decoded_month <= 12;
+            }
+            if (valid && p.includes(Precision.DAY)) {
+                valid &= _decoded_day >= 1 && _decoded_day <= daysInMonth(_decoded_year, _decoded_month);
+            }
+            if (p.includes(Precision.MINUTE)) {
+                valid &= _decoded_hour <= 23 && _decoded_minute <= 59
+                      && (_decoded_offset == UNKNOWN_OFFSET
+                          || (_decoded_offset > -24 * 60 && _decoded_offset < 24 * 60));
+            }
+            if (p.includes(Precision.SECOND)) {
+                valid &= _decoded_second <= 59;
+            }
+            if (!valid) {
+                throw newErrorAt("Invalid timestamp encoding: field out of range");
+            }
+        }
+    }
+
+    private static boolean isLeapYear(int year)
+    {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    private static int daysInMonth(int year, int month)
+    {
+        switch (month) {
+        case 2:
+            return isLeapYear(year) ? 29 : 28;
+        case 4: case 6: case 9: case 11:
+            return 30;
+        default:
+            return 31;
+        }
+    }
+
+    /** The first whole year of the Gregorian calendar, which began on 1582-10-15. */
+    private static final int GREGORIAN_YEAR = 1583;
+
+    /** Counts the days from 1970-01-01 to the given Gregorian date. */
+    private static long daysSinceEpoch(int year, int month, int day)
+    {
+        // shift the year to start in March, so that leap days come last
+        long y = month <= 2 ? year - 1 : year;
+        long era = y / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
     private void throwIllegalNegativeZeroException() {
         throw newErrorAt("negative zero is illegal in the binary format");
     }
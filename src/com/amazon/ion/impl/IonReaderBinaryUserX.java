@@ -21,9 +21,11 @@ import static com.amazon.ion.SystemSymbols.ION_1_0_SID;
 import static com.amazon.ion.SystemSymbols.ION_SYMBOL_TABLE_SID;
 
 import com.amazon.ion.IonCatalog;
+import com.amazon.ion.IonException;
 import com.amazon.ion.IonType;
 import com.amazon.ion.OffsetSpan;
 import com.amazon.ion.RawValueSpanProvider;
+import com.amazon.ion.ResettableReader;
 import com.amazon.ion.SeekableReader;
 import com.amazon.ion.Span;
 import com.amazon.ion.SpanProvider;
@@ -33,6 +35,7 @@ import com.amazon.ion.UnknownSymbolException;
 import com.amazon.ion.impl.UnifiedInputStreamX.FromByteArray;
 import com.amazon.ion.impl.UnifiedSavePointManagerX.SavePoint;
 import com.amazon.ion.impl._Private_ScalarConversions.AS_TYPE;
+import com.amazon.ion.util.IonStreamUtils;
 import java.io.IOException;
 import java.util.Iterator;
 
@@ -45,7 +48,7 @@ final class IonReaderBinaryUserX
      * It must be subtracted from the logical offsets exposed by
      * {@link OffsetSpan}s.
      */
-    private final int _physical_start_offset;
+    private int _physical_start_offset;
     private final _Private_LocalSymbolTableFactory _lstFactory;
 
     IonCatalog  _catalog;
@@ -354,6 +357,10 @@ final class IonReaderBinaryUserX
             {
                 return facetType.cast(new RawValueSpanProviderFacet());
             }
+            if (facetType == ResettableReader.class)
+            {
+                return facetType.cast(new ResettableReaderFacet());
+            }
         }
 
         if (facetType == _Private_ByteTransferReader.class)
@@ -419,6 +426,27 @@ final class IonReaderBinaryUserX
     }
 
 
+    private class ResettableReaderFacet implements ResettableReader
+    {
+        public void reset(byte[] bytes, int offset, int length)
+        {
+            if (IonStreamUtils.isGzip(bytes, offset, length))
+            {
+                throw new IonException("A reader can't be reset to compressed data");
+            }
+            if (!IonStreamUtils.isIonBinary(bytes, offset, length))
+            {
+                throw new IonException("A binary reader can't be reset to Ion text data");
+            }
+            ((FromByteArray) _input).reset(bytes, offset, length);
+            reset_raw();
+            init_user(_catalog);
+            clear_system_value_stack();
+            _physical_start_offset = offset;
+        }
+    }
+
+
     private class ByteTransferReaderFacet implements _Private_ByteTransferReader
     {
         public void transferCurrentValue(_Private_ByteTransferSink sink)
@@ -99,6 +99,24 @@ final class IonReaderTextRawTokensX
     private long                _line_count_cached;
     private long                _line_offset_cached;
 
+    /**
+     * when false, lines aren't counted as they're read; line numbers and
+     * offsets are instead worked out when asked for, by counting the line
+     * terminators between the position the scanner started at (its origin)
+     * and the one asked about
+     */
+    private boolean             _line_tracking = true;
+    private long                _origin_position;
+    private long                _origin_line;
+    private long                _origin_line_start;
+    /**
+     * the most recent position whose line was counted, and its line; the
+     * line is -1 if the position couldn't be counted
+     */
+    private long                _counted_position = -1;
+    private long                _counted_line;
+    private long                _counted_line_start;
+
     /** number of base64 decoded bytes in the stack, used to decode base64 */
     private int                 _base64_prefetch_count;
     /**
@@ -107,6 +125,48 @@ final class IonReaderTextRawTokensX
      */
     private int                 _base64_prefetch_stack;
 
+    /**
+     * The decimal int, decimal or float last read by load_number(),
+     * accumulated as its digits were read: the significand, with the
+     * number of its digits after the decimal point, and the exponent.
+     * These are only valid when _number_exact is set, which it isn't
+     * for numbers with more than MAX_EXACT_DIGITS significant digits
+     * or that are otherwise unusual.
+     */
+    private boolean             _number_exact;
+    private boolean             _number_negative;
+    private long                _number_significand;
+    private int                 _number_significant_digits;
+    private int                 _number_fraction_digits;
+    private int                 _number_exponent;
+
+    /** any long with this many decimal digits can be multiplied by 10 */
+    private static final int    MAX_EXACT_DIGITS = 18;
+
+    /**
+     * The characters, indexed by ASCII value, that end a run skipped by
+     * UnifiedInputStreamX.skipUntil() while skipping a container: those
+     * that start or end a string, container or comment, and the line
+     * terminators, which must be counted.
+     */
+    private static final boolean[] CONTAINER_SKIP_STOPS =
+        skip_stops("\"'()[]{}/\r\n");
+    /** as above, while skipping a double quoted string */
+    private static final boolean[] DOUBLE_QUOTED_SKIP_STOPS =
+        skip_stops("\"\\\r\n");
+    /** as above, while skipping a single or triple quoted string */
+    private static final boolean[] SINGLE_QUOTED_SKIP_STOPS =
+        skip_stops("'\\\r\n");
+
+    private static boolean[] skip_stops(String chars)
+    {
+        boolean[] stops = new boolean[0x80];
+        for (int ii = 0; ii < chars.length(); ii++) {
+            stops[chars.charAt(ii)] = true;
+        }
+        return stops;
+    }
+
 
     /**
      * IonTokenReader constructor requires a UnifiedInputStream
@@ -124,6 +184,31 @@ final class IonReaderTextRawTokensX
         _stream = iis;
         _line_count = starting_line;
         _line_starting_position = _stream.getPosition() - starting_column;
+        set_line_origin();
+    }
+
+    private final void set_line_origin()
+    {
+        _origin_position = _stream.getPosition();
+        _origin_line = _line_count;
+        _origin_line_start = _line_starting_position;
+        _counted_position = -1;
+    }
+
+    /**
+     * Re-initializes this scanner at the start of its stream, once the
+     * stream has been re-pointed at other data.
+     */
+    final void reset()
+    {
+        _token = -1;
+        _unfinished_token = false;
+        _line_count = 1;
+        _line_starting_position = _stream.getPosition() - 1;
+        _line_count_has_cached = false;
+        _base64_prefetch_count = 0;
+        _base64_prefetch_stack = 0;
+        set_line_origin();
     }
 
     public void close()
@@ -133,13 +218,98 @@ final class IonReaderTextRawTokensX
     }
 
     public int  getToken()      { return _token; }
-    public long getLineNumber() { return _line_count; }
+    public long getLineNumber() {
+        if (!_line_tracking) {
+            return getLineNumber(_stream.getPosition());
+        }
+        return _line_count;
+    }
     public long getLineOffset() {
         long stream_position = _stream.getPosition();
+        if (!_line_tracking) {
+            return getLineOffset(stream_position);
+        }
         long offset = stream_position - _line_starting_position;
         return offset;
     }
 
+    /**
+     * Turns the counting of lines as they're read on or off. This must be
+     * done before anything is read.
+     */
+    final void setLineTracking(boolean line_tracking)
+    {
+        _line_tracking = line_tracking;
+    }
+    final boolean isLineTracking() { return _line_tracking; }
+
+    /**
+     * Returns the line number of the given stream position, when lines
+     * aren't tracked, or -1 if the input from the start of the scan to the
+     * position is no longer buffered. It always is for input from an array
+     * or string, which is held in a single page.
+     */
+    final long getLineNumber(long position) {
+        count_lines_to(position);
+        return _counted_line;
+    }
+    /** as above, the offset of the position in its line, or -1 */
+    final long getLineOffset(long position) {
+        count_lines_to(position);
+        return (_counted_line < 0) ? -1 : position - _counted_line_start;
+    }
+
+    private final void count_lines_to(long position)
+    {
+        if (position == _counted_position) {
+            return;
+        }
+        UnifiedDataPageX page = _stream._buffer.getCurrentPage();
+        // positions are usually asked about in order, so carry on from the
+        // last one counted when it's between the origin and this position;
+        // both are on this page, and so is everything in between
+        boolean resume = _counted_line >= 0
+            && _counted_position > _origin_position
+            && _counted_position < position;
+        long from = resume ? _counted_position : _origin_position;
+        long line = resume ? _counted_line : _origin_line;
+        long line_start = resume ? _counted_line_start : _origin_line_start;
+        _counted_position = position;
+        if (page == null || _origin_position < page.getStartingFileOffset()
+            || position < _origin_position
+            || position > page.getFilePosition(page.getBufferLimit())) {
+            _counted_line = -1;
+            return;
+        }
+
+        long file_offset = page.getFilePosition(0);
+        int start = (int) (from - file_offset);
+        int end = (int) (position - file_offset);
+        byte[] bytes = page._bytes;
+        char[] chars = page._characters;
+        if (resume
+            && ((bytes != null) ? bytes[start - 1] : chars[start - 1]) == '\r'
+            && ((bytes != null) ? bytes[start] : chars[start]) == '\n') {
+            // the last count ended on a <CR>, taken as a line terminator,
+            // which turns out to start a <CR><LF> pair: the line starts
+            // at the <LF> instead, as when counting from the origin
+            line_start = file_offset + start;
+            start++;
+        }
+        for (int pos = start; pos < end; pos++) {
+            int c = (bytes != null) ? bytes[pos] : chars[pos];
+            // as in line_count(), a <CR><LF> pair is a single line terminator
+            if (c == '\n'
+                || (c == '\r' && (pos + 1 == end
+                                  || ((bytes != null) ? bytes[pos + 1] : chars[pos + 1]) != '\n'))) {
+                line++;
+                line_start = file_offset + pos;
+            }
+        }
+        _counted_line = line;
+        _counted_line_start = line_start;
+    }
+
     UnifiedInputStreamX getSourceStream() { return this._stream; }
 
     public final boolean isBufferedInput()
@@ -149,12 +319,33 @@ final class IonReaderTextRawTokensX
     }
 
     protected String input_position() {
+        long line = getLineNumber();
+        if (line < 0) {
+            return " at position " + _stream.getPosition();
+        }
         String s = " at line "
-                + getLineNumber()
+                + line
                 + " offset "
                 + getLineOffset();
         return s;
     }
+    /**
+     * The position of an error at a line terminator that was just read
+     * without being counted, which tracked lines report on the line the
+     * terminator ends, rather than the next. Lines counted when asked for
+     * must skip it as well.
+     */
+    private String uncounted_newline_position() {
+        if (_line_tracking) {
+            return input_position();
+        }
+        long position = _stream.getPosition() - 1;
+        long line = getLineNumber(position);
+        if (line < 0) {
+            return " at position " + _stream.getPosition();
+        }
+        return " at line " + line + " offset " + (getLineOffset(position) + 1);
+    }
     public final boolean isUnfinishedToken() { return  _unfinished_token; }
 
     public final void tokenIsFinished() {
@@ -184,7 +375,12 @@ final class IonReaderTextRawTokensX
     {
         int c = _stream.read();
         if (prohibitedCharacters.includes(c)) {
-            error("invalid character [" + printCodePointAsString(c) + "]");
+            String message = "invalid character [" + printCodePointAsString(c) + "]";
+            if (c == '\r' || c == '\n') {
+                // a terminator that was never counted as one
+                throw new IonReaderTextTokenException(message + uncounted_newline_position());
+            }
+            error(message);
         }
         // the c == '\\' clause will cause us to eat ALL slash-newlines
         if (c == '\r' || c == '\n' || c == '\\') {
@@ -303,6 +499,11 @@ final class IonReaderTextRawTokensX
             throw new IllegalStateException();
         }
 
+        if (!_line_tracking) {
+            // lines are counted only when asked for
+            return c;
+        }
+
         // before we adjust the line count we save it so that
         // we can recover from a unread of a line terminator
         // note that we can only recover from a single line
@@ -879,6 +1080,9 @@ final class IonReaderTextRawTokensX
         int c;
 
         loop: for (;;) {
+            if (_stream.skipBlanks()) {
+                any_whitespace = true;
+            }
             c = read_char();
             switch (c) {
             case -1:
@@ -1212,6 +1416,8 @@ final class IonReaderTextRawTokensX
         int c;
 
         for (;;) {
+            // most of a container is passed over in bulk
+            _stream.skipUntil(CONTAINER_SKIP_STOPS);
             c = skip_over_whitespace();
             switch (c) {
             case -1:
@@ -1538,11 +1744,19 @@ final class IonReaderTextRawTokensX
         //case '-': case '+':
 
         //start_pos = _stream.getPosition();
+        _number_exact = true;
+        _number_significand = 0;
+        _number_significant_digits = 0;
+        _number_fraction_digits = 0;
+        _number_exponent = 0;
+
         c = read_char();
         has_sign = ((c == '-') || (c == '+'));
+        _number_negative = (c == '-');
         if (has_sign) {
             // if there is a sign character, we just consume it
             // here and get whatever is next in line
+            _number_exact = (c == '-');
             sb.append((char)c);
             c = read_char();
         }
@@ -1566,10 +1780,12 @@ final class IonReaderTextRawTokensX
             // if it's a leading 0 check for a hex value
             int c2 = read_char();
             if (Radix.HEX.isPrefix(c2)) {
+                _number_exact = false;
                 sb.append((char)c);
                 c = loadRadixValue(sb, has_sign, c2, Radix.HEX);
                 return load_finish_number(sb, c, IonTokenConstsX.TOKEN_HEX);
             } else if (Radix.BINARY.isPrefix(c2)) {
+                _number_exact = false;
                 sb.append((char) c);
                 c = loadRadixValue(sb, has_sign, c2, Radix.BINARY);
                 return load_finish_number(sb, c, IonTokenConstsX.TOKEN_BINARY);
@@ -1579,9 +1795,10 @@ final class IonReaderTextRawTokensX
         }
 
         // remaining (after the first, c is the first) leading digits
-        c = load_digits(sb, c);
+        c = load_significand_digits(sb, c);
 
         if (c == '-' || c == 'T') {
+            _number_exact = false;
             // this better be a timestamp and it starts with a 4 digit
             // year followed by a dash and no leading sign
             if (has_sign) {
@@ -1614,8 +1831,10 @@ final class IonReaderTextRawTokensX
             // mark it as at least a DECIMAL
             // and read the "fraction" digits
             sb.append((char)c);
+            int fraction_start = sb.length();
             c = read_char();
-            c = load_digits(sb, c);
+            c = load_significand_digits(sb, c);
+            _number_fraction_digits = sb.length() - fraction_start;
             t = IonTokenConstsX.TOKEN_DECIMAL;
         }
         else {
@@ -1626,12 +1845,16 @@ final class IonReaderTextRawTokensX
         if (c == 'e' || c == 'E') {
             t = IonTokenConstsX.TOKEN_FLOAT;
             sb.append((char)c);
+            int exponent_start = sb.length();
             c = load_exponent(sb);  // the unused lookahead char
+            accumulate_exponent(sb, exponent_start);
         }
         else if (c == 'd' || c == 'D') {
             t = IonTokenConstsX.TOKEN_DECIMAL;
             sb.append((char)c);
+            int exponent_start = sb.length();
             c = load_exponent(sb);
+            accumulate_exponent(sb, exponent_start);
         }
         return load_finish_number(sb, c, t);
     }
@@ -1690,6 +1913,104 @@ final class IonReaderTextRawTokensX
         return readNumeric(sb, Radix.DECIMAL, NumericState.DIGIT);
     }
 
+    /**
+     * Accumulates the digits of a decimal number's significand into the
+     * buffer, as {@link #load_digits(StringBuilder, int)} does, and into
+     * {@link #_number_significand}.
+     *
+     * @return the first non-digit character on the input.
+     */
+    private final int load_significand_digits(StringBuilder sb, int c)
+        throws IOException
+    {
+        if (!IonTokenConstsX.isDigit(c)) {
+            return c;
+        }
+        for (;;) {
+            sb.append((char)c);
+            _number_significand = _number_significand * 10 + (c - '0');
+            if (_number_significand != 0
+                && ++_number_significant_digits > MAX_EXACT_DIGITS) {
+                _number_exact = false;
+            }
+            c = read_char();
+            if (c == '_') {
+                // a single underscore may separate digits
+                int c2 = read_char();
+                if (!IonTokenConstsX.isDigit(c2)) {
+                    unread_char(c2);
+                    return c;
+                }
+                c = c2;
+            }
+            else if (!IonTokenConstsX.isDigit(c)) {
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Sets {@link #_number_exponent} from the exponent that was loaded into
+     * the buffer from the given position.
+     */
+    private final void accumulate_exponent(CharSequence sb, int start)
+    {
+        int pos = start;
+        int end = sb.length();
+        boolean negative = false;
+        if (pos < end && (sb.charAt(pos) == '-' || sb.charAt(pos) == '+')) {
+            negative = (sb.charAt(pos) == '-');
+            pos++;
+        }
+        if (pos == end || end - pos > 9) {
+            // no digits, which is an error to be reported later, or too many
+            _number_exact = false;
+            return;
+        }
+        int exponent = 0;
+        for (; pos < end; pos++) {
+            int c = sb.charAt(pos);
+            if (!IonTokenConstsX.isDigit(c)) {
+                _number_exact = false;
+                return;
+            }
+            exponent = exponent * 10 + (c - '0');
+        }
+        _number_exponent = negative ? -exponent : exponent;
+    }
+
+    /**
+     * Whether the number last loaded by {@link #load_number(StringBuilder)}
+     * was a decimal int, decimal or float with at most
+     * {@link #MAX_EXACT_DIGITS} significant digits, so that its value is
+     * given by the numberXxx() methods.
+     */
+    final boolean isNumberExact()
+    {
+        return _number_exact;
+    }
+
+    final boolean isNumberNegative()
+    {
+        return _number_negative;
+    }
+
+    /** the magnitude of the number's digits, ignoring the decimal point */
+    final long getNumberSignificand()
+    {
+        return _number_significand;
+    }
+
+    final int getNumberFractionDigits()
+    {
+        return _number_fraction_digits;
+    }
+
+    final int getNumberExponent()
+    {
+        return _number_exponent;
+    }
+
     private final void load_fixed_digits(StringBuilder sb, int len)
         throws IOException
     {
@@ -1853,6 +2174,7 @@ final class IonReaderTextRawTokensX
 
     protected void load_symbol_identifier(StringBuilder sb) throws IOException
     {
+        _stream.readIdentifierRun(sb);
         int c = read_char();
         while(IonTokenConstsX.isValidSymbolCharacter(c)) {
             sb.append((char)c);
@@ -1917,6 +2239,7 @@ final class IonReaderTextRawTokensX
         // quoted symbol
 
         for (;;) {
+            _stream.skipUntil(SINGLE_QUOTED_SKIP_STOPS);
             c = read_string_char(ProhibitedCharacters.NONE);
             switch (c) {
             case -1: unexpected_eof();
@@ -1939,6 +2262,10 @@ final class IonReaderTextRawTokensX
         boolean expectLowSurrogate = false;
 
         for (;;) {
+            if (!is_clob && !expectLowSurrogate) {
+                // plain text is read straight from the input buffer
+                _stream.readStringRun(sb, '\'');
+            }
             c = read_string_char(ProhibitedCharacters.NONE);
             switch (c) {
             case CharacterSequence.CHAR_SEQ_ESCAPED_NEWLINE_SEQUENCE_1:
@@ -1998,6 +2325,7 @@ final class IonReaderTextRawTokensX
     {
         int c;
         for (;;) {
+            _stream.skipUntil(DOUBLE_QUOTED_SKIP_STOPS);
             c = read_string_char(ProhibitedCharacters.NONE);
             switch (c) {
             case -1:
@@ -2023,6 +2351,10 @@ final class IonReaderTextRawTokensX
         boolean expectLowSurrogate = false;
 
         for (;;) {
+            if (!is_clob && !expectLowSurrogate) {
+                // plain text is read straight from the input buffer
+                _stream.readStringRun(sb, '"');
+            }
             c = read_string_char(ProhibitedCharacters.SHORT_CHAR);
             switch (c) {
             case CharacterSequence.CHAR_SEQ_ESCAPED_NEWLINE_SEQUENCE_1:
@@ -2134,6 +2466,7 @@ final class IonReaderTextRawTokensX
         // starts AFTER the 3 quotes have been consumed
         int c;
         for (;;) {
+            _stream.skipUntil(SINGLE_QUOTED_SKIP_STOPS);
             c = read_char();
             switch (c) {
             case -1:
@@ -2171,6 +2504,10 @@ final class IonReaderTextRawTokensX
         boolean expectLowSurrogate = false;
 
         for (;;) {
+            if (!is_clob && !expectLowSurrogate) {
+                // plain text is read straight from the input buffer
+                _stream.readStringRun(sb, '\'');
+            }
             c = read_triple_quoted_char(is_clob);
             switch(c) {
             case CharacterSequence.CHAR_SEQ_STRING_TERMINATOR:
@@ -281,10 +281,19 @@ abstract class IonReaderTextRawX
     StringBuilder       _current_value_buffer;
 
     ValueVariant        _v = new ValueVariant();
+    StringCache         _string_cache;  // canonical instances of recurring strings, if any
+
+    // While seeking fields, the names sought and the index of the current field's name among them.
+    static final int    SEEK_NO_MATCH   = -1;
+    static final int    SEEK_UNRESOLVED = -2;
+    String[]            _seek_field_names;
+    int                 _seek_field_match;
 
     long                _value_start_offset;
     long                _value_start_line;
     long                _value_start_column;
+    boolean             _line_tracking = true; // if false the value start line and column aren't set
+    long                _value_start_line_position; // where they'd have been taken instead
     IonType             _nesting_parent;
 
     enum LOB_STATE { EMPTY, READ, FINISHED }
@@ -330,6 +339,7 @@ abstract class IonReaderTextRawX
 
         assert(parent != null);
         _scanner = new IonReaderTextRawTokensX(iis, start_line, start_column);
+        _scanner.setLineTracking(_line_tracking);
         _value_start_line = start_line;
         _value_start_column = start_column;
         _current_value_save_point = iis.savePointAllocate();
@@ -345,6 +355,39 @@ abstract class IonReaderTextRawX
                                 ,long start_line
                                 ,long start_column
     ) {
+        clear_value_state();
+
+        init(iis, parent, start_line, start_column);
+
+        _nesting_parent = parent;
+        if (IonType.STRUCT.equals(_nesting_parent)) {
+            _container_is_struct = true;
+        }
+    }
+
+    /**
+     * Re-initializes this reader at the start of its stream, once the stream
+     * has been re-pointed at other data, reusing its scanner, buffers and
+     * save point rather than allocating new ones as {@link #re_init} does.
+     */
+    protected final void reset_raw()
+    {
+        _current_value_save_point.clear();
+        _current_value_buffer.setLength(0);
+        clear_value_state();
+
+        _scanner.reset();
+        _value_start_line = 1;
+        _value_start_column = 1;
+        _lob_loaded = LOB_STATE.EMPTY;
+        set_state(get_state_at_container_start(IonType.DATAGRAM));
+        _eof = false;
+        push_container_state(IonType.DATAGRAM);
+        _nesting_parent = null;
+    }
+
+    private final void clear_value_state()
+    {
         _state = 0;
         _container_state_top = 0;
         _container_is_struct = false;
@@ -364,13 +407,6 @@ abstract class IonReaderTextRawX
         _lob_value_position = 0;
         _lob_bytes = null;
         _lob_actual_len = 0;
-
-        init(iis, parent, start_line, start_column);
-
-        _nesting_parent = parent;
-        if (IonType.STRUCT.equals(_nesting_parent)) {
-            _container_is_struct = true;
-        }
     }
 
     public void close()
@@ -758,13 +794,13 @@ abstract class IonReaderTextRawX
                     sid = IonTokenConstsX.decodeSid(sb);
                     break;
                 default:
-                    text = sb.toString();
+                    text = toText(sb);
                     sid = UNKNOWN_SYMBOL_ID;
                     break;
             }
         }
         else {
-            text = sb.toString();
+            text = toText(sb);
             sid = UNKNOWN_SYMBOL_ID;
         }
 
@@ -772,6 +808,34 @@ abstract class IonReaderTextRawX
     }
 
 
+    /**
+     * Finds a field name among {@link #_seek_field_names} without creating a String for it.
+     *
+     * @return the index of the name, {@link #SEEK_NO_MATCH}, or {@link #SEEK_UNRESOLVED} for
+     * identifiers that are keywords or symbol IDs, which are left to the usual parsing.
+     */
+    private final int seek_field_match(StringBuilder sb, int t)
+    {
+        if (t == IonTokenConstsX.TOKEN_SYMBOL_IDENTIFIER
+            && IonTokenConstsX.keyword(sb, 0, sb.length()) != IonTokenConstsX.KEYWORD_unrecognized) {
+            return SEEK_UNRESOLVED;
+        }
+        String[] names = _seek_field_names;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].contentEquals(sb)) {
+                return i;
+            }
+        }
+        return SEEK_NO_MATCH;
+    }
+
+    /** Gets the text of a string, symbol or field name, through the string cache if there is one. */
+    final String toText(StringBuilder sb)
+    {
+        return _string_cache == null ? sb.toString() : _string_cache.intern(sb);
+    }
+
+
     protected final void parse_to_next_value() throws IOException
     {
         int t;
@@ -791,8 +855,13 @@ abstract class IonReaderTextRawX
         // reset this offset since for the span the comma isn't part
         // of the span when it's hoisted
         _value_start_offset = _scanner.getStartingOffset();
-        _value_start_line   = _scanner.getLineNumber();
-        _value_start_column = _scanner.getLineOffset();
+        if (_line_tracking) {
+            _value_start_line   = _scanner.getLineNumber();
+            _value_start_column = _scanner.getLineOffset();
+        }
+        else {
+            _value_start_line_position = _value_start_offset;
+        }
 
         t = _scanner.nextToken();
 
@@ -855,8 +924,15 @@ abstract class IonReaderTextRawX
 
                 sb = token_contents_load(t);
 
-                SymbolToken sym = parseSymbolToken("a field name", sb, t);
-                set_fieldname(sym);
+                if (_seek_field_names != null
+                    && (_seek_field_match = seek_field_match(sb, t)) == SEEK_NO_MATCH) {
+                    // the field is skipped by seekField(), which never exposes its name
+                    clear_fieldname();
+                }
+                else {
+                    SymbolToken sym = parseSymbolToken("a field name", sb, t);
+                    set_fieldname(sym);
+                }
                 clear_current_value_buffer();
 
                 t = _scanner.nextToken();
@@ -18,6 +18,7 @@ package com.amazon.ion.impl;
 import static com.amazon.ion.impl._Private_ScalarConversions.getValueTypeName;
 
 import com.amazon.ion.Decimal;
+import com.amazon.ion.FieldSeekingReader;
 import com.amazon.ion.IntegerSize;
 import com.amazon.ion.IonBlob;
 import com.amazon.ion.IonClob;
@@ -60,6 +61,17 @@ class IonReaderTextSystemX
 {
     private static int UNSIGNED_BYTE_MAX_VALUE = 255;
 
+    /**
+     * A double holds any integer up to 2^53, and the powers of ten up to
+     * 10^22, exactly; a single multiplication or division of two of these
+     * is correctly rounded.
+     */
+    private static final long MAX_EXACT_DOUBLE_SIGNIFICAND = 1L << 53;
+    private static final double[] EXACT_DOUBLE_POWERS_OF_TEN = {
+        1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
     SymbolTable _system_symtab;
 
     protected IonReaderTextSystemX(UnifiedInputStreamX iis)
@@ -191,11 +203,12 @@ class IonReaderTextSystemX
         private static boolean magnitudeLessThanOrEqualTo(String lhs, int lhsLen, char[] rhs)
         {
             assert lhsLen == rhs.length;
-            for (int i = lhsLen - 1; i >= 0; i--)
+            // the first digit that differs decides
+            for (int i = 0; i < lhsLen; i++)
             {
-                if (lhs.charAt(i) > rhs[i])
+                if (lhs.charAt(i) != rhs[i])
                 {
-                    return false;
+                    return lhs.charAt(i) < rhs[i];
                 }
             }
             return true;
@@ -225,6 +238,11 @@ class IonReaderTextSystemX
 
         int token_type = _scanner.getToken();
 
+        if (_scanner.isNumberExact() && load_exact_number(token_type)) {
+            clear_current_value_buffer();
+            return;
+        }
+
         if (_value_type == IonType.DECIMAL) {
             // we do this here (instead of in the case below
             // so that we can modify the value while it's not
@@ -250,7 +268,7 @@ class IonReaderTextSystemX
 
 
         int          len = cs.length();
-        String       s  = cs.toString();
+        String       s  = IonType.isText(_value_type) ? toText(cs) : cs.toString();
 
         clear_current_value_buffer();
 
@@ -428,6 +446,74 @@ class IonReaderTextSystemX
             parse_error("scalar token "+IonTokenConstsX.getTokenName(_scanner.getToken())+"isn't a recognized type");
         }
     }
+    /**
+     * Sets the value of a decimal int, decimal or float from the digits that
+     * the scanner accumulated as it read them, rather than parsing its text
+     * again.
+     *
+     * @return false if the value can't be computed exactly this way, and
+     *  must be parsed from its text.
+     */
+    private final boolean load_exact_number(int token_type)
+    {
+        switch (token_type) {
+        case IonTokenConstsX.TOKEN_UNKNOWN_NUMERIC:
+        case IonTokenConstsX.TOKEN_INT:
+        case IonTokenConstsX.TOKEN_DECIMAL:
+        case IonTokenConstsX.TOKEN_FLOAT:
+            break;
+        default:
+            return false;
+        }
+
+        boolean negative = _scanner.isNumberNegative();
+        long significand = _scanner.getNumberSignificand();
+        switch (_value_type) {
+        case INT:
+            long value = negative ? -significand : significand;
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                _v.setValue((int) value);
+            }
+            else {
+                _v.setValue(value);
+            }
+            return true;
+        case DECIMAL:
+            long scale = (long) _scanner.getNumberFractionDigits()
+                       - _scanner.getNumberExponent();
+            if (scale != (int) scale) {
+                return false;
+            }
+            if (negative && significand == 0) {
+                _v.setValue(Decimal.negativeZero((int) scale));
+            }
+            else {
+                BigInteger unscaled = BigInteger.valueOf(negative ? -significand : significand);
+                _v.setValue(Decimal.valueOf(unscaled, (int) scale));
+            }
+            return true;
+        case FLOAT:
+            long exponent = (long) _scanner.getNumberExponent()
+                          - _scanner.getNumberFractionDigits();
+            int max_exponent = EXACT_DOUBLE_POWERS_OF_TEN.length - 1;
+            if (significand > MAX_EXACT_DOUBLE_SIGNIFICAND
+                || exponent < -max_exponent || exponent > max_exponent) {
+                return false;
+            }
+            double d = significand;
+            if (exponent < 0) {
+                d /= EXACT_DOUBLE_POWERS_OF_TEN[(int) -exponent];
+            }
+            else {
+                d *= EXACT_DOUBLE_POWERS_OF_TEN[(int) exponent];
+            }
+            _v.setValue(negative ? -d : d);
+            return true;
+        default:
+            return false;
+        }
+    }
+
     private final void cast_cached_value(int new_type)
     {
         // this should only be called when it actually has to do some work
@@ -1003,4 +1089,53 @@ class IonReaderTextSystemX
     {
         return null;
     }
+
+
+    @Override
+    public <T> T asFacet(Class<T> facetType)
+    {
+        if (facetType == FieldSeekingReader.class)
+        {
+            return facetType.cast(new FieldSeekingReaderFacet());
+        }
+        return super.asFacet(facetType);
+    }
+
+
+    private class FieldSeekingReaderFacet implements FieldSeekingReader
+    {
+        public int seekField(String[] fieldNames)
+        {
+            if (!isInStruct()) throw new IllegalStateException("The reader is not in a struct");
+
+            _seek_field_names = fieldNames;
+            try {
+                while (next() != null) {
+                    int match = _seek_field_match;
+                    if (match == SEEK_UNRESOLVED) {
+                        match = indexOf(fieldNames, getFieldNameSymbol().getText());
+                    }
+                    if (match >= 0) {
+                        return match;
+                    }
+                }
+                return SEEK_NO_MATCH;
+            }
+            finally {
+                _seek_field_names = null;
+            }
+        }
+    }
+
+    private static int indexOf(String[] names, String name)
+    {
+        if (name != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (name.equals(names[i])) {
+                    return i;
+                }
+            }
+        }
+        return SEEK_NO_MATCH;
+    }
 }
@@ -20,7 +20,9 @@ import static com.amazon.ion.SystemSymbols.ION_SYMBOL_TABLE;
 
 import com.amazon.ion.IonCatalog;
 import com.amazon.ion.IonType;
+import com.amazon.ion.IonException;
 import com.amazon.ion.OffsetSpan;
+import com.amazon.ion.ResettableReader;
 import com.amazon.ion.SeekableReader;
 import com.amazon.ion.Span;
 import com.amazon.ion.SpanProvider;
@@ -29,6 +31,8 @@ import com.amazon.ion.SymbolToken;
 import com.amazon.ion.TextSpan;
 import com.amazon.ion.UnknownSymbolException;
 import com.amazon.ion.UnsupportedIonVersionException;
+import com.amazon.ion.impl.UnifiedInputStreamX.FromByteArray;
+import com.amazon.ion.util.IonStreamUtils;
 import java.util.regex.Pattern;
 
 /**
@@ -63,7 +67,7 @@ class IonReaderTextUserX
      * It must be subtracted from the logical offsets exposed by
      * {@link OffsetSpan}s.
      */
-    private final int _physical_start_offset;
+    private int _physical_start_offset;
     private final _Private_LocalSymbolTableFactory _lstFactory;
 
     // IonSystem   _system; now in IonReaderTextSystemX where it could be null
@@ -287,12 +291,34 @@ class IonReaderTextUserX
             _container_type = reader.getContainerType();
 
             _start_offset = reader._value_start_offset - reader._physical_start_offset;
-            _start_line   = reader._value_start_line;
-            _start_column = reader._value_start_column;
+            if (reader._line_tracking) {
+                _start_line   = reader._value_start_line;
+                _start_column = reader._value_start_column;
+            }
+            else {
+                // lines weren't counted while reading, so count them now
+                long position = reader._value_start_line_position;
+                long line = reader._scanner.getLineNumber(position);
+                _start_line   = (line < 0) ? LINE_UNKNOWN : line;
+                _start_column = (line < 0) ? LINE_UNKNOWN
+                                           : reader._scanner.getLineOffset(position);
+            }
+        }
+
+        /** the start line and column when lines aren't tracked and can't be counted */
+        private static final long LINE_UNKNOWN = -2;
+
+        private static IllegalStateException lineUnknown()
+        {
+            return new IllegalStateException("line numbers aren't tracked by this reader,"
+                                             + " and its input is no longer buffered");
         }
 
         public long getStartLine()
         {
+            if (_start_line == LINE_UNKNOWN) {
+                throw lineUnknown();
+            }
             if (_start_line < 1) {
                 throw new IllegalStateException("not positioned on a reader");
             }
@@ -301,6 +327,9 @@ class IonReaderTextUserX
 
         public long getStartColumn()
         {
+            if (_start_column == LINE_UNKNOWN) {
+                throw lineUnknown();
+            }
             if (_start_column < 0) {
                 throw new IllegalStateException("not positioned on a reader");
             }
@@ -410,6 +439,12 @@ class IonReaderTextUserX
             return facetType.cast(new SeekableReaderFacet());
         }
 
+        if (facetType == ResettableReader.class
+            && _scanner.getSourceStream() instanceof FromByteArray)
+        {
+            return facetType.cast(new ResettableReaderFacet());
+        }
+
         return super.asFacet(facetType);
     }
 
@@ -433,4 +468,27 @@ class IonReaderTextUserX
             hoistImpl(span);
         }
     }
+
+
+    private final class ResettableReaderFacet
+        implements ResettableReader
+    {
+        public void reset(byte[] bytes, int offset, int length)
+        {
+            if (IonStreamUtils.isGzip(bytes, offset, length))
+            {
+                throw new IonException("A reader can't be reset to compressed data");
+            }
+            if (IonStreamUtils.isIonBinary(bytes, offset, length))
+            {
+                throw new IonException("A text reader can't be reset to Ion binary data");
+            }
+            FromByteArray input = (FromByteArray) _scanner.getSourceStream();
+            input.reset(bytes, offset, length);
+            reset_raw();
+            _symbols = _system_symtab;
+            clear_system_value_stack();
+            _physical_start_offset = offset;
+        }
+    }
 }
@@ -48,6 +48,12 @@ abstract class IonWriterSystem
      */
     private InitialIvmHandling _initial_ivm_handling;
 
+    /**
+     * The handling of IVMs at the start of each stream given to
+     * {@link #resetStream()}.
+     */
+    private final InitialIvmHandling _stream_initial_ivm_handling;
+
     /**
      * What to do about non-initial IVMs.
      */
@@ -95,10 +101,26 @@ abstract class IonWriterSystem
         _default_system_symbol_table = defaultSystemSymbolTable;
         _symbol_table = defaultSystemSymbolTable;
         _initial_ivm_handling = initialIvmHandling;
+        _stream_initial_ivm_handling = initialIvmHandling;
         _ivm_minimizing = ivmMinimizing;
     }
 
 
+    /**
+     * Returns the context to its state on construction, ready to start a new
+     * stream, dropping any pending field name and annotations.
+     */
+    void resetStream()
+    {
+        _initial_ivm_handling = _stream_initial_ivm_handling;
+        _previous_value_was_ivm = false;
+        _anything_written = false;
+        _symbol_table = _default_system_symbol_table;
+        clearFieldName();
+        clearAnnotations();
+    }
+
+
     //========================================================================
     // Context management
 
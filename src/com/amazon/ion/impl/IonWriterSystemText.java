@@ -46,6 +46,12 @@ class IonWriterSystemText
 
     private final _Private_IonTextAppender _output;
 
+    /**
+     * The stream appender that {@link #_output} writes to, if any, which can
+     * be {@linkplain #resetStream(OutputStream) reset} to another stream.
+     */
+    private final OutputStreamFastAppendable _stream_output;
+
     /** Ensure we don't use a closed {@link #output} stream. */
     private boolean _closed;
 
@@ -87,6 +93,9 @@ class IonWriterSystemText
         _output =
             _Private_IonTextAppender.forFastAppendable(out,
                                                        options.getCharset());
+        _stream_output = (out instanceof OutputStreamFastAppendable
+                              ? (OutputStreamFastAppendable) out
+                              : null);
         _options = options;
 
         if (_options.isPrettyPrintOn()) {
@@ -107,6 +116,35 @@ class IonWriterSystemText
         return _options;
     }
 
+
+    /**
+     * @return whether {@link #resetStream(OutputStream)} may be called.
+     */
+    boolean isStreamResettable()
+    {
+        return _stream_output != null && ! _closed;
+    }
+
+
+    /**
+     * Discards any open containers and any output not yet written to the
+     * current stream, then directs the output to another stream as though
+     * this writer were newly constructed for it.
+     * Must only be called when {@link #isStreamResettable()}.
+     */
+    void resetStream(OutputStream out)
+    {
+        _stream_output.reset(out);
+        resetStream();
+
+        _top = 0;
+        _in_struct = false;
+        _pending_separator = false;
+        _is_writing_ivm = false;
+        _following_long_string = false;
+        _separator_character = (_options.isPrettyPrintOn() ? '\n' : ' ');
+    }
+
     @Override
     public int getDepth()
     {
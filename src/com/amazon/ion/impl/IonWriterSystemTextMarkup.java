@@ -61,6 +61,13 @@ class IonWriterSystemTextMarkup extends IonWriterSystemText {
         myCallback = callback;
     }
 
+    /** The markup callback may keep state of its own, so isn't reset. */
+    @Override
+    boolean isStreamResettable()
+    {
+        return false;
+    }
+
     @Override
     void startValue()
         throws IOException
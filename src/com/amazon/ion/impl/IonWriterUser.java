@@ -22,11 +22,13 @@ import com.amazon.ion.IonCatalog;
 import com.amazon.ion.IonException;
 import com.amazon.ion.IonStruct;
 import com.amazon.ion.IonType;
+import com.amazon.ion.ResettableWriter;
 import com.amazon.ion.SymbolTable;
 import com.amazon.ion.SymbolToken;
 import com.amazon.ion.Timestamp;
 import com.amazon.ion.ValueFactory;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -84,6 +86,13 @@ class IonWriterUser
      */
     private IonStruct _symbol_table_value;
 
+    /**
+     * The imports of the local symtab given on construction, with which
+     * a {@linkplain ResettableWriter reset} starts the new stream.
+     * Null if the writer was constructed with a system symtab.
+     */
+    private SymbolTable[] _initial_imports;
+
 
 
     /**
@@ -134,6 +143,11 @@ class IonWriterUser
         SymbolTable defaultSystemSymtab =
             systemWriter.getDefaultSystemSymtab();
 
+        if (symtab.isLocalTable())
+        {
+            _initial_imports = symtab.getImportedTables();
+        }
+
         if (symtab.isLocalTable() || symtab != defaultSystemSymtab)
         {
             try {
@@ -209,6 +223,64 @@ class IonWriterUser
         _system_writer.finish();
     }
 
+    @Override
+    public <T> T asFacet(Class<T> facetType)
+    {
+        if (facetType == ResettableWriter.class
+            && _system_writer instanceof IonWriterSystemText
+            && ((IonWriterSystemText) _system_writer).isStreamResettable())
+        {
+            return facetType.cast(new ResettableWriterFacet());
+        }
+        return super.asFacet(facetType);
+    }
+
+
+    private final class ResettableWriterFacet
+        implements ResettableWriter
+    {
+        public void reset(OutputStream out)
+            throws IOException
+        {
+            reset(out, false);
+        }
+
+        public void reset(OutputStream out, boolean retainLocalSymbols)
+            throws IOException
+        {
+            out.getClass(); // Efficient null check
+
+            IonWriterSystemText systemWriter =
+                (IonWriterSystemText) _system_writer;
+            if (! systemWriter.isStreamResettable())
+            {
+                throw new IllegalStateException("Cannot reset a closed writer");
+            }
+
+            SymbolTable symtab = getSymbolTable();
+            if (! symbol_table_being_collected() && getDepth() == 0)
+            {
+                finish();
+            }
+
+            _symbol_table_value = null;
+            _current_writer = _system_writer;
+            systemWriter.resetStream(out);
+
+            if (retainLocalSymbols && symtab.isLocalTable())
+            {
+                setSymbolTable(symtab);
+            }
+            else if (_initial_imports != null)
+            {
+                _Private_LocalSymbolTableFactory lstFactory =
+                    ((_Private_ValueFactory) _symtab_value_factory).getLstFactory();
+                setSymbolTable(lstFactory.newLocalSymtab(systemWriter.getDefaultSystemSymtab(),
+                                                         _initial_imports));
+            }
+        }
+    }
+
     //========================================================================
 
     SymbolTable activeSystemSymbolTable()
@@ -32,7 +32,7 @@ final class OutputStreamFastAppendable
 {
     private static final int MAX_BYTES_LEN = 4096;
 
-    private final OutputStream _out;
+    private OutputStream _out;
 
     /** Aggregates bytes so we can write to {@link #_out} in large batches. */
     private final byte[] _byteBuffer;
@@ -49,6 +49,18 @@ final class OutputStreamFastAppendable
         _byteBuffer = new byte[MAX_BYTES_LEN];
     }
 
+    /**
+     * Discards any bytes not yet written to the current stream and directs
+     * the output to another, reusing the buffer.
+     */
+    void reset(OutputStream out)
+    {
+        out.getClass(); // Efficient null check
+
+        _out = out;
+        _pos = 0;
+    }
+
     // ------------------- FastAppendable Appendable Methods -------------------
     public Appendable append(char c)
         throws IOException
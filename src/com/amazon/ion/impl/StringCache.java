@@ -0,0 +1,157 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.impl;
+
+/**
+ * A bounded cache of the short strings read by a reader, so that a string
+ * that recurs in the data is returned as the same instance each time, and
+ * binary readers need not decode it again.
+ * <p>
+ * Binary readers key the strings by their UTF-8 encoding, and text readers
+ * by their chars. The cache is direct-mapped: every key has one slot, chosen
+ * by its hash, and a new string evicts whatever occupied its slot.
+ * <p>
+ * Instances are not thread-safe; each reader has its own.
+ */
+final class StringCache
+{
+    /**
+     * The length, in bytes or chars, of the longest string cached. Longer
+     * strings are seldom repeated and costly to compare.
+     */
+    static final int MAX_LENGTH = 64;
+
+    private static final class Entry
+    {
+        final int    hash;
+        final byte[] utf8;  // null for strings keyed by chars
+        final String text;
+
+        Entry(int hash, byte[] utf8, String text)
+        {
+            this.hash = hash;
+            this.utf8 = utf8;
+            this.text = text;
+        }
+    }
+
+    private final Entry[] entries;
+    private final int     mask;
+
+    /**
+     * @param size the maximum number of strings cached, which is rounded up
+     * to a power of two. Must be positive.
+     */
+    StringCache(int size)
+    {
+        if (size < 1)
+        {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        int capacity = 1;
+        while (capacity < size && capacity < (1 << 30))
+        {
+            capacity <<= 1;
+        }
+        entries = new Entry[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length)
+    {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++)
+        {
+            h = 31 * h + bytes[i];
+        }
+        return h;
+    }
+
+    private static int hash(CharSequence chars)
+    {
+        int h = 0;
+        for (int i = 0, length = chars.length(); i < length; i++)
+        {
+            h = 31 * h + chars.charAt(i);
+        }
+        return h;
+    }
+
+    /** Spreads the high bits of the hash into the slot index. */
+    private int slot(int hash)
+    {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Finds the string with the given UTF-8 encoding.
+     *
+     * @return the cached string, or null if there is none.
+     */
+    String get(byte[] bytes, int offset, int length)
+    {
+        int hash = hash(bytes, offset, length);
+        Entry entry = entries[slot(hash)];
+        if (entry == null || entry.hash != hash || entry.utf8 == null
+            || entry.utf8.length != length)
+        {
+            return null;
+        }
+        byte[] utf8 = entry.utf8;
+        for (int i = 0; i < length; i++)
+        {
+            if (utf8[i] != bytes[offset + i])
+            {
+                return null;
+            }
+        }
+        return entry.text;
+    }
+
+    /**
+     * Caches a string under its UTF-8 encoding, which is copied.
+     */
+    void put(byte[] bytes, int offset, int length, String text)
+    {
+        if (length > MAX_LENGTH) return;
+
+        byte[] utf8 = new byte[length];
+        System.arraycopy(bytes, offset, utf8, 0, length);
+        int hash = hash(utf8, 0, length);
+        entries[slot(hash)] = new Entry(hash, utf8, text);
+    }
+
+    /**
+     * Returns the cached string with the given chars, caching a new one if
+     * there is none.
+     */
+    String intern(CharSequence chars)
+    {
+        if (chars.length() > MAX_LENGTH) return chars.toString();
+
+        int hash = hash(chars);
+        int slot = slot(hash);
+        Entry entry = entries[slot];
+        if (entry != null && entry.hash == hash && entry.utf8 == null
+            && entry.text.contentEquals(chars))
+        {
+            return entry.text;
+        }
+        String text = chars.toString();
+        entries[slot] = new Entry(hash, null, text);
+        return text;
+    }
+}
@@ -18,6 +18,7 @@ package com.amazon.ion.impl;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 
 /**
  * this base class and it's two children (below) manage
@@ -35,6 +36,7 @@ abstract class UnifiedDataPageX
 
     protected byte[]    _bytes;
     protected char[]    _characters;
+    protected ByteBuffer _direct;     // set, instead of _bytes, by pages read in place
 
 
     public static final UnifiedDataPageX makePage(byte[] bytes, int offset, int length) {
@@ -62,6 +64,7 @@ abstract class UnifiedDataPageX
     public final    PageType getPageType() { return _page_type; }
     public final    char[]   getCharBuffer() { return _characters; }
     public final    byte[]   getByteBuffer() { return _bytes; }
+    public final    ByteBuffer getDirectBuffer() { return _direct; }
 
     private final boolean isBytes() {
         return (_page_type == PageType.BYTES);
@@ -97,6 +100,28 @@ abstract class UnifiedDataPageX
         return read;
     }
 
+    /**
+     * Fills this page with a bulk transfer from the source's current
+     * position, advancing it.
+     * @return the number of bytes loaded, or -1 if the source has none left
+     */
+    int load(ByteBuffer source, int start_offset, long file_position)
+    {
+        if (!isBytes()) {
+            throw new UnsupportedOperationException("character pages can't load bytes");
+        }
+        int read = Math.min(source.remaining(), _bytes.length - start_offset);
+        if (read < 1) {
+            return -1;
+        }
+        source.get(_bytes, start_offset, read);
+        _base_offset = start_offset;
+        _unread_count = 0;
+        _page_limit = start_offset + read;
+        setFilePosition(file_position, start_offset);
+        return read;
+    }
+
     public int getBufferLimit()    { return _page_limit; }
     public int getOriginalStartingOffset() { return _base_offset; }
 
@@ -177,6 +202,17 @@ abstract class UnifiedDataPageX
             _page_limit  = offset + len;
         }
 
+        /**
+         * Re-points this page at another array, as if newly made over it.
+         */
+        final void reset(byte[] bytes, int offset, int len) {
+            _bytes        = bytes;
+            _base_offset  = offset;
+            _page_limit   = offset + len;
+            _unread_count = 0;
+            _file_offset  = 0;
+        }
+
         @Override
         public int getValue(int offset) {
             return (_bytes[offset] & 0xff);
@@ -205,6 +241,58 @@ abstract class UnifiedDataPageX
         }
     }
 
+    /**
+     * A byte page over a {@link ByteBuffer}, such as a direct or mapped
+     * buffer, which is read in place with absolute gets rather than copied
+     * to an array. Its offsets are indexes into the buffer.
+     */
+    static final class Direct extends UnifiedDataPageX
+    {
+        Direct() {
+            _page_type = PageType.BYTES;
+        }
+
+        /**
+         * Re-points this page at another buffer, whose data from
+         * {@code offset} to {@code offset + length} it then holds. The page
+         * takes over the buffer's position.
+         */
+        final void reset(ByteBuffer buffer, int offset, int length) {
+            _direct       = buffer;
+            _base_offset  = offset;
+            _page_limit   = offset + length;
+            _unread_count = 0;
+        }
+
+        @Override
+        public int getValue(int offset) {
+            return (_direct.get(offset) & 0xff);
+        }
+
+        @Override
+        public void putValue(int offset, int b) {
+            throw new UnsupportedOperationException("direct pages are read only");
+        }
+
+        @Override
+        public final int readFrom(int pageOffset, byte[] bytes, int offset, int length) {
+            int bytes_read = length;
+            if (pageOffset >= _page_limit) return -1;
+
+            if (bytes_read > _page_limit - pageOffset) {
+                bytes_read = _page_limit - pageOffset;
+            }
+            _direct.position(pageOffset);
+            _direct.get(bytes, offset, bytes_read);
+
+            return bytes_read;
+        }
+        @Override
+        public final int readFrom(int pageOffset, char[] chars, int offset, int length) {
+            throw new UnsupportedOperationException("byte pages can't read characters");
+        }
+    }
+
     // FIXME: remove "public" when UnifiedOutputBufferX is
     //        integrated back into ion.impl
     public static final class Chars extends UnifiedDataPageX
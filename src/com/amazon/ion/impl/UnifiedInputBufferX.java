@@ -15,6 +15,7 @@
 
 package com.amazon.ion.impl;
 
+import java.nio.ByteBuffer;
 
 abstract class UnifiedInputBufferX
 {
@@ -39,6 +40,22 @@ abstract class UnifiedInputBufferX
         UnifiedInputBufferX buf = makePageBuffer(char_array, 0, length);
         return buf;
     }
+    /**
+     * Makes a buffer of a single page that reads the given buffer's data,
+     * from {@code offset} to {@code offset + length}, in place.
+     */
+    public static UnifiedInputBufferX makePageBuffer(ByteBuffer buffer, int offset, int length) {
+        UnifiedInputBufferX buf = new UnifiedInputBufferX.Direct(buffer, offset, length);
+        return buf;
+    }
+    /**
+     * Makes a buffer whose pages each read a {@link ByteBuffer} in place,
+     * such as a segment of a mapped file, as the stream loads it.
+     */
+    public static UnifiedInputBufferX makeDirectPageBuffer() {
+        UnifiedInputBufferX buf = new UnifiedInputBufferX.Direct();
+        return buf;
+    }
     public static UnifiedInputBufferX makePageBuffer(BufferType bufferType, int initialPageSize)
     {
         UnifiedInputBufferX buf;
@@ -268,6 +285,16 @@ abstract class UnifiedInputBufferX
             _buffer_current = 0;
             _buffer_count = 1;
         }
+        /**
+         * Re-points a buffer made over an array at another, reusing its page.
+         */
+        final UnifiedDataPageX reset(byte[] bytes, int offset, int length) {
+            UnifiedDataPageX.Bytes page = (UnifiedDataPageX.Bytes) _buffers[0];
+            page.reset(bytes, offset, length);
+            _buffer_current = 0;
+            _buffer_count = 1;
+            return page;
+        }
         @Override
         public final BufferType getType() { return BufferType.BYTES; }
 
@@ -281,6 +308,30 @@ abstract class UnifiedInputBufferX
         public final int maxValue() { return 0xff; }
 
     }
+    static class Direct extends UnifiedInputBufferX {
+        protected Direct() {
+            super(0);
+        }
+        protected Direct(ByteBuffer buffer, int offset, int length) {
+            super(0);
+            UnifiedDataPageX.Direct page = new UnifiedDataPageX.Direct();
+            page.reset(buffer, offset, length);
+            _buffers[0] = page;
+            _buffer_current = 0;
+            _buffer_count = 1;
+        }
+        @Override
+        public final BufferType getType() { return BufferType.BYTES; }
+
+        @Override
+        protected final UnifiedDataPageX make_page(int page_size) {
+            UnifiedDataPageX p = new UnifiedDataPageX.Direct();
+            return p;
+        }
+
+        @Override
+        public final int maxValue() { return 0xff; }
+    }
     static class Chars extends UnifiedInputBufferX {
         protected Chars(int initialPageSize) {
             super(initialPageSize);
@@ -15,12 +15,17 @@
 
 package com.amazon.ion.impl;
 
+import static com.amazon.ion.impl._Private_Utils.ASCII_CHARSET;
+
 import com.amazon.ion.impl.IonReaderTextRawTokensX.IonReaderTextTokenException;
 import com.amazon.ion.impl.UnifiedSavePointManagerX.SavePoint;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * This is a local stream abstraction, and implementation, that
@@ -84,12 +89,18 @@ abstract class UnifiedInputStreamX
     // source or a character source
     Reader                  _reader;
     InputStream             _stream;
+    ByteBuffer              _byte_source;
     byte[]                  _bytes;
     char[]                  _chars;
+    // set instead of _bytes over pages that read a ByteBuffer in place
+    ByteBuffer              _direct;
 
 
     UnifiedSavePointManagerX _save_points;
 
+    // the bytes of a string copied out of a direct page to be decoded
+    private byte[]           _scratch;
+
 
     // factories to construct an appropriate input stream
     // based on the input source
@@ -117,12 +128,53 @@ abstract class UnifiedInputStreamX
     public static UnifiedInputStreamX makeStream(InputStream stream) throws IOException {
         return new FromByteStream(stream);
     }
+    /**
+     * Heap buffers are read in place; other buffers (direct or mapped) are
+     * copied to pages in bulk, since the text scanner decodes from page
+     * arrays. The buffer's position is not modified.
+     */
+    public static UnifiedInputStreamX makeStream(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset() + buffer.position();
+            return new FromByteArray(buffer.array(), offset, buffer.remaining());
+        }
+        return new FromByteBuffer(buffer.duplicate());
+    }
+    /**
+     * Maps the channel from its current position to its end, a segment
+     * at a time, copying each to pages as the text scanner advances.
+     */
+    public static UnifiedInputStreamX makeStream(FileChannel channel) throws IOException {
+        return new FromFileChannel(channel);
+    }
+    /**
+     * As {@link #makeStream(ByteBuffer)}, but reads direct and mapped
+     * buffers in place as well. Only the binary reader supports such
+     * streams, since the text scanner's bulk scans need page arrays.
+     */
+    public static UnifiedInputStreamX makeBinaryStream(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset() + buffer.position();
+            return new FromByteArray(buffer.array(), offset, buffer.remaining());
+        }
+        return new FromDirectBuffer(buffer.duplicate());
+    }
+    /**
+     * As {@link #makeStream(FileChannel)}, but reads each mapped segment in
+     * place. Only the binary reader supports such streams.
+     */
+    public static UnifiedInputStreamX makeBinaryStream(FileChannel channel) throws IOException {
+        return new FromMappedFile(channel, FromFileChannel.SEGMENT_SIZE);
+    }
+    static UnifiedInputStreamX makeBinaryStream(FileChannel channel, long segmentSize) throws IOException {
+        return new FromMappedFile(channel, segmentSize);
+    }
     public final InputStream getInputStream() { return _stream; }
     public final Reader      getReader()      { return _reader; }
     public final byte[]      getByteArray()   { return _bytes; }
     public final char[]      getCharArray()   { return _chars; }
 
-    private final void init() {
+    final void init() {
         // _state = UIS_STATE.STATE_READING;
         _eof = false;
         _max_char_value = _buffer.maxValue();
@@ -192,6 +244,7 @@ abstract class UnifiedInputStreamX
         _eof = false;
         if (is_byte_data()) {
             _bytes = curr.getByteBuffer();
+            _direct = curr.getDirectBuffer();
         }
         else {
             _chars = curr.getCharBuffer();
@@ -231,7 +284,11 @@ abstract class UnifiedInputStreamX
                 // the actual beginning of the input - which is an error.
                 curr.inc_unread_count();
                 if (is_byte_data()) {
-                    _bytes[_pos] = (byte)c;
+                    // a direct page maps the bytes before its start, which
+                    // are those being unread
+                    if (_bytes != null) {
+                        _bytes[_pos] = (byte)c;
+                    }
                 }
                 else {
                     _chars[_pos] = (char)c;
@@ -297,10 +354,20 @@ abstract class UnifiedInputStreamX
 
     public final int read() throws IOException {
         if (_pos >= _limit) return read_helper();
-        // both bytes and chars might be null if this is empty input
-        // otherwise we should have 1, and only 1, of these buffers set
-        assert((_bytes == null) ^ (_chars == null));
-        return (_is_byte_data) ? (_bytes[_pos++] & 0xff) : _chars[_pos++];
+        if (_is_byte_data) {
+            // a byte page has an array unless it's read in place
+            final byte[] bytes = _bytes;
+            return (bytes != null) ? (bytes[_pos++] & 0xff) : read_direct();
+        }
+        return _chars[_pos++];
+    }
+
+    /**
+     * Reads the next byte of a page that reads a ByteBuffer in place, which
+     * has no array for {@link #read()} to read from.
+     */
+    private final int read_direct() {
+        return (_direct.get(_pos++) & 0xff);
     }
 
     protected final int read_helper() throws IOException
@@ -312,6 +379,9 @@ abstract class UnifiedInputStreamX
             return EOF;
         }
 
+        if (_direct != null) {
+            return read_direct();
+        }
         int c = (is_byte_data()) ? (_bytes[_pos++] & 0xff) : _chars[_pos++];
         return c;
     }
@@ -373,7 +443,13 @@ abstract class UnifiedInputStreamX
             if (ready > remaining) {
                 ready = remaining;
             }
-            System.arraycopy(_bytes, _pos, dst, offset, ready);
+            if (_direct != null) {
+                _direct.position(_pos);
+                _direct.get(dst, offset, ready);
+            }
+            else {
+                System.arraycopy(_bytes, _pos, dst, offset, ready);
+            }
             _pos += ready;
             offset += ready;
             remaining -= ready;
@@ -383,6 +459,352 @@ abstract class UnifiedInputStreamX
         }
         return length - remaining;
     }
+    /**
+     * Reads a string of {@code length} bytes directly from the current page
+     * if they are all ASCII, which is then their UTF-8 decoding.
+     *
+     * @return the string, or null, having consumed nothing, if the bytes are
+     * not all ASCII or not all in the current page.
+     */
+    public final String readAscii(int length)
+    {
+        if (!is_byte_data() || _limit - _pos < length) {
+            return null;
+        }
+        byte[] bytes = _bytes;
+        int start = _pos;
+        if (_direct != null) {
+            if (length > DIRECT_STRING_LIMIT) {
+                return null;
+            }
+            bytes = copy_direct(length);
+            start = 0;
+        }
+        int end = start + length;
+        for (int pos = start; pos < end; pos++) {
+            if (bytes[pos] < 0) {
+                return null;
+            }
+        }
+        // decoding ASCII bytes is a copy, which the JDK's ASCII decoder does in bulk
+        String ascii = new String(bytes, start, length, ASCII_CHARSET);
+        _pos += length;
+        return ascii;
+    }
+
+    /**
+     * The most bytes of a string that are copied out of a direct page at
+     * once; longer strings are decoded a chunk at a time.
+     */
+    private static final int DIRECT_STRING_LIMIT = 8 * 1024;
+
+    /**
+     * Copies {@code length} bytes at the current position of a direct page
+     * into the scratch array, without consuming them. Decoding from an array
+     * is much faster than reading the buffer a byte at a time.
+     */
+    private byte[] copy_direct(int length)
+    {
+        if (_scratch == null || _scratch.length < length) {
+            _scratch = new byte[Math.max(length, StringCache.MAX_LENGTH)];
+        }
+        _direct.position(_pos);
+        _direct.get(_scratch, 0, length);
+        return _scratch;
+    }
+
+    /**
+     * Reads a string of {@code length} bytes of UTF-8 directly from the
+     * current page through the given cache, decoding and caching it if it
+     * is not cached already.
+     *
+     * @param scratch receives the chars of a string being decoded, and must
+     * have room for {@code length} chars.
+     *
+     * @return the string, or null, having consumed nothing, if the bytes are
+     * not all in the current page or are not valid UTF-8.
+     */
+    final String readCached(StringCache cache, int length, CharBuffer scratch)
+        throws IOException
+    {
+        if (!is_byte_data() || _limit - _pos < length) {
+            return null;
+        }
+        int start = _pos;
+        byte[] key = _bytes;
+        int key_start = start;
+        if (_direct != null) {
+            // the cache is keyed by arrays; decoding below copies the same
+            // bytes to the same place in the scratch array again
+            key = copy_direct(length);
+            key_start = 0;
+        }
+        String text = cache.get(key, key_start, length);
+        if (text != null) {
+            _pos = start + length;
+            return text;
+        }
+        text = readAscii(length);
+        if (text == null) {
+            scratch.clear();
+            if (decodeUtf8(scratch, length) != length) {
+                // leave the malformed input to be reported by the caller
+                _pos = start;
+                return null;
+            }
+            scratch.flip();
+            text = scratch.toString();
+        }
+        cache.put(key, key_start, length, text);
+        return text;
+    }
+
+    /**
+     * Decodes up to {@code length} bytes of UTF-8 directly from the current
+     * page into {@code dst}, which must have room for as many chars.
+     * Decoding stops early at the end of the page, or at a sequence that is
+     * malformed or continues on the next page; those are left to the caller
+     * to decode the general way, which reports malformed input.
+     *
+     * @return the number of bytes consumed, 0 at EOF or over character
+     * sources.
+     */
+    public final int decodeUtf8(CharBuffer dst, int length) throws IOException
+    {
+        if (!is_byte_data()) {
+            return 0;
+        }
+        if (_pos >= _limit && (_eof || refill_helper())) {
+            return 0;
+        }
+        int consumed;
+        if (_direct != null) {
+            // a chunk ends like a page does, and the caller decodes on from there
+            int count = Math.min(Math.min(_limit - _pos, length), DIRECT_STRING_LIMIT);
+            consumed = decode_utf8(copy_direct(count), 0, count, dst);
+        }
+        else {
+            consumed = decode_utf8(_bytes, _pos, Math.min(_limit, _pos + length), dst) - _pos;
+        }
+        _pos += consumed;
+        return consumed;
+    }
+
+    /**
+     * Decodes the UTF-8 in {@code bytes} from {@code pos} up to {@code end}
+     * into {@code dst}, as {@link #decodeUtf8} does.
+     *
+     * @return the position at which decoding stopped.
+     */
+    private static int decode_utf8(byte[] bytes, int pos, int end, CharBuffer dst)
+    {
+        final char[] chars = dst.array();
+        int out = dst.arrayOffset() + dst.position();
+        while (pos < end) {
+            int b = bytes[pos];
+            if (b >= 0) {
+                // ASCII, the overwhelmingly common case
+                chars[out++] = (char) b;
+                pos++;
+            }
+            else if ((b & 0xE0) == 0xC0) {
+                if (end - pos < 2) break;
+                int b1 = bytes[pos + 1];
+                // C0 and C1 lead overlong encodings
+                if ((b1 & 0xC0) != 0x80 || (b & 0x1E) == 0) break;
+                chars[out++] = (char) (((b & 0x1F) << 6) | (b1 & 0x3F));
+                pos += 2;
+            }
+            else if ((b & 0xF0) == 0xE0) {
+                if (end - pos < 3) break;
+                int b1 = bytes[pos + 1];
+                int b2 = bytes[pos + 2];
+                if ((b1 & 0xC0) != 0x80 || (b2 & 0xC0) != 0x80) break;
+                int c = ((b & 0x0F) << 12) | ((b1 & 0x3F) << 6) | (b2 & 0x3F);
+                if (c < 0x800 || Character.isSurrogate((char) c)) break;
+                chars[out++] = (char) c;
+                pos += 3;
+            }
+            else if ((b & 0xF8) == 0xF0) {
+                if (end - pos < 4) break;
+                int b1 = bytes[pos + 1];
+                int b2 = bytes[pos + 2];
+                int b3 = bytes[pos + 3];
+                if ((b1 & 0xC0) != 0x80 || (b2 & 0xC0) != 0x80 || (b3 & 0xC0) != 0x80) break;
+                int c = ((b & 0x07) << 18) | ((b1 & 0x3F) << 12) | ((b2 & 0x3F) << 6) | (b3 & 0x3F);
+                if (c < 0x10000 || c > Character.MAX_CODE_POINT) break;
+                chars[out++] = Character.highSurrogate(c);
+                chars[out++] = Character.lowSurrogate(c);
+                pos += 4;
+            }
+            else {
+                break;
+            }
+        }
+        dst.position(out - dst.arrayOffset());
+        return pos;
+    }
+
+    /**
+     * Appends to {@code sb} a run of plain string content read directly
+     * from the current page, rather than a character at a time. Over byte
+     * sources this decodes UTF-8. The run ends before the first
+     * {@code terminator}, backslash or ASCII control character, at the end
+     * of the page, or at a sequence that is malformed, unpaired or continues
+     * on the next page. The caller reads those the general way, which
+     * handles escapes, newlines and errors.
+     */
+    final void readStringRun(StringBuilder sb, int terminator)
+    {
+        int pos = _pos;
+        final int end = _limit;
+        if (!is_byte_data()) {
+            final char[] chars = _chars;
+            while (pos < end) {
+                char c = chars[pos];
+                if (c < 0x20 || c == terminator || c == '\\') break;
+                if (Character.isSurrogate(c)) {
+                    if (end - pos < 2
+                        || !Character.isHighSurrogate(c)
+                        || !Character.isLowSurrogate(chars[pos + 1])) break;
+                    sb.append(c);
+                    c = chars[++pos];
+                }
+                sb.append(c);
+                pos++;
+            }
+            _pos = pos;
+            return;
+        }
+        final byte[] bytes = _bytes;
+        while (pos < end) {
+            int b = bytes[pos];
+            if (b >= 0) {
+                if (b < 0x20 || b == terminator || b == '\\') break;
+                sb.append((char) b);
+                pos++;
+            }
+            else if ((b & 0xE0) == 0xC0) {
+                if (end - pos < 2) break;
+                int b1 = bytes[pos + 1];
+                if ((b1 & 0xC0) != 0x80 || (b & 0x1E) == 0) break;
+                sb.append((char) (((b & 0x1F) << 6) | (b1 & 0x3F)));
+                pos += 2;
+            }
+            else if ((b & 0xF0) == 0xE0) {
+                if (end - pos < 3) break;
+                int b1 = bytes[pos + 1];
+                int b2 = bytes[pos + 2];
+                if ((b1 & 0xC0) != 0x80 || (b2 & 0xC0) != 0x80) break;
+                int c = ((b & 0x0F) << 12) | ((b1 & 0x3F) << 6) | (b2 & 0x3F);
+                if (c < 0x800 || Character.isSurrogate((char) c)) break;
+                sb.append((char) c);
+                pos += 3;
+            }
+            else if ((b & 0xF8) == 0xF0) {
+                if (end - pos < 4) break;
+                int b1 = bytes[pos + 1];
+                int b2 = bytes[pos + 2];
+                int b3 = bytes[pos + 3];
+                if ((b1 & 0xC0) != 0x80 || (b2 & 0xC0) != 0x80 || (b3 & 0xC0) != 0x80) break;
+                int c = ((b & 0x07) << 18) | ((b1 & 0x3F) << 12) | ((b2 & 0x3F) << 6) | (b3 & 0x3F);
+                if (c < 0x10000 || c > Character.MAX_CODE_POINT) break;
+                sb.append(Character.highSurrogate(c));
+                sb.append(Character.lowSurrogate(c));
+                pos += 4;
+            }
+            else {
+                break;
+            }
+        }
+        _pos = pos;
+    }
+
+    /**
+     * Appends to {@code sb} the run of identifier symbol characters read
+     * directly from the current page, stopping before any other character
+     * or at the end of the page.
+     */
+    final void readIdentifierRun(StringBuilder sb)
+    {
+        int pos = _pos;
+        final int end = _limit;
+        if (is_byte_data()) {
+            final byte[] bytes = _bytes;
+            while (pos < end && IonTokenConstsX.isValidSymbolCharacter(bytes[pos])) {
+                sb.append((char) bytes[pos++]);
+            }
+        }
+        else {
+            final char[] chars = _chars;
+            while (pos < end && IonTokenConstsX.isValidSymbolCharacter(chars[pos])) {
+                sb.append(chars[pos++]);
+            }
+        }
+        _pos = pos;
+    }
+
+    /**
+     * Skips the run of spaces and tabs in the current page, stopping before
+     * any other character, including the newlines whose lines the scanner
+     * counts, or at the end of the page.
+     *
+     * @return whether anything was skipped.
+     */
+    final boolean skipBlanks()
+    {
+        final int start = _pos;
+        int pos = start;
+        final int end = _limit;
+        if (is_byte_data()) {
+            final byte[] bytes = _bytes;
+            while (pos < end && (bytes[pos] == ' ' || bytes[pos] == '\t')) {
+                pos++;
+            }
+        }
+        else {
+            final char[] chars = _chars;
+            while (pos < end && (chars[pos] == ' ' || chars[pos] == '\t')) {
+                pos++;
+            }
+        }
+        _pos = pos;
+        return pos != start;
+    }
+
+    /**
+     * Skips a run of characters directly over the current page, rather
+     * than a character at a time. The run ends before the first character
+     * that {@code stops}, a table indexed by ASCII character, marks, or at
+     * the end of the page. Other characters, including any that aren't
+     * ASCII and the bytes of their UTF-8 encoding, are skipped.
+     * <p>
+     * Stops must include the line terminators, so that the caller can
+     * count lines, and anything else the caller needs to see.
+     */
+    final void skipUntil(boolean[] stops)
+    {
+        int pos = _pos;
+        final int end = _limit;
+        if (is_byte_data()) {
+            final byte[] bytes = _bytes;
+            while (pos < end) {
+                int b = bytes[pos];
+                if (b >= 0 && stops[b]) break;
+                pos++;
+            }
+        }
+        else {
+            final char[] chars = _chars;
+            while (pos < end) {
+                char c = chars[pos];
+                if (c < 0x80 && stops[c]) break;
+                pos++;
+            }
+        }
+        _pos = pos;
+    }
+
     private int read_utf8(int c) throws IOException
     {
         int len = IonUTF8.getUTF8LengthFromFirstByte(c);
@@ -517,11 +939,17 @@ abstract class UnifiedInputStreamX
         return _is_stream;
     }
 
-    protected final int load(UnifiedDataPageX curr, int start_pos, long file_position) throws IOException
+    protected int load(UnifiedDataPageX curr, int start_pos, long file_position) throws IOException
     {
         int read = 0;
         if (can_fill_new_page()) {
-            if (is_byte_data()) {
+            if (_byte_source != null) {
+                read = curr.load(_byte_source, start_pos, file_position);
+                if (read < 1 && next_byte_source()) {
+                    read = curr.load(_byte_source, start_pos, file_position);
+                }
+            }
+            else if (is_byte_data()) {
                 read = curr.load(_stream, start_pos, file_position);
             }
             else {
@@ -531,6 +959,16 @@ abstract class UnifiedInputStreamX
         return read;
     }
 
+    /**
+     * Advances {@link #_byte_source} once it has been consumed, for sources
+     * made of more than one buffer.
+     * @return true if a new, non-empty buffer is available
+     */
+    protected boolean next_byte_source() throws IOException
+    {
+        return false;
+    }
+
     //
     // specialized subclasses that provide an appropriate constructor
     // and refill method tailored to efficiently use the data source
@@ -592,6 +1030,155 @@ static class FromByteArray extends UnifiedInputStreamX
             make_page_current(curr, 0, offset, offset+length);
             super.init();
         }
+
+        /**
+         * Re-points this stream at another array, as if newly made over it,
+         * reusing its buffer and save points. Active save points are popped,
+         * but remain defined until their owners clear them.
+         */
+        final void reset(byte[] bytes, int offset, int length)
+        {
+            for (;;) {
+                SavePoint sp = _save_points._active_stack;
+                if (sp == null) break;
+                _save_points.savePointPopActive(sp);
+            }
+            UnifiedDataPageX curr =
+                ((UnifiedInputBufferX.Bytes) _buffer).reset(bytes, offset, length);
+            make_page_current(curr, 0, offset, offset+length);
+        }
+    }
+
+    private static class FromByteBuffer extends UnifiedInputStreamX
+    {
+        FromByteBuffer(ByteBuffer buffer) throws IOException
+        {
+            _is_byte_data = true;
+            _is_stream = true;
+            _byte_source = buffer;
+            _buffer = UnifiedInputBufferX.makePageBuffer(UnifiedInputBufferX.BufferType.BYTES, DEFAULT_PAGE_SIZE);
+            super.init();
+            _limit = refill();
+        }
+    }
+
+    private static class FromFileChannel extends UnifiedInputStreamX
+    {
+        /**
+         * Size of each mapped region. A single mapping is limited to
+         * {@link Integer#MAX_VALUE} bytes, so larger files are mapped a
+         * segment at a time as the reader advances.
+         */
+        static final long SEGMENT_SIZE = 1L << 30;
+
+        private final FileChannel _channel;
+        private final long        _end;
+        private long              _mapped_to;
+
+        FromFileChannel(FileChannel channel) throws IOException
+        {
+            _is_byte_data = true;
+            _is_stream = true;
+            _channel = channel;
+            _mapped_to = channel.position();
+            _end = channel.size();
+            // the first segment is mapped by the first refill
+            _byte_source = ByteBuffer.allocate(0);
+            _buffer = UnifiedInputBufferX.makePageBuffer(UnifiedInputBufferX.BufferType.BYTES, DEFAULT_PAGE_SIZE);
+            super.init();
+            _limit = refill();
+        }
+
+        @Override
+        protected boolean next_byte_source() throws IOException
+        {
+            if (_mapped_to >= _end) {
+                return false;
+            }
+            long length = Math.min(SEGMENT_SIZE, _end - _mapped_to);
+            _byte_source = _channel.map(FileChannel.MapMode.READ_ONLY, _mapped_to, length);
+            _mapped_to += length;
+            return true;
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            super.close();
+            _byte_source = null;
+            _channel.close();
+        }
+    }
+
+    /**
+     * The streams over a ByteBuffer that read it in place, through pages
+     * that wrap it, rather than copying it to page arrays. Only the binary
+     * reader supports them: the text scanner's bulk scans need arrays.
+     */
+    private static final class FromDirectBuffer extends UnifiedInputStreamX
+    {
+        FromDirectBuffer(ByteBuffer buffer)
+        {
+            _is_byte_data = true;
+            _is_stream = false;
+            int offset = buffer.position();
+            _buffer = UnifiedInputBufferX.makePageBuffer(buffer, offset, buffer.remaining());
+            UnifiedDataPageX curr = _buffer.getCurrentPage();
+            // positions are relative to the buffer's position
+            curr.setFilePosition(0, offset);
+            make_page_current(curr, 0, offset, buffer.limit());
+            super.init();
+        }
+    }
+
+    private static final class FromMappedFile extends UnifiedInputStreamX
+    {
+        private final FileChannel _channel;
+        private final long        _segment_size;
+        private final long        _start;
+        private final long        _end;
+
+        FromMappedFile(FileChannel channel, long segmentSize) throws IOException
+        {
+            _is_byte_data = true;
+            _is_stream = true;
+            _channel = channel;
+            _segment_size = segmentSize;
+            _start = channel.position();
+            _end = channel.size();
+            _buffer = UnifiedInputBufferX.makeDirectPageBuffer();
+            super.init();
+            _limit = refill();
+        }
+
+        /**
+         * Points the page at the next segment of the file, mapped with the
+         * {@code start_pos} bytes before it, which are those a stream may
+         * unread past the start of a page.
+         */
+        @Override
+        protected int load(UnifiedDataPageX curr, int start_pos, long file_position) throws IOException
+        {
+            long position = _start + file_position;
+            if (position >= _end) {
+                return -1;
+            }
+            long length = Math.min(_segment_size, _end - position);
+            ByteBuffer segment =
+                _channel.map(FileChannel.MapMode.READ_ONLY, position - start_pos, start_pos + length);
+            ((UnifiedDataPageX.Direct) curr).reset(segment, start_pos, (int) length);
+            curr.setFilePosition(file_position, start_pos);
+            return (int) length;
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            super.close();
+            _channel.close();
+        }
     }
 
     private static class FromByteStream extends UnifiedInputStreamX
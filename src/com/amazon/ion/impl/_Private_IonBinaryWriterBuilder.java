@@ -26,12 +26,14 @@ import com.amazon.ion.SubstituteSymbolTableException;
 import com.amazon.ion.SymbolTable;
 import com.amazon.ion.ValueFactory;
 import com.amazon.ion.impl.BlockedBuffer.BufferedOutputStream;
-import com.amazon.ion.impl.bin.PooledBlockAllocatorProvider;
+import com.amazon.ion.impl.bin.BlockAllocatorProvider;
+import com.amazon.ion.impl.bin.BlockAllocatorProviders;
 import com.amazon.ion.impl.bin._Private_IonManagedBinaryWriterBuilder;
 import com.amazon.ion.system.IonBinaryWriterBuilder;
 import com.amazon.ion.system.IonSystemBuilder;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * NOT FOR APPLICATION USE!
@@ -42,6 +44,7 @@ public class _Private_IonBinaryWriterBuilder
     // amzn/ion-java/issues/59 expose configuration points properly and figure out deprecation path for the old writer.
     private final _Private_IonManagedBinaryWriterBuilder myBinaryWriterBuilder;
     private ValueFactory mySymtabValueFactory;
+    private BlockAllocatorProvider myBlockAllocatorProvider;
 
     /** System or local */
     private SymbolTable  myInitialSymbolTable;
@@ -51,7 +54,7 @@ public class _Private_IonBinaryWriterBuilder
     {
         myBinaryWriterBuilder =
             _Private_IonManagedBinaryWriterBuilder
-                .create(new PooledBlockAllocatorProvider())
+                .create(BlockAllocatorProviders.pooledProvider())
                 .withPaddedLengthPreallocation(0)
                 ;
     }
@@ -63,6 +66,7 @@ public class _Private_IonBinaryWriterBuilder
         super(that);
 
         this.mySymtabValueFactory = that.mySymtabValueFactory;
+        this.myBlockAllocatorProvider = that.myBlockAllocatorProvider;
         this.myInitialSymbolTable = that.myInitialSymbolTable;
         this.myBinaryWriterBuilder = that.myBinaryWriterBuilder.copy();
     }
@@ -128,6 +132,45 @@ public class _Private_IonBinaryWriterBuilder
     //=========================================================================
 
 
+    /**
+     * Gets the provider of the blocks that buffer data until it is written
+     * out. By default, this property is null, which denotes the provider
+     * shared by all builders for the {@link #getBlockAllocation() block
+     * allocation}: {@link BlockAllocatorProviders#pooledProvider()} or
+     * {@link BlockAllocatorProviders#pooledDirectProvider()}.
+     */
+    public BlockAllocatorProvider getBlockAllocatorProvider()
+    {
+        return myBlockAllocatorProvider;
+    }
+
+    /**
+     * Sets the provider of the blocks that buffer data until it is written
+     * out. Applications building many writers, or building them from many
+     * builders, should share one provider so that blocks are reused.
+     *
+     * @param provider may be null, which denotes the default provider. A
+     * provider takes precedence over the block allocation.
+     */
+    public void setBlockAllocatorProvider(BlockAllocatorProvider provider)
+    {
+        mutationCheck();
+        myBlockAllocatorProvider = provider;
+        applyBlockAllocatorProvider();
+    }
+
+    public _Private_IonBinaryWriterBuilder
+    withBlockAllocatorProvider(BlockAllocatorProvider provider)
+    {
+        _Private_IonBinaryWriterBuilder b = mutable();
+        b.setBlockAllocatorProvider(provider);
+        return b;
+    }
+
+
+    //=========================================================================
+
+
     @Override
     public SymbolTable getInitialSymbolTable()
     {
@@ -272,6 +315,70 @@ public class _Private_IonBinaryWriterBuilder
         myBinaryWriterBuilder.withStreamCopyOptimization(optimized);
     }
 
+    @Override
+    public void setLengthPreallocation(final LengthPreallocation preallocation)
+    {
+        super.setLengthPreallocation(preallocation);
+        switch (getLengthPreallocation())
+        {
+            case NONE:
+                myBinaryWriterBuilder.withPaddedLengthPreallocation(0);
+                break;
+            case PADDED_1:
+                myBinaryWriterBuilder.withPaddedLengthPreallocation(1);
+                break;
+            case PADDED_2:
+                myBinaryWriterBuilder.withPaddedLengthPreallocation(2);
+                break;
+            case COMPACTED:
+                myBinaryWriterBuilder.withCompactedLengthPreallocation();
+                break;
+            case ADAPTIVE:
+                myBinaryWriterBuilder.withAdaptiveLengthPreallocation();
+                break;
+        }
+    }
+
+    @Override
+    public void setUserBlockSize(final int size)
+    {
+        super.setUserBlockSize(size);
+        myBinaryWriterBuilder.withUserBlockSize(size);
+    }
+
+    @Override
+    public void setSymbolsBlockSize(final int size)
+    {
+        super.setSymbolsBlockSize(size);
+        myBinaryWriterBuilder.withSymbolsBlockSize(size);
+    }
+
+    @Override
+    public void setBlockAllocation(final BlockAllocation allocation)
+    {
+        super.setBlockAllocation(allocation);
+        applyBlockAllocatorProvider();
+    }
+
+    private void applyBlockAllocatorProvider()
+    {
+        BlockAllocatorProvider provider = myBlockAllocatorProvider;
+        if (provider == null)
+        {
+            provider = (getBlockAllocation() == BlockAllocation.DIRECT)
+                ? BlockAllocatorProviders.pooledDirectProvider()
+                : BlockAllocatorProviders.pooledProvider();
+        }
+        myBinaryWriterBuilder.withBlockAllocatorProvider(provider);
+    }
+
+    @Override
+    public void setMaxLocalSymbols(final int maxLocalSymbols)
+    {
+        super.setMaxLocalSymbols(maxLocalSymbols);
+        myBinaryWriterBuilder.withMaxLocalSymbols(maxLocalSymbols);
+    }
+
     //=========================================================================
 
 
@@ -371,6 +478,22 @@ public class _Private_IonBinaryWriterBuilder
     }
 
 
+    @Override
+    public final IonWriter build(WritableByteChannel out)
+    {
+        checkBlocking(out);
+        _Private_IonBinaryWriterBuilder b = fillDefaults();
+        try
+        {
+            return b.myBinaryWriterBuilder.newWriter(out);
+        }
+        catch (final IOException e)
+        {
+            throw new IonException("I/O Error", e);
+        }
+    }
+
+
     @Deprecated
     public final IonBinaryWriter buildLegacy()
     {
@@ -25,11 +25,16 @@ import com.amazon.ion.IonReader;
 import com.amazon.ion.IonSystem;
 import com.amazon.ion.IonTextReader;
 import com.amazon.ion.IonValue;
+import com.amazon.ion.SymbolTable;
+import com.amazon.ion.system.IonReaderBuilder;
 import com.amazon.ion.util.IonStreamUtils;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -238,6 +243,56 @@ public final class _Private_IonReaderFactory
         }
     }
 
+    public static final IonReader makeReader(IonCatalog catalog,
+                                             ByteBuffer buffer)
+    {
+        return makeReader(catalog, buffer, LocalSymbolTable.DEFAULT_LST_FACTORY);
+    }
+
+    public static final IonReader makeReader(IonCatalog catalog,
+                                             ByteBuffer buffer,
+                                             _Private_LocalSymbolTableFactory lstFactory)
+    {
+        if (buffer.hasArray())
+        {
+            return makeReader(catalog,
+                              buffer.array(),
+                              buffer.arrayOffset() + buffer.position(),
+                              buffer.remaining(),
+                              lstFactory);
+        }
+        try
+        {
+            UnifiedInputStreamX uis = makeUnifiedStream(buffer);
+            return makeReader(catalog, uis, 0, lstFactory);
+        }
+        catch (IOException e)
+        {
+            throw new IonException(e);
+        }
+    }
+
+    public static final IonReader makeReader(IonCatalog catalog,
+                                             FileChannel channel)
+    {
+        return makeReader(catalog, channel, LocalSymbolTable.DEFAULT_LST_FACTORY);
+    }
+
+    public static final IonReader makeReader(IonCatalog catalog,
+                                             FileChannel channel,
+                                             _Private_LocalSymbolTableFactory lstFactory)
+    {
+        try
+        {
+            UnifiedInputStreamX uis = makeUnifiedStream(channel);
+            return makeReader(catalog, uis, 0, lstFactory);
+        }
+        catch (IOException e)
+        {
+            throw new IonException(e);
+        }
+    }
+
     public static final IonReader makeReader(IonCatalog catalog,
                                              IonValue value)
     {
@@ -254,6 +309,239 @@ public final class _Private_IonReaderFactory
     }
 
 
+    /**
+     * Creates a reader of Ion binary data that starts part way through a
+     * stream, at a top-level value, rather than at an Ion version marker.
+     * Values up to the next local symbol table are read with the given one.
+     *
+     * @param symbols the local symbol table in effect at the offset, or null
+     * if only the system symbol table is.
+     */
+    public static IonReader makeBinaryReaderAt(IonCatalog catalog,
+                                               byte[] bytes,
+                                               int offset,
+                                               int length,
+                                               SymbolTable symbols)
+    {
+        UnifiedInputStreamX uis = makeStream(bytes, offset, length);
+        return makeBinaryReaderAt(catalog, uis, symbols);
+    }
+
+    /**
+     * Creates a reader of the Ion binary data between a buffer's position and
+     * its limit, starting at a top-level value rather than at an Ion version
+     * marker. Values up to the next local symbol table are read with the given
+     * one. The buffer's position and limit are left unchanged.
+     *
+     * @param symbols the local symbol table in effect at the position, or null
+     * if only the system symbol table is.
+     */
+    public static IonReader makeBinaryReaderAt(IonCatalog catalog,
+                                               ByteBuffer buffer,
+                                               SymbolTable symbols)
+    {
+        UnifiedInputStreamX uis = UnifiedInputStreamX.makeBinaryStream(buffer);
+        return makeBinaryReaderAt(catalog, uis, symbols);
+    }
+
+    /**
+     * Creates a reader of Ion binary data that starts at the current position
+     * of a channel, on a top-level value, rather than at an Ion version
+     * marker. Values up to the next local symbol table are read with the given
+     * one. The offsets of the reader's spans are relative to that position.
+     *
+     * @param symbols the local symbol table in effect at the position, or null
+     * if only the system symbol table is.
+     */
+    public static IonReader makeBinaryReaderAt(IonCatalog catalog,
+                                               FileChannel channel,
+                                               SymbolTable symbols)
+    {
+        try
+        {
+            UnifiedInputStreamX uis = UnifiedInputStreamX.makeBinaryStream(channel);
+            return makeBinaryReaderAt(catalog, uis, symbols);
+        }
+        catch (IOException e)
+        {
+            throw new IonException(e);
+        }
+    }
+
+    private static IonReader makeBinaryReaderAt(IonCatalog catalog,
+                                                UnifiedInputStreamX uis,
+                                                SymbolTable symbols)
+    {
+        IonReaderBinaryUserX r =
+            new IonReaderBinaryUserX(catalog,
+                                     LocalSymbolTable.DEFAULT_LST_FACTORY,
+                                     uis, 0);
+        if (symbols != null) {
+            r._symbols = symbols;
+        }
+        return r;
+    }
+
+    /**
+     * Creates a reader of Ion text that starts part way through a stream, at
+     * a top-level value. Values up to the next Ion version marker or local
+     * symbol table are read with the given symbol table.
+     *
+     * @param symbols the local symbol table in effect at the offset, or null
+     * if only the system symbol table is.
+     */
+    public static IonReader makeTextReaderAt(IonCatalog catalog,
+                                             char[] chars,
+                                             int offset,
+                                             int length,
+                                             SymbolTable symbols)
+    {
+        UnifiedInputStreamX uis = makeStream(chars, offset, length);
+        return makeTextReaderAt(catalog, uis, offset, symbols);
+    }
+
+    /**
+     * Creates a reader of the UTF-8 Ion text between a buffer's position and
+     * its limit, starting at a top-level value. Values up to the next Ion
+     * version marker or local symbol table are read with the given symbol
+     * table. The buffer's position and limit are left unchanged.
+     *
+     * @param symbols the local symbol table in effect at the position, or null
+     * if only the system symbol table is.
+     */
+    public static IonReader makeTextReaderAt(IonCatalog catalog,
+                                             ByteBuffer buffer,
+                                             SymbolTable symbols)
+    {
+        try
+        {
+            UnifiedInputStreamX uis = makeStream(buffer);
+            int offset = buffer.hasArray()
+                ? buffer.arrayOffset() + buffer.position()
+                : 0;
+            return makeTextReaderAt(catalog, uis, offset, symbols);
+        }
+        catch (IOException e)
+        {
+            throw new IonException(e);
+        }
+    }
+
+    /**
+     * Creates a reader of UTF-8 Ion text that starts at the current position
+     * of a channel, on a top-level value. Values up to the next Ion version
+     * marker or local symbol table are read with the given symbol table.
+     * The reader closes the channel when it's closed.
+     *
+     * @param symbols the local symbol table in effect at the position, or null
+     * if only the system symbol table is.
+     */
+    public static IonReader makeTextReaderAt(IonCatalog catalog,
+                                             FileChannel channel,
+                                             SymbolTable symbols)
+    {
+        try
+        {
+            UnifiedInputStreamX uis = makeStream(channel);
+            return makeTextReaderAt(catalog, uis, 0, symbols);
+        }
+        catch (IOException e)
+        {
+            throw new IonException(e);
+        }
+    }
+
+    private static IonReader makeTextReaderAt(IonCatalog catalog,
+                                              UnifiedInputStreamX uis,
+                                              int offset,
+                                              SymbolTable symbols)
+    {
+        IonReaderTextUserX r =
+            new IonReaderTextUserX(catalog,
+                                   LocalSymbolTable.DEFAULT_LST_FACTORY,
+                                   uis, offset);
+        if (symbols != null) {
+            r._symbols = symbols;
+        }
+        return r;
+    }
+
+    /**
+     * Reads a local symbol table from the struct on which the reader is
+     * positioned, as written by {@link SymbolTable#writeTo}, resolving its
+     * imports from the catalog.
+     */
+    public static SymbolTable readLocalSymbolTable(IonCatalog catalog,
+                                                   IonReader reader)
+    {
+        return LocalSymbolTable.DEFAULT_LST_FACTORY.newLocalSymtab(catalog,
+                                                                   reader,
+                                                                   true);
+    }
+
+
+    /**
+     * Gives a reader made by this factory a cache of up to {@code size}
+     * recently read short strings, so that recurring string values, symbols
+     * and field names are returned as the same instances. Readers over
+     * {@link IonValue}s are returned unchanged, since their strings already
+     * exist.
+     *
+     * @return the given reader.
+     */
+    public static <T extends IonReader> T withStringCache(T reader, int size)
+    {
+        if (reader instanceof IonReaderBinaryRawX) {
+            ((IonReaderBinaryRawX) reader)._string_cache = new StringCache(size);
+        }
+        else if (reader instanceof IonReaderTextRawX) {
+            ((IonReaderTextRawX) reader)._string_cache = new StringCache(size);
+        }
+        return reader;
+    }
+
+
+    /**
+     * Stops a text reader made by this factory from counting lines as it
+     * reads, before it has read anything. Its spans and error messages work
+     * out line numbers from offsets instead, when they're asked for. Other
+     * readers are returned unchanged.
+     *
+     * @return the given reader.
+     *
+     * @see com.amazon.ion.system.IonReaderBuilder#setLineTrackingEnabled(boolean)
+     */
+    public static <T extends IonReader> T withoutLineTracking(T reader)
+    {
+        if (reader instanceof IonReaderTextRawX) {
+            IonReaderTextRawX text_reader = (IonReaderTextRawX) reader;
+            text_reader._line_tracking = false;
+            text_reader._scanner.setLineTracking(false);
+        }
+        return reader;
+    }
+
+
+    /**
+     * Applies a builder's settings, other than its catalog, to a reader made
+     * by this factory. The builder's own build methods do this, as must
+     * anything else that makes readers from a builder's configuration, so
+     * that those readers behave exactly like the builder's.
+     *
+     * @return the configured reader.
+     */
+    public static <T extends IonReader> T configure(IonReaderBuilder builder,
+                                                    T reader)
+    {
+        if (!builder.isLineTrackingEnabled())
+        {
+            reader = withoutLineTracking(reader);
+        }
+        int size = builder.getStringCacheSize();
+        return size > 0 ? withStringCache(reader, size) : reader;
+    }
+
+
     //=========================================================================
 
 
@@ -324,6 +612,119 @@ public final class _Private_IonReaderFactory
         return uis;
     }
 
+    private static UnifiedInputStreamX makeUnifiedStream(ByteBuffer buffer)
+        throws IOException
+    {
+        ByteBuffer header = buffer.duplicate();
+        if (isGzip(header))
+        {
+            GZIPInputStream gzip =
+                new GZIPInputStream(new ByteBufferInputStream(header));
+            return UnifiedInputStreamX.makeStream(gzip);
+        }
+        if (hasBinaryVersionMarker(header))
+        {
+            // binary is read in place, even from direct and mapped buffers
+            return UnifiedInputStreamX.makeBinaryStream(buffer);
+        }
+        return UnifiedInputStreamX.makeStream(buffer);
+    }
+
+    private static UnifiedInputStreamX makeUnifiedStream(FileChannel channel)
+        throws IOException
+    {
+        // Positional reads leave the channel's position untouched.
+        ByteBuffer header = ByteBuffer.allocate(BINARY_VERSION_MARKER_SIZE);
+        long position = channel.position();
+        while (header.hasRemaining()
+               && channel.read(header, position + header.position()) > 0) {}
+        header.flip();
+        if (isGzip(header))
+        {
+            InputStream in = Channels.newInputStream(channel);
+            return UnifiedInputStreamX.makeStream(new GZIPInputStream(in));
+        }
+        if (hasBinaryVersionMarker(header))
+        {
+            return UnifiedInputStreamX.makeBinaryStream(channel);
+        }
+        return UnifiedInputStreamX.makeStream(channel);
+    }
+
+    private static final int GZIP_HEADER_PEEK = 2;
+
+    /**
+     * Checks for the GZIP magic number without moving the buffer's position.
+     */
+    private static boolean isGzip(ByteBuffer buffer)
+    {
+        byte[] header = peek(buffer, GZIP_HEADER_PEEK);
+        return IonStreamUtils.isGzip(header, 0, header.length);
+    }
+
+    /**
+     * Checks for the Ion binary version marker without moving the buffer's
+     * position.
+     */
+    private static boolean hasBinaryVersionMarker(ByteBuffer buffer)
+    {
+        byte[] header = peek(buffer, BINARY_VERSION_MARKER_SIZE);
+        return IonStreamUtils.isIonBinary(header, 0, header.length);
+    }
+
+    private static byte[] peek(ByteBuffer buffer, int length)
+    {
+        byte[] header = new byte[Math.min(length, buffer.remaining())];
+        for (int i = 0; i < header.length; i++)
+        {
+            header[i] = buffer.get(buffer.position() + i);
+        }
+        return header;
+    }
+
+    /**
+     * Adapts a buffer that is not backed by an array (and so can't be
+     * wrapped by a {@link ByteArrayInputStream}) for decompression.
+     */
+    private static final class ByteBufferInputStream
+        extends InputStream
+    {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (!buffer.hasRemaining())
+            {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+    }
+
     private static final boolean has_binary_cookie(UnifiedInputStreamX uis)
         throws IOException
     {
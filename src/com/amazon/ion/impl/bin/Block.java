@@ -16,24 +16,46 @@
 package com.amazon.ion.impl.bin;
 
 import java.io.Closeable;
+import java.nio.ByteBuffer;
 
 
 /**
  * An abstraction for a block of managed memory.  A {@link Block} is acquired by a caller via
  * {@link BlockAllocator#allocateBlock()} and released by {@link #close()}.
  * <p>
+ * A block is backed either by a byte array on the heap, exposed as {@link #data} for the fastest access,
+ * or by a {@link ByteBuffer}, typically a direct one, in which case {@link #data} is {@code null} and the
+ * content is only accessible through the accessor methods.  The accessors work for both kinds of block.
+ * <p>
  * This class and its implementations are <b>not</b> thread-safe.
  */
 public abstract class Block implements Closeable
 {
-    /** The data backing this block. */
+    /** The data backing this block, or {@code null} if the block is not backed by an array. */
     public final byte[] data;
+    /** The buffer backing this block if it is not backed by an array, used as a cursor for bulk transfers. */
+    private final ByteBuffer buffer;
+    private final int capacity;
     /** The first index for which data has not been written to or read from. */
     public int limit;
 
     public Block(final byte[] data)
     {
         this.data = data;
+        this.buffer = null;
+        this.capacity = data.length;
+        this.limit = 0;
+    }
+
+    /**
+     * Constructs a block over the whole capacity of the given buffer, which the block takes ownership of.
+     * The block never exposes the buffer's array, even if it has one.
+     */
+    public Block(final ByteBuffer buffer)
+    {
+        this.data = null;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
         this.limit = 0;
     }
 
@@ -43,16 +65,88 @@ public abstract class Block implements Closeable
         limit = 0;
     }
 
-    /** Returns the unused amount of bytes from the limit to the capacity of the data array. */
+    /** Returns the unused amount of bytes from the limit to the capacity of the block. */
     public final int remaining()
     {
-        return data.length - limit;
+        return capacity - limit;
     }
 
-    /** Returns the underlying data array's capacity. */
+    /** Returns the block's capacity. */
     public final int capacity()
     {
-        return data.length;
+        return capacity;
+    }
+
+    /** Returns whether this block is backed by an array, accessible as {@link #data}. */
+    public final boolean hasArray()
+    {
+        return data != null;
+    }
+
+    /** Returns the octet at the given index. */
+    public final byte get(final int index)
+    {
+        return data != null ? data[index] : buffer.get(index);
+    }
+
+    /** Copies {@code len} octets starting at the given index into {@code dst}. */
+    public final void get(final int index, final byte[] dst, final int off, final int len)
+    {
+        if (data != null)
+        {
+            System.arraycopy(data, index, dst, off, len);
+        }
+        else
+        {
+            buffer.clear();
+            buffer.position(index);
+            buffer.get(dst, off, len);
+        }
+    }
+
+    /** Sets the octet at the given index. */
+    public final void put(final int index, final byte value)
+    {
+        if (data != null)
+        {
+            data[index] = value;
+        }
+        else
+        {
+            buffer.put(index, value);
+        }
+    }
+
+    /** Copies {@code len} octets from {@code src} into this block starting at the given index. */
+    public final void put(final int index, final byte[] src, final int off, final int len)
+    {
+        if (data != null)
+        {
+            System.arraycopy(src, off, data, index, len);
+        }
+        else
+        {
+            buffer.clear();
+            buffer.position(index);
+            buffer.put(src, off, len);
+        }
+    }
+
+    /**
+     * Returns a new buffer over {@code len} octets of this block starting at the given index, sharing its memory.
+     * This is intended for transferring the block's content to a channel without copying it.
+     */
+    public final ByteBuffer view(final int index, final int len)
+    {
+        if (data != null)
+        {
+            return ByteBuffer.wrap(data, index, len);
+        }
+        final ByteBuffer view = buffer.duplicate();
+        view.clear();
+        view.position(index);
+        view.limit(index + len);
+        return view;
     }
 
     /**
@@ -58,4 +58,50 @@ public final class BlockAllocatorProviders
     public static BlockAllocatorProvider basicProvider() {
         return BASIC_PROVIDER;
     }
+
+    private static final BlockAllocatorProvider POOLED_PROVIDER = new PooledBlockAllocatorProvider();
+
+    /**
+     * A {@link PooledBlockAllocatorProvider} of heap blocks shared by the whole application, which retains up to
+     * {@link PooledBlockAllocatorProvider#FREE_CAPACITY} bytes of free blocks.  Writers use it unless configured
+     * otherwise.
+     */
+    public static BlockAllocatorProvider pooledProvider() {
+        return POOLED_PROVIDER;
+    }
+
+    /**
+     * Returns a new {@link BlockAllocatorProvider} that vends blocks backed by pooled direct {@link java.nio.ByteBuffer}s
+     * rather than heap arrays, keeping buffered output off the heap.  Its blocks are not accessible as
+     * {@link Block#data}.
+     * <p>
+     * Each provider has its own pool, and the direct memory it retains is only released once the provider
+     * becomes unreachable, so applications should share a single instance.
+     */
+    public static BlockAllocatorProvider directProvider() {
+        return directProvider(PooledBlockAllocatorProvider.FREE_CAPACITY);
+    }
+
+    private static final class DirectProviderHolder
+    {
+        static final BlockAllocatorProvider POOLED_DIRECT_PROVIDER = directProvider();
+    }
+
+    /**
+     * A {@link #directProvider()} shared by the whole application, created when first used.  Writers built to
+     * allocate direct blocks use it unless configured otherwise.
+     */
+    public static BlockAllocatorProvider pooledDirectProvider() {
+        return DirectProviderHolder.POOLED_DIRECT_PROVIDER;
+    }
+
+    /**
+     * Returns a new {@link BlockAllocatorProvider} like {@link #directProvider()} that retains up to
+     * {@code freeCapacity} bytes of free blocks in total.
+     *
+     * @see PooledBlockAllocatorProvider#PooledBlockAllocatorProvider(int)
+     */
+    public static BlockAllocatorProvider directProvider(final int freeCapacity) {
+        return new PooledBlockAllocatorProvider(freeCapacity, true);
+    }
 }
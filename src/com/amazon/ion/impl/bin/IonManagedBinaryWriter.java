@@ -33,6 +33,7 @@ import static java.util.Collections.unmodifiableList;
 import com.amazon.ion.IonCatalog;
 import com.amazon.ion.IonException;
 import com.amazon.ion.IonType;
+import com.amazon.ion.ResettableWriter;
 import com.amazon.ion.SymbolTable;
 import com.amazon.ion.SymbolToken;
 import com.amazon.ion.Timestamp;
@@ -43,9 +44,12 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -642,6 +646,7 @@ import java.util.Map;
 
     private final IonCatalog                    catalog;
     private final ImportedSymbolContext         bootstrapImports;
+    private final SymbolTable                   initialSymbolTable;
 
     private ImportedSymbolContext               imports;
     private final Map<String, SymbolToken>      locals;
@@ -661,37 +666,89 @@ import java.util.Map;
     private final ImportDescriptor              userCurrentImport;
     private final boolean                       lstAppendEnabled;
     private boolean                             isUserLSTAppend;
+    private final int                           maxLocalSymbols;
+    /** Uses of each local symbol since the local symbol table was started, by local index; null if unbounded. */
+    private int[]                               localSymbolUses;
 
     private boolean                             closed;
 
+    /** The destination of both raw writers, if writing to a channel rather than a stream. */
+    private final WritableByteChannel           channel;
+    private final List<ByteBuffer>              pendingViews;
+
     /*package*/ IonManagedBinaryWriter(final _Private_IonManagedBinaryWriterBuilder builder,
                                        final OutputStream out)
                                        throws IOException
     {
-        super(builder.optimization);
-        this.symbols = new IonRawBinaryWriter(
-            builder.provider,
-            builder.symbolsBlockSize,
-            out,
-            WriteValueOptimization.NONE, // optimization is not relevant for the nested raw writer
-            StreamCloseMode.NO_CLOSE,
-            StreamFlushMode.NO_FLUSH,
-            builder.preallocationMode,
-            builder.isFloatBinary32Enabled
+        this(
+            builder,
+            new IonRawBinaryWriter(
+                builder.provider,
+                builder.symbolsBlockSize,
+                out,
+                WriteValueOptimization.NONE, // optimization is not relevant for the nested raw writer
+                StreamCloseMode.NO_CLOSE,
+                StreamFlushMode.NO_FLUSH,
+                builder.preallocationMode,
+                builder.isFloatBinary32Enabled
+            ),
+            new IonRawBinaryWriter(
+                builder.provider,
+                builder.userBlockSize,
+                out,
+                WriteValueOptimization.NONE, // optimization is not relevant for the nested raw writer
+                StreamCloseMode.CLOSE,
+                StreamFlushMode.FLUSH,
+                builder.preallocationMode,
+                builder.isFloatBinary32Enabled
+            ),
+            null
         );
-        this.user = new IonRawBinaryWriter(
-            builder.provider,
-            builder.userBlockSize,
-            out,
-            WriteValueOptimization.NONE, // optimization is not relevant for the nested raw writer
-            StreamCloseMode.CLOSE,
-            StreamFlushMode.FLUSH,
-            builder.preallocationMode,
-            builder.isFloatBinary32Enabled
+    }
+
+    /*package*/ IonManagedBinaryWriter(final _Private_IonManagedBinaryWriterBuilder builder,
+                                       final WritableByteChannel channel)
+                                       throws IOException
+    {
+        this(
+            builder,
+            new IonRawBinaryWriter(
+                builder.provider,
+                builder.symbolsBlockSize,
+                channel,
+                WriteValueOptimization.NONE, // optimization is not relevant for the nested raw writer
+                StreamCloseMode.NO_CLOSE,
+                builder.preallocationMode,
+                builder.isFloatBinary32Enabled
+            ),
+            new IonRawBinaryWriter(
+                builder.provider,
+                builder.userBlockSize,
+                channel,
+                WriteValueOptimization.NONE, // optimization is not relevant for the nested raw writer
+                StreamCloseMode.CLOSE,
+                builder.preallocationMode,
+                builder.isFloatBinary32Enabled
+            ),
+            channel
         );
+    }
+
+    private IonManagedBinaryWriter(final _Private_IonManagedBinaryWriterBuilder builder,
+                                   final IonRawBinaryWriter symbols,
+                                   final IonRawBinaryWriter user,
+                                   final WritableByteChannel channel)
+                                   throws IOException
+    {
+        super(builder.optimization);
+        this.symbols = symbols;
+        this.user = user;
+        this.channel = channel;
+        this.pendingViews = new ArrayList<ByteBuffer>();
 
         this.catalog = builder.catalog;
         this.bootstrapImports = builder.imports;
+        this.initialSymbolTable = builder.initialSymbolTable;
 
         this.locals = new LinkedHashMap<String, SymbolToken>();
         this.localsLocked = false;
@@ -707,9 +764,22 @@ import java.util.Map;
         this.userCurrentImport = new ImportDescriptor();
         this.lstAppendEnabled = builder.isLocalSymbolTableAppendEnabled;
         this.isUserLSTAppend = false;
+        this.maxLocalSymbols = builder.maxLocalSymbols;
+        this.localSymbolUses =
+            maxLocalSymbols == _Private_IonManagedBinaryWriterBuilder.NO_LOCAL_SYMBOL_LIMIT ? null : new int[16];
 
+        this.imports = builder.imports;
+        startInitialSymbolTable();
+    }
+
+    /**
+     * Interns the symbols of the initial symbol table given to the builder, if any, into the local symbol table
+     * and starts writing it.
+     */
+    private void startInitialSymbolTable() throws IOException
+    {
         // TODO decide if initial LST should survive finish() and seed the next LST
-        final SymbolTable lst = builder.initialSymbolTable;
+        final SymbolTable lst = initialSymbolTable;
         if (lst != null)
         {
             // build import context from seeded LST
@@ -729,10 +799,6 @@ import java.util.Map;
             // TODO determine if we really need to force emitting LST if there are no imports/locals
             startLocalSymbolTableIfNeeded(/*writeIVM*/ true);
         }
-        else
-        {
-            this.imports = builder.imports;
-        }
     }
 
     public _Private_IonRawWriter getRawWriter()
@@ -804,6 +870,16 @@ import java.util.Map;
             }
             // XXX no step out
             symbolState = SymbolState.LOCAL_SYMBOLS_WITH_IMPORTS_ONLY;
+
+            if (!isAppend && !locals.isEmpty())
+            {
+                // declare the symbols retained across a reset of the local symbol table
+                startLocalSymbolTableSymbolListIfNeeded();
+                for (final String text : locals.keySet())
+                {
+                    symbols.writeString(text);
+                }
+            }
         }
     }
 
@@ -855,6 +931,15 @@ import java.util.Map;
 
                 symbols.writeString(text);
             }
+            else if (symbolState == SymbolState.SYSTEM_SYMBOLS)
+            {
+                // a symbol retained across a reset is used for the first time since
+                startLocalSymbolTableIfNeeded(/*writeIVM*/ true);
+            }
+            if (localSymbolUses != null)
+            {
+                countLocalSymbolUse(token.getSid() - imports.localSidStart);
+            }
             return token;
         }
         catch (final IOException e)
@@ -863,6 +948,71 @@ import java.util.Map;
         }
     }
 
+    private void countLocalSymbolUse(final int index)
+    {
+        if (index >= localSymbolUses.length)
+        {
+            localSymbolUses = Arrays.copyOf(localSymbolUses, Math.max(index + 1, localSymbolUses.length * 2));
+        }
+        localSymbolUses[index]++;
+    }
+
+    /**
+     * Resets the local symbol table if a bound was configured and the top-level value just written filled it.
+     */
+    private void afterValue() throws IOException
+    {
+        if (localSymbolUses != null && getDepth() == 0)
+        {
+            resetLocalSymbolsIfFull();
+        }
+    }
+
+    /**
+     * Resets the local symbol table once it holds more symbols than allowed, retaining the most used of the symbols
+     * that were used more than once, up to half the limit.  This must only be called between top-level values.
+     */
+    private void resetLocalSymbolsIfFull() throws IOException
+    {
+        if (locals.size() <= maxLocalSymbols || localsLocked || userState != UserState.NORMAL)
+        {
+            return;
+        }
+        final List<SymbolToken> candidates = new ArrayList<SymbolToken>();
+        for (final SymbolToken token : locals.values())
+        {
+            if (localSymbolUses(token) > 1)
+            {
+                candidates.add(token);
+            }
+        }
+        // the sort is stable, so equally used symbols keep the order they were interned in
+        Collections.sort(candidates, new Comparator<SymbolToken>()
+        {
+            public int compare(final SymbolToken a, final SymbolToken b)
+            {
+                return Integer.compare(localSymbolUses(b), localSymbolUses(a));
+            }
+        });
+        final List<String> retained = new ArrayList<String>();
+        for (final SymbolToken token : candidates.subList(0, Math.min(candidates.size(), maxLocalSymbols / 2)))
+        {
+            retained.add(token.getText());
+        }
+        // the new table follows the pending data, which need not reach the device yet
+        finish(/*flushStream*/ false);
+        for (final String text : retained)
+        {
+            locals.put(text, symbol(text, imports.localSidStart + locals.size()));
+        }
+    }
+
+    private int localSymbolUses(final SymbolToken token)
+    {
+        final int index = token.getSid() - imports.localSidStart;
+        return index < localSymbolUses.length ? localSymbolUses[index] : 0;
+    }
+
     private SymbolToken intern(final SymbolToken token)
     {
         if (token == null)
@@ -887,7 +1037,7 @@ import java.util.Map;
 
     public SymbolTable getSymbolTable()
     {
-        if (symbolState == SymbolState.SYSTEM_SYMBOLS && imports.parents.isEmpty())
+        if (symbolState == SymbolState.SYSTEM_SYMBOLS && imports.parents.isEmpty() && locals.isEmpty())
         {
             return Symbols.systemSymbolTable();
         }
@@ -976,6 +1126,7 @@ import java.util.Map;
     {
         user.stepOut();
         userState.afterStepOut(this);
+        afterValue();
     }
 
     public boolean isInStruct()
@@ -988,43 +1139,51 @@ import java.util.Map;
     public void writeNull() throws IOException
     {
         user.writeNull();
+        afterValue();
     }
 
     public void writeNull(final IonType type) throws IOException
     {
         user.writeNull(type);
+        afterValue();
     }
 
     public void writeBool(final boolean value) throws IOException
     {
         user.writeBool(value);
+        afterValue();
     }
 
     public void writeInt(long value) throws IOException
     {
         userState.writeInt(this, value);
         user.writeInt(value);
+        afterValue();
     }
 
     public void writeInt(final BigInteger value) throws IOException
     {
         userState.writeInt(this, value);
         user.writeInt(value);
+        afterValue();
     }
 
     public void writeFloat(final double value) throws IOException
     {
         user.writeFloat(value);
+        afterValue();
     }
 
     public void writeDecimal(final BigDecimal value) throws IOException
     {
         user.writeDecimal(value);
+        afterValue();
     }
 
     public void writeTimestamp(final Timestamp value) throws IOException
     {
         user.writeTimestamp(value);
+        afterValue();
     }
 
     public void writeSymbol(String content) throws IOException
@@ -1060,38 +1219,45 @@ import java.util.Map;
         token = intern(token);
         userState.writeSymbolToken(this, token);
         user.writeSymbolToken(token);
+        afterValue();
     }
 
     public void writeString(final String value) throws IOException
     {
         userState.writeString(this, value);
         user.writeString(value);
+        afterValue();
     }
 
     public void writeClob(byte[] data) throws IOException
     {
         user.writeClob(data);
+        afterValue();
     }
 
     public void writeClob(final byte[] data, final int offset, final int length) throws IOException
     {
         user.writeClob(data, offset, length);
+        afterValue();
     }
 
     public void writeBlob(byte[] data) throws IOException
     {
         user.writeBlob(data);
+        afterValue();
     }
 
     public void writeBlob(final byte[] data, final int offset, final int length) throws IOException
     {
         user.writeBlob(data, offset, length);
+        afterValue();
     }
 
     @Override
     public void writeString(byte[] data, int offset, int length) throws IOException
     {
         user.writeString(data, offset, length);
+        afterValue();
     }
 
     public void writeBytes(byte[] data, int off, int len) throws IOException
@@ -1099,6 +1265,7 @@ import java.util.Map;
         // this is a raw transfer--we basically have to dump the symbol table since we don't have much context
         startLocalSymbolTableIfNeeded(/*writeIVM*/ true);
         user.writeBytes(data, off, len);
+        afterValue();
     }
 
     // Stream Terminators
@@ -1107,37 +1274,147 @@ import java.util.Map;
     {
         if (getDepth() == 0 && !user.hasAnnotations() && (localsLocked || lstAppendEnabled))
         {
-            unsafeFlush();
+            unsafeFlush(/*flushStream*/ true);
+        }
+        if (localSymbolUses != null && getDepth() == 0 && !user.hasAnnotations())
+        {
+            resetLocalSymbolsIfFull();
         }
     }
 
-    private void unsafeFlush() throws IOException
+    private void unsafeFlush(final boolean flushStream) throws IOException
     {
         if (user.hasWrittenValuesSinceFinished())
         {
             // this implies that we have a local symbol table of some sort and the user locked it
             symbolState.closeTable(symbols);
-            // make sure that until the local symbol state changes we no-op the table closing routine
-            symbolState = SymbolState.LOCAL_SYMBOLS_FLUSHED;
+            // Symbols retained across a reset of the local symbol table are only declared by the table started
+            // when one is next used, so until then an appended table would extend the wrong one.
+            if (symbolState != SymbolState.SYSTEM_SYMBOLS || locals.isEmpty())
+            {
+                // make sure that until the local symbol state changes we no-op the table closing routine
+                symbolState = SymbolState.LOCAL_SYMBOLS_FLUSHED;
+            }
         }
         // push the data out
-        symbols.finish();
-        user.finish();
+        if (channel != null)
+        {
+            // the symbol table and the values it applies to go out with a single gathering write
+            symbols.addPendingViewsTo(pendingViews);
+            user.addPendingViewsTo(pendingViews);
+            try
+            {
+                WriteBuffer.writeFully(channel, pendingViews.toArray(new ByteBuffer[pendingViews.size()]));
+            }
+            finally
+            {
+                pendingViews.clear();
+            }
+            symbols.discardPending();
+            user.discardPending();
+        }
+        else if (flushStream)
+        {
+            symbols.finish();
+            user.finish();
+        }
+        else
+        {
+            symbols.writePending();
+            user.writePending();
+        }
     }
 
     public void finish() throws IOException
+    {
+        finish(/*flushStream*/ true);
+    }
+
+    private void finish(final boolean flushStream) throws IOException
     {
         if (getDepth() != 0)
         {
             throw new IllegalStateException("IonWriter.finish() can only be called at top-level.");
         }
-        unsafeFlush();
+        unsafeFlush(flushStream);
         // Reset local symbols
         // TODO be more configurable with respect to local symbol table caching
         locals.clear();
         localsLocked = false;
         symbolState = SymbolState.SYSTEM_SYMBOLS;
         imports = bootstrapImports;
+        if (localSymbolUses != null)
+        {
+            Arrays.fill(localSymbolUses, 0);
+        }
+    }
+
+    /**
+     * Directs both raw writers to another stream, reusing their buffers.  The top-level values completed so far are
+     * written out first, while a partly written value is discarded.
+     */
+    private void reset(final OutputStream out, final boolean retainLocalSymbols) throws IOException
+    {
+        if (out == null) { throw new NullPointerException(); }
+        if (closed)
+        {
+            throw new IllegalStateException("Cannot reset a closed writer");
+        }
+        if (getDepth() != 0)
+        {
+            // only the value left open is lost, not the values written ahead of it
+            user.discardOpenValue();
+        }
+        if (user.hasWrittenValuesSinceFinished())
+        {
+            unsafeFlush(/*flushStream*/ true);
+        }
+        symbols.reset(out);
+        user.reset(out);
+
+        userState = UserState.NORMAL;
+        userSymbolTablePosition = 0L;
+        userImports.clear();
+        userSymbols.clear();
+        userCurrentImport.reset();
+        isUserLSTAppend = false;
+        if (localSymbolUses != null)
+        {
+            Arrays.fill(localSymbolUses, 0);
+        }
+
+        // a retained symbol declares the local symbol table anew when it is next used, as after the table is reset
+        symbolState = SymbolState.SYSTEM_SYMBOLS;
+        if (!retainLocalSymbols)
+        {
+            locals.clear();
+            localsLocked = false;
+            imports = bootstrapImports;
+            startInitialSymbolTable();
+        }
+    }
+
+    @Override
+    public <T> T asFacet(final Class<T> facetType)
+    {
+        if (facetType == ResettableWriter.class && channel == null)
+        {
+            return facetType.cast(new ResettableWriterFacet());
+        }
+        return super.asFacet(facetType);
+    }
+
+    private final class ResettableWriterFacet implements ResettableWriter
+    {
+        public void reset(final OutputStream out) throws IOException
+        {
+            IonManagedBinaryWriter.this.reset(out, false);
+        }
+
+        public void reset(final OutputStream out, final boolean retainLocalSymbols) throws IOException
+        {
+            IonManagedBinaryWriter.this.reset(out, retainLocalSymbols);
+        }
     }
 
     public void close() throws IOException
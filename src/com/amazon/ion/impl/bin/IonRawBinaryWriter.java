@@ -51,11 +51,13 @@ import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -190,6 +192,36 @@ import java.util.NoSuchElementException;
             {
                 buffer.writeVarUIntDirect2At(position, lengthValue);
             }
+        },
+
+        /**
+         * Preallocate 4 bytes of length, and compact it to its minimal size when the container ends by moving the
+         * content back over the unused bytes.  This produces the same output as {@link #PREALLOCATE_0} without
+         * side patching, except for containers longer than {@link IonRawBinaryWriter#COMPACTION_LIMIT}, for which
+         * moving the content would cost more than a patch.
+         */
+        PREALLOCATE_4_COMPACTED(0x0FFFFFFF, 5)
+        {
+            @Override
+            /*package*/ void patchLength(final WriteBuffer buffer, long position, long lengthValue)
+            {
+                buffer.writeVarUIntDirect4At(position, lengthValue);
+            }
+        },
+
+        /**
+         * Chooses the preallocation of each container among {@link #PREALLOCATE_0}, {@link #PREALLOCATE_1} and
+         * {@link #PREALLOCATE_2} from the length last observed for containers of the same kind, at the same depth
+         * and under the same field name, so that streams of records of the same shape are mostly written without
+         * side patching.  Padding is moved out of containers that turn out to fit in their type descriptor.
+         */
+        PREALLOCATE_ADAPTIVE(0x0000, 1)
+        {
+            @Override
+            /*package*/ void patchLength(final WriteBuffer buffer, long position, long lengthValue)
+            {
+                throw new IllegalStateException("Cannot patch in PREALLOCATE ADAPTIVE mode");
+            }
         }
         ;
 
@@ -255,6 +287,10 @@ import java.util.NoSuchElementException;
         public long length;
         /** The patchlist for this container. */
         public PatchList patches;
+        /** How the length of this container is preallocated. */
+        public PreallocationMode preallocation;
+        /** The key of the learned length of this container, in {@link PreallocationMode#PREALLOCATE_ADAPTIVE} mode. */
+        public long learnedKey;
 
         public ContainerInfo()
         {
@@ -262,6 +298,8 @@ import java.util.NoSuchElementException;
             position = -1;
             length = -1;
             patches = null;
+            preallocation = null;
+            learnedKey = NO_LEARNED_KEY;
         }
 
         public void appendPatch(final PatchPoint patch)
@@ -285,11 +323,16 @@ import java.util.NoSuchElementException;
             }
         }
 
-        public void initialize(final ContainerType type, final long offset) {
+        public void initialize(final ContainerType type,
+                               final long offset,
+                               final PreallocationMode preallocation,
+                               final long learnedKey) {
             this.type = type;
             this.position = offset;
             this.patches = null;
             this.length = 0;
+            this.preallocation = preallocation;
+            this.learnedKey = learnedKey;
         }
 
         @Override
@@ -564,8 +607,18 @@ import java.util.NoSuchElementException;
 
     private static final int SID_UNASSIGNED = -1;
 
+    /** Number of container lengths remembered in {@link PreallocationMode#PREALLOCATE_ADAPTIVE} mode; a power of two. */
+    private static final int LEARNED_LENGTHS_SIZE = 256;
+    /** Marks empty slots of {@link #learnedKeys}; no key has all of its high bits set, as SIDs are never below -1. */
+    private static final long NO_LEARNED_KEY = -1L;
+
     private final BlockAllocator                allocator;
-    private final OutputStream                  out;
+    /** The destination of the data, unless written to {@link #channel}; changed by {@link #reset(OutputStream)}. */
+    private OutputStream                        out;
+    /** The destination of the data, unless written to {@link #out}. */
+    private final WritableByteChannel           channel;
+    /** Reused views over the pending data for gathering writes to {@link #channel}. */
+    private final List<ByteBuffer>              pendingViews;
     private final StreamCloseMode               streamCloseMode;
     private final StreamFlushMode               streamFlushMode;
     private final PreallocationMode             preallocationMode;
@@ -574,6 +627,10 @@ import java.util.NoSuchElementException;
     private final WriteBuffer                   patchBuffer;
     private final PatchList                     patchPoints;
     private final RecyclingStack<ContainerInfo> containers;
+    /** Keys of the container lengths in {@link #learnedLengths}, or null unless in adaptive mode. */
+    private final long[]                        learnedKeys;
+    /** Container lengths last observed, by hash of their key, or null unless in adaptive mode. */
+    private final long[]                        learnedLengths;
     private int                                 depth;
     private boolean                             hasWrittenValuesSinceFinished;
     private boolean                             hasWrittenValuesSinceConstructed;
@@ -595,12 +652,45 @@ import java.util.NoSuchElementException;
                                    final boolean isFloatBinary32Enabled)
                                    throws IOException
     {
-        super(optimization);
-
+        this(provider, blockSize, out, null, optimization, streamCloseMode, streamFlushMode, preallocationMode,
+             isFloatBinary32Enabled);
         if (out == null) { throw new NullPointerException(); }
+    }
+
+    /**
+     * Constructs a writer to a channel, to which the data buffered since the last {@link #finish()} is written with a
+     * single gathering write of the buffered blocks.  Channels have no notion of flushing, so the {@link StreamFlushMode} does not apply.
+     */
+    /*package*/ IonRawBinaryWriter(final BlockAllocatorProvider provider,
+                                   final int blockSize,
+                                   final WritableByteChannel channel,
+                                   final WriteValueOptimization optimization,
+                                   final StreamCloseMode streamCloseMode,
+                                   final PreallocationMode preallocationMode,
+                                   final boolean isFloatBinary32Enabled)
+                                   throws IOException
+    {
+        this(provider, blockSize, null, channel, optimization, streamCloseMode, StreamFlushMode.NO_FLUSH,
+             preallocationMode, isFloatBinary32Enabled);
+        if (channel == null) { throw new NullPointerException(); }
+    }
+
+    private IonRawBinaryWriter(final BlockAllocatorProvider provider,
+                               final int blockSize,
+                               final OutputStream out,
+                               final WritableByteChannel channel,
+                               final WriteValueOptimization optimization,
+                               final StreamCloseMode streamCloseMode,
+                               final StreamFlushMode streamFlushMode,
+                               final PreallocationMode preallocationMode,
+                               final boolean isFloatBinary32Enabled)
+    {
+        super(optimization);
 
         this.allocator         = provider.vendAllocator(blockSize);
         this.out               = out;
+        this.channel           = channel;
+        this.pendingViews      = new ArrayList<ByteBuffer>();
         this.streamCloseMode   = streamCloseMode;
         this.streamFlushMode   = streamFlushMode;
         this.preallocationMode = preallocationMode;
@@ -616,6 +706,17 @@ import java.util.NoSuchElementException;
                 }
             }
         );
+        if (preallocationMode == PreallocationMode.PREALLOCATE_ADAPTIVE)
+        {
+            this.learnedKeys    = new long[LEARNED_LENGTHS_SIZE];
+            this.learnedLengths = new long[LEARNED_LENGTHS_SIZE];
+            Arrays.fill(learnedKeys, NO_LEARNED_KEY);
+        }
+        else
+        {
+            this.learnedKeys    = null;
+            this.learnedLengths = null;
+        }
         this.depth                            = 0;
         this.hasWrittenValuesSinceFinished    = false;
         this.hasWrittenValuesSinceConstructed = false;
@@ -775,7 +876,67 @@ import java.util.NoSuchElementException;
     private void pushContainer(final ContainerType type)
     {
         // XXX we push before writing the type of container
-        containers.push().initialize(type, buffer.position() + 1);
+        containers.push().initialize(type, buffer.position() + 1, preallocationMode, NO_LEARNED_KEY);
+    }
+
+    /**
+     * Accounts for the preallocated type and length of a new container in its parent, and pushes it.
+     * @param fieldSid the SID of the field name of the container, or {@link #SID_UNASSIGNED}.
+     * @return how the length of the container is preallocated.
+     */
+    private PreallocationMode pushPreallocatedContainer(final ContainerType type, final int fieldSid)
+    {
+        PreallocationMode preallocation = preallocationMode;
+        long learnedKey = NO_LEARNED_KEY;
+        if (learnedKeys != null)
+        {
+            learnedKey = ((long) (fieldSid + 1) << 32) | ((long) depth << 2) | type.ordinal();
+            preallocation = learnedPreallocation(learnedKey);
+        }
+        updateLength(preallocation.typedLength);
+        // XXX we push before writing the type of container
+        containers.push().initialize(type, buffer.position() + 1, preallocation, learnedKey);
+        return preallocation;
+    }
+
+    private static int learnedIndex(final long learnedKey)
+    {
+        // Fibonacci hashing of the key onto the table
+        return (int) ((learnedKey * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(LEARNED_LENGTHS_SIZE)));
+    }
+
+    /** Picks the smallest preallocation that held the length last observed for the key, with some headroom. */
+    private PreallocationMode learnedPreallocation(final long learnedKey)
+    {
+        final int index = learnedIndex(learnedKey);
+        if (learnedKeys[index] != learnedKey)
+        {
+            // never seen: most containers fit, and the padding of tiny ones is moved out
+            return PreallocationMode.PREALLOCATE_2;
+        }
+        final long length = learnedLengths[index];
+        if (length <= 0xD)
+        {
+            return PreallocationMode.PREALLOCATE_0;
+        }
+        final long expectedLength = length + (length >> 3);
+        if (expectedLength <= PreallocationMode.PREALLOCATE_1.contentMaxLength)
+        {
+            return PreallocationMode.PREALLOCATE_1;
+        }
+        if (expectedLength <= PreallocationMode.PREALLOCATE_2.contentMaxLength)
+        {
+            return PreallocationMode.PREALLOCATE_2;
+        }
+        // patching is cheap relative to writing that much content
+        return PreallocationMode.PREALLOCATE_0;
+    }
+
+    private void learnLength(final long learnedKey, final long length)
+    {
+        final int index = learnedIndex(learnedKey);
+        learnedKeys[index] = learnedKey;
+        learnedLengths[index] = length;
     }
 
     private void addPatchPoint(final long position, final int oldLength, final long value)
@@ -811,6 +972,31 @@ import java.util.NoSuchElementException;
         }
     }
 
+    /** The maximum length of content moved to compact the length of a container, in bytes. */
+    /*package*/ static final int COMPACTION_LIMIT = 64 * 1024;
+
+    /** Shrinks the preallocated length at the given position to the minimal encoding of the given length. */
+    private void compactLength(final long position, final long length, final PreallocationMode preallocation)
+    {
+        final int preallocatedLength = preallocation.typedLength - 1;
+        final int unusedLength;
+        if (length <= 0xD)
+        {
+            // the length fits in the type descriptor
+            final long typePosition = position - 1;
+            buffer.writeUInt8At(typePosition, (buffer.getUInt8At(typePosition) & 0xF0) | length);
+            unusedLength = preallocatedLength;
+        }
+        else
+        {
+            // the padding of a VarUInt is its leading zero octets
+            preallocation.patchLength(buffer, position, length);
+            unusedLength = preallocatedLength - WriteBuffer.varUIntLength(length);
+        }
+        buffer.remove(position, unusedLength);
+        updateLength(-unusedLength);
+    }
+
     private ContainerInfo popContainer()
     {
         final ContainerInfo current = containers.pop();
@@ -825,14 +1011,36 @@ import java.util.NoSuchElementException;
         {
             // patch in the length
             final long position = current.position;
-            if (current.length <= preallocationMode.contentMaxLength && preallocationMode != PreallocationMode.PREALLOCATE_0)
+            final PreallocationMode preallocation = current.preallocation;
+            if (current.learnedKey != NO_LEARNED_KEY)
+            {
+                learnLength(current.learnedKey, length);
+            }
+            if (preallocation == PreallocationMode.PREALLOCATE_4_COMPACTED)
+            {
+                if (length <= COMPACTION_LIMIT && current.patches == null)
+                {
+                    compactLength(position, length, preallocation);
+                }
+                else
+                {
+                    // moving the content back would invalidate the positions of the patches within it
+                    addPatchPoint(position, preallocation.typedLength - 1, length);
+                }
+            }
+            else if (length <= 0xD && preallocation != PreallocationMode.PREALLOCATE_0 && learnedKeys != null)
             {
-                preallocationMode.patchLength(buffer, position, length);
+                // adaptive padding turned out to be unnecessary, and moving so little content is cheap
+                compactLength(position, length, preallocation);
+            }
+            else if (current.length <= preallocation.contentMaxLength && preallocation != PreallocationMode.PREALLOCATE_0)
+            {
+                preallocation.patchLength(buffer, position, length);
             }
             else
             {
                 // side patch
-                if (current.length <= 0xD && preallocationMode == PreallocationMode.PREALLOCATE_0)
+                if (current.length <= 0xD && preallocation == PreallocationMode.PREALLOCATE_0)
                 {
                     // XXX if we're not using padding we can get here and optimize the length a little without side patching!
                     final long typePosition = position - 1;
@@ -841,7 +1049,7 @@ import java.util.NoSuchElementException;
                 }
                 else
                 {
-                    addPatchPoint(position, preallocationMode.typedLength - 1, length);
+                    addPatchPoint(position, preallocation.typedLength - 1, length);
                 }
             }
         }
@@ -888,6 +1096,7 @@ import java.util.NoSuchElementException;
         {
             throw new IllegalStateException("IonWriter.setFieldName() must be called before writing a value into a struct.");
         }
+        final int fieldSid = currentFieldSid;
         if (currentFieldSid > SID_UNASSIGNED)
         {
             checkSid(currentFieldSid);
@@ -899,9 +1108,8 @@ import java.util.NoSuchElementException;
         if (!currentAnnotationSids.isEmpty())
         {
             // we have to push a container context for annotations
-            updateLength(preallocationMode.typedLength);
-            pushContainer(ContainerType.ANNOTATION);
-            buffer.writeBytes(preallocationMode.annotationsTypedPreallocatedBytes);
+            final PreallocationMode preallocation = pushPreallocatedContainer(ContainerType.ANNOTATION, fieldSid);
+            buffer.writeBytes(preallocation.annotationsTypedPreallocatedBytes);
 
             final long annotationsLengthPosition = buffer.position();
             buffer.writeVarUInt(0L);
@@ -949,11 +1157,12 @@ import java.util.NoSuchElementException;
         {
             throw new IonException("Cannot step into " + containerType);
         }
+        final int fieldSid = currentFieldSid;
         prepareValue();
-        updateLength(preallocationMode.typedLength);
-        pushContainer(containerType == STRUCT ? ContainerType.STRUCT : ContainerType.SEQUENCE);
+        final PreallocationMode preallocation =
+            pushPreallocatedContainer(containerType == STRUCT ? ContainerType.STRUCT : ContainerType.SEQUENCE, fieldSid);
         depth++;
-        buffer.writeBytes(preallocationMode.containerTypedPreallocatedBytes[containerType.ordinal()]);
+        buffer.writeBytes(preallocation.containerTypedPreallocatedBytes[containerType.ordinal()]);
     }
 
     public void stepOut() throws IOException
@@ -1619,16 +1828,130 @@ import java.util.NoSuchElementException;
 
     public void flush() throws IOException {}
 
+    private void checkFinishable()
+    {
+        if (!containers.isEmpty() || depth > 0)
+        {
+            throw new IllegalStateException("Cannot finish within container: " + containers);
+        }
+    }
+
+    /**
+     * Appends views over the data pending since the last finish, in output order, to the given list without
+     * copying it.  The views are only valid until {@link #discardPending()} is called.
+     */
+    /*package*/ void addPendingViewsTo(final List<ByteBuffer> views)
+    {
+        if (closed)
+        {
+            return;
+        }
+        checkFinishable();
+
+        long bufferPosition = 0;
+        for (final PatchPoint patch : patchPoints)
+        {
+            buffer.addViewsTo(views, bufferPosition, patch.oldPosition - bufferPosition);
+            patchBuffer.addViewsTo(views, patch.patchPosition, patch.patchLength);
+            bufferPosition = patch.oldPosition + patch.oldLength;
+        }
+        buffer.addViewsTo(views, bufferPosition, buffer.position() - bufferPosition);
+    }
+
+    /**
+     * Discards the top-level value being written, along with its open containers, annotations and field name.  The
+     * values completed before it stay pending.
+     */
+    /*package*/ void discardOpenValue()
+    {
+        ContainerInfo outermost = null;
+        while (!containers.isEmpty())
+        {
+            outermost = containers.pop();
+        }
+        depth = 0;
+        if (outermost != null)
+        {
+            // the outermost container was pushed just before its type descriptor
+            truncate(outermost.position - 1);
+            hasWrittenValuesSinceFinished = buffer.position() > 0;
+        }
+        currentFieldSid = SID_UNASSIGNED;
+        clearAnnotations();
+    }
+
+    /**
+     * Directs the output to another stream, as though this writer were newly constructed for it, while keeping the
+     * blocks of its buffers, its container stack and the lengths it has learned.  Any data pending since the last
+     * finish is discarded along with any open containers, annotations and field name.
+     */
+    /*package*/ void reset(final OutputStream out)
+    {
+        if (out == null) { throw new NullPointerException(); }
+        if (channel != null || closed)
+        {
+            throw new IllegalStateException("Cannot reset a writer that is closed or writes to a channel");
+        }
+        this.out = out;
+        while (!containers.isEmpty())
+        {
+            containers.pop();
+        }
+        depth = 0;
+        discardPending();
+        hasWrittenValuesSinceConstructed = false;
+        currentFieldSid = SID_UNASSIGNED;
+        clearAnnotations();
+    }
+
+    /** Drops the data pending since the last finish, once it has been written out. */
+    /*package*/ void discardPending()
+    {
+        if (closed)
+        {
+            return;
+        }
+        patchPoints.clear();
+        patchBuffer.reset();
+        buffer.reset();
+
+        hasWrittenValuesSinceFinished = false;
+    }
+
     public void finish() throws IOException
+    {
+        writePending();
+        if (!closed && channel == null && streamFlushMode == StreamFlushMode.FLUSH)
+        {
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes out the data pending at top level like {@link #finish()}, but never flushes the stream.
+     */
+    /*package*/ void writePending() throws IOException
     {
         if (closed)
         {
             return;
         }
-        if (!containers.isEmpty() || depth > 0)
+        if (channel != null)
         {
-            throw new IllegalStateException("Cannot finish within container: " + containers);
+            final List<ByteBuffer> views = pendingViews;
+            addPendingViewsTo(views);
+            try
+            {
+                WriteBuffer.writeFully(channel, views.toArray(new ByteBuffer[views.size()]));
+            }
+            finally
+            {
+                views.clear();
+            }
+            discardPending();
+            return;
         }
+        checkFinishable();
 
         if (patchPoints.isEmpty())
         {
@@ -1653,16 +1976,7 @@ import java.util.NoSuchElementException;
             }
             buffer.writeTo(out, bufferPosition, buffer.position() - bufferPosition);
         }
-        patchPoints.clear();
-        patchBuffer.reset();
-        buffer.reset();
-
-        if (streamFlushMode == StreamFlushMode.FLUSH)
-        {
-            out.flush();
-        }
-
-        hasWrittenValuesSinceFinished = false;
+        discardPending();
     }
 
     public void close() throws IOException
@@ -1693,7 +2007,14 @@ import java.util.NoSuchElementException;
             if (streamCloseMode == StreamCloseMode.CLOSE)
             {
                 // release the stream
-                out.close();
+                if (channel != null)
+                {
+                    channel.close();
+                }
+                else
+                {
+                    out.close();
+                }
             }
         }
     }
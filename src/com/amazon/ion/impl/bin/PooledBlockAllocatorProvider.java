@@ -15,53 +15,269 @@
 
 package com.amazon.ion.impl.bin;
 
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
- * A simple pooling implementation of {@link BlockAllocatorProvider} with a global thread-safe free block list
- * for each block size.
+ * A pooling implementation of {@link BlockAllocatorProvider} with a small per-thread free block cache in front of
+ * a global thread-safe free block list for each block size.
+ * <p>
+ * A thread closing a block keeps it in its own cache, and allocates from that cache first, so a writer that is
+ * used by a single thread rarely touches shared state.  Blocks overflowing the thread's cache go to the global
+ * list.  The capacity given at construction bounds the bytes retained by the provider as a whole, across all block
+ * sizes and the caches of all threads; closed blocks beyond it are left to the garbage collector.  Each thread
+ * may retain up to {@value #THREAD_CAPACITY} bytes (at least one block) of each block size within that capacity.
+ * <p>
+ * The per-thread caches are shared by all providers, and each thread only caches blocks for the
+ * {@value #THREAD_CACHE_ALLOCATORS} allocators it used most recently; blocks cached for any other allocator are
+ * returned to that allocator's global list.  A short-lived provider is therefore retained by a thread's cache
+ * only until the thread moves on to others.  The capacity reserved by the caches of threads that have died is
+ * reclaimed when the provider runs out of capacity.
+ * <p>
+ * Blocks are backed by heap arrays by default, or by direct {@link ByteBuffer}s for a provider made by
+ * {@link BlockAllocatorProviders#directProvider()}.  Since direct memory is expensive to allocate and is only
+ * reclaimed once its buffer is collected, pooling it is what makes it worthwhile.
+ * <p>
+ * Applications should share a provider, such as {@link BlockAllocatorProviders#pooledProvider()}, rather than
+ * create one per writer, since each provider pools its blocks separately.
  * <p>
  * This implementation is thread-safe.
  */
 public final class PooledBlockAllocatorProvider extends BlockAllocatorProvider
 {
+    /** The default capacity of the provider, in bytes. */
+    public static final int FREE_CAPACITY = 1024 * 1024 * 64; // 64MB
+
+    /** The capacity of the free block cache of each thread for each block size, in bytes. */
+    static final int THREAD_CAPACITY = 1024 * 256; // 256KB
+
+    /** The number of allocators for which each thread caches free blocks. */
+    static final int THREAD_CACHE_ALLOCATORS = 4;
+
+    /** How many closed blocks may fail to fit in the pool between sweeps for the caches of dead threads. */
+    private static final int SWEEP_INTERVAL = 64;
+
+    /**
+     * The free block caches of each thread, most recently used first, for any provider.
+     */
+    private static final ThreadLocal<ThreadBlocks[]> THREAD_BLOCKS = new ThreadLocal<ThreadBlocks[]>()
+    {
+        @Override
+        protected ThreadBlocks[] initialValue()
+        {
+            return new ThreadBlocks[THREAD_CACHE_ALLOCATORS];
+        }
+    };
+
+    /**
+     * A statistics counter that spreads its increments over cells on distinct cache lines, chosen by thread,
+     * so that concurrent threads seldom contend on the same cell.
+     */
+    private static final class StripedCounter
+    {
+        /** Cells are 128 bytes apart, which keeps them out of adjacent cache lines too. */
+        private static final int STRIDE = 16;
+
+        private final AtomicLongArray cells;
+        private final int mask;
+
+        StripedCounter()
+        {
+            int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 1;
+            cells = new AtomicLongArray(stripes * STRIDE);
+            mask = stripes - 1;
+        }
+
+        void increment()
+        {
+            cells.getAndIncrement(((int) Thread.currentThread().getId() & mask) * STRIDE);
+        }
+
+        long get()
+        {
+            long sum = 0;
+            for (int i = 0; i < cells.length(); i += STRIDE)
+            {
+                sum += cells.get(i);
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * The free blocks one thread caches for one allocator.  Capacity is reserved from the provider a block at a
+     * time as the cache grows, and kept while the cache is in use, so that the owning thread can move blocks in
+     * and out of it without touching shared state.
+     * <p>
+     * Only the owning thread uses an instance, until it is {@linkplain PooledBlockAllocator#drain drained}.
+     */
+    private static final class ThreadBlocks
+    {
+        final PooledBlockAllocator allocator;
+        final WeakReference<Thread> owner;
+        final ArrayDeque<Block> blocks;
+        /** The number of blocks of capacity reserved for {@link #blocks}. */
+        int reserved;
+
+        ThreadBlocks(final PooledBlockAllocator allocator)
+        {
+            this.allocator = allocator;
+            this.owner = new WeakReference<Thread>(Thread.currentThread());
+            this.blocks = new ArrayDeque<Block>();
+        }
+
+        boolean isOwnerAlive()
+        {
+            final Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+    }
+
     /**
-     * A {@link BlockAllocator} of for a particular size that has a single thread-safe free list.
+     * A {@link BlockAllocator} for a particular size that has a free list for each thread and a single
+     * thread-safe free list shared by all threads.  Both lists are first in, first out.
      * <p>
      * This implementation is thread-safe.
      */
-    private static final class PooledBlockAllocator extends BlockAllocator
+    private final class PooledBlockAllocator extends BlockAllocator
     {
-        private final int blockSize, blockLimit;
+        private final int blockSize, threadBlockLimit;
         private final ConcurrentLinkedQueue<Block> freeBlocks;
-        static final int FREE_CAPACITY = 1024 * 1024 * 64; // 64MB
 
         public PooledBlockAllocator(final int blockSize)
         {
             this.blockSize = blockSize;
             this.freeBlocks = new ConcurrentLinkedQueue<Block>();
-            this.blockLimit = FREE_CAPACITY / blockSize;
+            this.threadBlockLimit = Math.max(1, THREAD_CAPACITY / blockSize);
+        }
+
+        private final class PooledBlock extends Block
+        {
+            PooledBlock(final byte[] data)
+            {
+                super(data);
+            }
+
+            PooledBlock(final ByteBuffer buffer)
+            {
+                super(buffer);
+            }
+
+            @Override
+            public void close()
+            {
+                reset();
+                final ThreadBlocks threadBlocks = threadBlocks(true);
+                if (threadBlocks.blocks.size() < threadBlocks.reserved)
+                {
+                    threadBlocks.blocks.add(this);
+                }
+                else if (threadBlocks.reserved < threadBlockLimit && reserve(blockSize))
+                {
+                    threadBlocks.reserved++;
+                    threadBlocks.blocks.add(this);
+                }
+                else if (reserve(blockSize))
+                {
+                    freeBlocks.add(this);
+                }
+                else
+                {
+                    evictions.increment();
+                }
+            }
+        }
+
+        /**
+         * Returns the calling thread's cache for this allocator, moving it to the front of the thread's caches;
+         * or, if it has none, a new one if {@code create} is true, and null otherwise.
+         */
+        private ThreadBlocks threadBlocks(final boolean create)
+        {
+            final ThreadBlocks[] caches = THREAD_BLOCKS.get();
+            ThreadBlocks threadBlocks = caches[0];
+            if (threadBlocks != null && threadBlocks.allocator == this)
+            {
+                return threadBlocks;
+            }
+            int i = 1;
+            while (i < caches.length && caches[i] != null && caches[i].allocator != this)
+            {
+                i++;
+            }
+            if (i < caches.length && caches[i] != null)
+            {
+                threadBlocks = caches[i];
+            }
+            else if (create)
+            {
+                if (i == caches.length)
+                {
+                    i--;
+                    final ThreadBlocks evicted = caches[i];
+                    evicted.allocator.drain(evicted);
+                }
+                threadBlocks = new ThreadBlocks(this);
+                registry.add(threadBlocks);
+            }
+            else
+            {
+                return null;
+            }
+            System.arraycopy(caches, 0, caches, 1, i);
+            caches[0] = threadBlocks;
+            return threadBlocks;
+        }
+
+        /**
+         * Returns the blocks of a cache that is no longer used to the global list, along with any capacity
+         * reserved for it beyond them.
+         */
+        void drain(final ThreadBlocks threadBlocks)
+        {
+            if (!registry.remove(threadBlocks))
+            {
+                // already drained
+                return;
+            }
+            release((long) (threadBlocks.reserved - threadBlocks.blocks.size()) * blockSize);
+            freeBlocks.addAll(threadBlocks.blocks);
+            threadBlocks.blocks.clear();
+            threadBlocks.reserved = 0;
         }
 
         @Override
         public Block allocateBlock()
         {
-            Block block = freeBlocks.poll();
+            final ThreadBlocks threadBlocks = threadBlocks(false);
+            Block block = threadBlocks == null ? null : threadBlocks.blocks.poll();
             if (block == null)
             {
-                block = new Block(new byte[blockSize])
+                block = freeBlocks.poll();
+                if (block != null)
                 {
-                    @Override
-                    public void close()
-                    {
-                        if (freeBlocks.size() < blockLimit) {
-                            reset();
-                            freeBlocks.add(this);
-                        }
-                    }
-                };
+                    release(blockSize);
+                }
+            }
+            if (block == null)
+            {
+                misses.increment();
+                block = direct
+                    ? new PooledBlock(ByteBuffer.allocateDirect(blockSize))
+                    : new PooledBlock(new byte[blockSize]);
+            }
+            else
+            {
+                hits.increment();
             }
             return block;
         }
@@ -77,10 +293,131 @@ public final class PooledBlockAllocatorProvider extends BlockAllocatorProvider
     }
 
     private final ConcurrentMap<Integer, BlockAllocator> allocators;
+    private final int freeCapacity;
+    private final boolean direct;
+    /** The bytes of free blocks in the global lists plus those reserved by thread caches. */
+    private final AtomicLong pooledBytes;
+    /** The thread caches of this provider's allocators. */
+    private final Set<ThreadBlocks> registry;
+    private final AtomicLong failedReservations;
+    private final AtomicBoolean sweeping;
+    private final StripedCounter hits, misses, evictions;
 
+    /**
+     * Constructs a provider of heap blocks that retains up to {@link #FREE_CAPACITY} bytes of free blocks.
+     */
     public PooledBlockAllocatorProvider()
     {
+        this(FREE_CAPACITY);
+    }
+
+    /**
+     * Constructs a provider of heap blocks.
+     *
+     * @param freeCapacity the number of bytes of free blocks to retain, in total across all block sizes and
+     *                     threads; zero disables pooling.
+     *
+     * @throws IllegalArgumentException if {@code freeCapacity} is negative.
+     */
+    public PooledBlockAllocatorProvider(final int freeCapacity)
+    {
+        this(freeCapacity, false);
+    }
+
+    /*package*/ PooledBlockAllocatorProvider(final int freeCapacity, final boolean direct)
+    {
+        if (freeCapacity < 0)
+        {
+            throw new IllegalArgumentException("Invalid free capacity: " + freeCapacity);
+        }
         allocators = new ConcurrentHashMap<Integer, BlockAllocator>();
+        this.freeCapacity = freeCapacity;
+        this.direct = direct;
+        pooledBytes = new AtomicLong();
+        registry = Collections.newSetFromMap(new ConcurrentHashMap<ThreadBlocks, Boolean>());
+        failedReservations = new AtomicLong();
+        sweeping = new AtomicBoolean();
+        hits = new StripedCounter();
+        misses = new StripedCounter();
+        evictions = new StripedCounter();
+    }
+
+    /**
+     * Reserves capacity for a free block, first reclaiming the capacity held by the caches of dead threads
+     * every so often if there isn't enough.
+     *
+     * @return whether the capacity was reserved.
+     */
+    private boolean reserve(final int bytes)
+    {
+        if (tryReserve(bytes))
+        {
+            return true;
+        }
+        if (failedReservations.getAndIncrement() % SWEEP_INTERVAL == 0 && sweeping.compareAndSet(false, true))
+        {
+            try
+            {
+                for (final ThreadBlocks threadBlocks : registry)
+                {
+                    if (!threadBlocks.isOwnerAlive())
+                    {
+                        // The dead thread's cache goes to the global list; its blocks are reused before new ones.
+                        threadBlocks.allocator.drain(threadBlocks);
+                    }
+                }
+            }
+            finally
+            {
+                sweeping.set(false);
+            }
+            return tryReserve(bytes);
+        }
+        return false;
+    }
+
+    private boolean tryReserve(final int bytes)
+    {
+        long current;
+        do
+        {
+            current = pooledBytes.get();
+            if (current + bytes > freeCapacity)
+            {
+                return false;
+            }
+        }
+        while (!pooledBytes.compareAndSet(current, current + bytes));
+        return true;
+    }
+
+    private void release(final long bytes)
+    {
+        pooledBytes.addAndGet(-bytes);
+    }
+
+    /** Returns the number of bytes of free blocks retained, or reserved for them by thread caches. */
+    public long getPooledBytes()
+    {
+        return pooledBytes.get();
+    }
+
+    /** Returns the number of blocks allocated from a free list rather than newly created. */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    /** Returns the number of blocks newly created because no free block was available. */
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    /** Returns the number of closed blocks dropped because the free lists were full. */
+    public long getEvictionCount()
+    {
+        return evictions.get();
     }
 
     @Override
@@ -18,11 +18,17 @@ package com.amazon.ion.impl.bin;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * A facade over {@link Block} management and low-level Ion encoding concerns for the {@link IonRawBinaryWriter}.
+ * <p>
+ * The fast paths index directly into the {@link Block#data} array of the current block.  Blocks without an
+ * array (e.g. direct memory) always take the slow paths, which go through the {@link Block} accessors.
  */
 /*package*/ final class WriteBuffer implements Closeable
 {
@@ -30,6 +36,8 @@ import java.util.List;
     private final List<Block> blocks;
     private Block current;
     private int index;
+    /** Staging area for copying blocks without an array to streams; allocated on demand. */
+    private byte[] transfer;
 
     public WriteBuffer(final BlockAllocator allocator)
     {
@@ -92,12 +100,68 @@ import java.util.List;
         current = block;
     }
 
+    /**
+     * Removes octets at a particular point, moving all octets after them back to fill the gap.  This takes
+     * time linear in the number of octets moved.
+     */
+    public void remove(final long position, final int length)
+    {
+        if (length == 0)
+        {
+            return;
+        }
+        final int blockSize = allocator.getBlockSize();
+        final long end = position();
+        long from = position + length;
+        long to = position;
+        while (from < end)
+        {
+            final int fromOffset = offset(from);
+            final int toOffset = offset(to);
+            int amount = (int) Math.min(end - from, blockSize - Math.max(fromOffset, toOffset));
+            final Block fromBlock = blocks.get(index(from));
+            final Block toBlock = blocks.get(index(to));
+            if (fromBlock.data != null && toBlock.data != null)
+            {
+                System.arraycopy(fromBlock.data, fromOffset, toBlock.data, toOffset, amount);
+            }
+            else
+            {
+                if (transfer == null)
+                {
+                    transfer = new byte[Math.min(TRANSFER_SIZE, blockSize)];
+                }
+                amount = Math.min(amount, transfer.length);
+                fromBlock.get(fromOffset, transfer, 0, amount);
+                toBlock.put(toOffset, transfer, 0, amount);
+            }
+            from += amount;
+            to += amount;
+        }
+        truncate(to);
+        // the blocks past the end are to be written afresh
+        for (int i = index + 1; i < blocks.size() && blocks.get(i).limit != 0; i++)
+        {
+            blocks.get(i).limit = 0;
+        }
+    }
+
     /** Returns the amount of capacity left in the current block. */
     public int remaining()
     {
         return current.remaining();
     }
 
+    /**
+     * Returns the amount of capacity left in the current block for the fast paths, which write directly into its
+     * array; -1 if the block has no array, so that any bounds check against it fails and defers to the slow path.
+     */
+    private int arrayRemaining()
+    {
+        final Block block = current;
+        return block.data == null ? -1 : block.remaining();
+    }
+
     /** Returns the logical position in the current block. */
     public long position()
     {
@@ -112,7 +176,7 @@ import java.util.List;
         final int index = index(position);
         final int offset = offset(position);
         final Block block = blocks.get(index);
-        return block.data[offset] & OCTET_MASK;
+        return block.get(offset) & OCTET_MASK;
     }
 
     /** Writes a single octet to the buffer, expanding if necessary. */
@@ -128,7 +192,15 @@ import java.util.List;
             current = blocks.get(index);
         }
         final Block block = current;
-        block.data[block.limit] = octet;
+        final byte[] data = block.data;
+        if (data != null)
+        {
+            data[block.limit] = octet;
+        }
+        else
+        {
+            block.put(block.limit, octet);
+        }
         block.limit++;
     }
 
@@ -139,7 +211,7 @@ import java.util.List;
         {
             final Block block = current;
             final int amount = Math.min(len, block.remaining());
-            System.arraycopy(bytes, off, block.data, block.limit, amount);
+            block.put(block.limit, bytes, off, amount);
             block.limit += amount;
             off += amount;
             len -= amount;
@@ -159,7 +231,7 @@ import java.util.List;
     /** Writes an array of bytes to the buffer expanding if necessary. */
     public void writeBytes(final byte[] bytes, final int off, final int len)
     {
-        if (len > remaining())
+        if (len > arrayRemaining())
         {
             writeBytesSlow(bytes, off, len);
             return;
@@ -264,7 +336,7 @@ import java.util.List;
     private int writeUTF8UpTo3Byte(final CharSequence chars, int off, int len)
     {
         // fast path if we fit in the block assuming optimistically for all three-byte
-        if ((len * 3) > remaining())
+        if ((len * 3) > arrayRemaining())
         {
             return writeUTF8Slow(chars, off, len);
         }
@@ -319,7 +391,7 @@ import java.util.List;
     private int writeUTF8UpTo2Byte(final CharSequence chars, int off, int len)
     {
         // fast path if we fit in the block assuming optimistically for all two-byte
-        if ((len * 2) > remaining())
+        if ((len * 2) > arrayRemaining())
         {
             return writeUTF8Slow(chars, off, len);
         }
@@ -375,7 +447,7 @@ import java.util.List;
     public int writeUTF8(final CharSequence chars, int off, int len)
     {
         // fast path if we fit in the block assuming optimistically for all ASCII
-        if (len > remaining())
+        if (len > arrayRemaining())
         {
             return writeUTF8Slow(chars, off, len);
         }
@@ -451,7 +523,7 @@ import java.util.List;
 
     public void writeUInt16(long value)
     {
-        if (remaining() < 2)
+        if (arrayRemaining() < 2)
         {
             writeUInt16Slow(value);
             return;
@@ -474,7 +546,7 @@ import java.util.List;
 
     public void writeUInt24(long value)
     {
-        if (remaining() < 3)
+        if (arrayRemaining() < 3)
         {
             writeUInt24Slow(value);
             return;
@@ -499,7 +571,7 @@ import java.util.List;
 
     public void writeUInt32(long value)
     {
-        if (remaining() < 4)
+        if (arrayRemaining() < 4)
         {
             writeUInt32Slow(value);
             return;
@@ -526,7 +598,7 @@ import java.util.List;
 
     public void writeUInt40(long value)
     {
-        if (remaining() < 5)
+        if (arrayRemaining() < 5)
         {
             writeUInt40Slow(value);
             return;
@@ -555,7 +627,7 @@ import java.util.List;
 
     public void writeUInt48(long value)
     {
-        if (remaining() < 6)
+        if (arrayRemaining() < 6)
         {
             writeUInt48Slow(value);
             return;
@@ -586,7 +658,7 @@ import java.util.List;
 
     public void writeUInt56(long value)
     {
-        if (remaining() < 7)
+        if (arrayRemaining() < 7)
         {
             writeUInt56Slow(value);
             return;
@@ -619,7 +691,7 @@ import java.util.List;
 
     public void writeUInt64(long value)
     {
-        if (remaining() < 8)
+        if (arrayRemaining() < 8)
         {
             writeUInt64Slow(value);
             return;
@@ -761,6 +833,17 @@ import java.util.List;
 
     private static final long VAR_INT_FINAL_OCTET_SIGNAL_MASK = 0x80;
 
+    /** Returns the number of octets of the minimal VarUInt encoding of the given value. */
+    /*package*/ static int varUIntLength(final long value)
+    {
+        int length = 1;
+        for (long min = VAR_UINT_2_OCTET_MIN_VALUE; value >= min && length < 9; min <<= VAR_INT_BITS_PER_OCTET)
+        {
+            length++;
+        }
+        return length;
+    }
+
     private int writeVarUIntSlow(final long value)
     {
         int size = 1;
@@ -871,7 +954,7 @@ import java.util.List;
         }
         if (value < VAR_UINT_3_OCTET_MIN_VALUE)
         {
-            if (remaining() < 2)
+            if (arrayRemaining() < 2)
             {
                 return writeVarUIntSlow(value);
             }
@@ -879,7 +962,7 @@ import java.util.List;
         }
         if (value < VAR_UINT_4_OCTET_MIN_VALUE)
         {
-            if (remaining() < 3)
+            if (arrayRemaining() < 3)
             {
                 return writeVarUIntSlow(value);
             }
@@ -887,7 +970,7 @@ import java.util.List;
         }
         if (value < VAR_UINT_5_OCTET_MIN_VALUE)
         {
-            if (remaining() < 4)
+            if (arrayRemaining() < 4)
             {
                 return writeVarUIntSlow(value);
             }
@@ -895,7 +978,7 @@ import java.util.List;
         }
         if (value < VAR_UINT_6_OCTET_MIN_VALUE)
         {
-            if (remaining() < 5)
+            if (arrayRemaining() < 5)
             {
                 return writeVarUIntSlow(value);
             }
@@ -1004,7 +1087,7 @@ import java.util.List;
             return 1;
         }
         final long signBit = value < 0 ? 1 : 0;
-        final int remaining = remaining();
+        final int remaining = arrayRemaining();
         if (magnitude < VAR_INT_3_OCTET_MIN_VALUE && remaining >= 2)
         {
             return writeVarUIntDirect2(magnitude | (signBit << VAR_SINT_2_OCTET_SHIFT));
@@ -1038,9 +1121,9 @@ import java.util.List;
     {
         // XXX we're stradling a block
         final Block block1 = blocks.get(index);
-        block1.data[offset] = (byte) ((value >> VAR_UINT_2_OCTET_SHIFT) & VAR_INT_MASK);
+        block1.put(offset, (byte) ((value >> VAR_UINT_2_OCTET_SHIFT) & VAR_INT_MASK));
         final Block block2 = blocks.get(index + 1);
-        block2.data[0]      = (byte) ((value                            & VAR_INT_MASK) | VAR_INT_FINAL_OCTET_SIGNAL_MASK);
+        block2.put(0,      (byte) ((value                            & VAR_INT_MASK) | VAR_INT_FINAL_OCTET_SIGNAL_MASK));
     }
 
     public void writeVarUIntDirect2At(long position, long value)
@@ -1055,8 +1138,30 @@ import java.util.List;
         }
 
         final Block block = blocks.get(index);
-        block.data[offset    ] = (byte) ((value >> VAR_UINT_2_OCTET_SHIFT) & VAR_INT_MASK);
-        block.data[offset + 1] = (byte) ((value                            & VAR_INT_MASK) | VAR_INT_FINAL_OCTET_SIGNAL_MASK);
+        block.put(offset,     (byte) ((value >> VAR_UINT_2_OCTET_SHIFT) & VAR_INT_MASK));
+        block.put(offset + 1, (byte) ((value                            & VAR_INT_MASK) | VAR_INT_FINAL_OCTET_SIGNAL_MASK));
+    }
+
+    public void writeVarUIntDirect4At(long position, long value)
+    {
+        final int index = index(position);
+        final int offset = offset(position);
+
+        if (offset + 4 > allocator.getBlockSize())
+        {
+            // XXX we're straddling a block, which is rare enough to do bytewise
+            writeUInt8At(position,     (value >> VAR_UINT_4_OCTET_SHIFT) & VAR_INT_MASK);
+            writeUInt8At(position + 1, (value >> VAR_UINT_3_OCTET_SHIFT) & VAR_INT_MASK);
+            writeUInt8At(position + 2, (value >> VAR_UINT_2_OCTET_SHIFT) & VAR_INT_MASK);
+            writeUInt8At(position + 3, (value & VAR_INT_MASK) | VAR_INT_FINAL_OCTET_SIGNAL_MASK);
+            return;
+        }
+
+        final Block block = blocks.get(index);
+        block.put(offset,     (byte) ((value >> VAR_UINT_4_OCTET_SHIFT) & VAR_INT_MASK));
+        block.put(offset + 1, (byte) ((value >> VAR_UINT_3_OCTET_SHIFT) & VAR_INT_MASK));
+        block.put(offset + 2, (byte) ((value >> VAR_UINT_2_OCTET_SHIFT) & VAR_INT_MASK));
+        block.put(offset + 3, (byte) ((value                            & VAR_INT_MASK) | VAR_INT_FINAL_OCTET_SIGNAL_MASK));
     }
 
     public void writeUInt8At(final long position, final long value)
@@ -1066,7 +1171,30 @@ import java.util.List;
 
         // XXX we'll never overrun a block unless we're given a position past our block array
         final Block block = blocks.get(index);
-        block.data[offset] = (byte) value;
+        block.put(offset, (byte) value);
+    }
+
+    private static final int TRANSFER_SIZE = 8 * 1024;
+
+    private void writeBlockTo(final OutputStream out, final Block block, int offset, int length) throws IOException
+    {
+        if (block.data != null)
+        {
+            out.write(block.data, offset, length);
+            return;
+        }
+        if (transfer == null)
+        {
+            transfer = new byte[Math.min(TRANSFER_SIZE, allocator.getBlockSize())];
+        }
+        while (length > 0)
+        {
+            final int amount = Math.min(length, transfer.length);
+            block.get(offset, transfer, 0, amount);
+            out.write(transfer, 0, amount);
+            offset += amount;
+            length -= amount;
+        }
     }
 
     /** Write the entire buffer to output stream. */
@@ -1075,7 +1203,7 @@ import java.util.List;
         for (int i = 0; i <= index; i++)
         {
             Block block = blocks.get(i);
-            out.write(block.data, 0, block.limit);
+            writeBlockTo(out, block, 0, block.limit);
         }
     }
 
@@ -1087,11 +1215,67 @@ import java.util.List;
             final int index = index(position);
             final int offset = offset(position);
             final Block block = blocks.get(index);
-            final int amount = (int) Math.min(block.data.length - offset, length);
-            out.write(block.data, offset, amount);
+            final int amount = (int) Math.min(block.capacity() - offset, length);
+            writeBlockTo(out, block, offset, amount);
+
+            position += amount;
+            length -= amount;
+        }
+    }
+
+    /**
+     * Appends views over a specific segment of data from the buffer to the given list, without copying, for a
+     * gathering write.
+     */
+    public void addViewsTo(final List<ByteBuffer> views, long position, long length)
+    {
+        while (length > 0)
+        {
+            final int index = index(position);
+            final int offset = offset(position);
+            final Block block = blocks.get(index);
+            final int amount = (int) Math.min(block.capacity() - offset, length);
+            views.add(block.view(offset, amount));
 
             position += amount;
             length -= amount;
         }
     }
+
+    /** Write the entire buffer to a channel. */
+    public void writeTo(final WritableByteChannel out) throws IOException
+    {
+        final List<ByteBuffer> views = new ArrayList<ByteBuffer>(index + 1);
+        addViewsTo(views, 0, position());
+        writeFully(out, views.toArray(new ByteBuffer[views.size()]));
+    }
+
+    /**
+     * Writes all of the given buffers to the channel, with a single gathering write for as long as the channel
+     * supports it. The channel must be blocking, or this spins for as long as it can't take more data.
+     */
+    static void writeFully(final WritableByteChannel out, final ByteBuffer[] buffers) throws IOException
+    {
+        if (out instanceof GatheringByteChannel)
+        {
+            final GatheringByteChannel gathering = (GatheringByteChannel) out;
+            int first = 0;
+            while (first < buffers.length)
+            {
+                gathering.write(buffers, first, buffers.length - first);
+                while (first < buffers.length && !buffers[first].hasRemaining())
+                {
+                    first++;
+                }
+            }
+            return;
+        }
+        for (final ByteBuffer buffer : buffers)
+        {
+            while (buffer.hasRemaining())
+            {
+                out.write(buffer);
+            }
+        }
+    }
 }
@@ -31,7 +31,7 @@ public class _PrivateIon_HashTrampoline
     public static IonWriter newIonWriter(ByteArrayOutputStream baos) throws IOException
     {
         return new IonRawBinaryWriter(
-                new PooledBlockAllocatorProvider(),
+                BlockAllocatorProviders.pooledProvider(),
                 _Private_IonManagedBinaryWriterBuilder.DEFAULT_BLOCK_SIZE,
                 baos,
                 AbstractIonWriter.WriteValueOptimization.NONE,
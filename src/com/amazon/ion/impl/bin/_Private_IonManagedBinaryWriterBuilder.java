@@ -32,6 +32,7 @@ import com.amazon.ion.impl.bin.IonRawBinaryWriter.PreallocationMode;
 import com.amazon.ion.system.SimpleCatalog;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
 import java.util.List;
 
@@ -47,7 +48,10 @@ public final class _Private_IonManagedBinaryWriterBuilder
 {
     public static final int DEFAULT_BLOCK_SIZE = 32768;
 
-    /*package*/ final    BlockAllocatorProvider provider;
+    /** The default maximum number of local symbols, meaning that the local symbol table is never reset. */
+    public static final int NO_LOCAL_SYMBOL_LIMIT = Integer.MAX_VALUE;
+
+    /*package*/ volatile BlockAllocatorProvider provider;
     /*package*/ volatile int                    symbolsBlockSize;
     /*package*/ volatile int                    userBlockSize;
     /*package*/ volatile PreallocationMode      preallocationMode;
@@ -57,6 +61,7 @@ public final class _Private_IonManagedBinaryWriterBuilder
     /*package*/ volatile SymbolTable            initialSymbolTable;
     /*package*/ volatile boolean                isLocalSymbolTableAppendEnabled;
     /*package*/ volatile boolean                isFloatBinary32Enabled;
+    /*package*/ volatile int                    maxLocalSymbols;
 
     public _Private_IonManagedBinaryWriterBuilder(final BlockAllocatorProvider provider)
     {
@@ -69,6 +74,7 @@ public final class _Private_IonManagedBinaryWriterBuilder
         this.optimization = WriteValueOptimization.NONE;
         this.isLocalSymbolTableAppendEnabled = false;
         this.isFloatBinary32Enabled = false;
+        this.maxLocalSymbols = NO_LOCAL_SYMBOL_LIMIT;
     }
 
     private _Private_IonManagedBinaryWriterBuilder(final _Private_IonManagedBinaryWriterBuilder other)
@@ -83,6 +89,7 @@ public final class _Private_IonManagedBinaryWriterBuilder
         this.initialSymbolTable = other.initialSymbolTable;
         this.isLocalSymbolTableAppendEnabled = other.isLocalSymbolTableAppendEnabled;
         this.isFloatBinary32Enabled = other.isFloatBinary32Enabled;
+        this.maxLocalSymbols    = other.maxLocalSymbols;
     }
 
     public _Private_IonManagedBinaryWriterBuilder copy()
@@ -112,6 +119,16 @@ public final class _Private_IonManagedBinaryWriterBuilder
         return this;
     }
 
+    public _Private_IonManagedBinaryWriterBuilder withBlockAllocatorProvider(final BlockAllocatorProvider provider)
+    {
+        if (provider == null)
+        {
+            throw new NullPointerException();
+        }
+        this.provider = provider;
+        return this;
+    }
+
     public _Private_IonManagedBinaryWriterBuilder withImports(final SymbolTable... tables)
     {
         if (tables != null)
@@ -162,6 +179,29 @@ public final class _Private_IonManagedBinaryWriterBuilder
         return this;
     }
 
+    /**
+     * Preallocates 4 bytes of length for containers and compacts the length when the container ends, by moving
+     * its content back.  This produces the same output as {@code withPaddedLengthPreallocation(0)}, without
+     * allocating any patch bookkeeping for containers that outgrow their preallocated length, which favors
+     * nested data.
+     */
+    public _Private_IonManagedBinaryWriterBuilder withCompactedLengthPreallocation()
+    {
+        this.preallocationMode = PreallocationMode.PREALLOCATE_4_COMPACTED;
+        return this;
+    }
+
+    /**
+     * Preallocates 0, 1 or 2 bytes of length for each container, depending on the length of the containers
+     * last written at the same depth under the same field name.  Streams of records of the same shape are then
+     * written with little padding and almost no patch bookkeeping.
+     */
+    public _Private_IonManagedBinaryWriterBuilder withAdaptiveLengthPreallocation()
+    {
+        this.preallocationMode = PreallocationMode.PREALLOCATE_ADAPTIVE;
+        return this;
+    }
+
     public _Private_IonManagedBinaryWriterBuilder withCatalog(final IonCatalog catalog)
     {
         this.catalog = catalog;
@@ -186,6 +226,24 @@ public final class _Private_IonManagedBinaryWriterBuilder
         return this;
     }
 
+    /**
+     * Bounds the local symbol table of long-running writers.  The bound is checked after each top-level value,
+     * so a single value may exceed it by the symbols it introduces.  Once the local symbol table holds more than
+     * the given number of symbols, the pending data is written out, without flushing the stream, and the table
+     * is reset, unless it is locked or the user is writing a table.  The symbols used more than once since the
+     * previous reset, up to half the limit, are declared first in the new local symbol table, so the symbols
+     * shared by records of the same shape keep stable IDs across resets.
+     */
+    public _Private_IonManagedBinaryWriterBuilder withMaxLocalSymbols(final int maxLocalSymbols)
+    {
+        if (maxLocalSymbols < 1)
+        {
+            throw new IllegalArgumentException("Maximum number of local symbols cannot be less than 1: " + maxLocalSymbols);
+        }
+        this.maxLocalSymbols = maxLocalSymbols;
+        return this;
+    }
+
     public _Private_IonManagedBinaryWriterBuilder withFloatBinary32Enabled() {
         isFloatBinary32Enabled = true;
         return this;
@@ -238,6 +296,11 @@ public final class _Private_IonManagedBinaryWriterBuilder
         return new IonManagedBinaryWriter(this, out);
     }
 
+    public IonWriter newWriter(final WritableByteChannel channel) throws IOException
+    {
+        return new IonManagedBinaryWriter(this, channel);
+    }
+
     public IonBinaryWriter newLegacyWriter()
     {
         try
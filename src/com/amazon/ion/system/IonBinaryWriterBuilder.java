@@ -21,6 +21,10 @@ import com.amazon.ion.IonWriter;
 import com.amazon.ion.SubstituteSymbolTableException;
 import com.amazon.ion.SymbolTable;
 import com.amazon.ion.impl._Private_IonBinaryWriterBuilder;
+import com.amazon.ion.impl.bin._Private_IonManagedBinaryWriterBuilder;
+import java.nio.channels.Channels;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
 
 
 /**
@@ -39,7 +43,96 @@ import com.amazon.ion.impl._Private_IonBinaryWriterBuilder;
 public abstract class IonBinaryWriterBuilder
     extends IonWriterBuilderBase<IonBinaryWriterBuilder>
 {
+    /**
+     * A strategy for encoding the lengths of containers and annotation
+     * wrappers, which are only known once their content has been written.
+     * Each strategy trades the size of the output against the work needed
+     * to fill in the lengths.
+     *
+     * @see IonBinaryWriterBuilder#setLengthPreallocation(IonBinaryWriterBuilder.LengthPreallocation)
+     */
+    public enum LengthPreallocation
+    {
+        /**
+         * Reserves no space for lengths. Lengths that do not fit in the
+         * type descriptor are written aside and spliced into the output
+         * when the writer is flushed, which costs some bookkeeping for every
+         * such container. The output has the minimal length encodings.
+         * This is the default.
+         */
+        NONE,
+
+        /**
+         * Reserves one byte for lengths, filled in place with lengths up to
+         * 127, so small containers need no bookkeeping at the cost of one
+         * padding byte when their length fits in the type descriptor.
+         */
+        PADDED_1,
+
+        /**
+         * Reserves two bytes for lengths, filled in place with lengths up to
+         * 16383. This suits records of moderate size, at the cost of up to
+         * two padding bytes per container.
+         */
+        PADDED_2,
+
+        /**
+         * Reserves four bytes for lengths and compacts them to their
+         * minimal encoding when the container ends, by moving its content.
+         * The output is the same as with {@link #NONE}, with less
+         * bookkeeping for nested data at the cost of copying.
+         */
+        COMPACTED,
+
+        /**
+         * Reserves zero, one or two bytes for the length of each container,
+         * depending on the length of the containers last written at the
+         * same depth under the same field name. Streams of records of the
+         * same shape need almost no bookkeeping, at the cost of a padding
+         * byte for some containers.
+         */
+        ADAPTIVE
+    }
+
+
+    /**
+     * Where the blocks that buffer data until it is written out are
+     * allocated. Blocks are pooled and reused by all writers either way.
+     *
+     * @see IonBinaryWriterBuilder#setBlockAllocation(IonBinaryWriterBuilder.BlockAllocation)
+     */
+    public enum BlockAllocation
+    {
+        /**
+         * Allocates blocks as byte arrays on the Java heap.
+         * This is the default.
+         */
+        HEAP,
+
+        /**
+         * Allocates blocks as direct {@link java.nio.ByteBuffer}s, keeping
+         * buffered output off the heap. This suits large top-level values,
+         * particularly when writing to a channel, which takes the blocks
+         * without copying them to the heap.
+         */
+        DIRECT
+    }
+
+
+    /** The default size of the blocks buffering user values and symbol tables, in bytes. */
+    public static final int DEFAULT_BLOCK_SIZE =
+        _Private_IonManagedBinaryWriterBuilder.DEFAULT_BLOCK_SIZE;
+
+    /** The default maximum number of local symbols, meaning no limit. */
+    public static final int NO_LOCAL_SYMBOL_LIMIT =
+        _Private_IonManagedBinaryWriterBuilder.NO_LOCAL_SYMBOL_LIMIT;
+
     private boolean myStreamCopyOptimized;
+    private LengthPreallocation myLengthPreallocation = LengthPreallocation.NONE;
+    private int myUserBlockSize = DEFAULT_BLOCK_SIZE;
+    private int mySymbolsBlockSize = DEFAULT_BLOCK_SIZE;
+    private BlockAllocation myBlockAllocation = BlockAllocation.HEAP;
+    private int myMaxLocalSymbols = NO_LOCAL_SYMBOL_LIMIT;
 
 
     /** NOT FOR APPLICATION USE! */
@@ -54,6 +147,11 @@ public abstract class IonBinaryWriterBuilder
         super(that);
 
         this.myStreamCopyOptimized = that.myStreamCopyOptimized;
+        this.myLengthPreallocation = that.myLengthPreallocation;
+        this.myUserBlockSize       = that.myUserBlockSize;
+        this.mySymbolsBlockSize    = that.mySymbolsBlockSize;
+        this.myBlockAllocation     = that.myBlockAllocation;
+        this.myMaxLocalSymbols     = that.myMaxLocalSymbols;
     }
 
 
@@ -252,6 +350,58 @@ public abstract class IonBinaryWriterBuilder
     //=========================================================================
 
 
+    /**
+     * Builds a new writer to the given channel, based on this builder's
+     * configuration properties.
+     * <p>
+     * Data is buffered until the writer is {@linkplain IonWriter#flush()
+     * flushed} or {@linkplain IonWriter#finish() finished}. At that point
+     * everything written since the last flush, together with any local
+     * symbol table it requires, goes to the channel with a single gathering
+     * write, without first being copied into a contiguous array. The channel
+     * itself is never forced to storage.
+     * <p>
+     * The channel must be in blocking mode, since a flush doesn't return
+     * until all of its data has been written.
+     * <p>
+     * This implementation adapts the channel to an {@link java.io.OutputStream}
+     * and delegates to {@link #build(java.io.OutputStream)}; the builders
+     * provided by this library override it.
+     *
+     * @param out the channel that will receive Ion data. Closing the writer
+     * closes the channel. Must not be null.
+     *
+     * @return a new {@link IonWriter} instance; not {@code null}.
+     *
+     * @throws IllegalArgumentException if the channel is a
+     * {@link SelectableChannel} in non-blocking mode.
+     *
+     * @see #build(java.io.OutputStream)
+     */
+    public IonWriter build(WritableByteChannel out)
+    {
+        checkBlocking(out);
+        return build(Channels.newOutputStream(out));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the channel is a
+     * {@link SelectableChannel} in non-blocking mode, on which a flush would
+     * spin for as long as the channel can't take more data.
+     */
+    protected static void checkBlocking(WritableByteChannel out)
+    {
+        if (out instanceof SelectableChannel
+            && !((SelectableChannel) out).isBlocking())
+        {
+            throw new IllegalArgumentException("Channel must be in blocking mode");
+        }
+    }
+
+
+    //=========================================================================
+
+
     /**
      * Indicates whether built writers may attempt to optimize
      * {@link IonWriter#writeValue(IonReader)} by copying raw source data.
@@ -303,4 +453,264 @@ public abstract class IonBinaryWriterBuilder
         b.setStreamCopyOptimized(optimized);
         return b;
     }
+
+
+    //=========================================================================
+
+
+    /**
+     * Gets the strategy for encoding the lengths of containers.
+     * By default, this property is {@link LengthPreallocation#NONE}.
+     *
+     * @see #setLengthPreallocation(IonBinaryWriterBuilder.LengthPreallocation)
+     * @see #withLengthPreallocation(IonBinaryWriterBuilder.LengthPreallocation)
+     */
+    public LengthPreallocation getLengthPreallocation()
+    {
+        return myLengthPreallocation;
+    }
+
+    /**
+     * Sets the strategy for encoding the lengths of containers.
+     *
+     * @param preallocation may be null, which selects the default
+     * {@link LengthPreallocation#NONE}.
+     *
+     * @throws UnsupportedOperationException if this is immutable.
+     *
+     * @see #getLengthPreallocation()
+     * @see #withLengthPreallocation(IonBinaryWriterBuilder.LengthPreallocation)
+     */
+    public void setLengthPreallocation(LengthPreallocation preallocation)
+    {
+        mutationCheck();
+        myLengthPreallocation =
+            (preallocation == null ? LengthPreallocation.NONE : preallocation);
+    }
+
+    /**
+     * Sets the strategy for encoding the lengths of containers,
+     * returning a new mutable builder if this is immutable.
+     *
+     * @see #getLengthPreallocation()
+     * @see #setLengthPreallocation(IonBinaryWriterBuilder.LengthPreallocation)
+     */
+    public final
+    IonBinaryWriterBuilder withLengthPreallocation(LengthPreallocation preallocation)
+    {
+        IonBinaryWriterBuilder b = mutable();
+        b.setLengthPreallocation(preallocation);
+        return b;
+    }
+
+
+    /**
+     * Gets the size of the blocks that buffer top-level user values until
+     * they are written out. By default, this property is
+     * {@link #DEFAULT_BLOCK_SIZE}.
+     *
+     * @see #setUserBlockSize(int)
+     * @see #withUserBlockSize(int)
+     */
+    public int getUserBlockSize()
+    {
+        return myUserBlockSize;
+    }
+
+    /**
+     * Sets the size of the blocks that buffer top-level user values until
+     * they are written out. Smaller blocks suit small records, larger blocks
+     * reduce the number of blocks needed for large documents.
+     *
+     * @param size the block size in bytes; must be positive.
+     *
+     * @throws UnsupportedOperationException if this is immutable.
+     * @throws IllegalArgumentException if {@code size} is not positive.
+     *
+     * @see #getUserBlockSize()
+     * @see #withUserBlockSize(int)
+     */
+    public void setUserBlockSize(int size)
+    {
+        mutationCheck();
+        checkBlockSize(size);
+        myUserBlockSize = size;
+    }
+
+    /**
+     * Sets the size of the blocks that buffer top-level user values,
+     * returning a new mutable builder if this is immutable.
+     *
+     * @see #getUserBlockSize()
+     * @see #setUserBlockSize(int)
+     */
+    public final IonBinaryWriterBuilder withUserBlockSize(int size)
+    {
+        IonBinaryWriterBuilder b = mutable();
+        b.setUserBlockSize(size);
+        return b;
+    }
+
+
+    /**
+     * Gets the size of the blocks that buffer local symbol tables until
+     * they are written out. By default, this property is
+     * {@link #DEFAULT_BLOCK_SIZE}.
+     *
+     * @see #setSymbolsBlockSize(int)
+     * @see #withSymbolsBlockSize(int)
+     */
+    public int getSymbolsBlockSize()
+    {
+        return mySymbolsBlockSize;
+    }
+
+    /**
+     * Sets the size of the blocks that buffer local symbol tables until
+     * they are written out.
+     *
+     * @param size the block size in bytes; must be positive.
+     *
+     * @throws UnsupportedOperationException if this is immutable.
+     * @throws IllegalArgumentException if {@code size} is not positive.
+     *
+     * @see #getSymbolsBlockSize()
+     * @see #withSymbolsBlockSize(int)
+     */
+    public void setSymbolsBlockSize(int size)
+    {
+        mutationCheck();
+        checkBlockSize(size);
+        mySymbolsBlockSize = size;
+    }
+
+    /**
+     * Sets the size of the blocks that buffer local symbol tables,
+     * returning a new mutable builder if this is immutable.
+     *
+     * @see #getSymbolsBlockSize()
+     * @see #setSymbolsBlockSize(int)
+     */
+    public final IonBinaryWriterBuilder withSymbolsBlockSize(int size)
+    {
+        IonBinaryWriterBuilder b = mutable();
+        b.setSymbolsBlockSize(size);
+        return b;
+    }
+
+    private static void checkBlockSize(int size)
+    {
+        if (size < 1)
+        {
+            throw new IllegalArgumentException("Block size cannot be less than 1: " + size);
+        }
+    }
+
+
+    /**
+     * Gets where the blocks that buffer data until it is written out are
+     * allocated. By default, this property is {@link BlockAllocation#HEAP}.
+     *
+     * @see #setBlockAllocation(IonBinaryWriterBuilder.BlockAllocation)
+     * @see #withBlockAllocation(IonBinaryWriterBuilder.BlockAllocation)
+     */
+    public BlockAllocation getBlockAllocation()
+    {
+        return myBlockAllocation;
+    }
+
+    /**
+     * Sets where the blocks that buffer data until it is written out are
+     * allocated.
+     *
+     * @param allocation may be null, which selects the default
+     * {@link BlockAllocation#HEAP}.
+     *
+     * @throws UnsupportedOperationException if this is immutable.
+     *
+     * @see #getBlockAllocation()
+     * @see #withBlockAllocation(IonBinaryWriterBuilder.BlockAllocation)
+     */
+    public void setBlockAllocation(BlockAllocation allocation)
+    {
+        mutationCheck();
+        myBlockAllocation =
+            (allocation == null ? BlockAllocation.HEAP : allocation);
+    }
+
+    /**
+     * Sets where the blocks that buffer data until it is written out are
+     * allocated, returning a new mutable builder if this is immutable.
+     *
+     * @see #getBlockAllocation()
+     * @see #setBlockAllocation(IonBinaryWriterBuilder.BlockAllocation)
+     */
+    public final
+    IonBinaryWriterBuilder withBlockAllocation(BlockAllocation allocation)
+    {
+        IonBinaryWriterBuilder b = mutable();
+        b.setBlockAllocation(allocation);
+        return b;
+    }
+
+
+    /**
+     * Gets the maximum number of symbols in the local symbol table of
+     * built writers before it is reset. By default, this property is
+     * {@link #NO_LOCAL_SYMBOL_LIMIT}.
+     *
+     * @see #setMaxLocalSymbols(int)
+     * @see #withMaxLocalSymbols(int)
+     */
+    public int getMaxLocalSymbols()
+    {
+        return myMaxLocalSymbols;
+    }
+
+    /**
+     * Sets the maximum number of symbols in the local symbol table of
+     * built writers. The limit is checked after each top-level value: once
+     * the local symbol table holds more symbols, the pending data is
+     * written to the output stream, without flushing it, and a new local
+     * symbol table is started. A single top-level value may therefore take
+     * the table past the limit by the symbols it introduces, and the table
+     * is never reset while it is locked or while the application is writing
+     * a local symbol table itself. The symbols used repeatedly are declared
+     * first in the new table, so that long streams of similar records keep
+     * a compact local symbol table with stable symbol IDs, rather than one
+     * that grows with every distinct symbol written.
+     *
+     * @param maxLocalSymbols must be positive.
+     *
+     * @throws UnsupportedOperationException if this is immutable.
+     * @throws IllegalArgumentException if {@code maxLocalSymbols} is not
+     * positive.
+     *
+     * @see #getMaxLocalSymbols()
+     * @see #withMaxLocalSymbols(int)
+     */
+    public void setMaxLocalSymbols(int maxLocalSymbols)
+    {
+        mutationCheck();
+        if (maxLocalSymbols < 1)
+        {
+            throw new IllegalArgumentException("Maximum number of local symbols cannot be less than 1: "
+                                               + maxLocalSymbols);
+        }
+        myMaxLocalSymbols = maxLocalSymbols;
+    }
+
+    /**
+     * Sets the maximum number of symbols in the local symbol table of
+     * built writers, returning a new mutable builder if this is immutable.
+     *
+     * @see #getMaxLocalSymbols()
+     * @see #setMaxLocalSymbols(int)
+     */
+    public final IonBinaryWriterBuilder withMaxLocalSymbols(int maxLocalSymbols)
+    {
+        IonBinaryWriterBuilder b = mutable();
+        b.setMaxLocalSymbols(maxLocalSymbols);
+        return b;
+    }
 }
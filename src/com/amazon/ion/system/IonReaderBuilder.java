@@ -24,9 +24,14 @@ import com.amazon.ion.IonStruct;
 import com.amazon.ion.IonSystem;
 import com.amazon.ion.IonTextReader;
 import com.amazon.ion.IonValue;
+import com.amazon.ion.impl._Private_IonReaderFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Build a new {@link IonReader} from the given {@link IonCatalog} and data
@@ -42,6 +47,8 @@ public class IonReaderBuilder
 {
 
     private IonCatalog catalog = null;
+    private int stringCacheSize = 0;
+    private boolean lineTrackingEnabled = true;
 
     private IonReaderBuilder()
     {
@@ -50,6 +57,8 @@ public class IonReaderBuilder
     private IonReaderBuilder(IonReaderBuilder that)
     {
         this.catalog = that.catalog;
+        this.stringCacheSize = that.stringCacheSize;
+        this.lineTrackingEnabled = that.lineTrackingEnabled;
     }
 
     /**
@@ -157,6 +166,139 @@ public class IonReaderBuilder
         return catalog != null ? catalog : new SimpleCatalog();
     }
 
+    /**
+     * Declares the size of the string cache of built readers, returning a
+     * new mutable builder if the current one is immutable.
+     *
+     * @param size the maximum number of strings cached by each reader,
+     *  or zero for none.
+     *
+     * @return this builder instance, if mutable;
+     * otherwise a mutable copy of this builder.
+     *
+     * @see #setStringCacheSize(int)
+     * @see #getStringCacheSize()
+     */
+    public IonReaderBuilder withStringCacheSize(int size)
+    {
+        IonReaderBuilder b = mutable();
+        b.setStringCacheSize(size);
+        return b;
+    }
+
+    /**
+     * Sets the size of the string cache of built readers of Ion binary or
+     * text data. Each reader caches up to this many short strings, keyed by
+     * their UTF-8 encoding in binary data and by their text otherwise, and
+     * returns the cached instance whenever a string recurs. A binary reader
+     * then skips decoding the string altogether. This suits data whose
+     * strings, symbols and field names are drawn from a limited vocabulary,
+     * such as enumerated values, which are then held once by the
+     * application rather than once per value read.
+     * <p>
+     * Strings longer than 64 bytes are not cached. A string evicts any other
+     * cached string that it collides with, so the cache should be sized
+     * generously relative to the vocabulary.
+     *
+     * @param size the maximum number of strings cached by each reader,
+     *  or zero for none, which is the default.
+     *
+     * @throws UnsupportedOperationException if this builder is immutable.
+     * @throws IllegalArgumentException if {@code size} is negative.
+     *
+     * @see #getStringCacheSize()
+     * @see #withStringCacheSize(int)
+     */
+    public void setStringCacheSize(int size)
+    {
+        mutationCheck();
+        if (size < 0)
+        {
+            throw new IllegalArgumentException("String cache size cannot be negative: " + size);
+        }
+        this.stringCacheSize = size;
+    }
+
+    /**
+     * Gets the maximum number of strings cached by each built reader, or
+     * zero if they have no cache.
+     *
+     * @see #setStringCacheSize(int)
+     * @see #withStringCacheSize(int)
+     */
+    public int getStringCacheSize()
+    {
+        return stringCacheSize;
+    }
+
+    /**
+     * Enables line tracking by built text readers, returning a new mutable
+     * builder if the current one is immutable. This is enabled by default.
+     *
+     * @see #setLineTrackingEnabled(boolean)
+     */
+    public IonReaderBuilder withLineTrackingEnabled()
+    {
+        IonReaderBuilder b = mutable();
+        b.setLineTrackingEnabled(true);
+        return b;
+    }
+
+    /**
+     * Disables line tracking by built text readers, returning a new mutable
+     * builder if the current one is immutable.
+     *
+     * @see #setLineTrackingEnabled(boolean)
+     */
+    public IonReaderBuilder withLineTrackingDisabled()
+    {
+        IonReaderBuilder b = mutable();
+        b.setLineTrackingEnabled(false);
+        return b;
+    }
+
+    /**
+     * Enables or disables line tracking by built readers of Ion text. A
+     * reader that tracks lines counts them as it reads, so that the
+     * {@link com.amazon.ion.TextSpan}s of its values and its syntax error
+     * messages can give line and column numbers. This is enabled by
+     * default.
+     * <p>
+     * A reader that doesn't track lines saves this work, and instead counts
+     * the lines up to a position only when a span or error needs them. It
+     * can do so while the text up to that position is still buffered, as it
+     * always is for input from a {@code byte[]} or {@link String}. Otherwise
+     * its error messages give the position in the input instead, and its
+     * spans throw {@link IllegalStateException} when asked for their line
+     * and column. Disable line tracking for readers that rarely need either.
+     *
+     * @throws UnsupportedOperationException if this builder is immutable.
+     *
+     * @see #isLineTrackingEnabled()
+     * @see #withLineTrackingEnabled()
+     * @see #withLineTrackingDisabled()
+     */
+    public void setLineTrackingEnabled(boolean enabled)
+    {
+        mutationCheck();
+        this.lineTrackingEnabled = enabled;
+    }
+
+    /**
+     * Determines whether built text readers track lines.
+     *
+     * @see #setLineTrackingEnabled(boolean)
+     */
+    public boolean isLineTrackingEnabled()
+    {
+        return lineTrackingEnabled;
+    }
+
+    private <T extends IonReader> T configure(T reader)
+    {
+        return _Private_IonReaderFactory.configure(this, reader);
+    }
+
     /**
      * Based on the builder's configuration properties, creates a new IonReader
      * instance over the given block of Ion data, detecting whether it's text or
@@ -175,7 +317,7 @@ public class IonReaderBuilder
      */
     public IonReader build(byte[] ionData)
     {
-        return makeReader(validateCatalog(), ionData);
+        return configure(makeReader(validateCatalog(), ionData));
     }
 
     /**
@@ -198,7 +340,7 @@ public class IonReaderBuilder
      */
     public IonReader build(byte[] ionData, int offset, int length)
     {
-        return makeReader(validateCatalog(), ionData, offset, length);
+        return configure(makeReader(validateCatalog(), ionData, offset, length));
     }
 
     /**
@@ -223,7 +365,105 @@ public class IonReaderBuilder
      */
     public IonReader build(InputStream ionData)
     {
-        return makeReader(validateCatalog(), ionData);
+        return configure(makeReader(validateCatalog(), ionData));
+    }
+
+    /**
+     * Based on the builder's configuration properties, creates a new IonReader
+     * instance over the remaining bytes of the given buffer, detecting whether
+     * it's text or binary data.
+     * <p>
+     * This method will auto-detect and uncompress GZIPped Ion data.
+     * <p>
+     * A buffer backed by an accessible array is read in place, without
+     * copying, exactly like {@link #build(byte[], int, int)}. Binary data in
+     * other buffers, such as direct or memory-mapped buffers, is read in
+     * place too, through the buffer's absolute accessors. Text in those
+     * buffers is copied into the reader's own heap pages, in bulk, a page at
+     * a time, as it advances.
+     *
+     * @param ionData the source of the Ion data, which may be either Ion binary
+     * data or UTF-8 Ion text. The reader retains a reference to the buffer,
+     * so its data must not be modified while the reader is active. Its
+     * position, limit and mark are not modified. Must not be null.
+     *
+     * @return a new reader instance.
+     * Callers must call {@link IonReader#close()} when finished with it.
+     */
+    public IonReader build(ByteBuffer ionData)
+    {
+        return configure(makeReader(validateCatalog(), ionData));
+    }
+
+    /**
+     * Based on the builder's configuration properties, creates a new IonReader
+     * instance over the given file, from the channel's current position to its
+     * end, detecting whether it's text or binary data.
+     * <p>
+     * This method will auto-detect and uncompress GZIPped Ion data.
+     * <p>
+     * Uncompressed data is memory-mapped rather than read through the
+     * channel, a segment at a time, so files larger than 2GB are supported.
+     * As with direct buffers passed to {@link #build(ByteBuffer)}, binary data
+     * is read from the mapped segments in place, while text is copied into
+     * the reader's pages as it advances.
+     *
+     * @param ionData the source of the Ion data, which may be either Ion binary
+     * data or UTF-8 Ion text. It must be readable and its contents must not be
+     * modified while the reader is active. Must not be null.
+     *
+     * @return a new reader instance.
+     * Callers must call {@link IonReader#close()} when finished with it, which
+     * closes the channel.
+     *
+     * @throws IonException if the channel throws {@link IOException}.
+     */
+    public IonReader build(FileChannel ionData)
+    {
+        return configure(makeReader(validateCatalog(), ionData));
+    }
+
+    /**
+     * Based on the builder's configuration properties, creates a new IonReader
+     * instance over the given file, detecting whether it's text or binary data.
+     * <p>
+     * This is equivalent to {@link #build(FileChannel)} over a channel opened
+     * for reading.
+     *
+     * @param ionFile the file holding the Ion data. Must not be null.
+     *
+     * @return a new reader instance.
+     * Callers must call {@link IonReader#close()} when finished with it.
+     *
+     * @throws IonException if the file can't be opened or read.
+     */
+    public IonReader build(Path ionFile)
+    {
+        FileChannel channel;
+        try
+        {
+            channel = FileChannel.open(ionFile, StandardOpenOption.READ);
+        }
+        catch (IOException e)
+        {
+            throw new IonException(e);
+        }
+        try
+        {
+            return build(channel);
+        }
+        catch (RuntimeException e)
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException ignored)
+            {
+                // Report the original failure.
+            }
+            throw e;
+        }
     }
 
     /**
@@ -245,7 +485,7 @@ public class IonReaderBuilder
      */
     public IonReader build(Reader ionText)
     {
-        return makeReader(validateCatalog(), ionText);
+        return configure(makeReader(validateCatalog(), ionText));
     }
 
     /**
@@ -276,7 +516,7 @@ public class IonReaderBuilder
      */
     public IonTextReader build(String ionText)
     {
-        return makeReader(validateCatalog(), ionText);
+        return configure(makeReader(validateCatalog(), ionText));
     }
 
     private static class Mutable extends IonReaderBuilder
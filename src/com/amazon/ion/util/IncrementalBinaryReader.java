@@ -0,0 +1,341 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import static com.amazon.ion.impl._Private_IonConstants.BINARY_VERSION_MARKER_SIZE;
+
+import com.amazon.ion.IonCatalog;
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.SymbolTable;
+import com.amazon.ion.UnexpectedEofException;
+import com.amazon.ion.impl._Private_IonReaderFactory;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.SimpleCatalog;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads Ion binary data that arrives in chunks, without ever blocking for
+ * more. This suits event-driven servers, which can {@linkplain #feed feed}
+ * each chunk as it's received and read whatever values it completes on the
+ * same thread.
+ * <p>
+ * Top-level values are length-prefixed, so the reader can tell from their
+ * headers alone when one has been received in full. Only then is it read,
+ * by a regular reader, so no value is ever seen partially and reading never
+ * fails for lack of data. Symbol tables carry over from one chunk to the
+ * next.
+ * <p>
+ * Typical use is:
+ * <pre>
+ *     reader.feed(chunk, 0, chunk.length);
+ *     while (reader.next() == Event.VALUE)
+ *     {
+ *         IonReader value = reader.getReader();
+ *         // read the current value of value
+ *     }
+ * </pre>
+ * Received data is held until the values it contains have been read, so
+ * memory use is bounded by the size of the largest value plus a chunk.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class IncrementalBinaryReader
+    implements Closeable
+{
+    /**
+     * The outcome of {@link IncrementalBinaryReader#next()}.
+     */
+    public enum Event
+    {
+        /** The reader is positioned on a complete top-level value. */
+        VALUE,
+
+        /** No complete top-level value is left to read. */
+        NEEDS_DATA
+    }
+
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private static final int TID_BOOL     = 0x1;
+    private static final int TID_STRUCT   = 0xD;
+    private static final int TID_RESERVED = 0xF;
+    private static final int LENGTH_VARUINT = 0xE;
+    private static final int LENGTH_NULL    = 0xF;
+
+
+    private final IonReaderBuilder myReaderBuilder;
+    private final IonCatalog       myCatalog;
+
+    private byte[]      myBuffer = new byte[INITIAL_BUFFER_SIZE];
+
+    /** The start of the data that {@link #myReader} hasn't finished. */
+    private int         myConsumed;
+
+    /** The end of the complete top-level values received. */
+    private int         myComplete;
+
+    /** The end of the data received. */
+    private int         myEnd;
+
+    /** Reads the values between myConsumed and myComplete, if any. */
+    private IonReader   myReader;
+
+    /** The local symbol table in effect at myConsumed, null for the system's. */
+    private SymbolTable mySymbols;
+
+    private boolean     myClosed;
+
+
+    /**
+     * @param readerBuilder configures the readers of the data. Its catalog
+     * must provide any shared symbol tables imported by the data.
+     */
+    public IncrementalBinaryReader(IonReaderBuilder readerBuilder)
+    {
+        myReaderBuilder = readerBuilder.immutable();
+        IonCatalog catalog = myReaderBuilder.getCatalog();
+        myCatalog = (catalog != null ? catalog : new SimpleCatalog());
+    }
+
+
+    /**
+     * Adds the next chunk of data, which is copied.
+     * The current value, if any, remains readable.
+     */
+    public void feed(byte[] bytes, int offset, int length)
+    {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, myBuffer, myEnd, length);
+        myEnd += length;
+    }
+
+
+    /**
+     * Adds the data remaining in a buffer, which is copied.
+     * The buffer's position is advanced to its limit.
+     * The current value, if any, remains readable.
+     */
+    public void feed(ByteBuffer buffer)
+    {
+        int length = buffer.remaining();
+        ensureCapacity(length);
+        buffer.get(myBuffer, myEnd, length);
+        myEnd += length;
+    }
+
+
+    private void ensureCapacity(int length)
+    {
+        if (myClosed)
+        {
+            throw new IllegalStateException("The reader is closed");
+        }
+        if (myBuffer.length - myEnd >= length) return;
+
+        // Keep only the data not yet consumed. The current reader holds on
+        // to the old array, so the data is only moved within a new one.
+        int kept = myEnd - myConsumed;
+        byte[] buffer = myBuffer;
+        if (myReader != null || buffer.length - kept < length)
+        {
+            int size = buffer.length;
+            while (size - kept < length)
+            {
+                if (size > Integer.MAX_VALUE / 2)
+                {
+                    throw new IonException("Value too large to buffer");
+                }
+                size *= 2;
+            }
+            buffer = new byte[size];
+        }
+        System.arraycopy(myBuffer, myConsumed, buffer, 0, kept);
+        myBuffer = buffer;
+        myComplete -= myConsumed;
+        myEnd -= myConsumed;
+        myConsumed = 0;
+    }
+
+
+    /**
+     * Moves to the next top-level value, if it has been received in full.
+     * Any containers of the current value that are still stepped into are
+     * stepped out of first.
+     *
+     * @return {@link Event#VALUE} if {@link #getReader()} is now positioned
+     * on the value; {@link Event#NEEDS_DATA} if more data must be fed first.
+     *
+     * @throws IonException if the data is malformed.
+     */
+    public Event next()
+    {
+        if (myReader != null)
+        {
+            while (myReader.getDepth() > 0)
+            {
+                myReader.stepOut();
+            }
+            if (myReader.next() != null) return Event.VALUE;
+            finishReader();
+        }
+
+        myComplete = scan(myComplete);
+        if (myComplete == myConsumed) return Event.NEEDS_DATA;
+
+        IonReader reader =
+            _Private_IonReaderFactory.makeBinaryReaderAt(myCatalog,
+                                                         myBuffer,
+                                                         myConsumed,
+                                                         myComplete - myConsumed,
+                                                         mySymbols);
+        reader = _Private_IonReaderFactory.configure(myReaderBuilder, reader);
+        myReader = reader;
+        if (reader.next() != null) return Event.VALUE;
+
+        // There were only system values.
+        finishReader();
+        return Event.NEEDS_DATA;
+    }
+
+
+    private void finishReader()
+    {
+        SymbolTable symbols = myReader.getSymbolTable();
+        mySymbols = (symbols.isSystemTable() ? null : symbols);
+        myConsumed = myComplete;
+        myReader = null;
+    }
+
+
+    /**
+     * Gets the reader positioned on the current top-level value, to read its
+     * content. Move to the next top-level value with {@link #next()} of this
+     * class, rather than that of the reader.
+     *
+     * @throws IllegalStateException if the last call to {@link #next()}
+     * didn't return {@link Event#VALUE}.
+     */
+    public IonReader getReader()
+    {
+        if (myReader == null)
+        {
+            throw new IllegalStateException("There is no current value");
+        }
+        return myReader;
+    }
+
+
+    /**
+     * Finds the end of the complete top-level values in the data received.
+     *
+     * @param pos the start of a top-level value.
+     */
+    private int scan(int pos)
+    {
+        byte[] bytes = myBuffer;
+        int end = myEnd;
+        while (pos < end)
+        {
+            int td = bytes[pos] & 0xFF;
+            int next;
+            if (td == 0xE0)
+            {
+                next = pos + BINARY_VERSION_MARKER_SIZE;
+            }
+            else
+            {
+                int tid = td >> 4;
+                int lengthCode = td & 0xF;
+                if (tid == TID_RESERVED)
+                {
+                    throw new IonException("Invalid type descriptor 0x"
+                                           + Integer.toHexString(td));
+                }
+                int header = 1;
+                long length;
+                if (tid == TID_BOOL || lengthCode == LENGTH_NULL)
+                {
+                    length = 0;
+                }
+                else if (lengthCode == LENGTH_VARUINT
+                         || (tid == TID_STRUCT && lengthCode == 1))
+                {
+                    // A big-endian VarUInt, whose last byte has the high bit set.
+                    length = 0;
+                    while (true)
+                    {
+                        if (pos + header >= end) return pos;
+                        int b = bytes[pos + header++];
+                        length = (length << 7) | (b & 0x7F);
+                        if ((b & 0x80) != 0) break;
+                        if (length > Integer.MAX_VALUE)
+                        {
+                            throw new IonException("Value too large");
+                        }
+                    }
+                }
+                else
+                {
+                    length = lengthCode;
+                }
+                if (pos + header + length > Integer.MAX_VALUE)
+                {
+                    throw new IonException("Value too large");
+                }
+                next = (int) (pos + header + length);
+            }
+            if (next > end) return pos;
+            pos = next;
+        }
+        return pos;
+    }
+
+
+    /**
+     * Declares that no more data will be fed.
+     *
+     * @throws UnexpectedEofException if part of a top-level value has been
+     * fed but not the rest of it.
+     */
+    public void finish()
+    {
+        // The values after myComplete are left for next() to read.
+        if (scan(myComplete) != myEnd)
+        {
+            throw new UnexpectedEofException("The data ends within a value");
+        }
+    }
+
+
+    /**
+     * Releases the data held by this reader.
+     */
+    public void close()
+        throws IOException
+    {
+        myClosed = true;
+        if (myReader != null)
+        {
+            myReader.close();
+            myReader = null;
+        }
+        myBuffer = null;
+    }
+}
@@ -0,0 +1,655 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import static com.amazon.ion.impl._Private_Utils.UTF8_CHARSET;
+
+import com.amazon.ion.IonCatalog;
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.SymbolTable;
+import com.amazon.ion.UnexpectedEofException;
+import com.amazon.ion.impl._Private_IonReaderFactory;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.SimpleCatalog;
+import com.amazon.ion.util.IncrementalBinaryReader.Event;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads Ion text that arrives in chunks, of characters or of UTF-8 bytes,
+ * without ever blocking for more. This is the text counterpart of
+ * {@link IncrementalBinaryReader}, and is used the same way.
+ * <p>
+ * Text values aren't length-prefixed, so the reader scans each chunk as it's
+ * fed, following nesting, strings, comments and lobs, to find where the
+ * top-level values end. The scan stops part way through a token when the
+ * data runs out, and resumes there when more is fed, so each character is
+ * scanned once. Containers and strings are complete once closed. Other
+ * top-level values, such as numbers and symbols, are only complete once the
+ * next value starts, since until then they may continue or turn out to be
+ * annotations; the last of them is completed by {@link #finish()}.
+ * <p>
+ * Complete values are read by a regular text reader, so no value is ever
+ * seen partially and reading never fails for lack of data. Symbol tables
+ * carry over from one chunk to the next.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class IncrementalTextReader
+    implements Closeable
+{
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    // What is being scanned.
+    private static final int S_CODE          = 0;
+    private static final int S_STRING        = 1;
+    private static final int S_SYMBOL        = 2;
+    private static final int S_LONG_STRING   = 3;
+    private static final int S_LINE_COMMENT  = 4;
+    private static final int S_BLOCK_COMMENT = 5;
+    private static final int S_LOB           = 6;
+
+    // What has been scanned of the top-level value after myComplete.
+    /** Nothing but whitespace and comments. */
+    private static final int T_NONE        = 0;
+    /** Part of a scalar token, which may continue. */
+    private static final int T_TOKEN       = 1;
+    /** A token that may be followed by {@code ::}. */
+    private static final int T_AFTER_TOKEN = 2;
+    /** A long string that may be followed by another, concatenated. */
+    private static final int T_AFTER_LONG  = 3;
+    /** Annotations, which must be followed by a value. */
+    private static final int T_ANNOTATED   = 4;
+
+
+    private final IonReaderBuilder myReaderBuilder;
+    private final IonCatalog       myCatalog;
+    private final CharsetDecoder   myDecoder;
+
+    private char[]      myBuffer = new char[INITIAL_BUFFER_SIZE];
+
+    /** The start of the data that {@link #myReader} hasn't finished. */
+    private int         myConsumed;
+
+    /** The end of the complete top-level values received. */
+    private int         myComplete;
+
+    /** The end of the data scanned. */
+    private int         myScanned;
+
+    /** The end of the data received. */
+    private int         myEnd;
+
+    /** The scanner's state at myScanned. */
+    private int         myScanState = S_CODE;
+    private int         myTopState = T_NONE;
+    private int         myDepth;
+    private boolean     myInLob;
+
+    /** The end of a UTF-8 sequence split between chunks, or null. */
+    private ByteBuffer  myPartialBytes;
+
+    /** Reads the values between myConsumed and myReaderEnd, if any. */
+    private IonReader   myReader;
+
+    /**
+     * The end of the data given to {@link #myReader}, which is behind
+     * myComplete once {@link #finish()} has completed the last value.
+     */
+    private int         myReaderEnd;
+
+    /** The local symbol table in effect at myConsumed, null for the system's. */
+    private SymbolTable mySymbols;
+
+    private boolean     myFinished;
+    private boolean     myClosed;
+
+
+    /**
+     * @param readerBuilder configures the readers of the data. Its catalog
+     * must provide any shared symbol tables imported by the data.
+     */
+    public IncrementalTextReader(IonReaderBuilder readerBuilder)
+    {
+        myReaderBuilder = readerBuilder.immutable();
+        IonCatalog catalog = myReaderBuilder.getCatalog();
+        myCatalog = (catalog != null ? catalog : new SimpleCatalog());
+        myDecoder = UTF8_CHARSET.newDecoder()
+                                .onMalformedInput(CodingErrorAction.REPORT)
+                                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+
+    /**
+     * Adds the next chunk of characters, which are copied.
+     * The current value, if any, remains readable.
+     *
+     * @throws IllegalStateException if a chunk of bytes ended part way
+     * through a character.
+     */
+    public void feed(char[] chars, int offset, int length)
+    {
+        if (myPartialBytes != null)
+        {
+            throw new IllegalStateException("A UTF-8 character is incomplete");
+        }
+        ensureCapacity(length);
+        System.arraycopy(chars, offset, myBuffer, myEnd, length);
+        myEnd += length;
+    }
+
+
+    /**
+     * Adds the next chunk of characters, which are copied.
+     * The current value, if any, remains readable.
+     *
+     * @throws IllegalStateException if a chunk of bytes ended part way
+     * through a character.
+     */
+    public void feed(CharSequence chars)
+    {
+        if (myPartialBytes != null)
+        {
+            throw new IllegalStateException("A UTF-8 character is incomplete");
+        }
+        int length = chars.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++)
+        {
+            myBuffer[myEnd++] = chars.charAt(i);
+        }
+    }
+
+
+    /**
+     * Adds the next chunk of UTF-8 bytes, which are decoded. A chunk may end
+     * part way through a character, which the next chunk completes.
+     * The current value, if any, remains readable.
+     *
+     * @throws IonException if the bytes aren't valid UTF-8.
+     */
+    public void feed(byte[] bytes, int offset, int length)
+    {
+        feed(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+
+    /**
+     * Adds the UTF-8 bytes remaining in a buffer, which are decoded. A chunk
+     * may end part way through a character, which the next chunk completes.
+     * The buffer's position is advanced to its limit.
+     * The current value, if any, remains readable.
+     *
+     * @throws IonException if the bytes aren't valid UTF-8.
+     */
+    public void feed(ByteBuffer bytes)
+    {
+        ByteBuffer in = bytes;
+        if (myPartialBytes != null)
+        {
+            in = ByteBuffer.allocate(myPartialBytes.remaining() + bytes.remaining());
+            in.put(myPartialBytes).put(bytes).flip();
+            myPartialBytes = null;
+        }
+
+        // UTF-8 never decodes to more chars than bytes.
+        ensureCapacity(in.remaining());
+        CharBuffer out = CharBuffer.wrap(myBuffer, myEnd, myBuffer.length - myEnd);
+        CoderResult result = myDecoder.decode(in, out, false);
+        if (result.isError())
+        {
+            throw new IonException("Invalid UTF-8 data");
+        }
+        myEnd = out.position();
+        if (in.hasRemaining())
+        {
+            myPartialBytes = ByteBuffer.allocate(in.remaining());
+            myPartialBytes.put(in).flip();
+        }
+    }
+
+
+    private void ensureCapacity(int length)
+    {
+        if (myClosed)
+        {
+            throw new IllegalStateException("The reader is closed");
+        }
+        if (myFinished)
+        {
+            throw new IllegalStateException("The reader is finished");
+        }
+        if (myBuffer.length - myEnd >= length) return;
+
+        // Keep only the data not yet consumed. The current reader holds on
+        // to the old array, so the data is only moved within a new one.
+        int kept = myEnd - myConsumed;
+        char[] buffer = myBuffer;
+        if (myReader != null || buffer.length - kept < length)
+        {
+            int size = buffer.length;
+            while (size - kept < length)
+            {
+                if (size > Integer.MAX_VALUE / 2)
+                {
+                    throw new IonException("Value too large to buffer");
+                }
+                size *= 2;
+            }
+            buffer = new char[size];
+        }
+        System.arraycopy(myBuffer, myConsumed, buffer, 0, kept);
+        myBuffer = buffer;
+        myComplete -= myConsumed;
+        myReaderEnd -= myConsumed;
+        myScanned -= myConsumed;
+        myEnd -= myConsumed;
+        myConsumed = 0;
+    }
+
+
+    /**
+     * Moves to the next top-level value, if it has been received in full.
+     * Any containers of the current value that are still stepped into are
+     * stepped out of first.
+     *
+     * @return {@link Event#VALUE} if {@link #getReader()} is now positioned
+     * on the value; {@link Event#NEEDS_DATA} if more data must be fed first.
+     *
+     * @throws IonException if the data is malformed.
+     */
+    public Event next()
+    {
+        if (myReader != null)
+        {
+            while (myReader.getDepth() > 0)
+            {
+                myReader.stepOut();
+            }
+            if (myReader.next() != null) return Event.VALUE;
+            finishReader();
+        }
+
+        scan(false);
+        if (myComplete == myConsumed) return Event.NEEDS_DATA;
+
+        IonReader reader =
+            _Private_IonReaderFactory.makeTextReaderAt(myCatalog,
+                                                       myBuffer,
+                                                       myConsumed,
+                                                       myComplete - myConsumed,
+                                                       mySymbols);
+        reader = _Private_IonReaderFactory.configure(myReaderBuilder, reader);
+        myReader = reader;
+        myReaderEnd = myComplete;
+        if (reader.next() != null) return Event.VALUE;
+
+        // There were only system values, whitespace and comments.
+        finishReader();
+        return Event.NEEDS_DATA;
+    }
+
+
+    private void finishReader()
+    {
+        SymbolTable symbols = myReader.getSymbolTable();
+        mySymbols = (symbols.isSystemTable() ? null : symbols);
+        myConsumed = myReaderEnd;
+        myReader = null;
+    }
+
+
+    /**
+     * Gets the reader positioned on the current top-level value, to read its
+     * content. Move to the next top-level value with {@link #next()} of this
+     * class, rather than that of the reader.
+     *
+     * @throws IllegalStateException if the last call to {@link #next()}
+     * didn't return {@link Event#VALUE}.
+     */
+    public IonReader getReader()
+    {
+        if (myReader == null)
+        {
+            throw new IllegalStateException("There is no current value");
+        }
+        return myReader;
+    }
+
+
+    /**
+     * Gets the character at a position, or -1 if the data ends before it.
+     */
+    private int peek(int pos)
+    {
+        return (pos < myEnd ? myBuffer[pos] : -1);
+    }
+
+
+    /**
+     * Scans the data received since the last scan, advancing
+     * {@link #myComplete} over the top-level values found complete.
+     * The scan stops short of any construct whose end can't be told yet.
+     *
+     * @param atEnd whether no more data will be fed, so that anything not yet
+     * received never will be.
+     */
+    private void scan(boolean atEnd)
+    {
+        char[] chars = myBuffer;
+        int end = myEnd;
+        int pos = myScanned;
+        int state = myScanState;
+        int top = myTopState;
+        int depth = myDepth;
+
+        scanning:
+        while (pos < end)
+        {
+            char c = chars[pos];
+            switch (state)
+            {
+            case S_LINE_COMMENT:
+                if (c == '\n' || c == '\r') state = S_CODE;
+                pos++;
+                continue;
+
+            case S_BLOCK_COMMENT:
+                if (c == '*')
+                {
+                    int n = peek(pos + 1);
+                    if (n < 0 && !atEnd) break scanning;
+                    if (n == '/')
+                    {
+                        state = S_CODE;
+                        pos += 2;
+                        continue;
+                    }
+                }
+                pos++;
+                continue;
+
+            case S_STRING:
+            case S_SYMBOL:
+                if (c == '\\')
+                {
+                    if (pos + 1 >= end && !atEnd) break scanning;
+                    pos += 2;
+                    continue;
+                }
+                pos++;
+                if (c == (state == S_STRING ? '"' : '\''))
+                {
+                    if (myInLob)
+                    {
+                        state = S_LOB;
+                    }
+                    else
+                    {
+                        if (depth == 0)
+                        {
+                            if (state == S_STRING)
+                            {
+                                myComplete = pos;
+                                top = T_NONE;
+                            }
+                            else
+                            {
+                                top = T_AFTER_TOKEN;
+                            }
+                        }
+                        state = S_CODE;
+                    }
+                }
+                continue;
+
+            case S_LONG_STRING:
+                if (c == '\\')
+                {
+                    if (pos + 1 >= end && !atEnd) break scanning;
+                    pos += 2;
+                    continue;
+                }
+                if (c == '\'')
+                {
+                    if (pos + 2 >= end && !atEnd) break scanning;
+                    if (peek(pos + 1) == '\'' && peek(pos + 2) == '\'')
+                    {
+                        pos += 3;
+                        if (myInLob)
+                        {
+                            state = S_LOB;
+                        }
+                        else
+                        {
+                            if (depth == 0) top = T_AFTER_LONG;
+                            state = S_CODE;
+                        }
+                        continue;
+                    }
+                }
+                pos++;
+                continue;
+
+            case S_LOB:
+                if (c == '"')
+                {
+                    state = S_STRING;
+                    pos++;
+                }
+                else if (c == '\'')
+                {
+                    if (pos + 2 >= end && !atEnd) break scanning;
+                    if (peek(pos + 1) == '\'' && peek(pos + 2) == '\'')
+                    {
+                        state = S_LONG_STRING;
+                        pos += 3;
+                    }
+                    else
+                    {
+                        pos++;
+                    }
+                }
+                else if (c == '}')
+                {
+                    int n = peek(pos + 1);
+                    if (n < 0 && !atEnd) break scanning;
+                    pos += (n == '}' ? 2 : 1);
+                    if (n == '}')
+                    {
+                        myInLob = false;
+                        state = S_CODE;
+                        if (depth == 0)
+                        {
+                            myComplete = pos;
+                            top = T_NONE;
+                        }
+                    }
+                }
+                else
+                {
+                    pos++;
+                }
+                continue;
+            }
+
+            // state == S_CODE
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r'
+                || c == '\f' || c == 0x0B)
+            {
+                if (top == T_TOKEN) top = T_AFTER_TOKEN;
+                pos++;
+                continue;
+            }
+            if (c == '/')
+            {
+                int n = peek(pos + 1);
+                if (n < 0 && !atEnd) break scanning;
+                if (n == '/' || n == '*')
+                {
+                    if (top == T_TOKEN) top = T_AFTER_TOKEN;
+                    state = (n == '/' ? S_LINE_COMMENT : S_BLOCK_COMMENT);
+                    pos += 2;
+                    continue;
+                }
+            }
+            if (c == ':')
+            {
+                int n = peek(pos + 1);
+                if (n < 0 && !atEnd) break scanning;
+                if (n == ':')
+                {
+                    // Whatever came before was an annotation.
+                    if (depth == 0) top = T_ANNOTATED;
+                    pos += 2;
+                    continue;
+                }
+            }
+            boolean longString = false;
+            if (c == '\'')
+            {
+                if (pos + 2 >= end && !atEnd) break scanning;
+                longString = (peek(pos + 1) == '\'' && peek(pos + 2) == '\'');
+            }
+
+            if (depth == 0)
+            {
+                // This starts or continues a top-level value. A token or long
+                // string ends the value before it unless this continues it.
+                boolean delimiter = (c == '{' || c == '}' || c == '['
+                                     || c == ']' || c == '(' || c == ')'
+                                     || c == ',' || c == '"' || c == '\'');
+                if (top == T_TOKEN && delimiter) top = T_AFTER_TOKEN;
+                if (top == T_AFTER_TOKEN
+                    || (top == T_AFTER_LONG && !longString))
+                {
+                    myComplete = pos;
+                    top = T_NONE;
+                }
+                if (!delimiter) top = T_TOKEN;
+            }
+
+            if (longString)
+            {
+                state = S_LONG_STRING;
+                pos += 3;
+                continue;
+            }
+            switch (c)
+            {
+            case '"':
+                state = S_STRING;
+                break;
+            case '\'':
+                state = S_SYMBOL;
+                break;
+            case '{':
+                {
+                    int n = peek(pos + 1);
+                    if (n < 0 && !atEnd) break scanning;
+                    if (n == '{')
+                    {
+                        myInLob = true;
+                        state = S_LOB;
+                        pos++;
+                    }
+                    else
+                    {
+                        depth++;
+                    }
+                }
+                break;
+            case '[':
+            case '(':
+                depth++;
+                break;
+            case '}':
+            case ']':
+            case ')':
+                if (depth == 0)
+                {
+                    throw new IonException("Unexpected '" + c + "'");
+                }
+                if (--depth == 0)
+                {
+                    myComplete = pos + 1;
+                    top = T_NONE;
+                }
+                break;
+            default:
+                break;
+            }
+            pos++;
+        }
+
+        myScanned = pos;
+        myScanState = state;
+        myTopState = top;
+        myDepth = depth;
+    }
+
+
+    /**
+     * Declares that no more data will be fed, completing the last top-level
+     * value if it wasn't already. Its remaining values may then be read.
+     *
+     * @throws UnexpectedEofException if part of a top-level value has been
+     * fed but not the rest of it.
+     */
+    public void finish()
+    {
+        if (myFinished) return;
+        if (myPartialBytes != null)
+        {
+            throw new UnexpectedEofException("The data ends within a UTF-8 character");
+        }
+        scan(true);
+        if (myDepth != 0
+            || (myScanState != S_CODE && myScanState != S_LINE_COMMENT)
+            || myTopState == T_ANNOTATED)
+        {
+            throw new UnexpectedEofException("The data ends within a value");
+        }
+        if (myTopState != T_NONE)
+        {
+            myComplete = myEnd;
+            myTopState = T_NONE;
+        }
+        myFinished = true;
+    }
+
+
+    /**
+     * Releases the data held by this reader.
+     */
+    public void close()
+        throws IOException
+    {
+        myClosed = true;
+        if (myReader != null)
+        {
+            myReader.close();
+            myReader = null;
+        }
+        myBuffer = null;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.ResettableReader;
+import com.amazon.ion.system.IonReaderBuilder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Provides each thread with a binary and a text reader that are
+ * {@linkplain ResettableReader reset} to read each new piece of data,
+ * rather than built anew. This avoids the cost of allocating a reader's
+ * input buffers, decoders and other state for each of many small messages.
+ * <p>
+ * A reader returned by this pool belongs to the pool and to the thread that
+ * got it: it must not be closed, nor used after the thread next gets a
+ * reader from the pool. Data compressed with GZIP, like any data whose
+ * reader can't be reset, is read by a new reader each time, which the pool
+ * closes on the thread's next request.
+ * <p>
+ * Instances are thread-safe.
+ */
+public final class IonReaderPool
+{
+    private final IonReaderBuilder      myBuilder;
+    private final ThreadLocal<Readers>  myReaders;
+
+
+    /**
+     * @param readerBuilder configures the readers of the data. It's copied,
+     * so later changes to it don't affect the pool.
+     */
+    public IonReaderPool(IonReaderBuilder readerBuilder)
+    {
+        myBuilder = readerBuilder.immutable();
+        myReaders = new ThreadLocal<Readers>()
+        {
+            @Override
+            protected Readers initialValue()
+            {
+                return new Readers();
+            }
+        };
+    }
+
+
+    /**
+     * Gets this thread's reader, reset to read Ion binary or text data.
+     *
+     * @see #read(byte[], int, int)
+     */
+    public IonReader read(byte[] ionData)
+    {
+        return read(ionData, 0, ionData.length);
+    }
+
+
+    /**
+     * Gets this thread's reader, reset to read Ion binary or text data.
+     * The reader retains a reference to the array, whose content must not
+     * change while it's being read.
+     *
+     * @return a reader owned by the pool, positioned before the first value.
+     */
+    public IonReader read(byte[] ionData, int offset, int length)
+    {
+        Readers readers = myReaders.get();
+        readers.closeUnpooled();
+
+        if (IonStreamUtils.isGzip(ionData, offset, length))
+        {
+            readers.myUnpooled = myBuilder.build(ionData, offset, length);
+            return readers.myUnpooled;
+        }
+
+        if (IonStreamUtils.isIonBinary(ionData, offset, length))
+        {
+            if (readers.myBinaryReset == null)
+            {
+                IonReader reader = myBuilder.build(ionData, offset, length);
+                ResettableReader reset = reader.asFacet(ResettableReader.class);
+                if (reset == null)
+                {
+                    readers.myUnpooled = reader;
+                    return reader;
+                }
+                readers.myBinary = reader;
+                readers.myBinaryReset = reset;
+                return reader;
+            }
+            readers.myBinaryReset.reset(ionData, offset, length);
+            return readers.myBinary;
+        }
+
+        if (readers.myTextReset == null)
+        {
+            IonReader reader = myBuilder.build(ionData, offset, length);
+            ResettableReader reset = reader.asFacet(ResettableReader.class);
+            if (reset == null)
+            {
+                readers.myUnpooled = reader;
+                return reader;
+            }
+            readers.myText = reader;
+            readers.myTextReset = reset;
+            return reader;
+        }
+        readers.myTextReset.reset(ionData, offset, length);
+        return readers.myText;
+    }
+
+
+    /**
+     * Gets this thread's reader, reset to read the Ion binary or text data
+     * between a buffer's position and its limit, which are left unchanged.
+     * Heap buffers are read in place, and must not change while being read.
+     * Other buffers are copied to an array kept by the thread for the
+     * purpose.
+     *
+     * @return a reader owned by the pool, positioned before the first value.
+     */
+    public IonReader read(ByteBuffer ionData)
+    {
+        if (ionData.hasArray())
+        {
+            return read(ionData.array(),
+                        ionData.arrayOffset() + ionData.position(),
+                        ionData.remaining());
+        }
+
+        Readers readers = myReaders.get();
+        int length = ionData.remaining();
+        if (readers.myCopy == null || readers.myCopy.length < length)
+        {
+            readers.myCopy = new byte[Math.max(length, 1024)];
+        }
+        ionData.duplicate().get(readers.myCopy, 0, length);
+        return read(readers.myCopy, 0, length);
+    }
+
+
+    /**
+     * The readers of a thread. A reader without a reset facet is built anew
+     * for each request, and kept as the unpooled reader until the next.
+     */
+    private static final class Readers
+    {
+        IonReader        myBinary;
+        ResettableReader myBinaryReset;
+        IonReader        myText;
+        ResettableReader myTextReset;
+        IonReader        myUnpooled;
+        byte[]           myCopy;
+
+        void closeUnpooled()
+        {
+            if (myUnpooled != null)
+            {
+                IonReader reader = myUnpooled;
+                myUnpooled = null;
+                try
+                {
+                    reader.close();
+                }
+                catch (IOException e)
+                {
+                    throw new IonException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,708 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import com.amazon.ion.IonCatalog;
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonValue;
+import com.amazon.ion.SymbolTable;
+import com.amazon.ion.impl._Private_IonReaderFactory;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.SimpleCatalog;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads the top-level values of UTF-8 Ion text, such as a newline-delimited
+ * log, by parsing chunks of it concurrently in a {@link ForkJoinPool}, and
+ * yields the values in order.
+ * <p>
+ * Unlike binary data, text can't be split at known value offsets; see
+ * {@link TopLevelValueSplitter}. Instead the loader splits it speculatively,
+ * into chunks of about a given size, at the start of a line that begins
+ * with something other than whitespace, a comment, a quote or a colon.
+ * Such a line usually starts a top-level value, but may not: it could be
+ * within a long string, a block comment or a container. Each chunk is
+ * parsed on the assumption that it starts a value, and that the symbol
+ * table in effect there is the one last seen.
+ * <p>
+ * The assumptions are checked in order, as values are yielded. A chunk is
+ * only used if the one before it parsed to its end without error, which
+ * proves that the boundary between them is outside of any value, string or
+ * comment, and if it was parsed with the symbol table left by the one
+ * before it. Otherwise the chunk is parsed again, sequentially, with the
+ * right symbol table, together with the chunks after it until a boundary
+ * holds. If none does within a few chunks, the rest of the data is read
+ * sequentially, so that malformed data fails just as it would with a single
+ * reader, after yielding the values before the error. The line numbers in
+ * error messages are relative to the start of the chunk being parsed.
+ * <p>
+ * Instances are immutable and may be shared among threads. Their iterators
+ * may not.
+ */
+public final class ParallelTextLoader
+{
+    /**
+     * The default size in bytes of the chunks of data parsed concurrently.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The number of chunks parsed together, when the boundaries between them
+     * prove not to be between values, before the rest of the data is read
+     * sequentially.
+     */
+    private static final int MAX_MERGED_CHUNKS = 4;
+
+    /** The size of the windows through which a file is scanned for boundaries. */
+    private static final int SCAN_WINDOW_SIZE = 1 << 16;
+
+
+    private final IonSystem        mySystem;
+    private final IonReaderBuilder myReaderBuilder;
+
+    /** The data, between its position and limit, or null if in a file. */
+    private final ByteBuffer       myData;
+    private final Path             myFile;
+
+    /**
+     * The offsets of the chunks from the start of the data, followed by the
+     * size of the data.
+     */
+    private final long[]           myBoundaries;
+
+
+    private ParallelTextLoader(IonSystem system,
+                               IonReaderBuilder readerBuilder,
+                               ByteBuffer data,
+                               Path file,
+                               long[] boundaries)
+    {
+        mySystem = system;
+        myReaderBuilder = readerBuilder.immutable();
+        myData = data;
+        myFile = file;
+        myBoundaries = boundaries;
+    }
+
+
+    /**
+     * Creates a loader of the UTF-8 Ion text between a buffer's position and
+     * its limit, split into chunks of about {@link #DEFAULT_CHUNK_SIZE} bytes.
+     *
+     * @see #build(IonSystem, IonReaderBuilder, ByteBuffer, int)
+     */
+    public static ParallelTextLoader build(IonSystem system,
+                                           IonReaderBuilder readerBuilder,
+                                           ByteBuffer data)
+    {
+        return build(system, readerBuilder, data, DEFAULT_CHUNK_SIZE);
+    }
+
+
+    /**
+     * Creates a loader of the UTF-8 Ion text between a buffer's position and
+     * its limit. The buffer's position and limit are left unchanged, and its
+     * content must not change while the loader is in use.
+     *
+     * @param system creates the values.
+     * @param readerBuilder configures the readers of the data. Its catalog
+     * must provide any shared symbol tables imported by the data.
+     * @param chunkSize the size in bytes of the chunks of data parsed
+     * concurrently.
+     *
+     * @throws IonException if the data is Ion binary or GZIPped.
+     */
+    public static ParallelTextLoader build(IonSystem system,
+                                           IonReaderBuilder readerBuilder,
+                                           ByteBuffer data,
+                                           int chunkSize)
+    {
+        checkChunkSize(chunkSize);
+        ByteBuffer header = data.duplicate();
+        byte[] start = new byte[Math.min(4, header.remaining())];
+        header.get(start);
+        checkText(start);
+
+        final ByteBuffer bytes = data.duplicate();
+        final int base = bytes.position();
+        long[] boundaries = findBoundaries(new Bytes()
+        {
+            int get(long position)
+            {
+                return bytes.get(base + (int) position);
+            }
+        }, bytes.remaining(), chunkSize);
+        return new ParallelTextLoader(system, readerBuilder, data.duplicate(),
+                                      null, boundaries);
+    }
+
+
+    /**
+     * Creates a loader of the UTF-8 Ion text in a file, split into chunks of
+     * about {@link #DEFAULT_CHUNK_SIZE} bytes.
+     *
+     * @see #build(IonSystem, IonReaderBuilder, Path, int)
+     */
+    public static ParallelTextLoader build(IonSystem system,
+                                           IonReaderBuilder readerBuilder,
+                                           Path dataFile)
+        throws IOException
+    {
+        return build(system, readerBuilder, dataFile, DEFAULT_CHUNK_SIZE);
+    }
+
+
+    /**
+     * Creates a loader of the UTF-8 Ion text in a file. Chunks of the file
+     * are mapped into memory as they're parsed, and it must not change while
+     * the loader is in use.
+     *
+     * @param system creates the values.
+     * @param readerBuilder configures the readers of the data. Its catalog
+     * must provide any shared symbol tables imported by the data.
+     * @param chunkSize the size in bytes of the chunks of data parsed
+     * concurrently.
+     *
+     * @throws IonException if the data is Ion binary or GZIPped.
+     */
+    public static ParallelTextLoader build(IonSystem system,
+                                           IonReaderBuilder readerBuilder,
+                                           Path dataFile,
+                                           int chunkSize)
+        throws IOException
+    {
+        checkChunkSize(chunkSize);
+        final FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ);
+        try
+        {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            while (header.hasRemaining() && channel.read(header) >= 0) {}
+            byte[] start = new byte[header.position()];
+            header.flip();
+            header.get(start);
+            checkText(start);
+
+            final ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW_SIZE);
+            long[] boundaries = findBoundaries(new Bytes()
+            {
+                private long myWindowStart = -1;
+
+                int get(long position)
+                    throws IOException
+                {
+                    if (myWindowStart < 0
+                        || position < myWindowStart
+                        || position >= myWindowStart + window.limit())
+                    {
+                        myWindowStart = position;
+                        window.clear();
+                        while (window.hasRemaining()
+                               && channel.read(window, position + window.position()) >= 0) {}
+                        window.flip();
+                    }
+                    return window.get((int) (position - myWindowStart));
+                }
+            }, channel.size(), chunkSize);
+            return new ParallelTextLoader(system, readerBuilder, null,
+                                          dataFile, boundaries);
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+
+    private static void checkChunkSize(int chunkSize)
+    {
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("chunkSize must be positive: "
+                                               + chunkSize);
+        }
+    }
+
+
+    private static void checkText(byte[] start)
+    {
+        if (IonStreamUtils.isIonBinary(start))
+        {
+            throw new IonException("Only Ion text data can be loaded in parallel;"
+                                   + " split Ion binary data with a TopLevelValueSplitter");
+        }
+        if (IonStreamUtils.isGzip(start, 0, start.length))
+        {
+            throw new IonException("GZIPped data can't be loaded in parallel");
+        }
+    }
+
+
+    /** Random access to the bytes of the data. */
+    private abstract static class Bytes
+    {
+        abstract int get(long position)
+            throws IOException;
+    }
+
+
+    private static long[] findBoundaries(Bytes bytes, long size, int chunkSize)
+    {
+        try
+        {
+            List<Long> boundaries = new ArrayList<Long>();
+            boundaries.add(0L);
+            long target = chunkSize;
+            while (target < size)
+            {
+                long boundary = nextBoundary(bytes, target, size);
+                if (boundary < 0) break;
+                boundaries.add(boundary);
+                target = boundary + chunkSize;
+            }
+            boundaries.add(size);
+
+            long[] result = new long[boundaries.size()];
+            for (int i = 0; i < result.length; i++)
+            {
+                result[i] = boundaries.get(i);
+            }
+            return result;
+        }
+        catch (IOException e)
+        {
+            throw new IonException(e);
+        }
+    }
+
+
+    /**
+     * Finds the first line start at or after a position where a chunk may
+     * begin, or returns -1 if there's none.
+     */
+    private static long nextBoundary(Bytes bytes, long from, long size)
+        throws IOException
+    {
+        for (long position = from; position < size; position++)
+        {
+            if (bytes.get(position - 1) == '\n' && canStartChunk(bytes.get(position)))
+            {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Whether a chunk may begin with a byte. Whitespace and comments are
+     * ruled out because they may precede a long string that continues the
+     * one before them, and colons because they may continue an annotation.
+     */
+    private static boolean canStartChunk(int b)
+    {
+        switch (b)
+        {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\r':
+            case 0x0B:
+            case 0x0C:
+            case '/':
+            case ':':
+            case '\'':
+                return false;
+            default:
+                return true;
+        }
+    }
+
+
+    /**
+     * Gets the number of chunks into which the data is split.
+     */
+    public int chunks()
+    {
+        return myBoundaries.length - 1;
+    }
+
+
+    /**
+     * Iterates over the top-level values of the data, in order, parsing
+     * chunks of it ahead of the caller in a fork/join pool. At most twice as
+     * many chunks as the pool's parallelism are parsed ahead.
+     * <p>
+     * The values aren't read-only, and belong to the caller.
+     *
+     * @throws IonException from the iterator's methods, if the data is
+     * malformed or can't be read.
+     */
+    public Iterator<IonValue> iterate(ForkJoinPool pool)
+    {
+        return new ChunkIterator(pool);
+    }
+
+
+    private IonCatalog catalog()
+    {
+        IonCatalog catalog = myReaderBuilder.getCatalog();
+        return catalog != null ? catalog : new SimpleCatalog();
+    }
+
+
+    private IonReader configure(IonReader reader)
+    {
+        return _Private_IonReaderFactory.configure(myReaderBuilder, reader);
+    }
+
+
+    /**
+     * Whether a range of the data can be read by {@link #open}, which maps
+     * ranges of files into memory.
+     */
+    private boolean canOpen(long start, long end)
+    {
+        return myData != null || end - start <= Integer.MAX_VALUE;
+    }
+
+
+    /**
+     * Opens a reader of a range of the data.
+     *
+     * @param symbols the local symbol table in effect at the start of the
+     * range, or null if only the system symbol table is.
+     */
+    private IonReader open(long start, long end, SymbolTable symbols)
+        throws IOException
+    {
+        ByteBuffer range;
+        if (myData != null)
+        {
+            range = myData.duplicate();
+            range.position(myData.position() + (int) start);
+            range.limit(myData.position() + (int) end);
+        }
+        else
+        {
+            FileChannel channel = FileChannel.open(myFile, StandardOpenOption.READ);
+            try
+            {
+                range = channel.map(FileChannel.MapMode.READ_ONLY,
+                                    start, end - start);
+            }
+            finally
+            {
+                // The mapping remains valid after the channel is closed.
+                channel.close();
+            }
+        }
+        return configure(
+            _Private_IonReaderFactory.makeTextReaderAt(catalog(), range, symbols));
+    }
+
+
+    /**
+     * Opens a reader of the data from a position to its end.
+     *
+     * @param symbols the local symbol table in effect at the position, or
+     * null if only the system symbol table is.
+     */
+    private IonReader openRest(long start, SymbolTable symbols)
+        throws IOException
+    {
+        if (myData != null)
+        {
+            return open(start, myBoundaries[chunks()], symbols);
+        }
+        FileChannel channel = FileChannel.open(myFile, StandardOpenOption.READ);
+        try
+        {
+            channel.position(start);
+            return configure(
+                _Private_IonReaderFactory.makeTextReaderAt(catalog(), channel, symbols));
+        }
+        catch (RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    /** The values of one or more chunks. */
+    private static final class Chunk
+    {
+        final List<IonValue> myValues;
+
+        /** The symbol table in effect after the values, or null if the system one. */
+        final SymbolTable    mySymbols;
+
+        Chunk(List<IonValue> values, SymbolTable symbols)
+        {
+            myValues = values;
+            mySymbols = symbols;
+        }
+    }
+
+
+    /**
+     * Parses the values of a range of the data.
+     *
+     * @param symbols the local symbol table in effect at the start of the
+     * range, or null if only the system symbol table is.
+     *
+     * @throws IonException if the range doesn't hold whole values, or they're
+     * malformed.
+     */
+    private Chunk load(long start, long end, SymbolTable symbols)
+    {
+        try
+        {
+            IonReader reader = open(start, end, symbols);
+            try
+            {
+                List<IonValue> values = new ArrayList<IonValue>();
+                Iterator<IonValue> i = mySystem.iterate(reader);
+                while (i.hasNext())
+                {
+                    values.add(i.next());
+                }
+                SymbolTable after = reader.getSymbolTable();
+                return new Chunk(values,
+                                 after == null || after.isSystemTable() ? null : after);
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new IonException(e);
+        }
+    }
+
+
+    /**
+     * Parses a chunk speculatively, giving null rather than failing if it
+     * doesn't start with a value or isn't well-formed.
+     */
+    private final class ChunkTask
+        extends RecursiveTask<Chunk>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int         myChunk;
+        private final SymbolTable mySymbols;
+
+        ChunkTask(int chunk, SymbolTable symbols)
+        {
+            myChunk = chunk;
+            mySymbols = symbols;
+        }
+
+        @Override
+        protected Chunk compute()
+        {
+            long start = myBoundaries[myChunk];
+            long end = myBoundaries[myChunk + 1];
+            if (!canOpen(start, end)) return null;
+            try
+            {
+                return load(start, end, mySymbols);
+            }
+            catch (IonException e)
+            {
+                return null;
+            }
+        }
+    }
+
+
+    private final class ChunkIterator
+        implements Iterator<IonValue>
+    {
+        private final ForkJoinPool          myPool;
+        private final int                   myLookahead;
+
+        /** The tasks parsing the chunks from {@link #myNextChunk}, in order. */
+        private final ArrayDeque<ChunkTask> myTasks = new ArrayDeque<ChunkTask>();
+        private int                         myNextTask;
+        private int                         myNextChunk;
+
+        /**
+         * The local symbol table in effect at the start of the next chunk, or
+         * null if only the system symbol table is.
+         */
+        private SymbolTable                 mySymbols;
+
+        private Iterator<IonValue>          myValues = Collections.<IonValue>emptyList().iterator();
+
+        /** The reader of the rest of the data, once it's read sequentially. */
+        private IonReader                   myRestReader;
+
+        ChunkIterator(ForkJoinPool pool)
+        {
+            myPool = pool;
+            myLookahead = 2 * pool.getParallelism();
+        }
+
+        public boolean hasNext()
+        {
+            for (;;)
+            {
+                boolean hasNext;
+                try
+                {
+                    hasNext = myValues.hasNext();
+                }
+                catch (RuntimeException e)
+                {
+                    closeRest();
+                    throw e;
+                }
+                if (hasNext) return true;
+
+                closeRest();
+                if (myNextChunk == chunks())
+                {
+                    return false;
+                }
+                nextChunk();
+            }
+        }
+
+        public IonValue next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return myValues.next();
+        }
+
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        private void closeRest()
+        {
+            if (myRestReader != null)
+            {
+                try
+                {
+                    myRestReader.close();
+                }
+                catch (IOException e)
+                {
+                    throw new IonException(e);
+                }
+                finally
+                {
+                    myRestReader = null;
+                }
+            }
+        }
+
+        /** Moves on to the values of the next chunk, checking its speculation. */
+        private void nextChunk()
+        {
+            while (myNextTask < chunks() && myTasks.size() < myLookahead)
+            {
+                ChunkTask task = new ChunkTask(myNextTask++, mySymbols);
+                myPool.execute(task);
+                myTasks.add(task);
+            }
+
+            int chunk = myNextChunk++;
+            ChunkTask task = myTasks.poll();
+            Chunk values = task.join();
+            boolean sameSymbols = task.mySymbols == mySymbols;
+            if (values != null && sameSymbols)
+            {
+                use(values, chunk + 1);
+                return;
+            }
+
+            // Parse the chunk again with the right symbol table, along with
+            // the chunks after it until the end of one is between values.
+            // There's no point in parsing it alone again if it failed with the
+            // right symbol table.
+            long start = myBoundaries[chunk];
+            int end = (sameSymbols ? chunk + 2 : chunk + 1);
+            for (; end < chunks() && end <= chunk + MAX_MERGED_CHUNKS; end++)
+            {
+                if (!canOpen(start, myBoundaries[end])) break;
+                try
+                {
+                    use(load(start, myBoundaries[end], mySymbols), end);
+                    return;
+                }
+                catch (IonException e)
+                {
+                    // The end is within a value, or the data is malformed.
+                }
+            }
+
+            // Read the rest of the data sequentially.
+            skipTo(chunks());
+            try
+            {
+                myRestReader = openRest(start, mySymbols);
+            }
+            catch (IOException e)
+            {
+                throw new IonException(e);
+            }
+            myValues = mySystem.iterate(myRestReader);
+        }
+
+        /** Yields the values of chunks up to the given one. */
+        private void use(Chunk values, int end)
+        {
+            skipTo(end);
+            myValues = values.myValues.iterator();
+            mySymbols = values.mySymbols;
+        }
+
+        /** Drops the tasks of the chunks before the given one. */
+        private void skipTo(int end)
+        {
+            while (myNextChunk < end)
+            {
+                ChunkTask task = myTasks.poll();
+                if (task != null) task.cancel(false);
+                myNextChunk++;
+            }
+            myNextTask = Math.max(myNextTask, end);
+        }
+    }
+}
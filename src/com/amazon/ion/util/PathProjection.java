@@ -0,0 +1,542 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import com.amazon.ion.FieldSeekingReader;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Extracts the values at a set of paths from a stream of Ion data, stepping
+ * into only the containers on the way to those values.
+ * Everything else is skipped by {@link IonReader#next()}, which over Ion
+ * binary data moves past a value by its length without decoding it.
+ * <p>
+ * A path is a sequence of steps, each of which selects children of a
+ * container:
+ * <ul>
+ *   <li>{@code .name} selects the fields of a struct with the given name,
+ *   which is either an identifier made of letters, digits, {@code _} and
+ *   {@code $}, or any text in single quotes, in which {@code \'} and
+ *   {@code \\} escape a quote and a backslash.</li>
+ *   <li>{@code .*} selects all the fields of a struct.</li>
+ *   <li>{@code [n]} selects the element at index {@code n} of a list or
+ *   sexp.</li>
+ *   <li>{@code [*]} selects all the elements of a list or sexp.</li>
+ * </ul>
+ * Paths are relative to each top-level value, and the {@code .} of a
+ * leading field step may be omitted. For example, {@code order.customer.id}
+ * selects the {@code id} of the {@code customer} of the {@code order} of
+ * each top-level struct, and {@code items[*].sku} selects the {@code sku}
+ * of every element of its {@code items}.
+ * <p>
+ * A value is reported once, for the lowest-numbered of the paths it
+ * matches, and the values within it are not matched further: given the
+ * paths {@code a} and {@code a.b}, the {@code b} fields are reported
+ * as part of {@code a}.
+ * <p>
+ * Instances are immutable and may be shared among threads.
+ */
+public final class PathProjection
+{
+    /**
+     * Receives the values found by a {@link PathProjection}.
+     */
+    public interface Handler
+    {
+        /**
+         * Called with the reader positioned on a value at one of the paths.
+         * The handler may read the value, stepping into it as needed, but
+         * must leave the reader positioned on it, at the same depth.
+         *
+         * @param path the index of the path, in the order given to
+         * {@link PathProjection#compile(String...)}.
+         * @param reader the reader positioned on the value.
+         */
+        void match(int path, IonReader reader)
+            throws IOException;
+    }
+
+
+    /**
+     * A step of a single path, or the start of all paths. Paths are kept as
+     * a tree of steps, which may select the same value in several ways.
+     */
+    private static final class Step
+    {
+        final int               id;
+        final Map<String, Step> fields   = new HashMap<String, Step>();
+        final Map<Integer, Step> indices = new HashMap<Integer, Step>();
+        Step                    anyField;
+        Step                    anyIndex;
+        int                     path = -1;
+
+        Step(int id)
+        {
+            this.id = id;
+        }
+    }
+
+
+    /**
+     * The set of steps that a value has matched, with the states reached by
+     * its children. Values in a state with a path are reported; values in a
+     * state with no transitions are never reached.
+     */
+    private static final class State
+    {
+        int                path = -1;
+
+        String[]           fieldNames;
+        State[]            fieldStates;
+        Map<String, State> fieldsByName;
+        State              anyField;
+
+        int[]              indices;       // in increasing order
+        State[]            indexStates;
+        State              anyIndex;
+
+        boolean hasFields()
+        {
+            return fieldNames.length != 0 || anyField != null;
+        }
+
+        boolean hasElements()
+        {
+            return indices.length != 0 || anyIndex != null;
+        }
+    }
+
+
+    private final String[] myPaths;
+    private final State    myRoot;
+
+
+    private PathProjection(String[] paths, State root)
+    {
+        myPaths = paths;
+        myRoot = root;
+    }
+
+
+    /**
+     * Compiles a set of paths.
+     *
+     * @param paths the paths, in the syntax described above.
+     *
+     * @return a projection reporting the values at any of the paths.
+     *
+     * @throws IllegalArgumentException if a path is malformed.
+     */
+    public static PathProjection compile(String... paths)
+    {
+        if (paths.length == 0)
+        {
+            throw new IllegalArgumentException("No paths given");
+        }
+        List<Step> steps = new ArrayList<Step>();
+        Step start = newStep(steps);
+        for (int i = 0; i < paths.length; i++)
+        {
+            Step end = parse(paths[i], start, steps);
+            if (end.path < 0) end.path = i;
+        }
+
+        List<Step> startSet = new ArrayList<Step>();
+        startSet.add(start);
+        State root = state(startSet, new HashMap<List<Integer>, State>());
+        return new PathProjection(paths.clone(), root);
+    }
+
+
+    /**
+     * Gets the paths of this projection.
+     *
+     * @return a copy of the paths given to {@link #compile(String...)}.
+     */
+    public String[] getPaths()
+    {
+        return myPaths.clone();
+    }
+
+
+    //=========================================================================
+    // Parsing
+
+
+    private static Step newStep(List<Step> steps)
+    {
+        Step step = new Step(steps.size());
+        steps.add(step);
+        return step;
+    }
+
+
+    private static IllegalArgumentException invalid(String path, int pos,
+                                                    String message)
+    {
+        return new IllegalArgumentException("Invalid path \"" + path
+                                            + "\" at position " + pos
+                                            + ": " + message);
+    }
+
+
+    private static boolean isIdentifierPart(char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+            || (c >= '0' && c <= '9') || c == '_' || c == '$';
+    }
+
+
+    /**
+     * Adds the steps of a path below the start step.
+     *
+     * @return the last step of the path.
+     */
+    private static Step parse(String path, Step start, List<Step> steps)
+    {
+        int length = path.length();
+        if (length == 0) throw invalid(path, 0, "empty path");
+
+        Step step = start;
+        int pos = 0;
+        while (pos < length)
+        {
+            char c = path.charAt(pos);
+            if (c == '.' || (pos == 0 && c != '['))
+            {
+                // The first field step needs no dot.
+                if (c == '.') pos++;
+                if (pos == length) throw invalid(path, pos, "missing field name");
+                c = path.charAt(pos);
+                if (c == '*')
+                {
+                    pos++;
+                    if (step.anyField == null) step.anyField = newStep(steps);
+                    step = step.anyField;
+                    continue;
+                }
+
+                String name;
+                if (c == '\'')
+                {
+                    StringBuilder text = new StringBuilder();
+                    pos++;
+                    while (true)
+                    {
+                        if (pos == length) throw invalid(path, pos, "unterminated quoted name");
+                        c = path.charAt(pos++);
+                        if (c == '\'') break;
+                        if (c == '\\')
+                        {
+                            if (pos == length) throw invalid(path, pos, "unterminated quoted name");
+                            c = path.charAt(pos++);
+                            if (c != '\'' && c != '\\')
+                            {
+                                throw invalid(path, pos - 1, "invalid escape");
+                            }
+                        }
+                        text.append(c);
+                    }
+                    name = text.toString();
+                }
+                else
+                {
+                    int begin = pos;
+                    while (pos < length && isIdentifierPart(path.charAt(pos)))
+                    {
+                        pos++;
+                    }
+                    if (pos == begin) throw invalid(path, pos, "missing field name");
+                    name = path.substring(begin, pos);
+                }
+                Step next = step.fields.get(name);
+                if (next == null)
+                {
+                    next = newStep(steps);
+                    step.fields.put(name, next);
+                }
+                step = next;
+            }
+            else if (c == '[')
+            {
+                pos++;
+                int end = path.indexOf(']', pos);
+                if (end < 0) throw invalid(path, pos, "missing ]");
+                String index = path.substring(pos, end);
+                if (index.equals("*"))
+                {
+                    if (step.anyIndex == null) step.anyIndex = newStep(steps);
+                    step = step.anyIndex;
+                }
+                else
+                {
+                    int i;
+                    try
+                    {
+                        i = Integer.parseInt(index);
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        i = -1;
+                    }
+                    if (i < 0 || index.charAt(0) == '+')
+                    {
+                        throw invalid(path, pos, "invalid index");
+                    }
+                    Step next = step.indices.get(i);
+                    if (next == null)
+                    {
+                        next = newStep(steps);
+                        step.indices.put(i, next);
+                    }
+                    step = next;
+                }
+                pos = end + 1;
+            }
+            else
+            {
+                throw invalid(path, pos, "expected . or [");
+            }
+        }
+        return step;
+    }
+
+
+    //=========================================================================
+    // Compilation
+
+
+    private static void addTarget(List<Step> targets, Step step)
+    {
+        if (step != null && !targets.contains(step)) targets.add(step);
+    }
+
+
+    /**
+     * Gets the state of the values that match the given steps, creating it
+     * and the states of its children if needed.
+     *
+     * @return null if there are no steps.
+     */
+    private static State state(List<Step> steps,
+                               Map<List<Integer>, State> states)
+    {
+        if (steps.isEmpty()) return null;
+
+        List<Integer> key = new ArrayList<Integer>(steps.size());
+        for (Step step : steps) key.add(step.id);
+        Collections.sort(key);
+        State state = states.get(key);
+        if (state != null) return state;
+
+        state = new State();
+        states.put(key, state);
+
+        TreeSet<String> names = new TreeSet<String>();
+        TreeSet<Integer> indices = new TreeSet<Integer>();
+        List<Step> anyFields = new ArrayList<Step>();
+        List<Step> anyIndices = new ArrayList<Step>();
+        for (Step step : steps)
+        {
+            if (step.path >= 0 && (state.path < 0 || step.path < state.path))
+            {
+                state.path = step.path;
+            }
+            names.addAll(step.fields.keySet());
+            indices.addAll(step.indices.keySet());
+            addTarget(anyFields, step.anyField);
+            addTarget(anyIndices, step.anyIndex);
+        }
+
+        state.fieldNames = names.toArray(new String[names.size()]);
+        state.fieldStates = new State[names.size()];
+        state.fieldsByName = new HashMap<String, State>();
+        int i = 0;
+        for (String name : names)
+        {
+            List<Step> targets = new ArrayList<Step>(anyFields);
+            for (Step step : steps) addTarget(targets, step.fields.get(name));
+            state.fieldStates[i++] = state(targets, states);
+        }
+        state.anyField = state(anyFields, states);
+
+        // Indices that only a wildcard reaches need no state of their own.
+        Map<Integer, State> indexStates = new TreeMap<Integer, State>();
+        for (Integer index : indices)
+        {
+            List<Step> targets = new ArrayList<Step>(anyIndices);
+            for (Step step : steps) addTarget(targets, step.indices.get(index));
+            indexStates.put(index, state(targets, states));
+        }
+        state.indices = new int[indexStates.size()];
+        state.indexStates = new State[indexStates.size()];
+        i = 0;
+        for (Map.Entry<Integer, State> entry : indexStates.entrySet())
+        {
+            state.indices[i] = entry.getKey();
+            state.indexStates[i++] = entry.getValue();
+        }
+        state.anyIndex = state(anyIndices, states);
+
+        for (i = 0; i < state.fieldNames.length; i++)
+        {
+            state.fieldsByName.put(state.fieldNames[i], state.fieldStates[i]);
+        }
+        return state;
+    }
+
+
+    //=========================================================================
+    // Projection
+
+
+    /**
+     * Reports the values at any of the paths within each of the remaining
+     * values of a reader, at its current depth.
+     *
+     * @param reader the source of the values.
+     * @param handler receives the values at the paths.
+     */
+    public void project(IonReader reader, Handler handler)
+        throws IOException
+    {
+        FieldSeekingReader seeker = reader.asFacet(FieldSeekingReader.class);
+        while (reader.next() != null)
+        {
+            visit(reader, seeker, myRoot, handler);
+        }
+    }
+
+
+    /**
+     * Writes the values at any of the paths within each of the remaining
+     * values of a reader, at its current depth.
+     * Values found in structs are written with their field names if the
+     * writer is in a struct.
+     *
+     * @param reader the source of the values.
+     * @param writer receives the values at the paths.
+     */
+    public void project(IonReader reader, final IonWriter writer)
+        throws IOException
+    {
+        project(reader, new Handler()
+        {
+            public void match(int path, IonReader r)
+                throws IOException
+            {
+                writer.writeValue(r);
+            }
+        });
+    }
+
+
+    private static void visit(IonReader reader, FieldSeekingReader seeker,
+                              State state, Handler handler)
+        throws IOException
+    {
+        if (state.path >= 0)
+        {
+            handler.match(state.path, reader);
+            return;
+        }
+        if (reader.isNullValue()) return;
+
+        IonType type = reader.getType();
+        if (type == IonType.STRUCT && state.hasFields())
+        {
+            reader.stepIn();
+            visitFields(reader, seeker, state, handler);
+            reader.stepOut();
+        }
+        else if ((type == IonType.LIST || type == IonType.SEXP)
+                 && state.hasElements())
+        {
+            reader.stepIn();
+            visitElements(reader, seeker, state, handler);
+            reader.stepOut();
+        }
+    }
+
+
+    private static void visitFields(IonReader reader,
+                                    FieldSeekingReader seeker,
+                                    State state, Handler handler)
+        throws IOException
+    {
+        if (seeker != null && state.anyField == null)
+        {
+            String[] names = state.fieldNames;
+            int i;
+            while ((i = seeker.seekField(names)) >= 0)
+            {
+                visit(reader, seeker, state.fieldStates[i], handler);
+            }
+            return;
+        }
+
+        while (reader.next() != null)
+        {
+            State next = null;
+            String name = reader.getFieldNameSymbol().getText();
+            if (name != null) next = state.fieldsByName.get(name);
+            if (next == null) next = state.anyField;
+            if (next != null) visit(reader, seeker, next, handler);
+        }
+    }
+
+
+    private static void visitElements(IonReader reader,
+                                      FieldSeekingReader seeker,
+                                      State state, Handler handler)
+        throws IOException
+    {
+        int[] indices = state.indices;
+        int k = 0;
+        for (int i = 0; reader.next() != null; i++)
+        {
+            State next = state.anyIndex;
+            if (k < indices.length && indices[k] == i)
+            {
+                next = state.indexStates[k++];
+            }
+            else if (k == indices.length && next == null)
+            {
+                // No later element is selected; stepping out skips them.
+                return;
+            }
+            if (next != null) visit(reader, seeker, next, handler);
+        }
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "PathProjection" + Arrays.toString(myPaths);
+    }
+}
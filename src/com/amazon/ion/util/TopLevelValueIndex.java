@@ -0,0 +1,854 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import com.amazon.ion.FieldSeekingReader;
+import com.amazon.ion.IntegerSize;
+import com.amazon.ion.IonCatalog;
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.OffsetSpan;
+import com.amazon.ion.SpanProvider;
+import com.amazon.ion.SymbolTable;
+import com.amazon.ion.impl._Private_IonReaderFactory;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.SimpleCatalog;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index of the top-level values of Ion binary data, allowing a reader to
+ * be opened at any of them without reading the data before it.
+ * <p>
+ * The index is built by a single scan of the data, which records the offset
+ * of each top-level value and the local symbol table in effect there. It may
+ * also record the value of a key field of top-level structs, so that values
+ * can be found by key. Keys are either integers that fit in a {@code long}
+ * or text (string or symbol) values; other keys are ignored.
+ * Lookups by position or key take O(log n) time.
+ * <p>
+ * An index can be {@linkplain #writeTo(OutputStream) written} as Ion next to
+ * the data and {@linkplain #read(IonReaderBuilder, InputStream) read back}
+ * later. It records the size of the data it indexes, and refuses to open
+ * data of a different size, but it can't otherwise detect that the data has
+ * changed.
+ * <p>
+ * Instances are immutable and may be shared among threads.
+ */
+public final class TopLevelValueIndex
+{
+    /** The annotation on the Ion representation of an index. */
+    private static final String ANNOTATION = "top_level_value_index";
+    private static final int    VERSION = 1;
+
+    private static final String VERSION_FIELD = "version";
+    private static final String DATA_SIZE_FIELD = "data_size";
+    private static final String KEY_FIELD_FIELD = "key_field";
+    private static final String OFFSETS_FIELD = "offsets";
+    private static final String SYMBOL_TABLES_FIELD = "symbol_tables";
+    private static final String SYMBOL_TABLE_STARTS_FIELD = "symbol_table_starts";
+    private static final String INT_KEYS_FIELD = "int_keys";
+    private static final String INT_KEY_VALUES_FIELD = "int_key_values";
+    private static final String TEXT_KEYS_FIELD = "text_keys";
+    private static final String TEXT_KEY_VALUES_FIELD = "text_key_values";
+
+
+    private final IonReaderBuilder myReaderBuilder;
+    private final long             myDataSize;
+    private final String           myKeyField;
+
+    private final long[]           myOffsets;
+
+    /**
+     * The local symbol tables in effect, null for the system symbol table,
+     * each from the value at the same position in {@link #mySymtabStarts}.
+     */
+    private final SymbolTable[]    mySymtabs;
+    private final int[]            mySymtabStarts;
+
+    // Keys in increasing order, with the values that have them.
+    private final long[]           myIntKeys;
+    private final int[]            myIntKeyValues;
+    private final String[]         myTextKeys;
+    private final int[]            myTextKeyValues;
+
+
+    private TopLevelValueIndex(IonReaderBuilder readerBuilder,
+                               long dataSize,
+                               String keyField,
+                               long[] offsets,
+                               SymbolTable[] symtabs,
+                               int[] symtabStarts,
+                               long[] intKeys,
+                               int[] intKeyValues,
+                               String[] textKeys,
+                               int[] textKeyValues)
+    {
+        myReaderBuilder = readerBuilder;
+        myDataSize = dataSize;
+        myKeyField = keyField;
+        myOffsets = offsets;
+        mySymtabs = symtabs;
+        mySymtabStarts = symtabStarts;
+        myIntKeys = intKeys;
+        myIntKeyValues = intKeyValues;
+        myTextKeys = textKeys;
+        myTextKeyValues = textKeyValues;
+    }
+
+
+    //=========================================================================
+    // Building
+
+
+    /**
+     * Indexes the top-level values of Ion binary data in a file.
+     *
+     * @param readerBuilder configures the readers of the data, both to build
+     * the index and to open the data later. Its catalog must provide any
+     * shared symbol tables imported by the data.
+     * @param dataFile the Ion binary data.
+     * @param keyField the name of the field of top-level structs whose values
+     * are indexed, or null to index only the positions of the values.
+     *
+     * @return the index.
+     *
+     * @throws IonException if the data isn't Ion binary or is malformed.
+     */
+    public static TopLevelValueIndex build(IonReaderBuilder readerBuilder,
+                                           Path dataFile,
+                                           String keyField)
+        throws IOException
+    {
+        FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ);
+        try
+        {
+            checkBinary(channel);
+            IonReader reader = readerBuilder.build(channel);
+            try
+            {
+                return build(readerBuilder, reader, channel.size(), keyField);
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+
+    /**
+     * Indexes the top-level values of Ion binary data in a byte array.
+     *
+     * @param readerBuilder configures the readers of the data, both to build
+     * the index and to open the data later. Its catalog must provide any
+     * shared symbol tables imported by the data.
+     * @param data the Ion binary data.
+     * @param keyField the name of the field of top-level structs whose values
+     * are indexed, or null to index only the positions of the values.
+     *
+     * @return the index.
+     *
+     * @throws IonException if the data isn't Ion binary or is malformed.
+     */
+    public static TopLevelValueIndex build(IonReaderBuilder readerBuilder,
+                                           byte[] data,
+                                           String keyField)
+        throws IOException
+    {
+        if (!IonStreamUtils.isIonBinary(data))
+        {
+            throw new IonException("Only Ion binary data can be indexed");
+        }
+        IonReader reader = readerBuilder.build(data);
+        try
+        {
+            return build(readerBuilder, reader, data.length, keyField);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+
+    private static void checkBinary(FileChannel channel)
+        throws IOException
+    {
+        byte[] header = new byte[4];
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        while (buffer.hasRemaining()
+               && channel.read(buffer, buffer.position()) > 0) {}
+        if (!IonStreamUtils.isIonBinary(header, 0, buffer.position()))
+        {
+            throw new IonException("Only Ion binary data can be indexed");
+        }
+    }
+
+
+    /** A key of a top-level value, ordered by key and then by position. */
+    private static final class Key
+        implements Comparable<Key>
+    {
+        final long   intKey;
+        final String textKey;
+        final int    value;
+
+        Key(long intKey, String textKey, int value)
+        {
+            this.intKey = intKey;
+            this.textKey = textKey;
+            this.value = value;
+        }
+
+        public int compareTo(Key other)
+        {
+            int c = (textKey == null
+                     ? compare(intKey, other.intKey)
+                     : textKey.compareTo(other.textKey));
+            return c != 0 ? c : compare(value, other.value);
+        }
+
+        private static int compare(long a, long b)
+        {
+            return a < b ? -1 : (a == b ? 0 : 1);
+        }
+    }
+
+
+    /**
+     * Indexes the remaining top-level values of a reader of Ion binary data,
+     * whose span offsets are those of the values in the data.
+     */
+    static TopLevelValueIndex build(IonReaderBuilder readerBuilder,
+                                    IonReader reader,
+                                    long dataSize,
+                                    String keyField)
+    {
+        readerBuilder = readerBuilder.immutable();
+        SpanProvider spans = reader.asFacet(SpanProvider.class);
+        FieldSeekingReader seeker = reader.asFacet(FieldSeekingReader.class);
+        String[] keyFields = { keyField };
+
+        long[] offsets = new long[1024];
+        int count = 0;
+        List<SymbolTable> symtabs = new ArrayList<SymbolTable>();
+        int[] symtabStarts = new int[16];
+        SymbolTable symtab = null;
+        List<Key> intKeys = new ArrayList<Key>();
+        List<Key> textKeys = new ArrayList<Key>();
+
+        IonType type;
+        while ((type = reader.next()) != null)
+        {
+            if (count == offsets.length)
+            {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            OffsetSpan span = spans.currentSpan().asFacet(OffsetSpan.class);
+            offsets[count] = span.getStartOffset();
+
+            SymbolTable current = reader.getSymbolTable();
+            if (count == 0 || current != symtab)
+            {
+                symtab = current;
+                if (symtabs.size() == symtabStarts.length)
+                {
+                    symtabStarts = Arrays.copyOf(symtabStarts, symtabs.size() * 2);
+                }
+                symtabStarts[symtabs.size()] = count;
+                symtabs.add(current.isSystemTable() ? null : current);
+            }
+
+            if (keyField != null && type == IonType.STRUCT
+                && !reader.isNullValue())
+            {
+                reader.stepIn();
+                if (seeker.seekField(keyFields) >= 0 && !reader.isNullValue())
+                {
+                    switch (reader.getType())
+                    {
+                        case INT:
+                            if (reader.getIntegerSize() != IntegerSize.BIG_INTEGER)
+                            {
+                                intKeys.add(new Key(reader.longValue(), null, count));
+                            }
+                            break;
+                        case STRING:
+                        case SYMBOL:
+                            String text = reader.stringValue();
+                            if (text != null)
+                            {
+                                textKeys.add(new Key(0, text, count));
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                reader.stepOut();
+            }
+            count++;
+        }
+
+        Collections.sort(intKeys);
+        Collections.sort(textKeys);
+        long[] intKeyArray = new long[intKeys.size()];
+        int[] intKeyValues = new int[intKeys.size()];
+        for (int i = 0; i < intKeyArray.length; i++)
+        {
+            intKeyArray[i] = intKeys.get(i).intKey;
+            intKeyValues[i] = intKeys.get(i).value;
+        }
+        String[] textKeyArray = new String[textKeys.size()];
+        int[] textKeyValues = new int[textKeys.size()];
+        for (int i = 0; i < textKeyArray.length; i++)
+        {
+            textKeyArray[i] = textKeys.get(i).textKey;
+            textKeyValues[i] = textKeys.get(i).value;
+        }
+
+        return new TopLevelValueIndex(readerBuilder, dataSize, keyField,
+                                      Arrays.copyOf(offsets, count),
+                                      symtabs.toArray(new SymbolTable[symtabs.size()]),
+                                      Arrays.copyOf(symtabStarts, symtabs.size()),
+                                      intKeyArray, intKeyValues,
+                                      textKeyArray, textKeyValues);
+    }
+
+
+    //=========================================================================
+    // Persistence
+
+
+    /**
+     * Writes this index as Ion binary data, which
+     * {@link #read(IonReaderBuilder, InputStream)} can read back.
+     * The stream is not closed.
+     */
+    public void writeTo(OutputStream out)
+        throws IOException
+    {
+        IonWriter writer = IonBinaryWriterBuilder.standard().build(out);
+        writer.setTypeAnnotations(ANNOTATION);
+        writer.stepIn(IonType.STRUCT);
+        {
+            writer.setFieldName(VERSION_FIELD);
+            writer.writeInt(VERSION);
+            writer.setFieldName(DATA_SIZE_FIELD);
+            writer.writeInt(myDataSize);
+            writer.setFieldName(KEY_FIELD_FIELD);
+            writer.writeString(myKeyField);
+
+            writer.setFieldName(OFFSETS_FIELD);
+            writer.stepIn(IonType.LIST);
+            for (long offset : myOffsets)
+            {
+                writer.writeInt(offset);
+            }
+            writer.stepOut();
+
+            writer.setFieldName(SYMBOL_TABLES_FIELD);
+            writer.stepIn(IonType.LIST);
+            for (SymbolTable symtab : mySymtabs)
+            {
+                if (symtab == null)
+                {
+                    writer.writeNull(IonType.STRUCT);
+                }
+                else
+                {
+                    symtab.writeTo(writer);
+                }
+            }
+            writer.stepOut();
+            writeInts(writer, SYMBOL_TABLE_STARTS_FIELD, mySymtabStarts);
+
+            writer.setFieldName(INT_KEYS_FIELD);
+            writer.stepIn(IonType.LIST);
+            for (long key : myIntKeys)
+            {
+                writer.writeInt(key);
+            }
+            writer.stepOut();
+            writeInts(writer, INT_KEY_VALUES_FIELD, myIntKeyValues);
+
+            writer.setFieldName(TEXT_KEYS_FIELD);
+            writer.stepIn(IonType.LIST);
+            for (String key : myTextKeys)
+            {
+                writer.writeString(key);
+            }
+            writer.stepOut();
+            writeInts(writer, TEXT_KEY_VALUES_FIELD, myTextKeyValues);
+        }
+        writer.stepOut();
+        writer.finish();
+    }
+
+
+    /**
+     * Writes this index to a file, replacing any existing content.
+     */
+    public void write(Path indexFile)
+        throws IOException
+    {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(indexFile));
+        try
+        {
+            writeTo(out);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+
+    private static void writeInts(IonWriter writer, String fieldName,
+                                  int[] values)
+        throws IOException
+    {
+        writer.setFieldName(fieldName);
+        writer.stepIn(IonType.LIST);
+        for (int value : values)
+        {
+            writer.writeInt(value);
+        }
+        writer.stepOut();
+    }
+
+
+    /**
+     * Reads an index written by {@link #writeTo(OutputStream)}.
+     * The stream is not closed.
+     *
+     * @param readerBuilder configures the readers of the data. Its catalog
+     * must provide any shared symbol tables imported by the data.
+     *
+     * @throws IonException if the stream doesn't hold an index.
+     */
+    public static TopLevelValueIndex read(IonReaderBuilder readerBuilder,
+                                          InputStream in)
+        throws IOException
+    {
+        readerBuilder = readerBuilder.immutable();
+        IonCatalog catalog = readerBuilder.getCatalog();
+        if (catalog == null) catalog = new SimpleCatalog();
+
+        IonReader reader = IonReaderBuilder.standard().build(in);
+        if (reader.next() != IonType.STRUCT
+            || !Arrays.asList(reader.getTypeAnnotations()).contains(ANNOTATION))
+        {
+            throw new IonException("Not a top-level value index");
+        }
+
+        long dataSize = -1;
+        String keyField = null;
+        long[] offsets = null;
+        SymbolTable[] symtabs = null;
+        int[] symtabStarts = null;
+        long[] intKeys = null;
+        int[] intKeyValues = null;
+        String[] textKeys = null;
+        int[] textKeyValues = null;
+
+        reader.stepIn();
+        while (reader.next() != null)
+        {
+            String field = reader.getFieldName();
+            if (VERSION_FIELD.equals(field))
+            {
+                if (reader.intValue() != VERSION)
+                {
+                    throw new IonException("Unsupported index version: "
+                                           + reader.intValue());
+                }
+            }
+            else if (DATA_SIZE_FIELD.equals(field))
+            {
+                dataSize = reader.longValue();
+            }
+            else if (KEY_FIELD_FIELD.equals(field))
+            {
+                keyField = reader.stringValue();
+            }
+            else if (OFFSETS_FIELD.equals(field))
+            {
+                offsets = readLongs(reader);
+            }
+            else if (SYMBOL_TABLES_FIELD.equals(field))
+            {
+                List<SymbolTable> tables = new ArrayList<SymbolTable>();
+                reader.stepIn();
+                while (reader.next() != null)
+                {
+                    tables.add(reader.isNullValue()
+                               ? null
+                               : _Private_IonReaderFactory.readLocalSymbolTable(catalog, reader));
+                }
+                reader.stepOut();
+                symtabs = tables.toArray(new SymbolTable[tables.size()]);
+            }
+            else if (SYMBOL_TABLE_STARTS_FIELD.equals(field))
+            {
+                symtabStarts = readInts(reader);
+            }
+            else if (INT_KEYS_FIELD.equals(field))
+            {
+                intKeys = readLongs(reader);
+            }
+            else if (INT_KEY_VALUES_FIELD.equals(field))
+            {
+                intKeyValues = readInts(reader);
+            }
+            else if (TEXT_KEYS_FIELD.equals(field))
+            {
+                List<String> keys = new ArrayList<String>();
+                reader.stepIn();
+                while (reader.next() != null)
+                {
+                    keys.add(reader.stringValue());
+                }
+                reader.stepOut();
+                textKeys = keys.toArray(new String[keys.size()]);
+            }
+            else if (TEXT_KEY_VALUES_FIELD.equals(field))
+            {
+                textKeyValues = readInts(reader);
+            }
+        }
+        reader.stepOut();
+
+        if (dataSize < 0 || offsets == null || symtabs == null
+            || symtabStarts == null || symtabs.length != symtabStarts.length
+            || intKeys == null || intKeyValues == null
+            || intKeys.length != intKeyValues.length
+            || textKeys == null || textKeyValues == null
+            || textKeys.length != textKeyValues.length)
+        {
+            throw new IonException("Incomplete top-level value index");
+        }
+        return new TopLevelValueIndex(readerBuilder, dataSize, keyField,
+                                      offsets, symtabs, symtabStarts,
+                                      intKeys, intKeyValues,
+                                      textKeys, textKeyValues);
+    }
+
+
+    /**
+     * Reads an index from a file written by {@link #write(Path)}.
+     *
+     * @param readerBuilder configures the readers of the data. Its catalog
+     * must provide any shared symbol tables imported by the data.
+     *
+     * @throws IonException if the file doesn't hold an index.
+     */
+    public static TopLevelValueIndex read(IonReaderBuilder readerBuilder,
+                                          Path indexFile)
+        throws IOException
+    {
+        InputStream in = Files.newInputStream(indexFile);
+        try
+        {
+            return read(readerBuilder, in);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+
+    private static long[] readLongs(IonReader reader)
+    {
+        long[] values = new long[64];
+        int count = 0;
+        reader.stepIn();
+        while (reader.next() != null)
+        {
+            if (count == values.length)
+            {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = reader.longValue();
+        }
+        reader.stepOut();
+        return Arrays.copyOf(values, count);
+    }
+
+
+    private static int[] readInts(IonReader reader)
+    {
+        int[] values = new int[64];
+        int count = 0;
+        reader.stepIn();
+        while (reader.next() != null)
+        {
+            if (count == values.length)
+            {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = reader.intValue();
+        }
+        reader.stepOut();
+        return Arrays.copyOf(values, count);
+    }
+
+
+    //=========================================================================
+    // Lookup
+
+
+    /**
+     * Gets the number of top-level values in the data.
+     */
+    public int size()
+    {
+        return myOffsets.length;
+    }
+
+
+    /**
+     * Gets the size in bytes of the data that was indexed.
+     */
+    public long getDataSize()
+    {
+        return myDataSize;
+    }
+
+
+    /**
+     * Gets the name of the key field of top-level structs.
+     *
+     * @return null if no key field was indexed.
+     */
+    public String getKeyField()
+    {
+        return myKeyField;
+    }
+
+
+    /**
+     * Gets the offset in the data of a top-level value, including any
+     * annotations.
+     *
+     * @param value the position of the value among the top-level values.
+     *
+     * @throws IndexOutOfBoundsException if there is no such value.
+     */
+    public long getOffset(int value)
+    {
+        checkValue(value);
+        return myOffsets[value];
+    }
+
+
+    /**
+     * Finds the first top-level struct whose key field is the given integer.
+     *
+     * @return the position of the struct among the top-level values, or -1 if
+     * there is none.
+     */
+    public int findKey(long key)
+    {
+        int lo = 0;
+        int hi = myIntKeys.length;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (myIntKeys[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo < myIntKeys.length && myIntKeys[lo] == key
+            ? myIntKeyValues[lo]
+            : -1;
+    }
+
+
+    /**
+     * Finds the first top-level struct whose key field is the given text,
+     * whether a string or a symbol.
+     *
+     * @return the position of the struct among the top-level values, or -1 if
+     * there is none.
+     */
+    public int findKey(String key)
+    {
+        int lo = 0;
+        int hi = myTextKeys.length;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (myTextKeys[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo < myTextKeys.length && myTextKeys[lo].equals(key)
+            ? myTextKeyValues[lo]
+            : -1;
+    }
+
+
+    private void checkValue(int value)
+    {
+        if (value < 0 || value >= myOffsets.length)
+        {
+            throw new IndexOutOfBoundsException("No top-level value " + value
+                                                + " among " + myOffsets.length);
+        }
+    }
+
+
+    /**
+     * Gets the offset of the end of a top-level value, which is that of the
+     * next value or the end of the data. Any system values between the two
+     * are included.
+     */
+    long getEndOffset(int value)
+    {
+        return value + 1 < myOffsets.length ? myOffsets[value + 1] : myDataSize;
+    }
+
+
+    /**
+     * Finds the first top-level value at or after an offset.
+     *
+     * @return the position of the value, or {@link #size()} if there is none.
+     */
+    int findValueAt(long offset)
+    {
+        int i = Arrays.binarySearch(myOffsets, offset);
+        return i >= 0 ? i : -i - 1;
+    }
+
+
+    /** Gets the symbol table in effect at a top-level value. */
+    SymbolTable symtabAt(int value)
+    {
+        int i = Arrays.binarySearch(mySymtabStarts, value);
+        return mySymtabs[i >= 0 ? i : -i - 2];
+    }
+
+
+    void checkDataSize(long size)
+    {
+        if (size != myDataSize)
+        {
+            throw new IonException("The data has " + size
+                                   + " bytes but the index is of "
+                                   + myDataSize);
+        }
+    }
+
+
+    /**
+     * Opens a reader of the indexed data positioned just before a top-level
+     * value, so that {@link IonReader#next()} returns that value.
+     * The reader continues through the rest of the data.
+     * The offsets of its spans are relative to the start of the value.
+     *
+     * @param dataFile the indexed data.
+     * @param value the position of the value among the top-level values.
+     *
+     * @return a new reader; callers must close it when finished with it.
+     *
+     * @throws IndexOutOfBoundsException if there is no such value.
+     * @throws IonException if the data isn't the size that was indexed.
+     */
+    public IonReader open(Path dataFile, int value)
+        throws IOException
+    {
+        checkValue(value);
+        FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ);
+        try
+        {
+            checkDataSize(channel.size());
+            channel.position(myOffsets[value]);
+            return configure(
+                _Private_IonReaderFactory.makeBinaryReaderAt(catalog(),
+                                                             channel,
+                                                             symtabAt(value)));
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Opens a reader of the indexed data positioned just before a top-level
+     * value, so that {@link IonReader#next()} returns that value.
+     * The reader continues through the rest of the data.
+     *
+     * @param data the indexed data.
+     * @param value the position of the value among the top-level values.
+     *
+     * @return a new reader.
+     *
+     * @throws IndexOutOfBoundsException if there is no such value.
+     * @throws IonException if the data isn't the size that was indexed.
+     */
+    public IonReader open(byte[] data, int value)
+    {
+        checkValue(value);
+        checkDataSize(data.length);
+        int offset = (int) myOffsets[value];
+        return configure(
+            _Private_IonReaderFactory.makeBinaryReaderAt(catalog(),
+                                                         data,
+                                                         offset,
+                                                         data.length - offset,
+                                                         symtabAt(value)));
+    }
+
+
+    IonCatalog catalog()
+    {
+        IonCatalog catalog = myReaderBuilder.getCatalog();
+        return catalog != null ? catalog : new SimpleCatalog();
+    }
+
+
+    IonReader configure(IonReader reader)
+    {
+        return _Private_IonReaderFactory.configure(myReaderBuilder, reader);
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.impl._Private_IonReaderFactory;
+import com.amazon.ion.system.IonReaderBuilder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits Ion binary data into ranges of top-level values that can be read
+ * independently, and in parallel.
+ * <p>
+ * Top-level values are length-prefixed, so once the offset of each value and
+ * the local symbol table in effect there are known, a reader can start at
+ * any of them. A splitter learns both from a {@link TopLevelValueIndex},
+ * which it builds with a single pass that skips over the values, or which
+ * it's given. The readers of each range then carry their own symbol table
+ * context and need nothing from the others.
+ * <p>
+ * {@link #forEach(ForkJoinPool, Handler)} uses this to process the values
+ * across the threads of a {@link ForkJoinPool}, halving the data until the
+ * ranges are small enough to read sequentially.
+ * <p>
+ * Instances are immutable and may be shared among threads.
+ */
+public final class TopLevelValueSplitter
+{
+    /**
+     * Processes the top-level values found by
+     * {@link TopLevelValueSplitter#forEach(ForkJoinPool, Handler)}.
+     * It's called from several threads at once, and must be thread-safe.
+     */
+    public interface Handler
+    {
+        /**
+         * Called with a reader positioned on a top-level value. The handler
+         * may read the value, stepping into it as needed, but must leave the
+         * reader positioned on it, at the same depth.
+         *
+         * @param value the position of the value among the top-level values.
+         * @param reader the reader positioned on the value.
+         */
+        void value(int value, IonReader reader)
+            throws IOException;
+    }
+
+
+    /**
+     * The default size in bytes of the ranges below which
+     * {@link #forEach(ForkJoinPool, Handler)} stops splitting.
+     */
+    public static final long DEFAULT_MIN_SPLIT_SIZE = 1 << 20;
+
+
+    private final TopLevelValueIndex myIndex;
+
+    /** The data, between its position and limit, or null if in a file. */
+    private final ByteBuffer         myData;
+    private final Path               myFile;
+
+
+    private TopLevelValueSplitter(TopLevelValueIndex index,
+                                  ByteBuffer data,
+                                  Path file)
+    {
+        myIndex = index;
+        myData = data;
+        myFile = file;
+    }
+
+
+    /**
+     * Creates a splitter of the Ion binary data between a buffer's position
+     * and its limit, indexing its top-level values.
+     * The buffer's position and limit are left unchanged, and its content
+     * must not change while the splitter is in use.
+     *
+     * @param readerBuilder configures the readers of the data. Its catalog
+     * must provide any shared symbol tables imported by the data.
+     *
+     * @throws IonException if the data isn't Ion binary or is malformed.
+     */
+    public static TopLevelValueSplitter build(IonReaderBuilder readerBuilder,
+                                              ByteBuffer data)
+    {
+        ByteBuffer header = data.duplicate();
+        byte[] ivm = new byte[Math.min(4, header.remaining())];
+        header.get(ivm);
+        if (!IonStreamUtils.isIonBinary(ivm))
+        {
+            throw new IonException("Only Ion binary data can be split");
+        }
+        IonReader reader = readerBuilder.build(data);
+        TopLevelValueIndex index;
+        try
+        {
+            try
+            {
+                index = TopLevelValueIndex.build(readerBuilder, reader,
+                                                 data.remaining(), null);
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new IonException(e);
+        }
+        return new TopLevelValueSplitter(index, data.duplicate(), null);
+    }
+
+
+    /**
+     * Creates a splitter of the Ion binary data in a file, indexing its
+     * top-level values. The file is mapped into memory a range at a time, and
+     * must not change while the splitter is in use.
+     *
+     * @param readerBuilder configures the readers of the data. Its catalog
+     * must provide any shared symbol tables imported by the data.
+     *
+     * @throws IonException if the data isn't Ion binary or is malformed.
+     */
+    public static TopLevelValueSplitter build(IonReaderBuilder readerBuilder,
+                                              Path dataFile)
+        throws IOException
+    {
+        TopLevelValueIndex index =
+            TopLevelValueIndex.build(readerBuilder, dataFile, null);
+        return new TopLevelValueSplitter(index, null, dataFile);
+    }
+
+
+    /**
+     * Creates a splitter of indexed Ion binary data between a buffer's
+     * position and its limit.
+     *
+     * @throws IonException if the data isn't the size that was indexed.
+     */
+    public static TopLevelValueSplitter build(TopLevelValueIndex index,
+                                              ByteBuffer data)
+    {
+        index.checkDataSize(data.remaining());
+        return new TopLevelValueSplitter(index, data.duplicate(), null);
+    }
+
+
+    /**
+     * Creates a splitter of indexed Ion binary data in a file.
+     */
+    public static TopLevelValueSplitter build(TopLevelValueIndex index,
+                                              Path dataFile)
+    {
+        return new TopLevelValueSplitter(index, null, dataFile);
+    }
+
+
+    /**
+     * Gets the number of top-level values in the data.
+     */
+    public int size()
+    {
+        return myIndex.size();
+    }
+
+
+    /**
+     * Opens a reader of a range of top-level values, which returns null from
+     * {@link IonReader#next()} after the last of them.
+     *
+     * @param from the position of the first value.
+     * @param to the position after the last value.
+     *
+     * @return a new reader; callers must close it when finished with it.
+     *
+     * @throws IndexOutOfBoundsException if the range isn't within the values.
+     * @throws IllegalArgumentException if the range of a file spans more than
+     * {@link Integer#MAX_VALUE} bytes.
+     * @throws IonException if the data isn't the size that was indexed.
+     */
+    public IonReader open(int from, int to)
+        throws IOException
+    {
+        if (from < 0 || to > myIndex.size() || from >= to)
+        {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", "
+                                                + to + ") of "
+                                                + myIndex.size() + " values");
+        }
+        long start = myIndex.getOffset(from);
+        long end = myIndex.getEndOffset(to - 1);
+
+        ByteBuffer range;
+        if (myData != null)
+        {
+            range = myData.duplicate();
+            range.position(myData.position() + (int) start);
+            range.limit(myData.position() + (int) end);
+        }
+        else
+        {
+            if (end - start > Integer.MAX_VALUE)
+            {
+                throw new IllegalArgumentException("The range [" + from + ", "
+                                                   + to + ") is too large");
+            }
+            FileChannel channel = FileChannel.open(myFile, StandardOpenOption.READ);
+            try
+            {
+                myIndex.checkDataSize(channel.size());
+                range = channel.map(FileChannel.MapMode.READ_ONLY,
+                                    start, end - start);
+            }
+            finally
+            {
+                // The mapping remains valid after the channel is closed.
+                channel.close();
+            }
+        }
+        return myIndex.configure(
+            _Private_IonReaderFactory.makeBinaryReaderAt(myIndex.catalog(),
+                                                         range,
+                                                         myIndex.symtabAt(from)));
+    }
+
+
+    /**
+     * Splits the top-level values into consecutive ranges of about the same
+     * size in bytes, and opens a reader of each. Every range has at least one
+     * value.
+     *
+     * @param parts the number of ranges wanted. Fewer are returned only if
+     * there are fewer values.
+     *
+     * @return the readers, in the order of their ranges. Callers must close
+     * them when finished with them.
+     */
+    public List<IonReader> split(int parts)
+        throws IOException
+    {
+        if (parts < 1)
+        {
+            throw new IllegalArgumentException("parts must be positive: " + parts);
+        }
+        List<IonReader> readers = new ArrayList<IonReader>(parts);
+        int size = myIndex.size();
+        if (size == 0) return readers;
+
+        long first = myIndex.getOffset(0);
+        long bytes = myIndex.getEndOffset(size - 1) - first;
+        int from = 0;
+        for (int part = 1; part <= parts && from < size; part++)
+        {
+            int to = (part == parts
+                      ? size
+                      : myIndex.findValueAt(first + bytes * part / parts));
+            // Every range has a value, leaving one for each later range.
+            to = Math.min(to, size - (parts - part));
+            to = Math.max(to, from + 1);
+            readers.add(open(from, to));
+            from = to;
+        }
+        return readers;
+    }
+
+
+    /**
+     * Processes each top-level value in a fork/join pool, splitting the data
+     * into ranges of at least {@link #DEFAULT_MIN_SPLIT_SIZE} bytes.
+     * Values are processed in order within a range, but the ranges are
+     * processed concurrently.
+     *
+     * @throws IonException wrapping any {@link IOException} thrown by the
+     * handler.
+     */
+    public void forEach(ForkJoinPool pool, Handler handler)
+    {
+        forEach(pool, DEFAULT_MIN_SPLIT_SIZE, handler);
+    }
+
+
+    /**
+     * Processes each top-level value in a fork/join pool, splitting the data
+     * into ranges of at least a given size.
+     * Values are processed in order within a range, but the ranges are
+     * processed concurrently.
+     *
+     * @param minSplitSize the size in bytes of the ranges below which
+     * splitting stops.
+     *
+     * @throws IonException wrapping any {@link IOException} thrown by the
+     * handler.
+     */
+    public void forEach(ForkJoinPool pool, long minSplitSize, Handler handler)
+    {
+        if (myIndex.size() == 0) return;
+        pool.invoke(new RangeTask(0, myIndex.size(), minSplitSize, handler));
+    }
+
+
+    /**
+     * Processes a range of values, halving it by size until it's small
+     * enough, then reading it sequentially.
+     */
+    private final class RangeTask
+        extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int     myFrom;
+        private final int     myTo;
+        private final long    myMinSplitSize;
+        private final Handler myHandler;
+
+        RangeTask(int from, int to, long minSplitSize, Handler handler)
+        {
+            myFrom = from;
+            myTo = to;
+            myMinSplitSize = minSplitSize;
+            myHandler = handler;
+        }
+
+        @Override
+        protected void compute()
+        {
+            long start = myIndex.getOffset(myFrom);
+            long end = myIndex.getEndOffset(myTo - 1);
+            if (myTo - myFrom > 1 && end - start > myMinSplitSize)
+            {
+                int mid = myIndex.findValueAt(start + (end - start) / 2);
+                mid = Math.max(myFrom + 1, Math.min(mid, myTo - 1));
+                invokeAll(new RangeTask(myFrom, mid, myMinSplitSize, myHandler),
+                          new RangeTask(mid, myTo, myMinSplitSize, myHandler));
+                return;
+            }
+
+            try
+            {
+                IonReader reader = open(myFrom, myTo);
+                try
+                {
+                    for (int i = myFrom; reader.next() != null; i++)
+                    {
+                        myHandler.value(i, reader);
+                    }
+                }
+                finally
+                {
+                    reader.close();
+                }
+            }
+            catch (IOException e)
+            {
+                throw new IonException(e);
+            }
+        }
+    }
+}
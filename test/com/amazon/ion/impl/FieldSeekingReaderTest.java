@@ -0,0 +1,208 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.impl;
+
+import com.amazon.ion.FieldSeekingReader;
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonTextWriterBuilder;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class FieldSeekingReaderTest {
+
+    private static final String[] TARGETS = { "total", "id" };
+
+    private static byte[] records(boolean binary, int count) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = binary
+            ? IonBinaryWriterBuilder.standard().build(out)
+            : IonTextWriterBuilder.standard().build(out);
+        for (int i = 0; i < count; i++) {
+            writer.stepIn(IonType.STRUCT);
+            for (int f = 0; f < 200; f++) {
+                writer.setFieldName("f" + f);
+                if (f % 3 == 0) {
+                    writer.stepIn(IonType.LIST);
+                    writer.writeString("skipped " + f);
+                    writer.stepOut();
+                }
+                else {
+                    writer.writeInt(f);
+                }
+                if (f == 50) {
+                    writer.setFieldName("id");
+                    writer.writeInt(i);
+                }
+                if (f == 150) {
+                    writer.setFieldName("total");
+                    writer.stepIn(IonType.STRUCT);
+                    writer.setFieldName("amount");
+                    writer.writeInt(i * 10);
+                    writer.stepOut();
+                }
+            }
+            writer.setFieldName("id");
+            writer.writeString("duplicate");
+            writer.stepOut();
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static void assertSeeks(byte[] data, int count) throws IOException {
+        IonReader reader = IonReaderBuilder.standard().build(data);
+        FieldSeekingReader seeker = reader.asFacet(FieldSeekingReader.class);
+        assertNotNull(seeker);
+        for (int i = 0; i < count; i++) {
+            assertEquals(IonType.STRUCT, reader.next());
+            reader.stepIn();
+
+            assertEquals(1, seeker.seekField(TARGETS));
+            assertEquals(IonType.INT, reader.getType());
+            assertEquals("id", reader.getFieldName());
+            assertEquals(i, reader.intValue());
+
+            assertEquals(0, seeker.seekField(TARGETS));
+            assertEquals("total", reader.getFieldName());
+            reader.stepIn();
+            assertEquals(IonType.INT, reader.next());
+            assertEquals(i * 10, reader.intValue());
+            reader.stepOut();
+
+            assertEquals(1, seeker.seekField(TARGETS));
+            assertEquals("duplicate", reader.stringValue());
+
+            assertEquals(-1, seeker.seekField(TARGETS));
+            assertNull(reader.next());
+            reader.stepOut();
+        }
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testSeekBinary() throws Exception {
+        assertSeeks(records(true, 3), 3);
+    }
+
+    @Test
+    public void testSeekText() throws Exception {
+        assertSeeks(records(false, 3), 3);
+    }
+
+    @Test
+    public void testSeekAcrossSymbolTables() throws Exception {
+        // Each stream has its own local symbol table, so the SIDs of the targets differ.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(records(true, 2));
+        IonWriter writer = IonBinaryWriterBuilder.standard().build(out);
+        writer.stepIn(IonType.STRUCT);
+        writer.setFieldName("other");
+        writer.writeInt(0);
+        writer.setFieldName("id");
+        writer.writeInt(7);
+        writer.stepOut();
+        writer.close();
+
+        IonReader reader = IonReaderBuilder.standard().build(out.toByteArray());
+        FieldSeekingReader seeker = reader.asFacet(FieldSeekingReader.class);
+        for (int i = 0; i < 2; i++) {
+            reader.next();
+            reader.stepIn();
+            assertEquals(1, seeker.seekField(TARGETS));
+            assertEquals(i, reader.intValue());
+            reader.stepOut();
+        }
+        reader.next();
+        reader.stepIn();
+        assertEquals(1, seeker.seekField(TARGETS));
+        assertEquals(7, reader.intValue());
+        assertEquals(-1, seeker.seekField(TARGETS));
+    }
+
+    @Test
+    public void testSeekBinaryFieldIdBeyondSymbolTable() throws Exception {
+        // {$1073741824:0, name:7}; the first SID must not size the memo of matches
+        byte[] data = {
+            (byte) 0xE0, 0x01, 0x00, (byte) 0xEA,
+            (byte) 0xD9, 0x04, 0x00, 0x00, 0x00, (byte) 0x80, 0x20, (byte) 0x84, 0x21, 0x07
+        };
+        IonReader reader = IonReaderBuilder.standard().build(data);
+        FieldSeekingReader seeker = reader.asFacet(FieldSeekingReader.class);
+        reader.next();
+        reader.stepIn();
+        assertEquals(0, seeker.seekField(new String[] { "name" }));
+        assertEquals(7, reader.intValue());
+        assertEquals(-1, seeker.seekField(new String[] { "name" }));
+    }
+
+    @Test
+    public void testSeekTextSpecialFieldNames() throws Exception {
+        IonReader reader = IonReaderBuilder.standard().build(
+            "$ion_symbol_table::{symbols:[\"total\"]} {'id':1, $10:2, \"i\\x64\":3, int:4, $0:5}");
+        FieldSeekingReader seeker = reader.asFacet(FieldSeekingReader.class);
+        reader.next();
+        reader.stepIn();
+        assertEquals(1, seeker.seekField(TARGETS));
+        assertEquals(1, reader.intValue());
+        assertEquals(0, seeker.seekField(TARGETS));
+        assertEquals(2, reader.intValue());
+        assertEquals(1, seeker.seekField(TARGETS));
+        assertEquals(3, reader.intValue());
+        assertEquals(-1, seeker.seekField(TARGETS));
+    }
+
+    @Test
+    public void testSeekTextKeywordFieldNameFails() throws Exception {
+        IonReader reader = IonReaderBuilder.standard().build("{a:1, true:2}");
+        FieldSeekingReader seeker = reader.asFacet(FieldSeekingReader.class);
+        reader.next();
+        reader.stepIn();
+        try {
+            seeker.seekField(TARGETS);
+            fail("Expected IonException");
+        }
+        catch (IonException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSeekOutsideStructFails() throws Exception {
+        IonReader reader = IonReaderBuilder.standard().build("[1]");
+        FieldSeekingReader seeker = reader.asFacet(FieldSeekingReader.class);
+        reader.next();
+        reader.stepIn();
+        try {
+            seeker.seekField(TARGETS);
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.impl;
+
+import com.amazon.ion.AllocationFreeReader;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.NullValueException;
+import com.amazon.ion.Timestamp;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonReaderBuilder;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class IonReaderBinaryAllocationFreeTest {
+
+    private interface Values {
+        void write(IonWriter writer) throws IOException;
+    }
+
+    private static byte[] encode(Values values) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = IonBinaryWriterBuilder.standard().build(out);
+        values.write(writer);
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static AllocationFreeReader facet(IonReader reader) {
+        AllocationFreeReader facet = reader.asFacet(AllocationFreeReader.class);
+        assertNotNull(facet);
+        return facet;
+    }
+
+    private static String longString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append("café 😀 ");
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testStrings() throws Exception {
+        final String[] strings = { "", "hello", "naïve 日本 😀", longString(), "again" };
+        byte[] data = encode(new Values() {
+            public void write(IonWriter writer) throws IOException {
+                for (String s : strings) {
+                    writer.writeString(s);
+                }
+                writer.writeSymbol("sym");
+            }
+        });
+
+        IonReader reader = IonReaderBuilder.standard().build(new ByteArrayInputStream(data));
+        AllocationFreeReader facet = facet(reader);
+        StringBuilder builder = new StringBuilder();
+        CharBuffer buffer = CharBuffer.allocate(8192);
+        for (String s : strings) {
+            assertEquals(IonType.STRING, reader.next());
+            builder.setLength(0);
+            facet.appendStringValue(builder);
+            assertEquals(s, builder.toString());
+            buffer.clear();
+            assertEquals(s.length(), facet.putStringValue(buffer));
+            buffer.flip();
+            assertEquals(s, buffer.toString());
+            // the regular accessor works from the decoded chars
+            assertEquals(s, reader.stringValue());
+        }
+
+        assertEquals(IonType.SYMBOL, reader.next());
+        builder.setLength(0);
+        facet.appendStringValue(builder);
+        assertEquals("sym", builder.toString());
+        assertEquals(reader.symbolValue().getSid(), facet.symbolValueId());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testStringAfterRegularAccessor() throws Exception {
+        byte[] data = encode(new Values() {
+            public void write(IonWriter writer) throws IOException {
+                writer.writeString("first");
+                writer.writeString("second");
+            }
+        });
+
+        IonReader reader = IonReaderBuilder.standard().build(data);
+        AllocationFreeReader facet = facet(reader);
+        reader.next();
+        assertEquals("first", reader.stringValue());
+        StringBuilder builder = new StringBuilder();
+        facet.appendStringValue(builder);
+        assertEquals("first", builder.toString());
+        reader.next();
+        builder.setLength(0);
+        facet.appendStringValue(builder);
+        assertEquals("second", builder.toString());
+    }
+
+    @Test
+    public void testDecimals() throws Exception {
+        final BigDecimal[] decimals = {
+            BigDecimal.ZERO,
+            new BigDecimal("123.45"),
+            new BigDecimal("-987654321.000"),
+            new BigDecimal("1.5E+10"),
+            BigDecimal.valueOf(Long.MAX_VALUE, 3),
+            BigDecimal.valueOf(Long.MIN_VALUE + 1, 3),
+        };
+        byte[] data = encode(new Values() {
+            public void write(IonWriter writer) throws IOException {
+                for (BigDecimal d : decimals) {
+                    writer.writeDecimal(d);
+                }
+                writer.writeDecimal(com.amazon.ion.Decimal.negativeZero(2));
+                writer.writeDecimal(new BigDecimal(BigInteger.ONE.shiftLeft(80), 4));
+            }
+        });
+
+        IonReader reader = IonReaderBuilder.standard().build(data);
+        AllocationFreeReader facet = facet(reader);
+        for (BigDecimal d : decimals) {
+            assertEquals(IonType.DECIMAL, reader.next());
+            assertEquals(d.unscaledValue().longValue(), facet.decimalUnscaledValue());
+            assertEquals(d.scale(), facet.decimalScale());
+            assertEquals(d, reader.bigDecimalValue());
+        }
+
+        reader.next();
+        assertEquals(0, facet.decimalUnscaledValue());
+        assertEquals(2, facet.decimalScale());
+        assertEquals(true, reader.decimalValue().isNegativeZero());
+
+        reader.next();
+        assertEquals(4, facet.decimalScale());
+        try {
+            facet.decimalUnscaledValue();
+            fail("Expected ArithmeticException");
+        }
+        catch (ArithmeticException e) {
+            // expected
+        }
+        assertEquals(new BigDecimal(BigInteger.ONE.shiftLeft(80), 4), reader.bigDecimalValue());
+    }
+
+    @Test
+    public void testTimestamps() throws Exception {
+        final Timestamp[] timestamps = {
+            Timestamp.valueOf("2019T"),
+            Timestamp.valueOf("2019-07T"),
+            Timestamp.valueOf("2019-07-04"),
+            Timestamp.valueOf("2019-07-04T12:30Z"),
+            Timestamp.valueOf("2019-07-04T12:30-00:00"),
+            Timestamp.valueOf("2020-02-29T23:59:59+05:30"),
+            Timestamp.valueOf("1969-12-31T23:59:59.987654321-08:00"),
+            Timestamp.valueOf("0001-01-01T00:00:00.1Z"),
+            Timestamp.valueOf("9999-12-31T23:59:59.123456789123456789Z"),
+            Timestamp.valueOf("2000-01-01T00:00:00.000Z"),
+        };
+        byte[] data = encode(new Values() {
+            public void write(IonWriter writer) throws IOException {
+                for (Timestamp t : timestamps) {
+                    writer.writeTimestamp(t);
+                }
+            }
+        });
+
+        IonReader reader = IonReaderBuilder.standard().build(data);
+        AllocationFreeReader facet = facet(reader);
+        for (Timestamp t : timestamps) {
+            assertEquals(IonType.TIMESTAMP, reader.next());
+            assertEquals(t.getPrecision(), facet.timestampPrecision());
+            assertEquals(t.getMillis(), facet.timestampEpochMillis());
+            BigDecimal fraction = t.getZFractionalSecond();
+            assertEquals(fraction == null ? 0 : fraction.movePointRight(9).intValue(), facet.timestampNanos());
+            Integer offset = t.getLocalOffset();
+            assertEquals(offset == null ? AllocationFreeReader.UNKNOWN_OFFSET : offset.intValue(),
+                         facet.timestampLocalOffset());
+            assertEquals(t, reader.timestampValue());
+        }
+    }
+
+    @Test
+    public void testSymbolIdsAndNulls() throws Exception {
+        byte[] data = encode(new Values() {
+            public void write(IonWriter writer) throws IOException {
+                writer.stepIn(IonType.STRUCT);
+                writer.setFieldName("name");
+                writer.setTypeAnnotations("a", "b", "c");
+                writer.writeNull(IonType.STRING);
+                writer.stepOut();
+            }
+        });
+
+        IonReader reader = IonReaderBuilder.standard().build(data);
+        AllocationFreeReader facet = facet(reader);
+        reader.next();
+        assertEquals(-1, facet.getFieldId());
+        reader.stepIn();
+        reader.next();
+        assertEquals(reader.getFieldNameSymbol().getSid(), facet.getFieldId());
+
+        int[] sids = new int[2];
+        assertEquals(3, facet.getTypeAnnotationIds(sids));
+        assertEquals(reader.getTypeAnnotationSymbols()[0].getSid(), sids[0]);
+        assertEquals(reader.getTypeAnnotationSymbols()[1].getSid(), sids[1]);
+
+        try {
+            facet.appendStringValue(new StringBuilder());
+            fail("Expected NullValueException");
+        }
+        catch (NullValueException e) {
+            // expected
+        }
+        try {
+            facet.decimalScale();
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.amazon.ion.impl;
 
+import com.amazon.ion.IonException;
 import com.amazon.ion.IonReader;
 import com.amazon.ion.IonType;
 import com.amazon.ion.IonWriter;
@@ -14,9 +15,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import static com.amazon.ion.impl._Private_IonConstants.BINARY_VERSION_MARKER_1_0;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 public class IonReaderBinaryRawStringTest {
 
@@ -94,4 +100,61 @@ public class IonReaderBinaryRawStringTest {
         reader.next();
         assertEquals(longestSong, reader.stringValue());
     }
+
+    @Test
+    public void testReadStringsAcrossPageBoundaries() throws Exception {
+        // Strings of one- to four-byte characters, read from a stream, place multi-byte characters across the
+        // boundaries of the stream's pages so that both the in-page and the general decoding paths are taken.
+        String[] alphabet = { "a", "\u00e9", "\u65e5", "\uD83D\uDE00" };
+        Random random = new Random(42);
+        List<String> strings = new ArrayList<String>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = IonBinaryWriterBuilder.standard().build(out);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(i % 100 == 0 ? 10000 : 40);
+            for (int j = 0; j < length; j++) {
+                builder.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            strings.add(builder.toString());
+            writer.writeString(builder.toString());
+        }
+        writer.close();
+
+        IonReader reader = IonReaderBuilder.standard().build(new ByteArrayInputStream(out.toByteArray()));
+        for (String string : strings) {
+            assertEquals(IonType.STRING, reader.next());
+            assertEquals(string, reader.stringValue());
+        }
+        assertNull(reader.next());
+    }
+
+    private static void assertMalformed(int... utf8) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BINARY_VERSION_MARKER_1_0);
+        out.write(0x80 | (utf8.length + 1));
+        out.write('a');
+        for (int b : utf8) {
+            out.write(b);
+        }
+        IonReader reader = IonReaderBuilder.standard().build(out.toByteArray());
+        assertEquals(IonType.STRING, reader.next());
+        try {
+            reader.stringValue();
+            fail("Expected IonException");
+        }
+        catch (IonException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReadMalformedStrings() throws Exception {
+        assertMalformed(0xC3, 0x28);             // missing continuation byte
+        assertMalformed(0xC0, 0xAF);             // overlong encoding
+        assertMalformed(0xED, 0xA0, 0x80);       // UTF-16 surrogate
+        assertMalformed(0xF4, 0x90, 0x80, 0x80); // beyond U+10FFFF
+        assertMalformed(0xE6, 0x97);             // truncated sequence
+        assertMalformed(0xFF);
+    }
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.impl;
+
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonType;
+import com.amazon.ion.SpanProvider;
+import com.amazon.ion.TextSpan;
+import com.amazon.ion.system.IonReaderBuilder;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LineTrackingTest {
+
+    private static final IonReaderBuilder TRACKING = IonReaderBuilder.standard().immutable();
+    private static final IonReaderBuilder NOT_TRACKING =
+        IonReaderBuilder.standard().withLineTrackingDisabled().immutable();
+
+    private static final String TEXT =
+        "a::1 {\n  b: \"two\\\nlines\",\r\n  c: [3, 4.5,\r  '''six\n'''],\n" +
+        "  // comment\n  d: /* block\n comment */ (x y\tz),\n  e: {{ aGVsbG8= }}\n}\n" +
+        "'''long\r\n''' '''string''' 2001-02-03T\n\n\n  last";
+
+    private static String document(int copies) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < copies; i++) {
+            sb.append(TEXT).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /** The start line and column of every value, in order. */
+    private static List<String> positions(IonReader reader) {
+        List<String> positions = new ArrayList<String>();
+        collect(reader, reader.asFacet(SpanProvider.class), positions);
+        return positions;
+    }
+
+    private static void collect(IonReader reader, SpanProvider spans, List<String> positions) {
+        IonType type;
+        while ((type = reader.next()) != null) {
+            if (spans != null) {
+                TextSpan span = spans.currentSpan().asFacet(TextSpan.class);
+                positions.add(type + "@" + span.getStartLine() + ":" + span.getStartColumn());
+            }
+            if (IonType.isContainer(type)) {
+                reader.stepIn();
+                collect(reader, spans, positions);
+                reader.stepOut();
+            }
+        }
+    }
+
+    @Test
+    public void testSpansMatch() throws Exception {
+        String text = document(20);
+        List<String> expected = positions(TRACKING.build(text));
+        assertEquals(20 * 15, expected.size());
+        assertEquals("STRUCT@1:6", expected.get(1));
+        assertEquals(expected, positions(NOT_TRACKING.build(text)));
+        assertEquals(expected, positions(NOT_TRACKING.build(text.getBytes("UTF-8"))));
+        // a stream small enough to stay buffered
+        assertEquals(expected, positions(NOT_TRACKING.build(new ByteArrayInputStream(text.getBytes("UTF-8")))));
+    }
+
+    @Test
+    public void testSpansOfManyValuesMatch() throws Exception {
+        // each position is counted on from the one before, rather than from
+        // the start of the input, so this doesn't take quadratic time
+        String text = document(2000);
+        List<String> expected = positions(TRACKING.build(text));
+        assertEquals(2000 * 15, expected.size());
+        assertEquals(expected, positions(NOT_TRACKING.build(text)));
+        assertEquals(expected, positions(NOT_TRACKING.build(text.getBytes("UTF-8"))));
+    }
+
+    @Test
+    public void testLinesCountedOnMatchLinesCountedFromOrigin() throws Exception {
+        String text = "a\r\nb\rc\n\r\n\nd\r\r\n e";
+        IonReaderTextRawTokensX counted_on =
+            new IonReaderTextRawTokensX(UnifiedInputStreamX.makeStream(text));
+        counted_on.setLineTracking(false);
+        for (int position = 0; position <= text.length(); position++) {
+            IonReaderTextRawTokensX from_origin =
+                new IonReaderTextRawTokensX(UnifiedInputStreamX.makeStream(text));
+            from_origin.setLineTracking(false);
+            String message = "position " + position;
+            assertEquals(message, from_origin.getLineNumber(position), counted_on.getLineNumber(position));
+            assertEquals(message, from_origin.getLineOffset(position), counted_on.getLineOffset(position));
+        }
+    }
+
+    private static String errorMessage(IonReader reader) {
+        try {
+            collect(reader, null, null);
+            fail("Expected IonException");
+        }
+        catch (IonException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    @Test
+    public void testErrorMessagesMatch() throws Exception {
+        String text = document(3) + "{ a: 1,\n  b: ] }";
+        String expected = errorMessage(TRACKING.build(text));
+        assertTrue(expected, expected.contains(" at line "));
+        assertEquals(expected, errorMessage(NOT_TRACKING.build(text)));
+        assertEquals(expected, errorMessage(NOT_TRACKING.build(text.getBytes("UTF-8"))));
+    }
+
+    /** Reads the top-level strings, skipping other values, until one fails. */
+    private static String stringErrorMessage(IonReader reader) {
+        try {
+            IonType type;
+            while ((type = reader.next()) != null) {
+                if (type == IonType.STRING) {
+                    reader.stringValue();
+                }
+            }
+            fail("Expected IonException");
+        }
+        catch (IonException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    @Test
+    public void testErrorAtNewlineInStringMatches() throws Exception {
+        for (String newline : new String[] { "\r", "\n", "\r\n" }) {
+            // both as a string that is read and as one that is skipped
+            String read = document(3) + "\"x" + newline + "y\"";
+            String skipped = document(3) + "{ a: 1,\n  b: \"x" + newline + "y\" }";
+            for (String text : new String[] { read, skipped }) {
+                String expected = stringErrorMessage(TRACKING.build(text));
+                assertTrue(expected, expected.contains(" at line "));
+                assertEquals(expected, stringErrorMessage(NOT_TRACKING.build(text)));
+                byte[] bytes = text.getBytes("UTF-8");
+                assertEquals(expected, stringErrorMessage(NOT_TRACKING.build(bytes)));
+                assertEquals(expected, stringErrorMessage(NOT_TRACKING.build(new ByteArrayInputStream(bytes))));
+            }
+        }
+    }
+
+    @Test
+    public void testLinesUnknownOnceStreamedPast() throws Exception {
+        String text = document(500) + "{ a: 1,\n  b: ] }";
+        byte[] bytes = text.getBytes("UTF-8");
+
+        String message = errorMessage(NOT_TRACKING.build(new ByteArrayInputStream(bytes)));
+        assertFalse(message, message.contains(" at line "));
+        assertTrue(message, message.contains(" at position "));
+
+        IonReader reader = NOT_TRACKING.build(new ByteArrayInputStream(bytes));
+        for (int i = 0; i < 5 * 500; i++) {
+            reader.next();
+        }
+        TextSpan span = reader.asFacet(SpanProvider.class).currentSpan().asFacet(TextSpan.class);
+        try {
+            span.getStartLine();
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBuilder() {
+        assertTrue(IonReaderBuilder.standard().isLineTrackingEnabled());
+        assertFalse(NOT_TRACKING.isLineTrackingEnabled());
+        assertFalse(NOT_TRACKING.copy().isLineTrackingEnabled());
+        assertTrue(NOT_TRACKING.withLineTrackingEnabled().isLineTrackingEnabled());
+        try {
+            NOT_TRACKING.setLineTrackingEnabled(true);
+            fail("Expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.impl;
+
+import com.amazon.ion.IonDatagram;
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.OffsetSpan;
+import com.amazon.ion.ResettableReader;
+import com.amazon.ion.SpanProvider;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import com.amazon.ion.system.IonTextWriterBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ResettableReaderTest {
+
+    private static final IonSystem SYSTEM = IonSystemBuilder.standard().build();
+
+    /** A message whose symbols, and so local symbol table, depend on {@code i}. */
+    private static byte[] message(boolean binary, int i) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = binary
+            ? IonBinaryWriterBuilder.standard().build(out)
+            : IonTextWriterBuilder.standard().build(out);
+        for (int v = 0; v <= i % 4; v++) {
+            writer.setTypeAnnotations("m" + i);
+            writer.stepIn(IonType.STRUCT);
+            writer.setFieldName("f" + (i % 7));
+            writer.writeSymbol("s" + v);
+            writer.setFieldName("text");
+            StringBuilder text = new StringBuilder();
+            for (int c = 0; c < i * 10; c++) text.append((char) ('a' + c % 26));
+            writer.writeString(text.toString());
+            writer.setFieldName("blob");
+            writer.writeBlob(new byte[] { (byte) i, (byte) v });
+            writer.setFieldName("list");
+            writer.stepIn(IonType.LIST);
+            writer.writeInt(i);
+            writer.writeDecimal(new java.math.BigDecimal(v + ".25"));
+            writer.stepOut();
+            writer.stepOut();
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static IonDatagram readAll(IonReader reader) {
+        IonDatagram values = SYSTEM.newDatagram();
+        while (reader.next() != null) {
+            values.add(SYSTEM.newValue(reader));
+        }
+        return values;
+    }
+
+    private static void assertResets(boolean binary) throws IOException {
+        byte[] first = message(binary, 0);
+        IonReader reader = IonReaderBuilder.standard().build(first);
+        ResettableReader resettable = reader.asFacet(ResettableReader.class);
+        assertNotNull(resettable);
+
+        for (int i = 1; i < 50; i++) {
+            byte[] data = message(binary, i);
+            // Embed the data part way through a larger array.
+            byte[] padded = new byte[data.length + 10];
+            System.arraycopy(data, 0, padded, 3, data.length);
+
+            // Abandon the message part way through a value, then reread it.
+            if (i % 3 == 0) {
+                resettable.reset(padded, 3, data.length);
+                reader.next();
+                reader.stepIn();
+                reader.next();
+                reader.next();
+            }
+            resettable.reset(padded, 3, data.length);
+            IonDatagram expected = SYSTEM.getLoader().load(data);
+            assertEquals("message " + i, expected, readAll(reader));
+        }
+    }
+
+    @Test
+    public void testResetBinary() throws IOException {
+        assertResets(true);
+    }
+
+    @Test
+    public void testResetText() throws IOException {
+        assertResets(false);
+    }
+
+    @Test
+    public void testSpansAfterReset() throws IOException {
+        for (boolean binary : new boolean[] { true, false }) {
+            byte[] data = message(binary, 5);
+            byte[] padded = new byte[data.length + 7];
+            System.arraycopy(data, 0, padded, 7, data.length);
+
+            IonReader fresh = IonReaderBuilder.standard().build(padded, 7, data.length);
+            fresh.next();
+            fresh.next();
+            OffsetSpan expected = fresh.asFacet(SpanProvider.class)
+                                       .currentSpan()
+                                       .asFacet(OffsetSpan.class);
+
+            IonReader reader = IonReaderBuilder.standard().build(message(binary, 2));
+            reader.next();
+            reader.asFacet(ResettableReader.class).reset(padded, 7, data.length);
+            reader.next();
+            reader.next();
+            OffsetSpan actual = reader.asFacet(SpanProvider.class)
+                                      .currentSpan()
+                                      .asFacet(OffsetSpan.class);
+            assertEquals(expected.getStartOffset(), actual.getStartOffset());
+            assertEquals(expected.getFinishOffset(), actual.getFinishOffset());
+        }
+    }
+
+    private static void assertResetFails(IonReader reader, byte[] data) {
+        try {
+            reader.asFacet(ResettableReader.class).reset(data, 0, data.length);
+            fail("Expected IonException");
+        }
+        catch (IonException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testResetToOtherFormatFails() throws IOException {
+        byte[] binary = message(true, 1);
+        byte[] text = message(false, 1);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+        gzip.write(binary);
+        gzip.close();
+
+        assertResetFails(IonReaderBuilder.standard().build(binary), text);
+        assertResetFails(IonReaderBuilder.standard().build(binary), gzipped.toByteArray());
+        assertResetFails(IonReaderBuilder.standard().build(text), binary);
+        assertResetFails(IonReaderBuilder.standard().build(text), gzipped.toByteArray());
+    }
+
+    @Test
+    public void testUnavailableForStreamsAndChars() throws IOException {
+        byte[] binary = message(true, 1);
+        assertNull(IonReaderBuilder.standard()
+                                   .build(new ByteArrayInputStream(binary))
+                                   .asFacet(ResettableReader.class));
+        assertNull(IonReaderBuilder.standard()
+                                   .build("{a:1}")
+                                   .asFacet(ResettableReader.class));
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.impl;
+
+import com.amazon.ion.IonDatagram;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.ResettableWriter;
+import com.amazon.ion.SymbolTable;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import com.amazon.ion.system.IonTextWriterBuilder;
+import com.amazon.ion.system.IonWriterBuilder;
+import com.amazon.ion.system.SimpleCatalog;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResettableWriterTest {
+
+    private static final SimpleCatalog CATALOG = new SimpleCatalog();
+    private static final IonSystem SYSTEM = IonSystemBuilder.standard().withCatalog(CATALOG).build();
+    private static final SymbolTable SHARED =
+        SYSTEM.newSharedSymbolTable("shared", 1, Arrays.asList("s0", "s1", "f3").iterator());
+    static {
+        CATALOG.putTable(SHARED);
+    }
+
+    /** Writes a message whose symbols depend on {@code i}. */
+    private static void writeMessage(IonWriter writer, int i) throws IOException {
+        for (int v = 0; v <= i % 3; v++) {
+            writer.setTypeAnnotations("m" + i);
+            writer.stepIn(IonType.STRUCT);
+            writer.setFieldName("f" + (i % 5));
+            writer.writeSymbol("s" + v);
+            writer.setFieldName("text");
+            StringBuilder text = new StringBuilder();
+            for (int c = 0; c < i * 20; c++) text.append((char) ('a' + c % 26));
+            writer.writeString(text.toString());
+            writer.setFieldName("list");
+            writer.stepIn(IonType.LIST);
+            writer.writeInt(i);
+            writer.writeDecimal(new BigDecimal(v + ".5"));
+            writer.writeString("'''");
+            writer.stepOut();
+            writer.stepOut();
+        }
+    }
+
+    /** Writes half of a message, leaving a container open. */
+    private static void writePartialMessage(IonWriter writer) throws IOException {
+        writer.writeSymbol("abandoned");
+        writer.setTypeAnnotations("partial");
+        writer.stepIn(IonType.STRUCT);
+        writer.setFieldName("f");
+        writer.stepIn(IonType.SEXP);
+        writer.writeSymbol("x");
+        writer.setTypeAnnotations("pending");
+    }
+
+    private static byte[] newWriterOutput(IonWriterBuilder builder, int i) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = builder.build(out);
+        writeMessage(writer, i);
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private static void assertResetsAsNew(IonWriterBuilder builder) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = builder.build(out);
+        ResettableWriter resettable = writer.asFacet(ResettableWriter.class);
+        assertNotNull(resettable);
+        writeMessage(writer, 0);
+        resettable.reset(new ByteArrayOutputStream());
+        assertArrayEquals(newWriterOutput(builder, 0), out.toByteArray());
+
+        for (int i = 1; i < 30; i++) {
+            ByteArrayOutputStream previous = out;
+            if (i % 4 == 0) {
+                writePartialMessage(writer);
+            }
+            out = new ByteArrayOutputStream();
+            resettable.reset(out);
+            if (i % 4 == 0) {
+                // Only the value left open is lost.
+                IonDatagram expected = load(newWriterOutput(builder, i - 1));
+                expected.add().newSymbol("abandoned");
+                assertEquals("message " + (i - 1), expected, load(previous.toByteArray()));
+            }
+            writeMessage(writer, i);
+            writer.finish();
+            assertArrayEquals("message " + i, newWriterOutput(builder, i), out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testBinaryResetsAsNew() throws IOException {
+        SymbolTable initial = SYSTEM.newLocalSymbolTable(SHARED);
+        initial.intern("initial");
+        assertResetsAsNew(IonBinaryWriterBuilder.standard());
+        assertResetsAsNew(IonBinaryWriterBuilder.standard().withImports(SHARED));
+        assertResetsAsNew(IonBinaryWriterBuilder.standard().withInitialSymbolTable(initial));
+        assertResetsAsNew(IonBinaryWriterBuilder.standard().withMaxLocalSymbols(4));
+    }
+
+    @Test
+    public void testTextResetsAsNew() throws IOException {
+        assertResetsAsNew(IonTextWriterBuilder.standard());
+        assertResetsAsNew(IonTextWriterBuilder.pretty().withImports(SHARED));
+        assertResetsAsNew(IonTextWriterBuilder.standard().withCharsetAscii().withLongStringThreshold(10));
+        assertResetsAsNew(IonTextWriterBuilder.minimal().withImports(SHARED));
+    }
+
+    private static IonDatagram load(byte[] data) {
+        return SYSTEM.getLoader().load(data);
+    }
+
+    private static IonDatagram expectedMessage(int i) throws IOException {
+        return load(newWriterOutput(IonTextWriterBuilder.standard(), i));
+    }
+
+    private static void assertRetainsLocalSymbols(IonWriterBuilder builder) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = builder.build(out);
+        ResettableWriter resettable = writer.asFacet(ResettableWriter.class);
+        writeMessage(writer, 2);
+        int sid = writer.getSymbolTable().findSymbol("m2");
+        assertTrue(sid > SHARED.getMaxId());
+
+        for (int i = 3; i < 8; i++) {
+            ByteArrayOutputStream previous = out;
+            // The reset finishes the previous message, keeping its symbols.
+            resettable.reset(out = new ByteArrayOutputStream(), true);
+            assertEquals(expectedMessage(i - 1), load(previous.toByteArray()));
+            assertEquals(sid, writer.getSymbolTable().findSymbol("m2"));
+            writeMessage(writer, i);
+        }
+
+        // A retained symbol is declared in the new stream, even if it's the only one used.
+        resettable.reset(out = new ByteArrayOutputStream(), true);
+        writer.writeSymbol("m2");
+        writer.finish();
+        IonReader reader = IonReaderBuilder.standard().withCatalog(CATALOG).build(out.toByteArray());
+        assertEquals(IonType.SYMBOL, reader.next());
+        assertEquals("m2", reader.stringValue());
+        assertEquals(sid, reader.symbolValue().getSid());
+
+        writeMessage(writer, 8);
+        resettable.reset(out = new ByteArrayOutputStream(), false);
+        assertEquals(-1, writer.getSymbolTable().findSymbol("m8"));
+        writeMessage(writer, 9);
+        writer.finish();
+        assertEquals(expectedMessage(9), load(out.toByteArray()));
+    }
+
+    @Test
+    public void testBinaryRetainsLocalSymbols() throws IOException {
+        assertRetainsLocalSymbols(IonBinaryWriterBuilder.standard().withImports(SHARED));
+        assertRetainsLocalSymbols(IonBinaryWriterBuilder.standard()
+                                                        .withImports(SHARED)
+                                                        .withLocalSymbolTableAppendEnabled());
+    }
+
+    @Test
+    public void testTextRetainsLocalSymbols() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = IonTextWriterBuilder.standard().withImports(SHARED).build(out);
+        writer.getSymbolTable().intern("local");
+        SymbolTable symbols = writer.getSymbolTable();
+
+        writer.asFacet(ResettableWriter.class).reset(out = new ByteArrayOutputStream(), true);
+        assertEquals(symbols, writer.getSymbolTable());
+        writer.writeSymbol("local");
+        writer.finish();
+        IonReader reader = IonReaderBuilder.standard().withCatalog(CATALOG).build(out.toByteArray());
+        assertEquals(IonType.SYMBOL, reader.next());
+        assertEquals(symbols.findSymbol("local"), reader.getSymbolTable().findSymbol("local"));
+
+        writer.asFacet(ResettableWriter.class).reset(out = new ByteArrayOutputStream(), false);
+        assertEquals(-1, writer.getSymbolTable().findSymbol("local"));
+    }
+
+    @Test
+    public void testUnavailableForChannelsAndClosedWriters() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertNull(IonBinaryWriterBuilder.standard()
+                                         .build(Channels.newChannel(out))
+                                         .asFacet(ResettableWriter.class));
+        assertNull(IonTextWriterBuilder.standard()
+                                       .build(new StringBuilder())
+                                       .asFacet(ResettableWriter.class));
+
+        for (IonWriterBuilder builder : new IonWriterBuilder[] { IonBinaryWriterBuilder.standard(),
+                                                                 IonTextWriterBuilder.standard() }) {
+            IonWriter writer = builder.build(out);
+            ResettableWriter resettable = writer.asFacet(ResettableWriter.class);
+            writer.close();
+            try {
+                resettable.reset(new ByteArrayOutputStream());
+                fail("Expected IllegalStateException");
+            }
+            catch (IllegalStateException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.impl;
+
+import com.amazon.ion.Decimal;
+import com.amazon.ion.IntegerSize;
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonType;
+import com.amazon.ion.system.IonReaderBuilder;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that the text reader's ints, decimals and floats, which it builds
+ * from digits accumulated as it scans them when they're small enough,
+ * are those given by parsing their text with {@link BigInteger},
+ * {@link BigDecimal} and {@link Double#parseDouble(String)}.
+ */
+public class TextNumberParsingTest {
+
+    private static final String[] EDGE_CASES = {
+        "0", "-0", "7", "-7", "1_000", "-1_2_3",
+        "2147483647", "2147483648", "-2147483648", "-2147483649",
+        "999999999999999999", "-999999999999999999", "1000000000000000000",
+        "9223372036854775807", "-9223372036854775808", "9223372036854775808",
+        "123456789012345678901234567890",
+        "0.", "-0.", "0.0", "-0.0", "0.000", "-0d-3", "0d5", "1.", "1.50", "1_0.2_5",
+        "0.000000000000000000000000123", "123456789012345678.9", "12345678901234567.8",
+        "1d2", "1D-2", "1d+2", "-1.5d-7", "1d999999999", "1d-999999999", "1d1234567890",
+        "0e0", "-0e0", "0.0e0", "1e0", "1e22", "1e23", "1e-22", "1e-23", "-1E+3",
+        "9007199254740992e0", "9007199254740993e0", "123456789012345678e-22",
+        "0.1e1", "3.14159e0", "2.2250738585072014e-308", "1.7976931348623157e308",
+        "4.9e-324", "1e400", "1e-400", "1_1.2_2e1_0",
+    };
+
+    private static void assertNumber(String text, IonReader reader) {
+        String plain = text.replace("_", "");
+        IonType type = reader.next();
+        if (plain.indexOf('e') >= 0 || plain.indexOf('E') >= 0) {
+            assertEquals(text, IonType.FLOAT, type);
+            double expected = Double.parseDouble(plain);
+            assertEquals(text, Double.doubleToRawLongBits(expected),
+                         Double.doubleToRawLongBits(reader.doubleValue()));
+        }
+        else if (plain.indexOf('.') >= 0 || plain.indexOf('d') >= 0 || plain.indexOf('D') >= 0) {
+            assertEquals(text, IonType.DECIMAL, type);
+            BigDecimal expected = new BigDecimal(plain.replace('d', 'e').replace('D', 'e'));
+            Decimal actual = reader.decimalValue();
+            assertEquals(text, expected.unscaledValue(), actual.unscaledValue());
+            assertEquals(text, expected.scale(), actual.scale());
+            assertEquals(text, plain.startsWith("-") && expected.signum() == 0,
+                         Decimal.isNegativeZero(actual));
+        }
+        else {
+            assertEquals(text, IonType.INT, type);
+            BigInteger expected = new BigInteger(plain);
+            IntegerSize size = reader.getIntegerSize();
+            if (expected.bitLength() < 32) {
+                assertEquals(text, IntegerSize.INT, size);
+            }
+            else if (expected.bitLength() < 64) {
+                assertEquals(text, IntegerSize.LONG, size);
+            }
+            else {
+                assertEquals(text, IntegerSize.BIG_INTEGER, size);
+            }
+            assertEquals(text, expected, reader.bigIntegerValue());
+        }
+    }
+
+    private static void assertNumbers(List<String> numbers) throws Exception {
+        StringBuilder list = new StringBuilder();
+        StringBuilder sexp = new StringBuilder("(");
+        for (String text : numbers) {
+            list.append(text).append(' ');
+            sexp.append(text).append(')').append('(');
+        }
+        sexp.append(')');
+        String data = list.toString();
+        IonReader[] readers = {
+            IonReaderBuilder.standard().build(data),
+            IonReaderBuilder.standard().build(data.getBytes("UTF-8")),
+        };
+        for (IonReader reader : readers) {
+            for (String text : numbers) {
+                assertNumber(text, reader);
+            }
+            assertNull(reader.next());
+        }
+        // numbers ending at a delimiter rather than whitespace
+        IonReader reader = IonReaderBuilder.standard().build(sexp.toString().getBytes("UTF-8"));
+        for (String text : numbers) {
+            reader.next();
+            reader.stepIn();
+            assertNumber(text, reader);
+            reader.stepOut();
+        }
+    }
+
+    @Test
+    public void testEdgeCases() throws Exception {
+        List<String> numbers = new ArrayList<String>();
+        for (String text : EDGE_CASES) {
+            numbers.add(text);
+        }
+        assertNumbers(numbers);
+    }
+
+    private static String randomDigits(Random random, int max) {
+        int length = 1 + random.nextInt(max);
+        StringBuilder digits = new StringBuilder();
+        digits.append((char) ('1' + random.nextInt(9)));
+        for (int i = 1; i < length; i++) {
+            if (random.nextInt(10) == 0) {
+                digits.append('_');
+            }
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        return random.nextInt(8) == 0 ? "0" : digits.toString();
+    }
+
+    @Test
+    public void testRandomNumbers() throws Exception {
+        Random random = new Random(22);
+        List<String> numbers = new ArrayList<String>();
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder text = new StringBuilder();
+            if (random.nextBoolean()) {
+                text.append('-');
+            }
+            text.append(randomDigits(random, 22));
+            switch (i % 3) {
+            case 0:
+                break;
+            case 1:
+                text.append('.').append(randomDigits(random, 12).replace("_", ""));
+                if (random.nextBoolean()) {
+                    text.append('d').append(random.nextInt(60) - 30);
+                }
+                break;
+            default:
+                if (random.nextBoolean()) {
+                    text.append('.').append(randomDigits(random, 10).replace("_", ""));
+                }
+                text.append('e').append(random.nextInt(80) - 40);
+            }
+            numbers.add(text.toString());
+        }
+        assertNumbers(numbers);
+    }
+
+    @Test
+    public void testMalformedNumbersStillFail() throws Exception {
+        String[] malformed = { "1_", "1__0", "01", "-01", "1e", "1d", "1d-", "1.2.3", "1_.5", "1x" };
+        for (String text : malformed) {
+            try {
+                IonReader reader = IonReaderBuilder.standard().build(text.getBytes("UTF-8"));
+                reader.next();
+                reader.bigDecimalValue();
+                fail("Expected IonException for " + text);
+            }
+            catch (IonException e) {
+                // expected
+            }
+            catch (NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.impl;
+
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonType;
+import com.amazon.ion.SpanProvider;
+import com.amazon.ion.TextSpan;
+import com.amazon.ion.system.IonReaderBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the text reader's skipping of containers and strings that aren't
+ * read, much of which is done in bulk over its input pages.
+ */
+public class TextSkipTest {
+
+    /** Values that may trip up a skipper. */
+    private static final String[] VALUES = {
+        "a", "1", "-2.5e3", "2001-01-01T", "null.struct", "+inf", "'quoted'", "'q\\'t'",
+        "\"s\"", "\"}])\"", "\"\\\"\\\\\"", "\"\\\n\"", "'''long'''", "'''l}\\'''' '''ong'''",
+        "\"é日😀\"", "'é)'", "symé", "'''é]\n'''",
+        "{{ aGVsbG8= }}", "{{ \"c}\" }}", "{{ '''c''' }}", "{}", "[]", "()", "(a/b)", "(a / b)",
+    };
+
+    /** Whitespace and comments, which may come before any value. */
+    private static final String[] FILLERS = {
+        "", " ", "\n", "\r\n", "\r", "\t", "/* } ] ) ' \" */", "// } ] ) ' \"\n",
+    };
+
+    private static void appendContainer(StringBuilder sb, Random random, int depth) {
+        int kind = random.nextInt(3);
+        sb.append(kind == 0 ? "{" : kind == 1 ? "[" : "(");
+        int count = random.nextInt(8);
+        for (int i = 0; i < count; i++) {
+            if (kind == 0) {
+                sb.append(random.nextBoolean() ? "'f}'" : "f").append(':');
+            }
+            if (depth < 4 && random.nextInt(4) == 0) {
+                appendContainer(sb, random, depth + 1);
+            }
+            else {
+                sb.append(FILLERS[random.nextInt(FILLERS.length)]);
+                sb.append(VALUES[random.nextInt(VALUES.length)]);
+            }
+            sb.append(kind == 2 ? " " : ",");
+        }
+        sb.append(kind == 0 ? "}" : kind == 1 ? "]" : ")");
+    }
+
+    /** A document whose top-level values alternate between containers and marked ints. */
+    private static String document(int containers) {
+        Random random = new Random(23);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < containers; i++) {
+            appendContainer(sb, random, 0);
+            sb.append("\nmark::").append(i).append(random.nextBoolean() ? "\r\n" : " ");
+        }
+        return sb.toString();
+    }
+
+    private static InputStream trickle(byte[] data, final int chunk) {
+        return new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    /** Skips each container, checking the int after it and the line it's on. */
+    private static void assertSkips(String text, IonReader reader) {
+        int containers = 0;
+        int pos = 0;
+        int line = 1;
+        IonType type;
+        while ((type = reader.next()) != null) {
+            if (IonType.isContainer(type)) {
+                continue;
+            }
+            assertEquals(IonType.INT, type);
+            assertEquals(containers, reader.intValue());
+
+            // find the int in the text to work out its line
+            String image = "\nmark::" + containers;
+            int found = text.indexOf(image, pos);
+            for (int i = pos; i <= found; i++) {
+                char c = text.charAt(i);
+                if (c == '\n' || (c == '\r' && text.charAt(i + 1) != '\n')) {
+                    line++;
+                }
+            }
+            pos = found + 1;
+            TextSpan span = reader.asFacet(SpanProvider.class).currentSpan().asFacet(TextSpan.class);
+            assertEquals("int " + containers, line, span.getStartLine());
+            assertEquals("int " + containers, 1, span.getStartColumn());
+            containers++;
+        }
+        assertEquals(500, containers);
+    }
+
+    @Test
+    public void testSkipContainers() throws Exception {
+        String text = document(500);
+        byte[] bytes = text.getBytes("UTF-8");
+        assertSkips(text, IonReaderBuilder.standard().build(text));
+        assertSkips(text, IonReaderBuilder.standard().build(bytes));
+        for (int chunk : new int[] { 1, 3, 7, 4096 }) {
+            assertSkips(text, IonReaderBuilder.standard().build(trickle(bytes, chunk)));
+        }
+    }
+
+    @Test
+    public void testSkipStringsAndStructFields() throws Exception {
+        String text = "{ a: \"x}\\\"y\", b: 'p\\'q', c: '''r''' '''s''', d: [1], e: 5 } 6";
+        IonReader reader = IonReaderBuilder.standard().build(text.getBytes("UTF-8"));
+        reader.next();
+        reader.stepIn();
+        for (String name : new String[] { "a", "b", "c", "d" }) {
+            reader.next();
+            assertEquals(name, reader.getFieldName());
+        }
+        assertEquals(IonType.INT, reader.next());
+        assertEquals(5, reader.intValue());
+        reader.stepOut();
+        assertEquals(IonType.INT, reader.next());
+        assertEquals(6, reader.intValue());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testUnterminatedContainersStillFail() throws Exception {
+        String[] unterminated = { "[1, \"]\"", "{a: '}'", "(a /* ) */", "[ '''a]''' ", "[\"a" };
+        for (String text : unterminated) {
+            IonReader reader = IonReaderBuilder.standard().build(text.getBytes("UTF-8"));
+            try {
+                reader.next();
+                reader.next();
+                fail("Expected IonException for " + text);
+            }
+            catch (IonException e) {
+                // expected
+            }
+        }
+    }
+}
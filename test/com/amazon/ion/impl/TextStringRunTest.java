@@ -0,0 +1,156 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.impl;
+
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonTextWriterBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the text scanner's reading of plain runs of strings and symbols
+ * straight from its input pages, which must agree with its reading of
+ * escapes, newlines and malformed input a character at a time.
+ */
+public class TextStringRunTest {
+
+    private static final String[] PIECES = {
+        "a", "Z", "_", "$", "0", " ", "  ", "\t", "\n", "'", "''", "\"", "\\", "/",
+        "\u0001", "\u007f", "\u00e9", "\u00ff", "\u0100", "\u65e5\u672c", "\ud83d\ude00", "plain text",
+    };
+
+    private static String randomString(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(40);
+        for (int i = 0; i < length; i++) {
+            sb.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        return sb.toString();
+    }
+
+    /** Reads the given number of bytes at a time, so that pages end at awkward places. */
+    private static InputStream trickle(byte[] data, final int chunk) {
+        return new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    private static void assertValues(List<String> expected, IonReader reader) {
+        for (String text : expected) {
+            if (reader.next() == IonType.STRUCT) {
+                assertEquals(text, reader.getTypeAnnotations()[0]);
+                reader.stepIn();
+                reader.next();
+                assertEquals(text, reader.getFieldName());
+                reader.stepOut();
+            }
+            else {
+                assertEquals(text, reader.stringValue());
+            }
+        }
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testStringsAndSymbols() throws IOException {
+        Random random = new Random(21);
+        List<String> expected = new ArrayList<String>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = IonTextWriterBuilder.standard().withLongStringThreshold(30).build(out);
+        for (int i = 0; i < 2000; i++) {
+            String text = randomString(random);
+            expected.add(text);
+            switch (i % 4) {
+            case 0:
+                writer.writeString(text);
+                break;
+            case 1:
+                writer.writeSymbol(text);
+                break;
+            case 2:
+                writer.addTypeAnnotation(text);
+                writer.stepIn(IonType.STRUCT);
+                writer.setFieldName(text);
+                writer.writeNull();
+                writer.stepOut();
+                break;
+            default:
+                // an unquoted identifier
+                expected.set(i, text = "id" + i);
+                writer.writeSymbol(text);
+            }
+        }
+        writer.close();
+        byte[] data = out.toByteArray();
+        String chars = new String(data, "UTF-8");
+
+        assertValues(expected, IonReaderBuilder.standard().build(data));
+        assertValues(expected, IonReaderBuilder.standard().build(chars));
+        for (int chunk : new int[] { 1, 2, 3, 5, 4096 }) {
+            assertValues(expected, IonReaderBuilder.standard().build(trickle(data, chunk)));
+        }
+    }
+
+    @Test
+    public void testLongStringsAndEscapedSurrogates() throws IOException {
+        String text = "'''caf\u00e9 ''' '''\\ud83d\\ude00 x\u00e9\ud83d\ude00\n''' " +
+                      "\"\\ud83d\\ude00\u00e9\" '\\u00e9\u00e9\\\nx'";
+        IonReader reader = IonReaderBuilder.standard().build(text.getBytes("UTF-8"));
+        reader.next();
+        assertEquals("caf\u00e9 \ud83d\ude00 x\u00e9\ud83d\ude00\n", reader.stringValue());
+        reader.next();
+        assertEquals("\ud83d\ude00\u00e9", reader.stringValue());
+        reader.next();
+        assertEquals("\u00e9\u00e9x", reader.stringValue());
+    }
+
+    private static void assertMalformed(IonReader reader) {
+        try {
+            reader.next();
+            reader.stringValue();
+            fail("Expected IonException");
+        }
+        catch (IonException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMalformedInputStillFails() throws IOException {
+        assertMalformed(IonReaderBuilder.standard().build("\"a\ud83db\""));
+        assertMalformed(IonReaderBuilder.standard().build("\"a\\ud83db\""));
+        assertMalformed(IonReaderBuilder.standard().build("\"a\u0001b\"".getBytes("UTF-8")));
+        assertMalformed(IonReaderBuilder.standard().build("'a\nb'".getBytes("UTF-8")));
+        assertMalformed(IonReaderBuilder.standard().build("\"abc".getBytes("UTF-8")));
+    }
+}
@@ -15,11 +15,25 @@
 
 package com.amazon.ion.impl;
 
+import com.amazon.ion.IonDatagram;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 
 public class UnifiedInputStreamXTest extends Assert {
@@ -61,4 +75,79 @@ public class UnifiedInputStreamXTest extends Assert {
 
         assertArrayEquals(expected, actual);
     }
+
+    @Test
+    public void testDirectBufferReadInPlace() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(10);
+        buffer.put(new byte[] { 9, 9, 9, 1, 2, 3, 4, 5, 6, 7 });
+        buffer.position(3);
+        UnifiedInputStreamX uix = UnifiedInputStreamX.makeBinaryStream(buffer);
+        assertEquals(3, buffer.position());
+
+        // a change made after the stream is built is seen, so nothing was copied
+        buffer.put(4, (byte) 0x20);
+        assertEquals(1, uix.read());
+        assertEquals(0x20, uix.read());
+        assertEquals(2, uix.getPosition());
+        byte[] actual = new byte[10];
+        assertEquals(5, uix.read(actual, 0, actual.length));
+        assertArrayEquals(new byte[] { 3, 4, 5, 6, 7 }, Arrays.copyOf(actual, 5));
+        assertEquals(UnifiedInputStreamX.EOF, uix.read());
+    }
+
+    private static final IonSystem SYSTEM = IonSystemBuilder.standard().build();
+
+    private static byte[] binaryValues() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = IonBinaryWriterBuilder.standard().build(out);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            // annotations are read through save points, which keep pages
+            writer.setTypeAnnotations("a" + (i % 7));
+            writer.stepIn(IonType.STRUCT);
+            writer.setFieldName("id");
+            writer.writeInt(i * 7919L);
+            writer.setFieldName("text");
+            text.append(i % 2 == 0 ? 'x' : '\u00e9').append(i % 3 == 0 ? "\u20ac" : "");
+            writer.writeString(text.toString());
+            writer.setFieldName("blob");
+            writer.writeBlob(new byte[i % 20]);
+            writer.stepOut();
+            writer.writeDecimal(new java.math.BigDecimal(i + ".25"));
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testMappedFileAcrossSegments() throws Exception {
+        byte[] data = binaryValues();
+        byte[] prefixed = new byte[data.length + 3];
+        System.arraycopy(data, 0, prefixed, 3, data.length);
+        File file = File.createTempFile("UnifiedInputStreamXTest", ".10n");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(prefixed);
+        }
+        finally {
+            out.close();
+        }
+        IonDatagram expected = SYSTEM.getLoader().load(data);
+
+        // segments smaller than many values, and than some strings
+        for (long segmentSize : new long[] { 11, 97, 1000, data.length }) {
+            FileChannel channel = new RandomAccessFile(file, "r").getChannel();
+            channel.position(3);
+            UnifiedInputStreamX uix = UnifiedInputStreamX.makeBinaryStream(channel, segmentSize);
+            IonReader reader = new IonReaderBinaryUserX(SYSTEM.getCatalog(), LocalSymbolTable.DEFAULT_LST_FACTORY, uix, 0);
+            IonDatagram actual = SYSTEM.newDatagram();
+            while (reader.next() != null) {
+                actual.add(SYSTEM.newValue(reader));
+            }
+            reader.close();
+            assertEquals("segment size " + segmentSize, expected, actual);
+            assertFalse(channel.isOpen());
+        }
+    }
 }
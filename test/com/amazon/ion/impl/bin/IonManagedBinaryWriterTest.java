@@ -413,4 +413,304 @@ public class IonManagedBinaryWriterTest extends IonRawBinaryWriterTest
         bos.toByteArray();
 
     }
+
+    private static byte[] writeNested(final _Private_IonManagedBinaryWriterBuilder builder) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final IonWriter writer = builder.withUserBlockSize(11).newWriter(out);
+        for (int i = 0; i < 20; i++)
+        {
+            writer.setTypeAnnotations("annotation");
+            writer.stepIn(IonType.STRUCT);
+            // alternate structs, at even depths, and lists
+            for (int depth = 1; depth <= i; depth++)
+            {
+                if (depth % 2 == 1)
+                {
+                    writer.setFieldName("field");
+                }
+                writer.stepIn(depth % 2 == 0 ? IonType.STRUCT : IonType.LIST);
+            }
+            for (int depth = i; depth >= 0; depth--)
+            {
+                if (depth % 2 == 0)
+                {
+                    writer.setFieldName("value");
+                }
+                writer.writeString("value at depth " + depth);
+                writer.stepOut();
+            }
+        }
+        // long enough to be side patched rather than compacted
+        writer.stepIn(IonType.SEXP);
+        for (int i = 0; i < IonRawBinaryWriter.COMPACTION_LIMIT / 4; i++)
+        {
+            writer.writeInt(Integer.MAX_VALUE);
+        }
+        writer.stepIn(IonType.LIST);
+        writer.stepOut();
+        writer.stepOut();
+        writer.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testCompactedLengthPreallocation() throws Exception
+    {
+        final _Private_IonManagedBinaryWriterBuilder builder =
+            _Private_IonManagedBinaryWriterBuilder.create(new PooledBlockAllocatorProvider());
+        final byte[] unpadded = writeNested(builder.copy().withPaddedLengthPreallocation(0));
+        final byte[] compacted = writeNested(builder.copy().withCompactedLengthPreallocation());
+        assertArrayEquals(unpadded, compacted);
+    }
+
+    private static byte[] writeRecords(final _Private_IonManagedBinaryWriterBuilder builder,
+                                       final int count,
+                                       final String tag) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final IonWriter writer = builder.newWriter(out);
+        for (int i = 0; i < count; i++)
+        {
+            writer.setTypeAnnotations("record");
+            writer.stepIn(IonType.STRUCT);
+            writer.setFieldName("id");
+            writer.writeInt(i);
+            writer.setFieldName("tags");
+            writer.stepIn(IonType.LIST);
+            writer.writeString(tag);
+            writer.writeString(tag);
+            writer.stepOut();
+            writer.stepOut();
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    /** Returns the size of the given number of records beyond the first ten. */
+    private static int recordsSize(final _Private_IonManagedBinaryWriterBuilder builder,
+                                   final int count,
+                                   final String tag) throws IOException
+    {
+        return writeRecords(builder.copy(), 10 + count, tag).length - writeRecords(builder.copy(), 10, tag).length;
+    }
+
+    @Test
+    public void testAdaptiveLengthPreallocation() throws Exception
+    {
+        final _Private_IonManagedBinaryWriterBuilder builder =
+            _Private_IonManagedBinaryWriterBuilder.create(new PooledBlockAllocatorProvider());
+        final _Private_IonManagedBinaryWriterBuilder adaptive = builder.copy().withAdaptiveLengthPreallocation();
+        for (final String tag : new String[] { "", "medium sized tag", "long tag, long enough to need two bytes of length "
+            + "once both tags are in the list, which makes the whole record take more than one hundred bytes" })
+        {
+            final byte[] adaptiveBytes = writeRecords(adaptive.copy(), 10, tag);
+            final byte[] unpaddedBytes = writeRecords(builder.copy().withPaddedLengthPreallocation(0), 10, tag);
+            assertEquals(system().getLoader().load(unpaddedBytes), system().getLoader().load(adaptiveBytes));
+
+            // once learned, the records are written with the least padding that avoids side patches
+            final int expectedSize;
+            if (tag.length() == 0)
+            {
+                expectedSize = recordsSize(builder.copy().withPaddedLengthPreallocation(0), 10, tag);
+            }
+            else if (tag.length() < 32)
+            {
+                expectedSize = recordsSize(builder.copy().withPaddedLengthPreallocation(1), 10, tag);
+            }
+            else
+            {
+                expectedSize = recordsSize(builder.copy().withPaddedLengthPreallocation(2), 10, tag);
+            }
+            assertEquals(expectedSize, recordsSize(adaptive, 10, tag));
+        }
+    }
+
+    @Test
+    public void testMaxLocalSymbols() throws Exception
+    {
+        final int maxLocalSymbols = 20;
+        final int systemMaxId = system().getSystemSymbolTable().getMaxId();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final IonWriter writer = _Private_IonManagedBinaryWriterBuilder
+            .create(new PooledBlockAllocatorProvider())
+            .withMaxLocalSymbols(maxLocalSymbols)
+            .newWriter(out);
+        final IonDatagram expected = system().newDatagram();
+        int resets = 0;
+        int previousLocalSymbols = 0;
+        for (int i = 0; i < 200; i++)
+        {
+            // every record declares one new symbol
+            writer.stepIn(IonType.STRUCT);
+            writer.setFieldName("id");
+            writer.writeInt(i);
+            writer.setFieldName("kind");
+            writer.writeSymbol("kind" + i);
+            writer.stepOut();
+            final IonStruct record = system().newEmptyStruct();
+            record.add("id", system().newInt(i));
+            record.add("kind", system().newSymbol("kind" + i));
+            expected.add(record);
+
+            final SymbolTable symbolTable = writer.getSymbolTable();
+            final int localSymbols = symbolTable.getMaxId() - systemMaxId;
+            assertTrue(localSymbols <= maxLocalSymbols);
+            if (localSymbols < previousLocalSymbols)
+            {
+                resets++;
+            }
+            previousLocalSymbols = localSymbols;
+            // the field names survive resets, and keep their IDs
+            assertEquals(systemMaxId + 1, symbolTable.findSymbol("id"));
+        }
+        writer.close();
+        assertTrue(resets > 1);
+        assertEquals(expected, system().getLoader().load(out.toByteArray()));
+    }
+
+    @Test
+    public void testMaxLocalSymbolsRetainsMostUsed() throws Exception
+    {
+        final int maxLocalSymbols = 20;
+        final int systemMaxId = system().getSystemSymbolTable().getMaxId();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final IonWriter writer = _Private_IonManagedBinaryWriterBuilder
+            .create(new PooledBlockAllocatorProvider())
+            .withMaxLocalSymbols(maxLocalSymbols)
+            .newWriter(out);
+        final IonDatagram expected = system().newDatagram();
+
+        // more symbols used twice than can be retained, ahead of those used in every record
+        writer.stepIn(IonType.STRUCT);
+        final IonStruct warmUp = system().newEmptyStruct();
+        for (int i = 0; i < 12; i++)
+        {
+            writer.setFieldName("warm" + i);
+            writer.writeSymbol("warm" + i);
+            warmUp.add("warm" + i, system().newSymbol("warm" + i));
+        }
+        writer.stepOut();
+        expected.add(warmUp);
+
+        int resets = 0;
+        int previousLocalSymbols = 0;
+        for (int i = 0; i < 100; i++)
+        {
+            writer.stepIn(IonType.STRUCT);
+            final IonStruct record = system().newEmptyStruct();
+            for (int j = 0; j < 4; j++)
+            {
+                writer.setFieldName("hot" + j);
+                writer.writeInt(j);
+                record.add("hot" + j, system().newInt(j));
+            }
+            // every record declares one new symbol
+            writer.setFieldName("cold" + i);
+            writer.writeInt(i);
+            record.add("cold" + i, system().newInt(i));
+            writer.stepOut();
+            expected.add(record);
+
+            final SymbolTable symbolTable = writer.getSymbolTable();
+            final int localSymbols = symbolTable.getMaxId() - systemMaxId;
+            assertTrue(localSymbols <= maxLocalSymbols);
+            if (localSymbols < previousLocalSymbols)
+            {
+                resets++;
+                // the symbols used in every record are retained first, ahead of the warm-up symbols
+                for (int j = 0; j < 4; j++)
+                {
+                    assertEquals(systemMaxId + 1 + j, symbolTable.findSymbol("hot" + j));
+                }
+            }
+            previousLocalSymbols = localSymbols;
+        }
+        writer.close();
+        assertTrue(resets > 1);
+        assertEquals(expected, system().getLoader().load(out.toByteArray()));
+    }
+
+    @Test
+    public void testMaxLocalSymbolsWithTopLevelScalars() throws Exception
+    {
+        final int maxLocalSymbols = 8;
+        final int systemMaxId = system().getSystemSymbolTable().getMaxId();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final IonWriter writer = _Private_IonManagedBinaryWriterBuilder
+            .create(new PooledBlockAllocatorProvider())
+            .withMaxLocalSymbols(maxLocalSymbols)
+            .newWriter(out);
+        final IonDatagram expected = system().newDatagram();
+        for (int i = 0; i < 100; i++)
+        {
+            writer.addTypeAnnotation("a" + i);
+            writer.writeSymbol("s" + i);
+            final IonSymbol symbol = system().newSymbol("s" + i);
+            symbol.addTypeAnnotation("a" + i);
+            expected.add(symbol);
+            assertTrue(writer.getSymbolTable().getMaxId() - systemMaxId <= maxLocalSymbols);
+        }
+        writer.close();
+        assertEquals(expected, system().getLoader().load(out.toByteArray()));
+    }
+
+    @Test
+    public void testMaxLocalSymbolsWithAppend() throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final IonWriter writer = _Private_IonManagedBinaryWriterBuilder
+            .create(new PooledBlockAllocatorProvider())
+            .withMaxLocalSymbols(4)
+            .withLocalSymbolTableAppendEnabled()
+            .newWriter(out);
+        final IonDatagram expected = system().newDatagram();
+        for (int i = 0; i < 50; i++)
+        {
+            // a retained symbol, then values that use no local symbols, before new and retained symbols are used
+            writer.writeSymbol("kind");
+            writer.writeSymbol("s" + i);
+            writer.flush();
+            writer.writeInt(i);
+            writer.flush();
+            writer.writeSymbol("t" + i);
+            writer.writeSymbol("kind");
+            writer.flush();
+            expected.add(system().newSymbol("kind"));
+            expected.add(system().newSymbol("s" + i));
+            expected.add(system().newInt(i));
+            expected.add(system().newSymbol("t" + i));
+            expected.add(system().newSymbol("kind"));
+        }
+        writer.close();
+        assertEquals(expected, system().getLoader().load(out.toByteArray()));
+    }
+
+    @Test
+    public void testMaxLocalSymbolsDoesNotFlushStream() throws Exception
+    {
+        final int[] flushes = new int[1];
+        final ByteArrayOutputStream out = new ByteArrayOutputStream()
+        {
+            @Override
+            public void flush()
+            {
+                flushes[0]++;
+            }
+        };
+        final IonWriter writer = _Private_IonManagedBinaryWriterBuilder
+            .create(new PooledBlockAllocatorProvider())
+            .withMaxLocalSymbols(4)
+            .newWriter(out);
+        for (int i = 0; i < 100; i++)
+        {
+            writer.writeSymbol("s" + i);
+        }
+        // the resets pushed the earlier values out to the stream, but left it unflushed
+        assertTrue(out.size() > 0);
+        assertEquals(0, flushes[0]);
+        writer.finish();
+        assertEquals(1, flushes[0]);
+        writer.close();
+    }
 }
@@ -16,9 +16,14 @@
 package com.amazon.ion.impl.bin;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -88,4 +93,196 @@ public class PooledBlockAllocatorProviderTest
         block1Again.close();
         block2Again.close();
     }
+
+    @Test
+    public void testDirectBlocks()
+    {
+        final BlockAllocator allocator = BlockAllocatorProviders.directProvider().vendAllocator(8);
+        final Block block = allocator.allocateBlock();
+        assertFalse(block.hasArray());
+        assertNull(block.data);
+        assertEquals(8, block.capacity());
+        block.put(0, new byte[] {1, 2, 3}, 0, 3);
+        block.put(3, (byte) 4);
+        block.limit = 4;
+        assertEquals(3, block.get(2));
+        assertEquals(3, block.view(1, 3).remaining());
+        assertEquals(2, block.view(1, 3).get());
+        block.close();
+        final Block blockAgain = allocator.allocateBlock();
+        assertSame(block, blockAgain);
+        assertEquals(0, blockAgain.limit);
+    }
+
+    @Test
+    public void testCounters()
+    {
+        final BlockAllocator allocator = provider.vendAllocator(8);
+        final Block block1 = allocator.allocateBlock();
+        final Block block2 = allocator.allocateBlock();
+        assertEquals(0, provider.getHitCount());
+        assertEquals(2, provider.getMissCount());
+        block1.close();
+        allocator.allocateBlock();
+        assertEquals(1, provider.getHitCount());
+        assertEquals(2, provider.getMissCount());
+        block2.close();
+        assertEquals(0, provider.getEvictionCount());
+    }
+
+    @Test
+    public void testCapacity()
+    {
+        final int blockSize = PooledBlockAllocatorProvider.THREAD_CAPACITY;
+        // Room for one block in the thread's cache and one in the global list.
+        provider = new PooledBlockAllocatorProvider(blockSize * 2);
+        final BlockAllocator allocator = provider.vendAllocator(blockSize);
+        final List<Block> blocks = new ArrayList<Block>();
+        for (int i = 0; i < 4; i++)
+        {
+            blocks.add(allocator.allocateBlock());
+        }
+        for (final Block block : blocks)
+        {
+            block.close();
+        }
+        assertEquals(2, provider.getEvictionCount());
+        assertEquals(blockSize * 2, provider.getPooledBytes());
+        for (int i = 0; i < 2; i++)
+        {
+            assertSame(blocks.get(i), allocator.allocateBlock());
+        }
+        assertEquals(2, provider.getHitCount());
+        assertEquals(4, provider.getMissCount());
+        assertNotSame(blocks.get(2), allocator.allocateBlock());
+    }
+
+    @Test
+    public void testCapacitySharedByBlockSizes()
+    {
+        final int capacity = PooledBlockAllocatorProvider.THREAD_CAPACITY;
+        provider = new PooledBlockAllocatorProvider(capacity);
+        final List<Block> blocks = new ArrayList<Block>();
+        for (final int blockSize : new int[] {capacity / 2, capacity / 4})
+        {
+            final BlockAllocator allocator = provider.vendAllocator(blockSize);
+            for (int i = 0; i < capacity / blockSize; i++)
+            {
+                blocks.add(allocator.allocateBlock());
+            }
+        }
+        for (final Block block : blocks)
+        {
+            block.close();
+        }
+        // The larger blocks fill the capacity, so all the smaller ones are dropped.
+        assertEquals(capacity, provider.getPooledBytes());
+        assertEquals(4, provider.getEvictionCount());
+    }
+
+    @Test
+    public void testThreadCachesLimitedToRecentAllocators()
+    {
+        final BlockAllocator allocator = provider.vendAllocator(8);
+        final Block block = allocator.allocateBlock();
+        block.close();
+        for (int i = 0; i < PooledBlockAllocatorProvider.THREAD_CACHE_ALLOCATORS; i++)
+        {
+            new PooledBlockAllocatorProvider().vendAllocator(8).allocateBlock().close();
+        }
+        // The block went back to the global list, so it is still pooled.
+        assertEquals(8, provider.getPooledBytes());
+        assertSame(block, allocator.allocateBlock());
+        assertEquals(0, provider.getPooledBytes());
+    }
+
+    @Test
+    public void testUnusedProviderNotRetained() throws InterruptedException
+    {
+        PooledBlockAllocatorProvider unused = new PooledBlockAllocatorProvider();
+        unused.vendAllocator(8).allocateBlock().close();
+        final WeakReference<PooledBlockAllocatorProvider> reference =
+            new WeakReference<PooledBlockAllocatorProvider>(unused);
+        unused = null;
+        for (int i = 0; i < PooledBlockAllocatorProvider.THREAD_CACHE_ALLOCATORS; i++)
+        {
+            provider.vendAllocator(8 << i).allocateBlock().close();
+        }
+        for (int i = 0; i < 50 && reference.get() != null; i++)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+    }
+
+    @Test
+    public void testDeadThreadCapacityReclaimed() throws InterruptedException
+    {
+        final int blockSize = PooledBlockAllocatorProvider.THREAD_CAPACITY;
+        provider = new PooledBlockAllocatorProvider(blockSize);
+        final BlockAllocator allocator = provider.vendAllocator(blockSize);
+        final Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                // The thread's cache keeps the capacity it reserved for the block after handing it out again.
+                allocator.allocateBlock().close();
+                allocator.allocateBlock();
+            }
+        };
+        thread.start();
+        thread.join();
+        assertEquals(blockSize, provider.getPooledBytes());
+
+        final Block block = allocator.allocateBlock();
+        block.close();
+        assertEquals(0, provider.getEvictionCount());
+        assertEquals(blockSize, provider.getPooledBytes());
+        assertSame(block, allocator.allocateBlock());
+    }
+
+    @Test
+    public void testBlocksSharedAcrossThreads() throws InterruptedException
+    {
+        final BlockAllocator allocator = provider.vendAllocator(PooledBlockAllocatorProvider.THREAD_CAPACITY);
+        final Block block1 = allocator.allocateBlock();
+        final Block block2 = allocator.allocateBlock();
+        final Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                // The first block stays in this thread's cache, the second overflows to the global list.
+                block1.close();
+                block2.close();
+            }
+        };
+        thread.start();
+        thread.join();
+        assertSame(block2, allocator.allocateBlock());
+        assertNotSame(block1, allocator.allocateBlock());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCapacity()
+    {
+        new PooledBlockAllocatorProvider(-1);
+    }
+
+    @Test
+    public void testZeroCapacity()
+    {
+        provider = new PooledBlockAllocatorProvider(0);
+        final BlockAllocator allocator = provider.vendAllocator(PooledBlockAllocatorProvider.THREAD_CAPACITY);
+        final Block block1 = allocator.allocateBlock();
+        final Block block2 = allocator.allocateBlock();
+        block1.close();
+        block2.close();
+        assertEquals(2, provider.getEvictionCount());
+        assertNotSame(block1, allocator.allocateBlock());
+        assertEquals(3, provider.getMissCount());
+        assertEquals(0, provider.getPooledBytes());
+    }
 }
@@ -22,6 +22,7 @@ import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.util.Arrays;
 import org.junit.After;
 import org.junit.Before;
@@ -34,10 +35,16 @@ public class WriteBufferTest
 
     private WriteBuffer buf;
 
+    /** Vends the blocks under test; overridden to cover other kinds of {@link Block}. */
+    protected BlockAllocator allocator()
+    {
+        return ALLOCATOR;
+    }
+
     @Before
     public void setup()
     {
-        buf = new WriteBuffer(ALLOCATOR);
+        buf = new WriteBuffer(allocator());
     }
 
     @After
@@ -921,4 +928,76 @@ public class WriteBufferTest
         buf.truncate(3);
         assertBuffer("ARG".getBytes("UTF-8"));
     }
+
+    @Test
+    public void testPosition() throws IOException
+    {
+        for (int i = 0; i < 64; i++)
+        {
+            assertEquals(i, buf.position());
+            buf.writeByte((byte) i);
+        }
+        assertEquals(64, buf.position());
+    }
+
+    @Test
+    public void testWriteToChannel() throws IOException
+    {
+        buf.writeBytes("ARGLEFOOBARGLEDOO".getBytes("UTF-8"));
+        buf.writeVarUIntDirect2At(10, 0x1234);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buf.writeTo(Channels.newChannel(out));
+        assertArrayEquals(bytes(), out.toByteArray());
+        assertEquals(17, out.size());
+    }
+
+    @Test
+    public void testRemove() throws IOException
+    {
+        final byte[] data = new byte[40];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) i;
+        }
+        buf.writeBytes(data);
+        // straddles three blocks, with the gap and the moved octets on different block boundaries
+        buf.remove(9, 15);
+        assertEquals(25, buf.position());
+        final byte[] expected = new byte[25];
+        for (int i = 0; i < expected.length; i++)
+        {
+            expected[i] = (byte) (i < 9 ? i : i + 15);
+        }
+        assertBuffer(expected);
+
+        buf.writeBytes("ab".getBytes("UTF-8"));
+        assertEquals(27, buf.position());
+        buf.remove(25, 2);
+        buf.remove(0, 0);
+        assertBuffer(expected);
+    }
+
+    @Test
+    public void testVarUIntDirect4At() throws IOException
+    {
+        buf.writeBytes(new byte[20]);
+        buf.writeVarUIntDirect4At(9, 0x1234);
+        final byte[] expected = new byte[20];
+        expected[11] = (byte) 0x24;
+        expected[12] = (byte) 0xB4;
+        assertBuffer(expected);
+    }
+
+    @Test
+    public void testVarUIntLength()
+    {
+        assertEquals(1, WriteBuffer.varUIntLength(0));
+        assertEquals(1, WriteBuffer.varUIntLength(0x7F));
+        assertEquals(2, WriteBuffer.varUIntLength(0x80));
+        assertEquals(2, WriteBuffer.varUIntLength(0x3FFF));
+        assertEquals(3, WriteBuffer.varUIntLength(0x4000));
+        assertEquals(4, WriteBuffer.varUIntLength(0x0FFFFFFF));
+        assertEquals(5, WriteBuffer.varUIntLength(0x10000000));
+        assertEquals(9, WriteBuffer.varUIntLength(Long.MAX_VALUE));
+    }
 }
@@ -139,6 +139,21 @@ public class ReaderIntegerSizeTest
         testGetIntegerSizeIntBoundary(boundary, loadBoundaries(boundary, radix).longValue());
     }
 
+    @Test
+    public void testGetIntegerSizeLongWithSomeDigitsAboveBoundary()
+    {
+        // as many digits as the boundary, some of them larger than its
+        long value = 1234567890123456789L;
+        read(radix.getString(BigInteger.valueOf(value)) + " "
+             + radix.getString(BigInteger.valueOf(-value)));
+        in.next();
+        assertEquals(IntegerSize.LONG, in.getIntegerSize());
+        assertEquals(value, in.longValue());
+        in.next();
+        assertEquals(IntegerSize.LONG, in.getIntegerSize());
+        assertEquals(-value, in.longValue());
+    }
+
     private void testGetIntegerSizeIntBoundary(int boundaryValue, long pastBoundary)
     {
         in.next();
@@ -18,6 +18,7 @@ package com.amazon.ion.system;
 import static com.amazon.ion.TestUtils.symbolTableEquals;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -25,15 +26,25 @@ import static org.junit.Assert.fail;
 
 import com.amazon.ion.IonCatalog;
 import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonType;
 import com.amazon.ion.IonWriter;
 import com.amazon.ion.SymbolTable;
 import com.amazon.ion.impl.Symtabs;
 import com.amazon.ion.impl._Private_IonBinaryWriterBuilder;
 import com.amazon.ion.impl._Private_IonWriter;
 import com.amazon.ion.impl._Private_Utils;
+import com.amazon.ion.impl.bin.BlockAllocatorProviders;
+import com.amazon.ion.impl.bin.PooledBlockAllocatorProvider;
+import com.amazon.ion.system.IonBinaryWriterBuilder.BlockAllocation;
+import com.amazon.ion.system.IonBinaryWriterBuilder.LengthPreallocation;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.Pipe;
+import java.nio.channels.WritableByteChannel;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -47,6 +58,12 @@ public class IonBinaryWriterBuilderTest
             fail("Expected exception");
         }
         catch (NullPointerException e) { }
+
+        try {
+            b.build((WritableByteChannel)null);
+            fail("Expected exception");
+        }
+        catch (NullPointerException e) { }
     }
 
     @Test
@@ -387,4 +404,320 @@ public class IonBinaryWriterBuilderTest
         b.setImports(new SymbolTable[0]);
         assertArrayEquals(new SymbolTable[0], b.getImports());
     }
+
+    /** Records how many writes it receives, passing the data to a stream. */
+    private static final class RecordingChannel
+        implements GatheringByteChannel
+    {
+        private final WritableByteChannel delegate;
+        /** How many buffers a gathering write consumes at most, as channels may write partially. */
+        private final int maxBuffersPerWrite;
+        int writes;
+        boolean closed;
+
+        RecordingChannel(OutputStream out, int maxBuffersPerWrite)
+        {
+            this.delegate = Channels.newChannel(out);
+            this.maxBuffersPerWrite = maxBuffersPerWrite;
+        }
+
+        public long write(ByteBuffer[] srcs, int offset, int length)
+            throws IOException
+        {
+            writes++;
+            long written = 0;
+            for (int i = offset; i < offset + Math.min(length, maxBuffersPerWrite); i++)
+            {
+                written += delegate.write(srcs[i]);
+            }
+            return written;
+        }
+
+        public long write(ByteBuffer[] srcs) throws IOException
+        {
+            return write(srcs, 0, srcs.length);
+        }
+
+        public int write(ByteBuffer src) throws IOException
+        {
+            writes++;
+            return delegate.write(src);
+        }
+
+        public boolean isOpen()
+        {
+            return !closed;
+        }
+
+        public void close()
+        {
+            closed = true;
+        }
+    }
+
+    private static byte[] writeValues(IonWriter writer, ByteArrayOutputStream out) throws IOException
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            writer.stepIn(IonType.STRUCT);
+            writer.setFieldName("field" + (i % 7));
+            writer.writeString("value " + i);
+            writer.setFieldName("nested");
+            writer.stepIn(IonType.LIST);
+            writer.writeInt(i);
+            writer.writeSymbol("sym" + (i % 3));
+            writer.stepOut();
+            writer.stepOut();
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private static byte[] writeValues(IonBinaryWriterBuilder b) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = b.build(out);
+        byte[] bytes = writeValues(writer, out);
+        writer.close();
+        return bytes;
+    }
+
+    @Test
+    public void testBuildChannel() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordingChannel channel = new RecordingChannel(out, Integer.MAX_VALUE);
+        IonWriter writer = IonBinaryWriterBuilder.standard().build(channel);
+        assertArrayEquals(writeValues(IonBinaryWriterBuilder.standard()), writeValues(writer, out));
+        // The symbol table and the values are gathered into one write.
+        assertEquals(1, channel.writes);
+
+        writer.close();
+        assertEquals(1, channel.writes);
+        assertTrue(!channel.isOpen());
+    }
+
+    @Test
+    public void testBuildChannelPartialWrites() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordingChannel channel = new RecordingChannel(out, 2);
+        IonWriter writer = IonBinaryWriterBuilder.standard().build(channel);
+        assertArrayEquals(writeValues(IonBinaryWriterBuilder.standard()), writeValues(writer, out));
+        assertTrue(channel.writes > 1);
+        writer.close();
+    }
+
+    @Test
+    public void testBuildNonBlockingChannel() throws IOException
+    {
+        Pipe pipe = Pipe.open();
+        try
+        {
+            pipe.sink().configureBlocking(false);
+            try
+            {
+                IonBinaryWriterBuilder.standard().build(pipe.sink());
+                fail("Expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e) { }
+
+            pipe.sink().configureBlocking(true);
+            IonWriter writer = IonBinaryWriterBuilder.standard().build(pipe.sink());
+            writer.close();
+            assertFalse(pipe.sink().isOpen());
+        }
+        finally
+        {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+
+    //-------------------------------------------------------------------------
+
+    @Test
+    public void testLengthPreallocation() throws IOException
+    {
+        IonBinaryWriterBuilder b = IonBinaryWriterBuilder.standard();
+        assertSame(LengthPreallocation.NONE, b.getLengthPreallocation());
+        byte[] unpadded = writeValues(b);
+
+        for (LengthPreallocation preallocation : LengthPreallocation.values())
+        {
+            b.setLengthPreallocation(preallocation);
+            assertSame(preallocation, b.getLengthPreallocation());
+            byte[] bytes = writeValues(b);
+            IonSystem system = IonSystemBuilder.standard().build();
+            assertEquals(system.getLoader().load(unpadded), system.getLoader().load(bytes));
+            if (preallocation == LengthPreallocation.NONE
+                || preallocation == LengthPreallocation.COMPACTED)
+            {
+                assertArrayEquals(unpadded, bytes);
+            }
+            else if (preallocation != LengthPreallocation.ADAPTIVE)
+            {
+                assertTrue(bytes.length > unpadded.length);
+            }
+        }
+
+        b.setLengthPreallocation(null);
+        assertSame(LengthPreallocation.NONE, b.getLengthPreallocation());
+        assertArrayEquals(unpadded, writeValues(b));
+
+        IonBinaryWriterBuilder b2 = b.immutable()
+            .withLengthPreallocation(LengthPreallocation.PADDED_2);
+        assertSame(LengthPreallocation.PADDED_2, b2.getLengthPreallocation());
+        assertSame(LengthPreallocation.NONE, b.getLengthPreallocation());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testLengthPreallocationImmutability()
+    {
+        IonBinaryWriterBuilder b = IonBinaryWriterBuilder.standard().immutable();
+        b.setLengthPreallocation(LengthPreallocation.COMPACTED);
+    }
+
+    @Test
+    public void testBlockSizes() throws IOException
+    {
+        IonBinaryWriterBuilder b = IonBinaryWriterBuilder.standard();
+        assertEquals(IonBinaryWriterBuilder.DEFAULT_BLOCK_SIZE, b.getUserBlockSize());
+        assertEquals(IonBinaryWriterBuilder.DEFAULT_BLOCK_SIZE, b.getSymbolsBlockSize());
+        byte[] expected = writeValues(b);
+
+        IonBinaryWriterBuilder b2 = b.withUserBlockSize(11).withSymbolsBlockSize(13);
+        assertSame(b, b2);
+        assertEquals(11, b.getUserBlockSize());
+        assertEquals(13, b.getSymbolsBlockSize());
+        assertArrayEquals(expected, writeValues(b));
+
+        try {
+            b.setUserBlockSize(0);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) { }
+        try {
+            b.setSymbolsBlockSize(-1);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) { }
+        assertEquals(11, b.getUserBlockSize());
+        assertEquals(13, b.getSymbolsBlockSize());
+    }
+
+    @Test
+    public void testBlockAllocatorProvider() throws IOException
+    {
+        _Private_IonBinaryWriterBuilder b = _Private_IonBinaryWriterBuilder.standard();
+        assertEquals(null, b.getBlockAllocatorProvider());
+        byte[] expected = writeValues(b);
+
+        PooledBlockAllocatorProvider provider = new PooledBlockAllocatorProvider();
+        b.setBlockAllocatorProvider(provider);
+        assertSame(provider, b.getBlockAllocatorProvider());
+        _Private_IonBinaryWriterBuilder b2 = b.immutable();
+        assertSame(provider, b2.getBlockAllocatorProvider());
+        assertArrayEquals(expected, writeValues(b2));
+        long misses = provider.getMissCount();
+        assertTrue(misses > 0);
+
+        // the blocks of the first writer are reused by the second
+        assertArrayEquals(expected, writeValues(b2));
+        assertEquals(misses, provider.getMissCount());
+
+        b.setBlockAllocatorProvider(null);
+        assertEquals(null, b.getBlockAllocatorProvider());
+        assertArrayEquals(expected, writeValues(b));
+        assertEquals(misses, provider.getMissCount());
+        assertFalse(provider.getHitCount() == 0);
+    }
+
+    @Test
+    public void testBlockAllocation() throws IOException
+    {
+        IonBinaryWriterBuilder b = IonBinaryWriterBuilder.standard();
+        assertSame(BlockAllocation.HEAP, b.getBlockAllocation());
+        byte[] expected = writeValues(b);
+
+        PooledBlockAllocatorProvider direct =
+            (PooledBlockAllocatorProvider) BlockAllocatorProviders.pooledDirectProvider();
+        long used = direct.getMissCount() + direct.getHitCount();
+        IonBinaryWriterBuilder b2 = b.immutable().withBlockAllocation(BlockAllocation.DIRECT);
+        assertSame(BlockAllocation.DIRECT, b2.getBlockAllocation());
+        assertSame(BlockAllocation.HEAP, b.getBlockAllocation());
+        assertArrayEquals(expected, writeValues(b2));
+        assertTrue(direct.getMissCount() + direct.getHitCount() > used);
+
+        // the output through a channel takes the direct blocks as they are
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = b2.build(Channels.newChannel(out));
+        assertArrayEquals(expected, writeValues(writer, out));
+        writer.close();
+
+        b2.setBlockAllocation(null);
+        assertSame(BlockAllocation.HEAP, b2.getBlockAllocation());
+        used = direct.getMissCount() + direct.getHitCount();
+        assertArrayEquals(expected, writeValues(b2));
+        assertEquals(used, direct.getMissCount() + direct.getHitCount());
+    }
+
+    @Test
+    public void testBlockAllocatorProviderOverridesBlockAllocation() throws IOException
+    {
+        _Private_IonBinaryWriterBuilder b = _Private_IonBinaryWriterBuilder.standard();
+        byte[] expected = writeValues(b);
+
+        PooledBlockAllocatorProvider provider = new PooledBlockAllocatorProvider();
+        b.setBlockAllocatorProvider(provider);
+        b.setBlockAllocation(BlockAllocation.DIRECT);
+        assertArrayEquals(expected, writeValues(b));
+        assertTrue(provider.getMissCount() > 0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testBlockAllocationImmutability()
+    {
+        IonBinaryWriterBuilder b = IonBinaryWriterBuilder.standard().immutable();
+        b.setBlockAllocation(BlockAllocation.DIRECT);
+    }
+
+    @Test
+    public void testDefaultBlockAllocatorProviderShared() throws IOException
+    {
+        PooledBlockAllocatorProvider provider =
+            (PooledBlockAllocatorProvider) BlockAllocatorProviders.pooledProvider();
+        byte[] expected = writeValues(IonBinaryWriterBuilder.standard());
+        long misses = provider.getMissCount();
+
+        // writers from new builders reuse the blocks of earlier ones
+        for (int i = 0; i < 100; i++)
+        {
+            assertArrayEquals(expected, writeValues(IonBinaryWriterBuilder.standard()));
+        }
+        assertEquals(misses, provider.getMissCount());
+    }
+
+    @Test
+    public void testMaxLocalSymbols() throws IOException
+    {
+        IonBinaryWriterBuilder b = IonBinaryWriterBuilder.standard();
+        assertEquals(IonBinaryWriterBuilder.NO_LOCAL_SYMBOL_LIMIT, b.getMaxLocalSymbols());
+        byte[] expected = writeValues(b);
+
+        IonBinaryWriterBuilder b2 = b.immutable().withMaxLocalSymbols(5);
+        assertEquals(5, b2.getMaxLocalSymbols());
+        assertEquals(IonBinaryWriterBuilder.NO_LOCAL_SYMBOL_LIMIT, b.getMaxLocalSymbols());
+        byte[] bytes = writeValues(b2);
+        IonSystem system = IonSystemBuilder.standard().build();
+        assertEquals(system.getLoader().load(expected), system.getLoader().load(bytes));
+
+        try {
+            b2.setMaxLocalSymbols(0);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) { }
+        assertEquals(5, b2.getMaxLocalSymbols());
+    }
 }
@@ -16,6 +16,8 @@
 package com.amazon.ion.system;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 
@@ -25,7 +27,14 @@ import com.amazon.ion.IonType;
 import com.amazon.ion.IonWriter;
 import com.amazon.ion.impl._Private_IonBinaryWriterBuilder;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPOutputStream;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -111,4 +120,228 @@ public class IonReaderBuilderTest
         assertEquals(42, reader.intValue());
     }
 
+    /** Enough values to span many of the reader's pages. */
+    private static final int MANY_VALUES = 20000;
+
+    private static byte[] manyValues(boolean binary) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = binary
+            ? _Private_IonBinaryWriterBuilder.standard().build(out)
+            : IonTextWriterBuilder.standard().build(out);
+        for (int i = 0; i < MANY_VALUES; i++)
+        {
+            writer.stepIn(IonType.STRUCT);
+            writer.setFieldName("id");
+            writer.writeInt(i);
+            writer.setFieldName("name");
+            writer.writeString("value " + i);
+            writer.stepOut();
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static void assertManyValues(IonReader reader) throws IOException
+    {
+        for (int i = 0; i < MANY_VALUES; i++)
+        {
+            assertEquals(IonType.STRUCT, reader.next());
+            reader.stepIn();
+            assertEquals(IonType.INT, reader.next());
+            assertEquals(i, reader.intValue());
+            assertEquals(IonType.STRING, reader.next());
+            assertEquals("value " + i, reader.stringValue());
+            reader.stepOut();
+        }
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    private static ByteBuffer direct(byte[] bytes)
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(bytes);
+        gzip.close();
+        return out.toByteArray();
+    }
+
+    private static File tempFile(byte[] bytes) throws IOException
+    {
+        File file = File.createTempFile("IonReaderBuilderTest", ".ion");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(bytes);
+        }
+        finally
+        {
+            out.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void testBuildFromHeapByteBuffer() throws IOException
+    {
+        byte[] data = manyValues(true);
+        byte[] padded = new byte[data.length + 20];
+        System.arraycopy(data, 0, padded, 10, data.length);
+        // Exercises both the array offset and the position.
+        ByteBuffer buffer = ByteBuffer.wrap(padded, 5, data.length + 10).slice();
+        buffer.position(5).limit(5 + data.length);
+        assertManyValues(IonReaderBuilder.standard().build(buffer));
+        assertEquals(5, buffer.position());
+    }
+
+    @Test
+    public void testBuildFromDirectByteBufferBinary() throws IOException
+    {
+        ByteBuffer buffer = direct(manyValues(true));
+        assertManyValues(IonReaderBuilder.standard().build(buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testBuildFromDirectByteBufferText() throws IOException
+    {
+        assertManyValues(IonReaderBuilder.standard().build(direct(manyValues(false))));
+    }
+
+    @Test
+    public void testBuildFromDirectByteBufferGzip() throws IOException
+    {
+        ByteBuffer buffer = direct(gzip(manyValues(true)));
+        assertManyValues(IonReaderBuilder.standard().build(buffer));
+    }
+
+    @Test
+    public void testBuildFromEmptyDirectByteBuffer() throws IOException
+    {
+        IonReader reader = IonReaderBuilder.standard().build(ByteBuffer.allocateDirect(0));
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testBuildFromFileChannel() throws IOException
+    {
+        File file = tempFile(manyValues(true));
+        assertManyValues(IonReaderBuilder.standard().build(file.toPath()));
+    }
+
+    @Test
+    public void testBuildFromFileChannelAtPosition() throws IOException
+    {
+        byte[] data = manyValues(false);
+        byte[] prefixed = new byte[data.length + 3];
+        System.arraycopy(data, 0, prefixed, 3, data.length);
+        FileChannel channel = new RandomAccessFile(tempFile(prefixed), "r").getChannel();
+        channel.position(3);
+        assertManyValues(IonReaderBuilder.standard().build(channel));
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testBuildFromFileChannelGzip() throws IOException
+    {
+        File file = tempFile(gzip(manyValues(true)));
+        assertManyValues(IonReaderBuilder.standard().build(file.toPath()));
+    }
+
+    @Test
+    public void testStringCacheSize()
+    {
+        IonReaderBuilder mutable = IonReaderBuilder.standard();
+        assertEquals(0, mutable.getStringCacheSize());
+        IonReaderBuilder immutable = mutable.withStringCacheSize(1024).immutable();
+        assertEquals(1024, immutable.getStringCacheSize());
+        assertEquals(1024, immutable.copy().getStringCacheSize());
+        assertEquals(0, immutable.withStringCacheSize(0).getStringCacheSize());
+        thrown.expect(IllegalArgumentException.class);
+        mutable.setStringCacheSize(-1);
+    }
+
+    private static byte[] repeatedStrings(boolean binary) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = binary
+            ? _Private_IonBinaryWriterBuilder.standard().build(out)
+            : IonTextWriterBuilder.standard().build(out);
+        for (int i = 0; i < 2; i++)
+        {
+            writer.stepIn(IonType.STRUCT);
+            writer.setFieldName("status");
+            writer.writeString("shipped \u00e9\u65e5");
+            writer.setFieldName("kind");
+            writer.writeSymbol("retail");
+            writer.stepOut();
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static void assertRepeatedStrings(IonReaderBuilder builder, boolean binary, boolean cached)
+        throws IOException
+    {
+        IonReader reader = builder.build(repeatedStrings(binary));
+        String[] first = new String[3];
+        for (int i = 0; i < 2; i++)
+        {
+            assertEquals(IonType.STRUCT, reader.next());
+            reader.stepIn();
+            assertEquals(IonType.STRING, reader.next());
+            String fieldName = reader.getFieldName();
+            String string = reader.stringValue();
+            assertEquals(IonType.SYMBOL, reader.next());
+            String symbol = reader.stringValue();
+            reader.stepOut();
+
+            assertEquals("status", fieldName);
+            assertEquals("shipped \u00e9\u65e5", string);
+            assertEquals("retail", symbol);
+            if (i == 0)
+            {
+                first = new String[] { fieldName, string, symbol };
+            }
+            else if (cached)
+            {
+                assertSame(first[0], fieldName);
+                assertSame(first[1], string);
+                assertSame(first[2], symbol);
+            }
+            else
+            {
+                assertNotSame(first[1], string);
+            }
+        }
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testStringCacheBinary() throws IOException
+    {
+        assertRepeatedStrings(IonReaderBuilder.standard(), true, false);
+        assertRepeatedStrings(IonReaderBuilder.standard().withStringCacheSize(16), true, true);
+        assertManyValues(IonReaderBuilder.standard().withStringCacheSize(16).build(manyValues(true)));
+        assertManyValues(IonReaderBuilder.standard().withStringCacheSize(16).build(direct(manyValues(true))));
+    }
+
+    @Test
+    public void testStringCacheText() throws IOException
+    {
+        assertRepeatedStrings(IonReaderBuilder.standard(), false, false);
+        assertRepeatedStrings(IonReaderBuilder.standard().withStringCacheSize(16), false, true);
+        assertManyValues(IonReaderBuilder.standard().withStringCacheSize(16).build(manyValues(false)));
+    }
 }
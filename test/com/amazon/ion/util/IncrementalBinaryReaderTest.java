@@ -0,0 +1,190 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.amazon.ion.IonDatagram;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.UnexpectedEofException;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import com.amazon.ion.util.IncrementalBinaryReader.Event;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+public class IncrementalBinaryReaderTest
+{
+    private static final IonSystem SYSTEM = IonSystemBuilder.standard().build();
+
+    /** An IVM and an ordered struct, which has a VarUInt length. */
+    private static final byte[] ORDERED_STRUCT = {
+        (byte) 0xE0, 0x01, 0x00, (byte) 0xEA,
+        (byte) 0xD1, (byte) 0x82, (byte) 0x84, 0x20
+    };
+
+
+    /**
+     * Writes several streams, with different symbol tables, holding values
+     * of all kinds, some much larger than the reader's initial buffer.
+     */
+    private static byte[] data()
+        throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int stream = 0; stream < 3; stream++)
+        {
+            IonWriter writer = IonBinaryWriterBuilder.standard().build(out);
+            for (int i = 0; i < 50; i++)
+            {
+                writer.setTypeAnnotations("a" + stream, "b" + i);
+                writer.stepIn(IonType.STRUCT);
+                writer.setFieldName("text" + stream);
+                StringBuilder text = new StringBuilder();
+                for (int j = 0; j < i * i * 5; j++) text.append('x');
+                writer.writeString(text.toString());
+                writer.setFieldName("list");
+                writer.stepIn(IonType.LIST);
+                writer.writeInt(i);
+                writer.writeBool(i % 2 == 0);
+                writer.writeNull(IonType.SEXP);
+                writer.writeDecimal(new java.math.BigDecimal(i + ".5"));
+                writer.stepOut();
+                writer.stepOut();
+                writer.writeSymbol("sym" + i);
+                writer.writeNull();
+            }
+            writer.close();
+        }
+        out.write(ORDERED_STRUCT);
+        return out.toByteArray();
+    }
+
+
+    /** Feeds the data in chunks of random sizes, reading values as they complete. */
+    private static IonDatagram readInChunks(byte[] data, Random random,
+                                            int maxChunk)
+        throws Exception
+    {
+        IonDatagram values = SYSTEM.newDatagram();
+        IncrementalBinaryReader reader =
+            new IncrementalBinaryReader(IonReaderBuilder.standard());
+        int pos = 0;
+        while (pos < data.length)
+        {
+            int length = Math.min(data.length - pos, 1 + random.nextInt(maxChunk));
+            reader.feed(data, pos, length);
+            pos += length;
+            while (reader.next() == Event.VALUE)
+            {
+                values.add(SYSTEM.newValue(reader.getReader()));
+            }
+        }
+        reader.finish();
+        reader.close();
+        return values;
+    }
+
+
+    @Test
+    public void testChunks()
+        throws Exception
+    {
+        byte[] data = data();
+        IonDatagram expected = SYSTEM.getLoader().load(data);
+        Random random = new Random(42);
+        for (int maxChunk : new int[] { 1, 3, 100, 10000, data.length })
+        {
+            assertEquals("chunks up to " + maxChunk,
+                         expected, readInChunks(data, random, maxChunk));
+        }
+    }
+
+
+    @Test
+    public void testNeedsDataWithinValue()
+        throws Exception
+    {
+        IncrementalBinaryReader reader =
+            new IncrementalBinaryReader(IonReaderBuilder.standard());
+        assertEquals(Event.NEEDS_DATA, reader.next());
+
+        reader.feed(ByteBuffer.wrap(ORDERED_STRUCT, 0, 6));
+        assertEquals(Event.NEEDS_DATA, reader.next());
+        try
+        {
+            reader.finish();
+            fail("Expected UnexpectedEofException");
+        }
+        catch (UnexpectedEofException e)
+        {
+            // expected
+        }
+        try
+        {
+            reader.getReader();
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        reader.feed(ByteBuffer.wrap(ORDERED_STRUCT, 6, 2));
+        assertEquals(Event.VALUE, reader.next());
+        IonReader value = reader.getReader();
+        assertEquals(IonType.STRUCT, value.getType());
+        value.stepIn();
+        assertEquals(IonType.INT, value.next());
+        assertEquals("name", value.getFieldName());
+        // The next value may be reached without stepping out.
+        assertEquals(Event.NEEDS_DATA, reader.next());
+        reader.finish();
+    }
+
+
+    @Test
+    public void testValuesFedWhileReading()
+        throws Exception
+    {
+        byte[] data = data();
+        IonDatagram expected = SYSTEM.getLoader().load(data);
+        IonDatagram values = SYSTEM.newDatagram();
+        IncrementalBinaryReader reader =
+            new IncrementalBinaryReader(IonReaderBuilder.standard());
+        int pos = 0;
+        // Each value read is followed by a chunk larger than the buffer.
+        while (pos < data.length || reader.next() == Event.VALUE)
+        {
+            if (pos < data.length)
+            {
+                int length = Math.min(data.length - pos, 9000);
+                reader.feed(data, pos, length);
+                pos += length;
+                if (reader.next() != Event.VALUE) continue;
+            }
+            values.add(SYSTEM.newValue(reader.getReader()));
+        }
+        assertEquals(expected, values);
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.amazon.ion.IonDatagram;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonType;
+import com.amazon.ion.UnexpectedEofException;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import com.amazon.ion.util.IncrementalBinaryReader.Event;
+import java.util.Random;
+import org.junit.Test;
+
+public class IncrementalTextReaderTest
+{
+    private static final IonSystem SYSTEM = IonSystemBuilder.standard().build();
+
+    /** Top-level values whose ends are hard to tell apart from their middles. */
+    private static final String DATA =
+        "$ion_1_0 123 -4.5e6 2007-02-23T12:14:33.079-08:00 abc 'quoted sym'\n" +
+        "a :: b :: c\t'x'::{ f: \"}]\", g: '''}''', h: [1, (2 + 3)] }\n" +
+        "'''long ''' // comment '''\n" +
+        "   '''string''' /* block */ \"short \\\" string\" {{ ab//cd+e }}\n" +
+        "{{ \"clob }}\" }} {{ '''more}}''' '''}}''' }} null.int +inf nan true\n" +
+        "$ion_symbol_table::{ symbols: [\"local\", \"été\"] } $10 $11\n" +
+        "\"café 😀\" ann::[] ()\n" +
+        "$ion_symbol_table::{ imports: $ion_symbol_table, symbols: [\"more\"] }" +
+        " $12 $10 $ion_1_0 sym 'trailing'";
+
+
+    private static IonDatagram readInChunks(String data, Random random,
+                                            int maxChunk, boolean asBytes)
+        throws Exception
+    {
+        IonDatagram values = SYSTEM.newDatagram();
+        IncrementalTextReader reader =
+            new IncrementalTextReader(IonReaderBuilder.standard());
+        byte[] bytes = data.getBytes("UTF-8");
+        int size = (asBytes ? bytes.length : data.length());
+        int pos = 0;
+        while (pos < size)
+        {
+            int length = Math.min(size - pos, 1 + random.nextInt(maxChunk));
+            if (asBytes)
+            {
+                reader.feed(bytes, pos, length);
+            }
+            else
+            {
+                reader.feed(data.subSequence(pos, pos + length));
+            }
+            pos += length;
+            while (reader.next() == Event.VALUE)
+            {
+                values.add(SYSTEM.newValue(reader.getReader()));
+            }
+        }
+        reader.finish();
+        while (reader.next() == Event.VALUE)
+        {
+            values.add(SYSTEM.newValue(reader.getReader()));
+        }
+        reader.close();
+        return values;
+    }
+
+
+    @Test
+    public void testChunks()
+        throws Exception
+    {
+        IonDatagram expected = SYSTEM.getLoader().load(DATA);
+        Random random = new Random(42);
+        for (int maxChunk : new int[] { 1, 2, 5, 50, DATA.length() })
+        {
+            for (int i = 0; i < 10; i++)
+            {
+                assertEquals("chars up to " + maxChunk, expected,
+                             readInChunks(DATA, random, maxChunk, false));
+                assertEquals("bytes up to " + maxChunk, expected,
+                             readInChunks(DATA, random, maxChunk, true));
+            }
+        }
+    }
+
+
+    @Test
+    public void testLargeValues()
+        throws Exception
+    {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 200; i++)
+        {
+            data.append("{ id: ").append(i).append(", text: \"");
+            for (int j = 0; j < i * 10; j++) data.append('x');
+            data.append("\" } ");
+        }
+        IonDatagram expected = SYSTEM.getLoader().load(data.toString());
+        assertEquals(expected,
+                     readInChunks(data.toString(), new Random(7), 5000, true));
+    }
+
+
+    @Test
+    public void testScalarCompletedByNextValue()
+        throws Exception
+    {
+        IncrementalTextReader reader =
+            new IncrementalTextReader(IonReaderBuilder.standard());
+        reader.feed("12");
+        assertEquals(Event.NEEDS_DATA, reader.next());
+        reader.feed("3 ann");
+        assertEquals(Event.VALUE, reader.next());
+        assertEquals(123, reader.getReader().intValue());
+        assertEquals(Event.NEEDS_DATA, reader.next());
+        reader.feed(" ");
+        assertEquals(Event.NEEDS_DATA, reader.next());
+        reader.feed(":");
+        assertEquals(Event.NEEDS_DATA, reader.next());
+        reader.feed(":x {a:[");
+        assertEquals(Event.VALUE, reader.next());
+        IonReader value = reader.getReader();
+        assertEquals("ann", value.getTypeAnnotations()[0]);
+        assertEquals("x", value.stringValue());
+        assertEquals(Event.NEEDS_DATA, reader.next());
+
+        reader.feed("1]}");
+        assertEquals(Event.VALUE, reader.next());
+        value = reader.getReader();
+        assertEquals(IonType.STRUCT, value.getType());
+        value.stepIn();
+        assertEquals(IonType.LIST, value.next());
+        // The next value may be reached without stepping out.
+        reader.feed(" last");
+        assertEquals(Event.NEEDS_DATA, reader.next());
+        reader.finish();
+        assertEquals(Event.VALUE, reader.next());
+        assertEquals("last", reader.getReader().stringValue());
+        assertEquals(Event.NEEDS_DATA, reader.next());
+    }
+
+
+    private static void assertInts(IncrementalTextReader reader, int... values)
+    {
+        for (int value : values)
+        {
+            assertEquals(Event.VALUE, reader.next());
+            assertEquals(value, reader.getReader().intValue());
+        }
+        assertEquals(Event.NEEDS_DATA, reader.next());
+    }
+
+
+    @Test
+    public void testFinishWhileValuesBuffered()
+        throws Exception
+    {
+        IncrementalTextReader reader =
+            new IncrementalTextReader(IonReaderBuilder.standard());
+        reader.feed("1 2 ");
+        assertInts(reader, 1);
+        reader.feed("3 4");
+        reader.finish();
+        assertInts(reader, 2, 3, 4);
+
+        reader = new IncrementalTextReader(IonReaderBuilder.standard());
+        reader.feed("1 2 3");
+        assertEquals(Event.VALUE, reader.next());
+        assertEquals(Event.VALUE, reader.next());
+        reader.finish();
+        assertInts(reader, 3);
+
+        // the buffer grows while the first values are still being read
+        StringBuilder more = new StringBuilder();
+        for (int i = 2; i < 2000; i++) more.append(' ').append(i);
+        reader = new IncrementalTextReader(IonReaderBuilder.standard());
+        reader.feed("0 1 ");
+        assertEquals(Event.VALUE, reader.next());
+        reader.feed(more.toString());
+        reader.finish();
+        int[] rest = new int[1999];
+        for (int i = 0; i < rest.length; i++) rest[i] = i + 1;
+        assertInts(reader, rest);
+    }
+
+
+    @Test
+    public void testFinishWithinValue()
+        throws Exception
+    {
+        String[] partials = { "{ a: 1", "\"abc", "'''abc''", "a::", "/* x",
+                              "{{ abc }" };
+        for (String partial : partials)
+        {
+            IncrementalTextReader reader =
+                new IncrementalTextReader(IonReaderBuilder.standard());
+            reader.feed(partial);
+            try
+            {
+                reader.finish();
+                fail("Expected UnexpectedEofException for " + partial);
+            }
+            catch (UnexpectedEofException e)
+            {
+                // expected
+            }
+        }
+
+        IncrementalTextReader reader =
+            new IncrementalTextReader(IonReaderBuilder.standard());
+        byte[] euro = "€".getBytes("UTF-8");
+        reader.feed(euro, 0, 2);
+        try
+        {
+            reader.finish();
+            fail("Expected UnexpectedEofException");
+        }
+        catch (UnexpectedEofException e)
+        {
+            // expected
+        }
+        try
+        {
+            reader.getReader();
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonReaderBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+
+public class IonReaderPoolTest
+{
+    private final IonReaderPool pool =
+        new IonReaderPool(IonReaderBuilder.standard());
+
+
+    private static byte[] binary(int i)
+        throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = IonBinaryWriterBuilder.standard().build(out);
+        writer.stepIn(IonType.STRUCT);
+        writer.setFieldName("n" + i);
+        writer.writeSymbol("s" + i);
+        writer.stepOut();
+        writer.close();
+        return out.toByteArray();
+    }
+
+
+    private static byte[] text(int i)
+        throws IOException
+    {
+        return ("{ n" + i + ": s" + i + " }").getBytes("UTF-8");
+    }
+
+
+    private static byte[] gzip(byte[] data)
+        throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(data);
+        gzip.close();
+        return out.toByteArray();
+    }
+
+
+    private static void assertMessage(IonReader reader, int i)
+    {
+        assertEquals(IonType.STRUCT, reader.next());
+        reader.stepIn();
+        assertEquals(IonType.SYMBOL, reader.next());
+        assertEquals("n" + i, reader.getFieldName());
+        assertEquals("s" + i, reader.stringValue());
+        reader.stepOut();
+        assertNull(reader.next());
+    }
+
+
+    @Test
+    public void testReadersAreReused()
+        throws Exception
+    {
+        IonReader binaryReader = pool.read(binary(0));
+        assertMessage(binaryReader, 0);
+        IonReader textReader = pool.read(text(1));
+        assertMessage(textReader, 1);
+        assertNotSame(binaryReader, textReader);
+
+        for (int i = 2; i < 20; i++)
+        {
+            IonReader reader = pool.read(binary(i));
+            assertSame(binaryReader, reader);
+            assertMessage(reader, i);
+
+            reader = pool.read(text(i));
+            assertSame(textReader, reader);
+            assertMessage(reader, i);
+        }
+    }
+
+
+    @Test
+    public void testBuffersAndCompressedData()
+        throws Exception
+    {
+        byte[] data = binary(3);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 2);
+        direct.position(2);
+        direct.put(data);
+        direct.position(2);
+        assertMessage(pool.read(direct), 3);
+        assertEquals(2, direct.position());
+
+        ByteBuffer heap = ByteBuffer.wrap(text(4));
+        assertMessage(pool.read(heap), 4);
+
+        IonReader reader = pool.read(gzip(binary(5)));
+        assertMessage(reader, 5);
+        assertMessage(pool.read(gzip(text(6))), 6);
+        assertNotSame(reader, pool.read(binary(7)));
+    }
+
+
+    @Test
+    public void testThreadsHaveTheirOwnReaders()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<IonReader>> readers = new ArrayList<Future<IonReader>>();
+            for (int t = 0; t < 4; t++)
+            {
+                readers.add(executor.submit(new Callable<IonReader>()
+                {
+                    public IonReader call()
+                        throws Exception
+                    {
+                        IonReader first = null;
+                        for (int i = 0; i < 200; i++)
+                        {
+                            IonReader reader = pool.read(binary(i));
+                            if (first == null) first = reader;
+                            assertSame(first, reader);
+                            assertMessage(reader, i);
+                        }
+                        return first;
+                    }
+                }));
+            }
+            List<IonReader> seen = new ArrayList<IonReader>();
+            for (Future<IonReader> future : readers)
+            {
+                IonReader reader = future.get();
+                for (IonReader other : seen)
+                {
+                    assertNotSame(other, reader);
+                }
+                seen.add(reader);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
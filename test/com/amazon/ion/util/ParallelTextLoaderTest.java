@@ -0,0 +1,281 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonStruct;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonValue;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class ParallelTextLoaderTest
+{
+    private static final int VALUES = 2000;
+
+    private final IonSystem        system = IonSystemBuilder.standard().build();
+    private final IonReaderBuilder readerBuilder = IonReaderBuilder.standard();
+
+
+    /**
+     * Lines of text, many of which look like they start a top-level value
+     * but don't.
+     */
+    private static String values(long seed)
+    {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < VALUES; i++)
+        {
+            switch (random.nextInt(8))
+            {
+                case 0:
+                    // an unindented container
+                    text.append("{\nid: ").append(i).append(",\ntags: [\na,\n\"b\"\n]\n}");
+                    break;
+                case 1:
+                    text.append("'''first line\n{ id: -1 }\n'''");
+                    break;
+                case 2:
+                    text.append("/*\n{ id: -2 }\n*/ c").append(i);
+                    break;
+                case 3:
+                    // long strings on separate lines are concatenated
+                    text.append("'''a").append(i).append("'''\n'''b'''");
+                    break;
+                case 4:
+                    text.append("ann\n::").append(i);
+                    break;
+                case 5:
+                    text.append("(\nop\n+ ").append(i).append("\n)");
+                    break;
+                case 6:
+                    text.append("{{\naGVsbG8=\n}}");
+                    break;
+                default:
+                    text.append("{ id: ").append(i).append(", msg: \"m").append(i).append("\" }");
+                    break;
+            }
+            text.append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+        }
+        return text.toString();
+    }
+
+
+    private List<IonValue> loadSequentially(byte[] data)
+    {
+        List<IonValue> values = new ArrayList<IonValue>();
+        Iterator<IonValue> i = system.iterate(readerBuilder.build(data));
+        while (i.hasNext())
+        {
+            values.add(i.next());
+        }
+        return values;
+    }
+
+
+    private static void assertLoads(List<IonValue> expected,
+                                    ParallelTextLoader loader)
+    {
+        for (int parallelism : new int[] { 1, 3 })
+        {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try
+            {
+                List<IonValue> actual = new ArrayList<IonValue>();
+                Iterator<IonValue> i = loader.iterate(pool);
+                while (i.hasNext())
+                {
+                    actual.add(i.next());
+                }
+                assertEquals(expected, actual);
+            }
+            finally
+            {
+                pool.shutdown();
+            }
+        }
+    }
+
+
+    @Test
+    public void testLoadBuffer()
+        throws Exception
+    {
+        byte[] data = values(25).getBytes("UTF-8");
+        List<IonValue> expected = loadSequentially(data);
+        for (int chunkSize : new int[] { 1, 64, 1000, 1 << 20 })
+        {
+            ParallelTextLoader loader =
+                ParallelTextLoader.build(system, readerBuilder,
+                                         ByteBuffer.wrap(data), chunkSize);
+            if (chunkSize < data.length)
+            {
+                assertTrue(loader.chunks() > 1);
+            }
+            assertLoads(expected, loader);
+        }
+    }
+
+
+    @Test
+    public void testLoadDirectBufferSlice()
+        throws Exception
+    {
+        byte[] data = values(26).getBytes("UTF-8");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 10);
+        buffer.position(5);
+        buffer.put(data);
+        buffer.position(5);
+        buffer.limit(5 + data.length);
+        assertLoads(loadSequentially(data),
+                    ParallelTextLoader.build(system, readerBuilder, buffer, 500));
+        assertEquals(5, buffer.position());
+    }
+
+
+    @Test
+    public void testLoadFile()
+        throws Exception
+    {
+        byte[] data = values(27).getBytes("UTF-8");
+        File file = File.createTempFile("ParallelTextLoaderTest", ".ion");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(data);
+        }
+        finally
+        {
+            out.close();
+        }
+        assertLoads(loadSequentially(data),
+                    ParallelTextLoader.build(system, readerBuilder,
+                                             file.toPath(), 300));
+    }
+
+
+    @Test
+    public void testLoadWithSymbolTables()
+        throws Exception
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < VALUES; i++)
+        {
+            if (i % 500 == 0)
+            {
+                text.append("$ion_symbol_table::{ symbols: [\"s")
+                    .append(i).append("\"] }\n");
+            }
+            if (i % 500 == 250)
+            {
+                text.append("$ion_1_0\n");
+            }
+            text.append(i % 500 < 250 ? "{ id: $10 }\n" : "{ id: s }\n");
+        }
+        byte[] data = text.toString().getBytes("UTF-8");
+        List<IonValue> expected = loadSequentially(data);
+        assertEquals(VALUES, expected.size());
+        assertEquals("s500", ((IonStruct) expected.get(500)).get("id").toString());
+        assertLoads(expected,
+                    ParallelTextLoader.build(system, readerBuilder,
+                                             ByteBuffer.wrap(data), 200));
+    }
+
+
+    @Test
+    public void testMalformedDataFailsInPlace()
+        throws Exception
+    {
+        String text = values(28);
+        // a line that starts a value, rather than one within a long string
+        int middle = text.indexOf("\n{ id: ", text.length() / 2) + 1;
+        while (text.charAt(middle + 6) == '-')
+        {
+            middle = text.indexOf("\n{ id: ", middle) + 1;
+        }
+        byte[] data = (text.substring(0, middle) + "{ id: ] }\n" + text.substring(middle))
+            .getBytes("UTF-8");
+
+        int expected = 0;
+        Iterator<IonValue> sequential = system.iterate(readerBuilder.build(data));
+        try
+        {
+            while (sequential.hasNext())
+            {
+                sequential.next();
+                expected++;
+            }
+            fail("Expected IonException");
+        }
+        catch (IonException e)
+        {
+            // expected
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            Iterator<IonValue> i =
+                ParallelTextLoader.build(system, readerBuilder,
+                                         ByteBuffer.wrap(data), 100)
+                                  .iterate(pool);
+            int actual = 0;
+            try
+            {
+                while (i.hasNext())
+                {
+                    i.next();
+                    actual++;
+                }
+                fail("Expected IonException");
+            }
+            catch (IonException e)
+            {
+                // expected
+            }
+            assertEquals(expected, actual);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+
+    @Test(expected = IonException.class)
+    public void testBinaryDataFails()
+        throws Exception
+    {
+        byte[] data = system.newDatagram(system.newInt(1)).getBytes();
+        ParallelTextLoader.build(system, readerBuilder, ByteBuffer.wrap(data));
+    }
+}
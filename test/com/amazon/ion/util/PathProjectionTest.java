@@ -0,0 +1,188 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.amazon.ion.IonDatagram;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.system.IonSystemBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class PathProjectionTest
+{
+    private static final IonSystem SYSTEM = IonSystemBuilder.standard().build();
+
+    private static final String ORDERS =
+        "{ order: { customer: { name: \"A\", id: 1 }, total: 10 },"
+        + " items: [ { sku: \"x\", qty: 1 }, { qty: 2 }, { sku: \"y\" } ] }"
+        + " { order: { customer: null.struct, id: 2 }, items: [] }"
+        + " [ { sku: \"not an item\" } ]"
+        + " { order: { customer: { id: 3, id: 4 } }, 'odd name': (a b c) }";
+
+
+    /** Collects the matches as "path:value" strings. */
+    private static List<String> project(IonReader reader, String... paths)
+        throws IOException
+    {
+        final List<String> matches = new ArrayList<String>();
+        PathProjection.compile(paths).project(reader, new PathProjection.Handler()
+        {
+            public void match(int path, IonReader r)
+            {
+                IonDatagram dg = SYSTEM.newDatagram();
+                dg.add(SYSTEM.newValue(r));
+                matches.add(path + ":" + dg.get(0).toString());
+            }
+        });
+        return matches;
+    }
+
+
+    /** Projects the text, its binary encoding and its DOM. */
+    private static void assertProjects(String data, String[] paths,
+                                       String... expected)
+        throws IOException
+    {
+        IonDatagram dg = SYSTEM.getLoader().load(data);
+        List<String> expectedList = Arrays.asList(expected);
+
+        assertEquals(expectedList, project(SYSTEM.newReader(data), paths));
+        assertEquals(expectedList,
+                     project(SYSTEM.newReader(dg.getBytes()), paths));
+        assertEquals(expectedList, project(SYSTEM.newReader(dg), paths));
+    }
+
+
+    @Test
+    public void testFieldPaths()
+        throws Exception
+    {
+        assertProjects(ORDERS,
+                       new String[] { "order.customer.id", "order.total" },
+                       "0:1", "1:10", "0:3", "0:4");
+    }
+
+
+    @Test
+    public void testWildcards()
+        throws Exception
+    {
+        assertProjects(ORDERS,
+                       new String[] { "items[*].sku" },
+                       "0:\"x\"", "0:\"y\"");
+        assertProjects(ORDERS,
+                       new String[] { "order.*" },
+                       "0:{name:\"A\",id:1}", "0:10",
+                       "0:null.struct", "0:2",
+                       "0:{id:3,id:4}");
+        assertProjects(ORDERS,
+                       new String[] { "[*].sku" },
+                       "0:\"not an item\"");
+    }
+
+
+    @Test
+    public void testIndices()
+        throws Exception
+    {
+        assertProjects(ORDERS,
+                       new String[] { "items[2].sku", "'odd name'[1]",
+                                      "items[0]" },
+                       "2:{sku:\"x\",qty:1}", "0:\"y\"", "1:b");
+        assertProjects("[[1, 2], [3, 4, 5]] ([6]) [7]",
+                       new String[] { "[1][2]", "[0]" },
+                       "1:[1,2]", "0:5", "1:[6]", "1:7");
+    }
+
+
+    @Test
+    public void testOverlappingPaths()
+        throws Exception
+    {
+        // A value is reported once, for the first path it matches.
+        assertProjects("{ a: { b: 1, c: 2 } }",
+                       new String[] { "a.c", "a.*" },
+                       "1:1", "0:2");
+        assertProjects("{ a: { b: 1 } }",
+                       new String[] { "a", "a.b" },
+                       "0:{b:1}");
+    }
+
+
+    @Test
+    public void testProjectToWriter()
+        throws Exception
+    {
+        IonDatagram out = SYSTEM.newDatagram();
+        IonWriter writer = SYSTEM.newWriter(out);
+        PathProjection.compile("order.customer")
+                      .project(SYSTEM.newReader(ORDERS), writer);
+        writer.close();
+        assertEquals(SYSTEM.getLoader().load(
+                         "{name:\"A\",id:1} null.struct {id:3,id:4}"),
+                     out);
+    }
+
+
+    @Test
+    public void testGetPaths()
+    {
+        String[] paths = { "a", "b[0]" };
+        PathProjection projection = PathProjection.compile(paths);
+        assertArrayEquals(paths, projection.getPaths());
+    }
+
+
+    private static void assertInvalid(String path)
+    {
+        try
+        {
+            PathProjection.compile(path);
+            fail("Expected IllegalArgumentException for " + path);
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+
+    @Test
+    public void testInvalidPaths()
+    {
+        assertInvalid("");
+        assertInvalid("a.");
+        assertInvalid("a..b");
+        assertInvalid("a b");
+        assertInvalid("a[");
+        assertInvalid("a[x]");
+        assertInvalid("a[-1]");
+        assertInvalid("a[+1]");
+        assertInvalid("a[]");
+        assertInvalid("'a");
+        assertInvalid("'a\\b'");
+        assertInvalid("a]");
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonSystem;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.SymbolTable;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonReaderBuilder;
+import com.amazon.ion.system.IonSystemBuilder;
+import com.amazon.ion.system.SimpleCatalog;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class TopLevelValueIndexTest
+{
+    private static final int RECORDS = 300;
+
+    private final SimpleCatalog catalog = new SimpleCatalog();
+    private final IonSystem system =
+        IonSystemBuilder.standard().withCatalog(catalog).build();
+    private final IonReaderBuilder readerBuilder =
+        IonReaderBuilder.standard().withCatalog(catalog);
+
+
+    /**
+     * Writes records in three streams with different symbol tables, one of
+     * which imports a shared table. Record i has the key i, except that
+     * every tenth one has a text key, and every eleventh has none. All have
+     * a second key field.
+     */
+    private byte[] records()
+        throws Exception
+    {
+        SymbolTable shared =
+            system.newSharedSymbolTable("shared", 1,
+                                        Arrays.asList("color", "size").iterator());
+        catalog.putTable(shared);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int i = 0;
+        for (int stream = 0; stream < 3; stream++)
+        {
+            IonBinaryWriterBuilder builder = IonBinaryWriterBuilder.standard();
+            if (stream == 1) builder = builder.withImports(shared);
+            IonWriter writer = builder.build(out);
+            for (int end = i + RECORDS / 3; i < end; i++)
+            {
+                writeRecord(writer, i, stream);
+            }
+            writer.close();
+        }
+        return out.toByteArray();
+    }
+
+
+    private static void writeRecord(IonWriter writer, int i, int stream)
+        throws Exception
+    {
+        writer.setTypeAnnotations("record" + stream);
+        writer.stepIn(IonType.STRUCT);
+        writer.setFieldName(stream == 1 ? "color" : "name" + stream);
+        writer.writeSymbol("s" + (i % 7) + "_" + stream);
+        if (i % 11 != 0)
+        {
+            writer.setFieldName("key");
+            if (i % 10 == 0)
+            {
+                writer.writeString("k" + i);
+            }
+            else
+            {
+                writer.writeInt(i);
+            }
+        }
+        writer.setFieldName("key");
+        writer.writeString("duplicate");
+        writer.stepOut();
+    }
+
+
+    private void assertRecord(IonReader reader, int i)
+    {
+        int stream = i / (RECORDS / 3);
+        assertEquals(IonType.STRUCT, reader.next());
+        assertArrayEquals(new String[] { "record" + stream },
+                          reader.getTypeAnnotations());
+        reader.stepIn();
+        reader.next();
+        assertEquals(stream == 1 ? "color" : "name" + stream,
+                     reader.getFieldName());
+        assertEquals("s" + (i % 7) + "_" + stream, reader.stringValue());
+        reader.stepOut();
+    }
+
+
+    private void assertIndex(TopLevelValueIndex index, byte[] data)
+    {
+        assertEquals(RECORDS, index.size());
+        assertEquals(data.length, index.getDataSize());
+        assertEquals("key", index.getKeyField());
+
+        for (int i = 0; i < RECORDS; i += 7)
+        {
+            IonReader reader = index.open(data, i);
+            assertRecord(reader, i);
+            // The reader continues across the later symbol tables.
+            for (int j = i + 1; j < RECORDS; j++)
+            {
+                assertRecord(reader, j);
+            }
+            assertNull(reader.next());
+        }
+
+        for (int i = 0; i < RECORDS; i++)
+        {
+            if (i % 11 == 0)
+            {
+                assertEquals(-1, index.findKey((long) i));
+            }
+            else if (i % 10 == 0)
+            {
+                assertEquals(i, index.findKey("k" + i));
+            }
+            else
+            {
+                assertEquals(i, index.findKey((long) i));
+            }
+        }
+        assertEquals(-1, index.findKey(-5L));
+        // Records without a key are indexed by their second "key" field.
+        assertEquals(0, index.findKey("duplicate"));
+        assertEquals(-1, index.findKey("k11"));
+    }
+
+
+    @Test
+    public void testBuildAndOpen()
+        throws Exception
+    {
+        byte[] data = records();
+        TopLevelValueIndex index =
+            TopLevelValueIndex.build(readerBuilder, data, "key");
+        assertIndex(index, data);
+
+        for (int i = 1; i < RECORDS; i++)
+        {
+            assertTrue(index.getOffset(i - 1) < index.getOffset(i));
+        }
+    }
+
+
+    @Test
+    public void testWriteAndRead()
+        throws Exception
+    {
+        byte[] data = records();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TopLevelValueIndex.build(readerBuilder, data, "key").writeTo(out);
+
+        TopLevelValueIndex index =
+            TopLevelValueIndex.read(readerBuilder,
+                                    new ByteArrayInputStream(out.toByteArray()));
+        assertIndex(index, data);
+    }
+
+
+    @Test
+    public void testFiles()
+        throws Exception
+    {
+        byte[] data = records();
+        File dataFile = File.createTempFile("TopLevelValueIndexTest", ".10n");
+        dataFile.deleteOnExit();
+        File indexFile = File.createTempFile("TopLevelValueIndexTest", ".idx");
+        indexFile.deleteOnExit();
+        OutputStream out = new FileOutputStream(dataFile);
+        try
+        {
+            out.write(data);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        TopLevelValueIndex.build(readerBuilder, dataFile.toPath(), "key")
+                          .write(indexFile.toPath());
+        TopLevelValueIndex index =
+            TopLevelValueIndex.read(readerBuilder, indexFile.toPath());
+        assertEquals(RECORDS, index.size());
+
+        int i = index.findKey(251L);
+        IonReader reader = index.open(dataFile.toPath(), i);
+        try
+        {
+            for (int j = 251; j < RECORDS; j++)
+            {
+                assertRecord(reader, j);
+            }
+            assertNull(reader.next());
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+
+    @Test
+    public void testWithoutKeys()
+        throws Exception
+    {
+        byte[] data = records();
+        TopLevelValueIndex index =
+            TopLevelValueIndex.build(readerBuilder, data, null);
+        assertNull(index.getKeyField());
+        assertEquals(-1, index.findKey(1L));
+        assertRecord(index.open(data, 123), 123);
+    }
+
+
+    @Test
+    public void testErrors()
+        throws Exception
+    {
+        byte[] data = records();
+        TopLevelValueIndex index =
+            TopLevelValueIndex.build(readerBuilder, data, "key");
+        try
+        {
+            index.open(data, RECORDS);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+        try
+        {
+            index.open(new byte[data.length - 1], 0);
+            fail("Expected IonException");
+        }
+        catch (IonException e)
+        {
+            // expected
+        }
+        try
+        {
+            TopLevelValueIndex.build(readerBuilder, "{a:1}".getBytes("UTF-8"), "a");
+            fail("Expected IonException");
+        }
+        catch (IonException e)
+        {
+            // expected
+        }
+        try
+        {
+            TopLevelValueIndex.read(readerBuilder,
+                                    new ByteArrayInputStream("{a:1}".getBytes("UTF-8")));
+            fail("Expected IonException");
+        }
+        catch (IonException e)
+        {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2007-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazon.ion.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazon.ion.IonException;
+import com.amazon.ion.IonReader;
+import com.amazon.ion.IonType;
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.system.IonBinaryWriterBuilder;
+import com.amazon.ion.system.IonReaderBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+
+public class TopLevelValueSplitterTest
+{
+    private static final int VALUES = 2000;
+
+    private final IonReaderBuilder readerBuilder = IonReaderBuilder.standard();
+
+
+    /**
+     * Writes value i as {@code i::{ name: "sN", number: i }} in several
+     * streams, whose symbol tables differ.
+     */
+    private static byte[] values()
+        throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IonWriter writer = null;
+        for (int i = 0; i < VALUES; i++)
+        {
+            if (i % 300 == 0)
+            {
+                if (writer != null) writer.close();
+                writer = IonBinaryWriterBuilder.standard().build(out);
+            }
+            writer.setTypeAnnotations("a" + i);
+            writer.stepIn(IonType.STRUCT);
+            writer.setFieldName("name" + (i / 300));
+            writer.writeSymbol("s" + i);
+            writer.setFieldName("number");
+            writer.writeInt(i);
+            writer.stepOut();
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+
+    private static void assertValue(IonReader reader, int i)
+    {
+        assertEquals(IonType.STRUCT, reader.getType());
+        assertEquals("a" + i, reader.getTypeAnnotations()[0]);
+        reader.stepIn();
+        assertEquals(IonType.SYMBOL, reader.next());
+        assertEquals("name" + (i / 300), reader.getFieldName());
+        assertEquals("s" + i, reader.stringValue());
+        assertEquals(IonType.INT, reader.next());
+        assertEquals(i, reader.intValue());
+        reader.stepOut();
+    }
+
+
+    private static void assertSplits(TopLevelValueSplitter splitter, int parts)
+        throws IOException
+    {
+        List<IonReader> readers = splitter.split(parts);
+        assertEquals(Math.min(parts, VALUES), readers.size());
+        int i = 0;
+        for (IonReader reader : readers)
+        {
+            int start = i;
+            while (reader.next() != null)
+            {
+                assertValue(reader, i++);
+            }
+            assertTrue("empty split", i > start);
+            reader.close();
+        }
+        assertEquals(VALUES, i);
+    }
+
+
+    @Test
+    public void testSplitBuffer()
+        throws Exception
+    {
+        byte[] data = values();
+        TopLevelValueSplitter splitter =
+            TopLevelValueSplitter.build(readerBuilder, ByteBuffer.wrap(data));
+        assertEquals(VALUES, splitter.size());
+        for (int parts : new int[] { 1, 2, 3, 7, 64 })
+        {
+            assertSplits(splitter, parts);
+        }
+    }
+
+
+    @Test
+    public void testSplitDirectBufferSlice()
+        throws Exception
+    {
+        byte[] data = values();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 10);
+        buffer.position(5);
+        buffer.put(data);
+        buffer.position(5);
+        buffer.limit(5 + data.length);
+        assertSplits(TopLevelValueSplitter.build(readerBuilder, buffer), 5);
+        assertEquals(5, buffer.position());
+    }
+
+
+    @Test
+    public void testSplitFile()
+        throws Exception
+    {
+        byte[] data = values();
+        File file = File.createTempFile("TopLevelValueSplitterTest", ".10n");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(data);
+        }
+        finally
+        {
+            out.close();
+        }
+        assertSplits(TopLevelValueSplitter.build(readerBuilder, file.toPath()), 4);
+
+        TopLevelValueIndex index =
+            TopLevelValueIndex.build(readerBuilder, file.toPath(), null);
+        assertSplits(TopLevelValueSplitter.build(index, file.toPath()), 3);
+    }
+
+
+    @Test
+    public void testOpenRange()
+        throws Exception
+    {
+        TopLevelValueSplitter splitter =
+            TopLevelValueSplitter.build(readerBuilder, ByteBuffer.wrap(values()));
+        IonReader reader = splitter.open(299, 301);
+        reader.next();
+        assertValue(reader, 299);
+        reader.next();
+        assertValue(reader, 300);
+        assertNull(reader.next());
+
+        try
+        {
+            splitter.open(5, 5);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+
+
+    @Test
+    public void testForEach()
+        throws Exception
+    {
+        TopLevelValueSplitter splitter =
+            TopLevelValueSplitter.build(readerBuilder, ByteBuffer.wrap(values()));
+        final AtomicIntegerArray seen = new AtomicIntegerArray(VALUES);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            splitter.forEach(pool, 1024, new TopLevelValueSplitter.Handler()
+            {
+                public void value(int value, IonReader reader)
+                {
+                    assertValue(reader, value);
+                    seen.incrementAndGet(value);
+                }
+            });
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        for (int i = 0; i < VALUES; i++)
+        {
+            assertEquals("value " + i, 1, seen.get(i));
+        }
+    }
+
+
+    @Test
+    public void testForEachPropagatesFailures()
+        throws Exception
+    {
+        TopLevelValueSplitter splitter =
+            TopLevelValueSplitter.build(readerBuilder, ByteBuffer.wrap(values()));
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            splitter.forEach(pool, 1024, new TopLevelValueSplitter.Handler()
+            {
+                public void value(int value, IonReader reader)
+                    throws IOException
+                {
+                    if (value == 1234) throw new IOException("failed");
+                }
+            });
+            fail("Expected IonException");
+        }
+        catch (IonException e)
+        {
+            assertEquals("failed", e.getCause().getMessage());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+
+    @Test(expected = IonException.class)
+    public void testTextDataFails()
+        throws Exception
+    {
+        TopLevelValueSplitter.build(readerBuilder,
+                                    ByteBuffer.wrap("{a:1}".getBytes("UTF-8")));
+    }
+}